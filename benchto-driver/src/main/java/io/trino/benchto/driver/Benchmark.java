@@ -27,9 +27,12 @@ import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.Maps.newHashMap;
 import static io.trino.benchto.driver.loader.BenchmarkDescriptor.RESERVED_KEYWORDS;
+import static java.util.Objects.requireNonNull;
 
 public class Benchmark
 {
+    public static final double DEFAULT_CONCURRENCY_SWEEP_MIN_GAIN = 0.1;
+
     private String name;
     private String sequenceId;
     private String dataSource;
@@ -38,6 +41,7 @@ public class Benchmark
     private int runs;
     private int suitePrewarmRuns;
     private int benchmarkPrewarmRuns;
+    private boolean benchmarkPrewarmAuto;
     private int concurrency;
     private List<String> beforeBenchmarkMacros;
     private List<String> afterBenchmarkMacros;
@@ -48,6 +52,21 @@ public class Benchmark
     private Optional<Duration> frequency;
     private boolean throughputTest;
     private Optional<String> queryResults;
+    private Optional<Double> arrivalRate = Optional.empty();
+    private ArrivalDistribution arrivalDistribution = ArrivalDistribution.FIXED;
+    private List<Integer> concurrencySweep = ImmutableList.of();
+    private double concurrencySweepMinGain = DEFAULT_CONCURRENCY_SWEEP_MIN_GAIN;
+    private Optional<Duration> concurrencySweepMaxLatency = Optional.empty();
+    private Optional<Double> targetCiWidth = Optional.empty();
+    private CiStatistic ciStatistic = CiStatistic.MEAN;
+    private int maxRuns;
+    private Optional<Duration> duration = Optional.empty();
+    private List<Double> queryWeights = ImmutableList.of();
+    private FetchMode fetchMode = FetchMode.LOG;
+    private boolean preparedStatements;
+    private ExecutionBackend executionBackend = ExecutionBackend.JDBC;
+    private Optional<Duration> queryTimeout = Optional.empty();
+    private Optional<AbVariant> abVariant = Optional.empty();
 
     private Benchmark()
     {
@@ -98,11 +117,22 @@ public class Benchmark
         return suitePrewarmRuns;
     }
 
+    /**
+     * Number of prewarm runs of every query, or the maximal number of them when {@link #isBenchmarkPrewarmAuto()}.
+     */
     public int getBenchmarkPrewarmRuns()
     {
         return benchmarkPrewarmRuns;
     }
 
+    /**
+     * Whether queries are prewarmed until their duration is stable, instead of a fixed number of runs.
+     */
+    public boolean isBenchmarkPrewarmAuto()
+    {
+        return benchmarkPrewarmAuto;
+    }
+
     public int getConcurrency()
     {
         return concurrency;
@@ -165,6 +195,150 @@ public class Benchmark
         return queryResults;
     }
 
+    /**
+     * Number of queries per second issued by an open-loop throughput test. When empty, queries
+     * are issued by a closed loop of concurrent workers.
+     */
+    public Optional<Double> getArrivalRate()
+    {
+        return arrivalRate;
+    }
+
+    public ArrivalDistribution getArrivalDistribution()
+    {
+        return arrivalDistribution;
+    }
+
+    /**
+     * Increasing concurrency levels a throughput test is executed with, one after another. When empty,
+     * the throughput test is executed once with {@link #getConcurrency()}.
+     */
+    public List<Integer> getConcurrencySweep()
+    {
+        return concurrencySweep;
+    }
+
+    public boolean isConcurrencySweep()
+    {
+        return !concurrencySweep.isEmpty();
+    }
+
+    /**
+     * Minimal relative throughput gain of a concurrency sweep step required to continue with the next step.
+     */
+    public double getConcurrencySweepMinGain()
+    {
+        return concurrencySweepMinGain;
+    }
+
+    /**
+     * Maximal 99th percentile latency of a concurrency sweep step required to continue with the next step.
+     */
+    public Optional<Duration> getConcurrencySweepMaxLatency()
+    {
+        return concurrencySweepMaxLatency;
+    }
+
+    /**
+     * Target width of the 95% confidence interval of query duration, relative to its estimate. When present,
+     * {@link #getRuns()} is the minimal number of runs, and more runs are executed until the target
+     * or {@link #getMaxRuns()} is reached.
+     */
+    public Optional<Double> getTargetCiWidth()
+    {
+        return targetCiWidth;
+    }
+
+    public boolean isAdaptiveRuns()
+    {
+        return targetCiWidth.isPresent();
+    }
+
+    public CiStatistic getCiStatistic()
+    {
+        return ciStatistic;
+    }
+
+    public int getMaxRuns()
+    {
+        return maxRuns;
+    }
+
+    /**
+     * How long every stream of a throughput test keeps executing its queries. When present, it replaces
+     * {@link #getRuns()} and throughput is measured only while all streams are active.
+     */
+    public Optional<Duration> getDuration()
+    {
+        return duration;
+    }
+
+    public boolean isDurationBounded()
+    {
+        return duration.isPresent();
+    }
+
+    /**
+     * Weights of the queries, in the order of {@link #getQueries()}. When present, streams of a throughput test
+     * draw their queries from the weighted distribution instead of executing each query once per run.
+     */
+    public List<Double> getQueryWeights()
+    {
+        return queryWeights;
+    }
+
+    public boolean isWeightedQueryMix()
+    {
+        return !queryWeights.isEmpty();
+    }
+
+    /**
+     * How rows of select queries are fetched when their results are not verified.
+     */
+    public FetchMode getFetchMode()
+    {
+        return fetchMode;
+    }
+
+    /**
+     * Whether queries are executed as prepared statements, prepared once per connection and bound with generated parameters.
+     */
+    public boolean isPreparedStatements()
+    {
+        return preparedStatements;
+    }
+
+    public ExecutionBackend getExecutionBackend()
+    {
+        return executionBackend;
+    }
+
+    /**
+     * Maximum duration of every query, queries running longer are cancelled and recorded as timed out.
+     */
+    public Optional<Duration> getQueryTimeout()
+    {
+        return queryTimeout;
+    }
+
+    public boolean hasQueryTimeouts()
+    {
+        return queryTimeout.isPresent() || queries.stream().anyMatch(query -> query.getTimeout().isPresent());
+    }
+
+    /**
+     * Variant of an A/B test, whose executions are interleaved with executions of the other variant on another data source.
+     */
+    public Optional<AbVariant> getAbVariant()
+    {
+        return abVariant;
+    }
+
+    public boolean isAbTest()
+    {
+        return abVariant.isPresent();
+    }
+
     @Override
     public String toString()
     {
@@ -180,6 +354,7 @@ public class Benchmark
                 .add("runs", runs)
                 .add("suitePrewarmRuns", suitePrewarmRuns)
                 .add("benchmarkPrewarmRuns", benchmarkPrewarmRuns)
+                .add("benchmarkPrewarmAuto", benchmarkPrewarmAuto)
                 .add("concurrency", concurrency)
                 .add("throughputTest", throughputTest)
                 .add("frequency", frequency)
@@ -188,6 +363,21 @@ public class Benchmark
                 .add("beforeExecutionMacros", beforeExecutionMacros)
                 .add("afterExecutionMacros", afterExecutionMacros)
                 .add("query-results", queryResults)
+                .add("arrivalRate", arrivalRate)
+                .add("arrivalDistribution", arrivalDistribution)
+                .add("concurrencySweep", concurrencySweep)
+                .add("concurrencySweepMinGain", concurrencySweepMinGain)
+                .add("concurrencySweepMaxLatency", concurrencySweepMaxLatency)
+                .add("targetCiWidth", targetCiWidth)
+                .add("ciStatistic", ciStatistic)
+                .add("maxRuns", maxRuns)
+                .add("duration", duration)
+                .add("queryWeights", queryWeights)
+                .add("fetchMode", fetchMode)
+                .add("preparedStatements", preparedStatements)
+                .add("executionBackend", executionBackend)
+                .add("queryTimeout", queryTimeout)
+                .add("abVariant", abVariant)
                 .add("variables", variables)
                 .toString();
     }
@@ -205,6 +395,7 @@ public class Benchmark
         return Objects.equal(runs, benchmark.runs) &&
                 Objects.equal(suitePrewarmRuns, benchmark.suitePrewarmRuns) &&
                 Objects.equal(benchmarkPrewarmRuns, benchmark.benchmarkPrewarmRuns) &&
+                Objects.equal(benchmarkPrewarmAuto, benchmark.benchmarkPrewarmAuto) &&
                 Objects.equal(concurrency, benchmark.concurrency) &&
                 Objects.equal(name, benchmark.name) &&
                 Objects.equal(sequenceId, benchmark.sequenceId) &&
@@ -218,7 +409,22 @@ public class Benchmark
                 Objects.equal(variables, benchmark.variables) &&
                 Objects.equal(frequency, benchmark.frequency) &&
                 Objects.equal(throughputTest, benchmark.throughputTest) &&
-                Objects.equal(queryResults, benchmark.queryResults);
+                Objects.equal(queryResults, benchmark.queryResults) &&
+                Objects.equal(arrivalRate, benchmark.arrivalRate) &&
+                Objects.equal(arrivalDistribution, benchmark.arrivalDistribution) &&
+                Objects.equal(concurrencySweep, benchmark.concurrencySweep) &&
+                Objects.equal(concurrencySweepMinGain, benchmark.concurrencySweepMinGain) &&
+                Objects.equal(concurrencySweepMaxLatency, benchmark.concurrencySweepMaxLatency) &&
+                Objects.equal(targetCiWidth, benchmark.targetCiWidth) &&
+                Objects.equal(ciStatistic, benchmark.ciStatistic) &&
+                Objects.equal(maxRuns, benchmark.maxRuns) &&
+                Objects.equal(duration, benchmark.duration) &&
+                Objects.equal(queryWeights, benchmark.queryWeights) &&
+                Objects.equal(fetchMode, benchmark.fetchMode) &&
+                Objects.equal(preparedStatements, benchmark.preparedStatements) &&
+                Objects.equal(executionBackend, benchmark.executionBackend) &&
+                Objects.equal(queryTimeout, benchmark.queryTimeout) &&
+                Objects.equal(abVariant, benchmark.abVariant);
     }
 
     @Override
@@ -232,6 +438,7 @@ public class Benchmark
                 runs,
                 suitePrewarmRuns,
                 benchmarkPrewarmRuns,
+                benchmarkPrewarmAuto,
                 concurrency,
                 beforeBenchmarkMacros,
                 afterBenchmarkMacros,
@@ -240,7 +447,22 @@ public class Benchmark
                 variables,
                 frequency,
                 throughputTest,
-                queryResults);
+                queryResults,
+                arrivalRate,
+                arrivalDistribution,
+                concurrencySweep,
+                concurrencySweepMinGain,
+                concurrencySweepMaxLatency,
+                targetCiWidth,
+                ciStatistic,
+                maxRuns,
+                duration,
+                queryWeights,
+                fetchMode,
+                preparedStatements,
+                executionBackend,
+                queryTimeout,
+                abVariant);
     }
 
     public static class BenchmarkBuilder
@@ -265,6 +487,7 @@ public class Benchmark
             this.benchmark.runs = that.getRuns();
             this.benchmark.suitePrewarmRuns = that.getSuitePrewarmRuns();
             this.benchmark.benchmarkPrewarmRuns = that.getBenchmarkPrewarmRuns();
+            this.benchmark.benchmarkPrewarmAuto = that.isBenchmarkPrewarmAuto();
             this.benchmark.concurrency = that.getConcurrency();
             this.benchmark.frequency = that.getFrequency();
             this.benchmark.throughputTest = that.isThroughputTest();
@@ -273,6 +496,21 @@ public class Benchmark
             this.benchmark.beforeExecutionMacros = ImmutableList.copyOf(that.getBeforeExecutionMacros());
             this.benchmark.afterExecutionMacros = ImmutableList.copyOf(that.getAfterExecutionMacros());
             this.benchmark.queryResults = that.getQueryResults();
+            this.benchmark.arrivalRate = that.getArrivalRate();
+            this.benchmark.arrivalDistribution = that.getArrivalDistribution();
+            this.benchmark.concurrencySweep = that.getConcurrencySweep();
+            this.benchmark.concurrencySweepMinGain = that.getConcurrencySweepMinGain();
+            this.benchmark.concurrencySweepMaxLatency = that.getConcurrencySweepMaxLatency();
+            this.benchmark.targetCiWidth = that.getTargetCiWidth();
+            this.benchmark.ciStatistic = that.getCiStatistic();
+            this.benchmark.maxRuns = that.getMaxRuns();
+            this.benchmark.duration = that.getDuration();
+            this.benchmark.queryWeights = that.getQueryWeights();
+            this.benchmark.fetchMode = that.getFetchMode();
+            this.benchmark.preparedStatements = that.isPreparedStatements();
+            this.benchmark.executionBackend = that.getExecutionBackend();
+            this.benchmark.queryTimeout = that.getQueryTimeout();
+            this.benchmark.abVariant = that.getAbVariant();
             this.benchmark.variables = ImmutableMap.copyOf(that.getVariables());
         }
 
@@ -307,6 +545,12 @@ public class Benchmark
             return this;
         }
 
+        public BenchmarkBuilder withBenchmarkPrewarmAuto(boolean benchmarkPrewarmAuto)
+        {
+            this.benchmark.benchmarkPrewarmAuto = benchmarkPrewarmAuto;
+            return this;
+        }
+
         public BenchmarkBuilder withConcurrency(int concurrency)
         {
             checkArgument(concurrency >= 1, "Concurrency must be greater of equal 1");
@@ -362,9 +606,174 @@ public class Benchmark
             return this;
         }
 
+        public BenchmarkBuilder withArrivalRate(Optional<Double> arrivalRate)
+        {
+            checkArgument(arrivalRate.map(rate -> rate > 0).orElse(true), "Arrival rate must be greater than 0");
+            this.benchmark.arrivalRate = arrivalRate;
+            return this;
+        }
+
+        public BenchmarkBuilder withArrivalDistribution(ArrivalDistribution arrivalDistribution)
+        {
+            this.benchmark.arrivalDistribution = requireNonNull(arrivalDistribution, "arrivalDistribution is null");
+            return this;
+        }
+
+        public BenchmarkBuilder withConcurrencySweep(List<Integer> concurrencySweep)
+        {
+            checkArgument(concurrencySweep.stream().allMatch(concurrency -> concurrency >= 1), "Concurrency sweep levels must be greater or equal 1");
+            for (int i = 1; i < concurrencySweep.size(); i++) {
+                checkArgument(concurrencySweep.get(i) > concurrencySweep.get(i - 1), "Concurrency sweep levels must be increasing: %s", concurrencySweep);
+            }
+            this.benchmark.concurrencySweep = ImmutableList.copyOf(concurrencySweep);
+            return this;
+        }
+
+        public BenchmarkBuilder withConcurrencySweepMinGain(double concurrencySweepMinGain)
+        {
+            checkArgument(concurrencySweepMinGain >= 0, "Concurrency sweep minimal gain must not be negative");
+            this.benchmark.concurrencySweepMinGain = concurrencySweepMinGain;
+            return this;
+        }
+
+        public BenchmarkBuilder withConcurrencySweepMaxLatency(Optional<Duration> concurrencySweepMaxLatency)
+        {
+            this.benchmark.concurrencySweepMaxLatency = requireNonNull(concurrencySweepMaxLatency, "concurrencySweepMaxLatency is null");
+            return this;
+        }
+
+        public BenchmarkBuilder withTargetCiWidth(Optional<Double> targetCiWidth)
+        {
+            checkArgument(targetCiWidth.map(width -> width > 0).orElse(true), "Target confidence interval width must be greater than 0");
+            this.benchmark.targetCiWidth = targetCiWidth;
+            return this;
+        }
+
+        public BenchmarkBuilder withCiStatistic(CiStatistic ciStatistic)
+        {
+            this.benchmark.ciStatistic = requireNonNull(ciStatistic, "ciStatistic is null");
+            return this;
+        }
+
+        public BenchmarkBuilder withMaxRuns(int maxRuns)
+        {
+            this.benchmark.maxRuns = maxRuns;
+            return this;
+        }
+
+        public BenchmarkBuilder withDuration(Optional<Duration> duration)
+        {
+            checkArgument(duration.map(value -> !value.isNegative() && !value.isZero()).orElse(true), "Duration must be positive");
+            this.benchmark.duration = duration;
+            return this;
+        }
+
+        public BenchmarkBuilder withQueryWeights(List<Double> queryWeights)
+        {
+            checkArgument(queryWeights.stream().allMatch(weight -> weight >= 0), "Query weights must not be negative");
+            checkArgument(queryWeights.isEmpty() || queryWeights.stream().mapToDouble(Double::doubleValue).sum() > 0, "Sum of query weights must be positive");
+            this.benchmark.queryWeights = ImmutableList.copyOf(queryWeights);
+            return this;
+        }
+
+        public BenchmarkBuilder withFetchMode(FetchMode fetchMode)
+        {
+            this.benchmark.fetchMode = requireNonNull(fetchMode, "fetchMode is null");
+            return this;
+        }
+
+        public BenchmarkBuilder withPreparedStatements(boolean preparedStatements)
+        {
+            this.benchmark.preparedStatements = preparedStatements;
+            return this;
+        }
+
+        public BenchmarkBuilder withExecutionBackend(ExecutionBackend executionBackend)
+        {
+            this.benchmark.executionBackend = requireNonNull(executionBackend, "executionBackend is null");
+            return this;
+        }
+
+        public BenchmarkBuilder withQueryTimeout(Optional<Duration> queryTimeout)
+        {
+            checkArgument(queryTimeout.map(value -> !value.isNegative() && !value.isZero()).orElse(true), "Query timeout must be positive");
+            this.benchmark.queryTimeout = queryTimeout;
+            return this;
+        }
+
+        public BenchmarkBuilder withAbVariant(AbVariant abVariant)
+        {
+            this.benchmark.abVariant = Optional.of(abVariant);
+            return this;
+        }
+
         public Benchmark build()
         {
+            checkArgument(benchmark.queryWeights.isEmpty() || benchmark.queryWeights.size() == benchmark.queries.size(), "Query weights must be defined for all queries");
+            checkArgument(benchmark.targetCiWidth.isEmpty() || benchmark.maxRuns >= benchmark.runs, "Max runs must be greater or equal runs");
+            checkArgument(!benchmark.benchmarkPrewarmAuto || benchmark.benchmarkPrewarmRuns >= 1, "Max benchmark prewarm runs must be greater or equal 1");
             return benchmark;
         }
     }
+
+    public enum ArrivalDistribution
+    {
+        /**
+         * Queries are issued at evenly spaced intervals.
+         */
+        FIXED,
+        /**
+         * Query inter-arrival times are exponentially distributed, i.e. arrivals form a Poisson process.
+         */
+        POISSON
+    }
+
+    public enum FetchMode
+    {
+        /**
+         * Rows are fetched without reading their values, except for the first rows, which are logged.
+         */
+        LOG,
+        /**
+         * Rows are fetched without reading any values, so only transfer and decoding done by the JDBC driver is measured.
+         */
+        SKIP,
+        /**
+         * All values are read with getters matching column types, which adds the client side cost of consuming the result.
+         */
+        DECODE
+    }
+
+    public enum ExecutionBackend
+    {
+        /**
+         * Queries are executed with the JDBC driver of the data source, each one occupying a thread until it finishes.
+         */
+        JDBC,
+        /**
+         * Queries are executed with the non-blocking Trino statement REST protocol, see {@link io.trino.benchto.driver.execution.HttpQueryExecutionDriver}.
+         */
+        HTTP
+    }
+
+    public enum AbVariant
+    {
+        /**
+         * Benchmark executed on the data source of the benchmark, usually the baseline.
+         */
+        A,
+        /**
+         * Benchmark executed on the A/B test data source, usually the candidate.
+         */
+        B
+    }
+
+    public enum CiStatistic
+    {
+        MEAN,
+        /**
+         * Distribution free confidence interval of the median, which is not affected by outliers.
+         */
+        MEDIAN
+    }
 }
@@ -100,6 +100,33 @@ public class BenchmarkProperties
     @Value("${warmup:false}")
     private String warmup;
 
+    /**
+     * Directory of execution journals. If this property is set, finished benchmarks and executions are recorded locally.
+     */
+    @Value("${journal-dir:#{null}}")
+    private String journalDir;
+
+    /**
+     * Directory of the spool of reports. If this property is set, reports are stored locally first and delivered to the benchmark service in the background.
+     */
+    @Value("${spool-dir:#{null}}")
+    private String spoolDir;
+
+    /**
+     * File of offline results. If this property is set, the benchmark service is not used and results are stored in this file.
+     */
+    @Value("${offline-results:#{null}}")
+    private String offlineResults;
+
+    @Value("${resume:false}")
+    private String resume;
+
+    /**
+     * Shard of benchmarks executed by this driver, in INDEX/COUNT format. If this property is set, only benchmarks assigned to the shard are executed.
+     */
+    @Value("${shard:#{null}}")
+    private String shard;
+
     @Autowired
     private GraphiteProperties graphiteProperties;
 
@@ -174,6 +201,26 @@ public class BenchmarkProperties
         return Paths.get(queryResultsDir);
     }
 
+    public Optional<Path> getJournalDir()
+    {
+        return Optional.ofNullable(journalDir).map(Paths::get);
+    }
+
+    public Optional<Path> getSpoolDir()
+    {
+        return Optional.ofNullable(spoolDir).map(Paths::get);
+    }
+
+    public Optional<Path> getOfflineResults()
+    {
+        return Optional.ofNullable(offlineResults).map(Paths::get);
+    }
+
+    public Optional<String> getShard()
+    {
+        return Optional.ofNullable(shard);
+    }
+
     public QueryRepetitionScope getQueryRepetitionScope()
     {
         return queryRepetitionScope;
@@ -196,6 +243,10 @@ public class BenchmarkProperties
         addForToStringOptionalField(toStringHelper, "afterAllMacros", getAfterAllMacros());
         addForToStringOptionalField(toStringHelper, "healthCheckMacros", getHealthCheckMacros());
         addForToStringOptionalField(toStringHelper, "timeLimit", getTimeLimit());
+        addForToStringOptionalField(toStringHelper, "journalDir", getJournalDir());
+        addForToStringOptionalField(toStringHelper, "spoolDir", getSpoolDir());
+        addForToStringOptionalField(toStringHelper, "offlineResults", getOfflineResults());
+        addForToStringOptionalField(toStringHelper, "shard", getShard());
         return toStringHelper.toString();
     }
 
@@ -229,6 +280,11 @@ public class BenchmarkProperties
         return parseBoolean(warmup);
     }
 
+    public boolean isResume()
+    {
+        return parseBoolean(resume);
+    }
+
     private boolean parseBoolean(String booleanString)
     {
         if (booleanString.equalsIgnoreCase(Boolean.TRUE.toString())) {
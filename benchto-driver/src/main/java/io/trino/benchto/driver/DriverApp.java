@@ -16,15 +16,23 @@ package io.trino.benchto.driver;
 import io.trino.benchto.driver.execution.BenchmarkExecutionResult;
 import io.trino.benchto.driver.execution.ExecutionDriver;
 import io.trino.benchto.driver.execution.QueryExecutionDriver;
+import io.trino.benchto.driver.http.GzipRequestInterceptor;
+import io.trino.benchto.driver.service.OfflineResultsImporter;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.freemarker.FreeMarkerAutoConfiguration;
@@ -43,7 +51,13 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.ui.freemarker.FreeMarkerConfigurationFactoryBean;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.nio.file.Paths;
+import java.time.Duration;
+
 import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.toIntExact;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 @Configuration
 @EnableRetry
@@ -56,6 +70,7 @@ import static com.google.common.base.Preconditions.checkState;
 public class DriverApp
 {
     private static final Logger LOG = LoggerFactory.getLogger(DriverApp.class);
+    private static final int MIN_COMPRESSED_REQUEST_SIZE = 1024;
 
     public static void main(String[] args)
             throws Exception
@@ -75,8 +90,12 @@ public class DriverApp
         }
 
         try (ConfigurableApplicationContext ctx = applicationBuilder.run()) {
-            ExecutionDriver executionDriver = ctx.getBean(ExecutionDriver.class);
             Thread.currentThread().setName("main");
+            if (commandLine.hasOption("import-offline-results")) {
+                ctx.getBean(OfflineResultsImporter.class).importResults(Paths.get(commandLine.getOptionValue("import-offline-results")));
+                return;
+            }
+            ExecutionDriver executionDriver = ctx.getBean(ExecutionDriver.class);
             executionDriver.execute();
         }
         catch (Throwable e) {
@@ -124,6 +143,29 @@ public class DriverApp
         addOption(options, "benchmark-service.url", "String", "URL of Benchto Service", "http://localhost:8080");
         addOption(options, "query-results-dir", "RESULTS_DIR", "directory for query results", "results");
         addOption(options, "warmup", "boolean", "if set no benchmark results will be saved", "false");
+        addOption(options, "journal-dir", "JOURNAL_DIR", "directory for journals of finished benchmarks and executions", "none");
+        addOption(options, "resume", "boolean", "if set benchmarks and executions finished according to the journal are skipped", "false");
+        addOption(options, "shard", "INDEX/COUNT", "shard of benchmarks executed by this driver, all shards need the same executionSequenceId", "all benchmarks");
+        addOption(options, "coordinatedDrivers", "NUMBER", "number of drivers executing throughput benchmarks together, all with the same executionSequenceId", "1");
+        addOption(options, "driverId", "DRIVER_ID", "unique id of this driver among coordinated drivers", "pid@hostname");
+        addOption(options, "dataSourceLanes", "NUMBER", "number of benchmarks using disjoint data sources executed in parallel", "1");
+        addOption(options, "reportingThreads", "NUMBER", "threads passing benchmark events to listeners", "4");
+        addOption(options, "reportingQueueSize", "NUMBER", "maximal number of benchmark events waiting for listeners", "1000");
+        addOption(options, "reportingQueuePolicy", "BLOCK|COALESCE", "handling of benchmark events when the reporting queue is full", "BLOCK");
+        addOption(options, "executionBatchSize", "NUMBER", "executions stored in the benchmark service in one request, 1 disables batching", "1");
+        addOption(options, "executionBatchFlushInterval", "DURATION", "maximal time executions wait to be stored in the benchmark service in a batch", "PT5S");
+        addOption(options, "executionBatchRetries", "NUMBER", "times executions are stored again after storing their batch in the background failed", "3");
+        addOption(options, "spool-dir", "SPOOL_DIR", "directory for reports waiting to be delivered to the benchmark service", "none");
+        addOption(options, "spoolDrainTimeout", "DURATION", "maximal time waiting for spooled reports to be delivered at the end of the run", "PT10M");
+        addOption(options, "offline-results", "FILE", "file storing results when the benchmark service is not available", "none");
+        addOption(options, "import-offline-results", "FILE", "import results stored offline into the benchmark service instead of executing benchmarks", "none");
+        addOption(options, "importBatchSize", "NUMBER", "executions imported into the benchmark service in one request", "1000");
+        addOption(options, "httpConnectTimeout", "DURATION", "timeout of connecting to the benchmark service, Graphite and Presto", "PT10S");
+        addOption(options, "httpReadTimeout", "DURATION", "timeout of waiting for responses of the benchmark service, Graphite and Presto", "PT2M");
+        addOption(options, "httpKeepAlive", "DURATION", "maximal time idle connections are kept open for reuse", "PT30S");
+        addOption(options, "httpMetricsLogInterval", "DURATION", "interval of logging latencies of HTTP requests, PT0S logs them only when the driver finishes", "PT5M");
+        addOption(options, "serviceRequestCompression", "boolean", "if set large requests to the benchmark service are compressed with gzip", "false");
+        addOption(options, "executorThreads", "PLATFORM|VIRTUAL", "threads executing queries, VIRTUAL requires JDK 21 or newer", "PLATFORM");
         options.addOption("h", "help", false, "Display help message.");
         return options;
     }
@@ -156,19 +198,56 @@ public class DriverApp
     }
 
     @Bean
-    public RestTemplate restTemplate()
+    public RestTemplate restTemplate(
+            BenchmarkProperties properties,
+            @Value("${reportingThreads:4}") int reportingThreads,
+            @Value("${httpConnectTimeout:PT10S}") Duration connectTimeout,
+            @Value("${httpReadTimeout:PT2M}") Duration readTimeout,
+            @Value("${httpKeepAlive:PT30S}") Duration keepAlive,
+            @Value("${serviceRequestCompression:false}") boolean serviceRequestCompression)
     {
         RestTemplate restTemplate = new RestTemplate();
         restTemplate.getMessageConverters().add(new MappingJackson2HttpMessageConverter());
-        restTemplate.setRequestFactory(new HttpComponentsClientHttpRequestFactory(HttpClients.createDefault()));
+        restTemplate.setRequestFactory(new HttpComponentsClientHttpRequestFactory(httpClient(reportingThreads, connectTimeout, readTimeout, keepAlive)));
+        if (serviceRequestCompression) {
+            restTemplate.getInterceptors().add(new GzipRequestInterceptor(URI.create(properties.getServiceURL()), MIN_COMPRESSED_REQUEST_SIZE));
+        }
         return restTemplate;
     }
 
+    private static CloseableHttpClient httpClient(int reportingThreads, Duration connectTimeout, Duration readTimeout, Duration keepAlive)
+    {
+        // every reporting thread, the thread executing benchmarks and the report spool can send requests to the same host at once
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setDefaultMaxPerRoute(reportingThreads + 2);
+        connectionManager.setMaxTotal(3 * (reportingThreads + 2));
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(toIntExact(connectTimeout.toMillis()))
+                .setConnectionRequestTimeout(toIntExact(readTimeout.toMillis()))
+                .setSocketTimeout(toIntExact(readTimeout.toMillis()))
+                .build();
+        // connections are kept alive no longer than the server allows, and closed when idle for longer than keepAlive
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive.toMillis()) : keepAlive.toMillis();
+        };
+        // responses compressed with gzip are decompressed by the client, which accepts them by default
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive.toMillis(), MILLISECONDS)
+                .build();
+    }
+
     @Bean
-    public AsyncTaskExecutor defaultTaskExecutor()
+    public AsyncTaskExecutor defaultTaskExecutor(@Value("${reportingThreads:4}") int reportingThreads)
     {
         ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
-        taskExecutor.setMaxPoolSize(5);
+        // the queue is unbounded, so the pool never grows beyond the core size
+        taskExecutor.setCorePoolSize(reportingThreads);
+        taskExecutor.setMaxPoolSize(Math.max(reportingThreads, 5));
         taskExecutor.setWaitForTasksToCompleteOnShutdown(true);
         taskExecutor.setAwaitTerminationSeconds(300);
 
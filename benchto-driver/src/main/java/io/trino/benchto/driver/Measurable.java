@@ -13,10 +13,18 @@
  */
 package io.trino.benchto.driver;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.trino.benchto.driver.service.Measurement;
 import io.trino.benchto.driver.utils.TimeUtils;
 
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkState;
 import static java.time.temporal.ChronoUnit.NANOS;
@@ -27,6 +35,10 @@ public abstract class Measurable
     protected long end;
     protected ZonedDateTime utcStart;
     protected ZonedDateTime utcEnd;
+    // measurements collected by the driver itself while executing
+    protected final List<Measurement> measurements = new ArrayList<>();
+    // attributes collected by the driver itself while executing
+    protected final Map<String, String> attributes = new LinkedHashMap<>();
 
     public ZonedDateTime getUtcStart()
     {
@@ -43,6 +55,16 @@ public abstract class Measurable
         return Duration.of(end - start, NANOS);
     }
 
+    public List<Measurement> getMeasurements()
+    {
+        return ImmutableList.copyOf(measurements);
+    }
+
+    public Map<String, String> getAttributes()
+    {
+        return ImmutableMap.copyOf(attributes);
+    }
+
     public abstract Benchmark getBenchmark();
 
     public abstract String getEnvironment();
@@ -75,6 +97,24 @@ public abstract class Measurable
             return (B) this;
         }
 
+        public B addMeasurement(Measurement measurement)
+        {
+            object.measurements.add(measurement);
+            return (B) this;
+        }
+
+        public B addMeasurements(Collection<Measurement> measurements)
+        {
+            object.measurements.addAll(measurements);
+            return (B) this;
+        }
+
+        public B addAttributes(Map<String, String> attributes)
+        {
+            object.attributes.putAll(attributes);
+            return (B) this;
+        }
+
         public T build()
         {
             return object;
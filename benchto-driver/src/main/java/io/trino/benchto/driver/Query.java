@@ -13,6 +13,7 @@
  */
 package io.trino.benchto.driver;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
 
@@ -21,6 +22,19 @@ import static java.util.Objects.requireNonNull;
 
 public class Query
 {
+    /**
+     * Relative frequency of the query in a weighted query mix of a throughput test.
+     */
+    public static final String WEIGHT_PROPERTY = "weight";
+    /**
+     * Class of the query, e.g. dashboard or etl, throughput and latency of a weighted query mix are reported per class.
+     */
+    public static final String CLASS_PROPERTY = "class";
+    /**
+     * Maximum duration of the query, e.g. PT10M, overrides the query-timeout of the benchmark.
+     */
+    public static final String TIMEOUT_PROPERTY = "timeout";
+
     private final Map<String, String> properties;
     private final String name;
     private final String sqlTemplate;
@@ -52,6 +66,21 @@ public class Query
         return properties.getOrDefault(key, defaultValue);
     }
 
+    public Optional<Double> getWeight()
+    {
+        return getProperty(WEIGHT_PROPERTY).map(Double::valueOf);
+    }
+
+    public String getQueryClass()
+    {
+        return getProperty(CLASS_PROPERTY, name);
+    }
+
+    public Optional<Duration> getTimeout()
+    {
+        return getProperty(TIMEOUT_PROPERTY).map(Duration::parse);
+    }
+
     public Map<String, String> getProperties()
     {
         return properties;
@@ -14,16 +14,53 @@
 package io.trino.benchto.driver.concurrent;
 
 import com.google.common.util.concurrent.ListeningExecutorService;
+import io.trino.benchto.driver.BenchmarkExecutionException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ThreadFactory;
+
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static java.util.concurrent.Executors.newFixedThreadPool;
 
 @Component
 public class ExecutorServiceFactory
 {
+    @Value("${executorThreads:PLATFORM}")
+    private ThreadType threadType = ThreadType.PLATFORM;
+
     public ListeningExecutorService create(int concurrency)
     {
+        if (threadType == ThreadType.VIRTUAL) {
+            return listeningDecorator(newFixedThreadPool(concurrency, virtualThreadFactory()));
+        }
         return listeningDecorator(newFixedThreadPool(concurrency));
     }
+
+    /**
+     * Equivalent of {@code Thread.ofVirtual().name("benchmark-virtual-", 0).factory()}, looked up reflectively
+     * so the driver still builds and runs with platform threads on JDKs older than 21.
+     */
+    private static ThreadFactory virtualThreadFactory()
+    {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "benchmark-virtual-", 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        }
+        catch (NoSuchMethodException | ClassNotFoundException e) {
+            throw new BenchmarkExecutionException("Virtual threads require JDK 21 or newer, running on JDK " + Runtime.version().feature());
+        }
+        catch (IllegalAccessException | InvocationTargetException e) {
+            throw new BenchmarkExecutionException("Could not create virtual thread factory", e);
+        }
+    }
+
+    public enum ThreadType
+    {
+        PLATFORM,
+        VIRTUAL
+    }
 }
@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.concurrent;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.benchto.driver.service.Measurement;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static io.trino.benchto.driver.service.Measurement.measurement;
+
+/**
+ * Collects delays introduced by the driver itself, e.g. between submitting a task and a worker thread starting it.
+ * Safe to use from many threads without locking.
+ */
+public class SchedulingStatistics
+{
+    private static final double NANOS_PER_MILLISECOND = 1_000_000.0;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long delayNanos)
+    {
+        long delay = Math.max(delayNanos, 0);
+        count.increment();
+        totalNanos.add(delay);
+        maxNanos.accumulate(delay);
+    }
+
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    public double getMeanMillis()
+    {
+        long samples = count.sum();
+        return samples == 0 ? 0 : totalNanos.sum() / NANOS_PER_MILLISECOND / samples;
+    }
+
+    public double getMaxMillis()
+    {
+        return maxNanos.get() / NANOS_PER_MILLISECOND;
+    }
+
+    public List<Measurement> toMeasurements()
+    {
+        if (getCount() == 0) {
+            return ImmutableList.of();
+        }
+        return ImmutableList.of(
+                measurement("scheduling_delay_mean", "MILLISECONDS", getMeanMillis()),
+                measurement("scheduling_delay_max", "MILLISECONDS", getMaxMillis()));
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("count", getCount())
+                .add("meanMillis", getMeanMillis())
+                .add("maxMillis", getMaxMillis())
+                .toString();
+    }
+}
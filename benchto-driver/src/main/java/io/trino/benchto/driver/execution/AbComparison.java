@@ -0,0 +1,236 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.benchto.driver.Benchmark;
+import io.trino.benchto.driver.service.Measurement;
+import org.apache.commons.math3.stat.inference.TTest;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.benchto.driver.loader.BenchmarkDescriptor.AB_VARIANT_VARIABLE;
+import static io.trino.benchto.driver.service.Measurement.measurement;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Paired comparison of query durations of A/B test variants. Executions of the same query in the same run
+ * of both variants form a pair, and the mean of differences of their durations is tested with a paired t-test.
+ * As every query is tested separately, p-values are adjusted with the Holm-Bonferroni method, so the probability
+ * of reporting any significant difference when all queries are equally fast stays below {@link #SIGNIFICANCE_LEVEL}.
+ */
+public class AbComparison
+{
+    public static final double SIGNIFICANCE_LEVEL = 0.05;
+
+    private final Map<String, QueryComparison> queries = new LinkedHashMap<>();
+
+    public AbComparison(List<QueryExecutionResult> executionsA, List<QueryExecutionResult> executionsB)
+    {
+        this(durations(executionsA), durations(executionsB));
+    }
+
+    /**
+     * @param durationsA durations of executions of the A variant in milliseconds by query name and run
+     * @param durationsB durations of executions of the B variant in milliseconds by query name and run
+     */
+    AbComparison(Map<String, Map<Integer, Double>> durationsA, Map<String, Map<Integer, Double>> durationsB)
+    {
+        durationsA.forEach((queryName, runsA) -> {
+            Map<Integer, Double> runsB = durationsB.getOrDefault(queryName, Map.of());
+            List<Integer> pairedRuns = runsA.keySet().stream()
+                    .filter(runsB::containsKey)
+                    .collect(toImmutableList());
+            queries.put(queryName, new QueryComparison(
+                    pairedRuns.stream().mapToDouble(runsA::get).toArray(),
+                    pairedRuns.stream().mapToDouble(runsB::get).toArray()));
+        });
+    }
+
+    /**
+     * Groups variants of the same A/B tests, with the A variant first. Benchmarks which are not A/B tests,
+     * or whose other variant is missing, are alone in their groups.
+     */
+    public static List<List<Benchmark>> variants(List<Benchmark> benchmarks)
+    {
+        return benchmarks.stream()
+                .collect(groupingBy(AbComparison::variantsKey, LinkedHashMap::new, toList()))
+                .values().stream()
+                .map(variants -> variants.stream()
+                        .sorted(Comparator.comparing(benchmark -> benchmark.getAbVariant().orElse(Benchmark.AbVariant.A)))
+                        .collect(toImmutableList()))
+                .collect(toImmutableList());
+    }
+
+    private static Object variantsKey(Benchmark benchmark)
+    {
+        if (!benchmark.isAbTest()) {
+            return benchmark;
+        }
+        Map<String, String> variables = benchmark.getNonReservedKeywordVariables();
+        variables.remove(AB_VARIANT_VARIABLE);
+        return List.of(benchmark.getName(), variables);
+    }
+
+    /**
+     * Durations of successful, measured executions by query name and run.
+     */
+    private static Map<String, Map<Integer, Double>> durations(List<QueryExecutionResult> executions)
+    {
+        Map<String, Map<Integer, Double>> durations = new LinkedHashMap<>();
+        executions.stream()
+                .filter(execution -> execution.isSuccessful() && !execution.getQueryExecution().isWarmup())
+                .forEach(execution -> durations.computeIfAbsent(execution.getQueryName(), name -> new TreeMap<>())
+                        .put(execution.getQueryExecution().getSequenceId(), execution.getQueryDuration().toNanos() / 1_000_000.0));
+        return durations;
+    }
+
+    public Map<String, QueryComparison> getQueries()
+    {
+        return queries;
+    }
+
+    /**
+     * P-values of queries adjusted with the Holm-Bonferroni method for the number of tested queries.
+     * Queries without a p-value are not tested, and are missing.
+     */
+    public Map<String, Double> getAdjustedPValues()
+    {
+        List<Map.Entry<String, Double>> pValues = queries.entrySet().stream()
+                .flatMap(entry -> entry.getValue().getPValue().map(pValue -> Map.entry(entry.getKey(), pValue)).stream())
+                .sorted(Map.Entry.comparingByValue())
+                .collect(toImmutableList());
+        Map<String, Double> adjustedPValues = new LinkedHashMap<>();
+        double adjustedPValue = 0;
+        for (int i = 0; i < pValues.size(); i++) {
+            // adjusted p-values must not decrease, so a query is significant only if all queries with lower p-values are
+            adjustedPValue = Math.max(adjustedPValue, Math.min(1, (pValues.size() - i) * pValues.get(i).getValue()));
+            adjustedPValues.put(pValues.get(i).getKey(), adjustedPValue);
+        }
+        return adjustedPValues;
+    }
+
+    public List<Measurement> toMeasurements()
+    {
+        Map<String, Double> adjustedPValues = getAdjustedPValues();
+        ImmutableList.Builder<Measurement> measurements = ImmutableList.builder();
+        queries.forEach((queryName, comparison) -> {
+            measurements.add(measurement("ab_pairs." + queryName, "NONE", comparison.getPairs()));
+            comparison.getMeanDifference().ifPresent(difference -> measurements.add(measurement("ab_difference." + queryName, "MILLISECONDS", difference)));
+            comparison.getRelativeDifference().ifPresent(difference -> measurements.add(measurement("ab_relative_difference." + queryName, "PERCENT", difference * 100)));
+            comparison.getPValue().ifPresent(pValue -> measurements.add(measurement("ab_p_value." + queryName, "NONE", pValue)));
+            Optional.ofNullable(adjustedPValues.get(queryName)).ifPresent(pValue -> measurements.add(measurement("ab_adjusted_p_value." + queryName, "NONE", pValue)));
+        });
+        measurements.add(measurement("ab_significant_regressions", "NONE", queries.entrySet().stream()
+                .filter(entry -> isSignificant(adjustedPValues, entry.getKey()) && entry.getValue().getMeanDifference().orElse(0.0) > 0)
+                .count()));
+        measurements.add(measurement("ab_significant_improvements", "NONE", queries.entrySet().stream()
+                .filter(entry -> isSignificant(adjustedPValues, entry.getKey()) && entry.getValue().getMeanDifference().orElse(0.0) < 0)
+                .count()));
+        return measurements.build();
+    }
+
+    private static boolean isSignificant(Map<String, Double> adjustedPValues, String queryName)
+    {
+        return adjustedPValues.getOrDefault(queryName, 1.0) < SIGNIFICANCE_LEVEL;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("queries", queries)
+                .toString();
+    }
+
+    public static class QueryComparison
+    {
+        private final double[] durationsA;
+        private final double[] durationsB;
+
+        private QueryComparison(double[] durationsA, double[] durationsB)
+        {
+            this.durationsA = durationsA;
+            this.durationsB = durationsB;
+        }
+
+        public int getPairs()
+        {
+            return durationsA.length;
+        }
+
+        /**
+         * Mean of differences of durations of B and A variants in milliseconds, positive when B is slower.
+         */
+        public Optional<Double> getMeanDifference()
+        {
+            if (durationsA.length == 0) {
+                return Optional.empty();
+            }
+            double sum = 0;
+            for (int i = 0; i < durationsA.length; i++) {
+                sum += durationsB[i] - durationsA[i];
+            }
+            return Optional.of(sum / durationsA.length);
+        }
+
+        /**
+         * Mean difference relative to the mean duration of the A variant.
+         */
+        public Optional<Double> getRelativeDifference()
+        {
+            double sumA = 0;
+            for (double duration : durationsA) {
+                sumA += duration;
+            }
+            if (sumA == 0) {
+                return Optional.empty();
+            }
+            double meanA = sumA / durationsA.length;
+            return getMeanDifference().map(difference -> difference / meanA);
+        }
+
+        /**
+         * Two-sided p-value of the paired t-test of the null hypothesis that both variants are equally fast,
+         * not adjusted for comparing multiple queries.
+         */
+        public Optional<Double> getPValue()
+        {
+            if (durationsA.length < 2) {
+                return Optional.empty();
+            }
+            double pValue = new TTest().pairedTTest(durationsB, durationsA);
+            return Double.isNaN(pValue) ? Optional.empty() : Optional.of(pValue);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("pairs", getPairs())
+                    .add("meanDifference", getMeanDifference())
+                    .add("relativeDifference", getRelativeDifference())
+                    .add("pValue", getPValue())
+                    .toString();
+        }
+    }
+}
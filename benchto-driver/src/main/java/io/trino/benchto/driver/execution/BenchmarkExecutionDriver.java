@@ -13,20 +13,37 @@
  */
 package io.trino.benchto.driver.execution;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
 import io.trino.benchto.driver.Benchmark;
+import io.trino.benchto.driver.Benchmark.ExecutionBackend;
 import io.trino.benchto.driver.BenchmarkExecutionException;
 import io.trino.benchto.driver.BenchmarkProperties;
 import io.trino.benchto.driver.Query;
 import io.trino.benchto.driver.concurrent.ExecutorServiceFactory;
+import io.trino.benchto.driver.concurrent.SchedulingStatistics;
 import io.trino.benchto.driver.execution.BenchmarkExecutionResult.BenchmarkExecutionResultBuilder;
 import io.trino.benchto.driver.execution.QueryExecutionResult.QueryExecutionResultBuilder;
+import io.trino.benchto.driver.jdbc.ConnectionPoolMetrics;
+import io.trino.benchto.driver.jdbc.PooledDataSource;
 import io.trino.benchto.driver.listeners.benchmark.BenchmarkStatusReporter;
+import io.trino.benchto.driver.listeners.benchmark.ReportingMetrics;
+import io.trino.benchto.driver.listeners.measurements.ThroughputMeasurementProvider;
 import io.trino.benchto.driver.loader.SqlStatementGenerator;
 import io.trino.benchto.driver.macro.MacroService;
+import io.trino.benchto.driver.service.Measurement;
+import io.trino.benchto.driver.service.ReportSpool;
+import io.trino.benchto.driver.utils.ArrivalScheduleUtils;
+import io.trino.benchto.driver.utils.ConfidenceInterval;
 import io.trino.benchto.driver.utils.PermutationUtils;
+import io.trino.benchto.driver.utils.SteadyStateDetector;
+import io.trino.benchto.driver.utils.WeightedSampler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,25 +55,42 @@ import javax.sql.DataSource;
 import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.trino.benchto.driver.service.Measurement.measurement;
 import static io.trino.benchto.driver.utils.QueryUtils.isSelectQuery;
 import static io.trino.benchto.driver.utils.TimeUtils.nowUtc;
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
@@ -65,9 +99,16 @@ public class BenchmarkExecutionDriver
 {
     private static final Logger LOG = LoggerFactory.getLogger(BenchmarkExecutionDriver.class);
 
+    public static final String ARRIVAL_SEED_ATTRIBUTE = "arrival_seed";
+    public static final String QUERY_MIX_SEED_ATTRIBUTE = "query_mix_seed";
+    public static final String PARTIAL_RESULTS_ATTRIBUTE = "partial_results";
+
     @Autowired
     private QueryExecutionDriver queryExecutionDriver;
 
+    @Autowired
+    private HttpQueryExecutionDriver httpQueryExecutionDriver;
+
     @Autowired
     private BenchmarkStatusReporter statusReporter;
 
@@ -89,6 +130,27 @@ public class BenchmarkExecutionDriver
     @Autowired
     private SqlStatementGenerator sqlStatementGenerator;
 
+    @Autowired
+    private DriverCoordinator driverCoordinator;
+
+    @Autowired
+    private ExecutionJournal executionJournal;
+
+    @Autowired
+    private ReportSpool reportSpool;
+
+    private final Map<Benchmark, SchedulingStatistics> schedulingStatistics = new ConcurrentHashMap<>();
+    private final Map<Benchmark, LatencyRecorder> latencyRecorders = new ConcurrentHashMap<>();
+    private final Map<Benchmark, Map<String, Queue<Integer>>> prewarmRuns = new ConcurrentHashMap<>();
+    private final Map<Benchmark, MeasurementWindow> measurementWindows = new ConcurrentHashMap<>();
+    private final Map<Benchmark, Long> coordinatedDeadlines = new ConcurrentHashMap<>();
+    private final Map<Benchmark, Long> arrivalSeeds = new ConcurrentHashMap<>();
+    private final Map<Benchmark, Long> queryMixSeeds = new ConcurrentHashMap<>();
+    private final Set<Benchmark> resumedBenchmarks = ConcurrentHashMap.newKeySet();
+    // reporting metrics are shared by all benchmarks, so they cannot be attributed to benchmarks executed at the same time in data source lanes
+    private final AtomicInteger runningBenchmarkGroups = new AtomicInteger();
+    private final AtomicLong startedBenchmarkGroups = new AtomicLong();
+
     public List<BenchmarkExecutionResult> execute(List<Benchmark> benchmarks, int benchmarkOrdinalNumber, int benchmarkTotalCount, Optional<ZonedDateTime> executionTimeLimit)
     {
         checkState(benchmarks.size() != 0, "List of benchmarks to execute cannot be empty.");
@@ -109,6 +171,19 @@ public class BenchmarkExecutionDriver
                 benchmarks.stream().allMatch(benchmark -> benchmark.getConcurrency() == firstBenchmark.getConcurrency() &&
                         benchmark.isThroughputTest() == firstBenchmark.isThroughputTest()),
                 "All benchmarks in a group must have the same concurrency and either test throughput or not.");
+        checkState(
+                benchmarks.stream().allMatch(benchmark -> benchmark.getArrivalRate().isPresent() == firstBenchmark.getArrivalRate().isPresent()),
+                "All benchmarks in a group must either have an arrival rate or not.");
+        checkState(
+                benchmarks.stream().allMatch(benchmark -> benchmark.getConcurrencySweep().equals(firstBenchmark.getConcurrencySweep())),
+                "All benchmarks in a group must have the same concurrency sweep.");
+        checkState(
+                benchmarks.stream().allMatch(benchmark -> benchmark.isAdaptiveRuns() == firstBenchmark.isAdaptiveRuns() &&
+                        benchmark.getMaxRuns() == firstBenchmark.getMaxRuns()),
+                "All benchmarks in a group must either use adaptive runs with the same max-runs or not.");
+        checkState(
+                benchmarks.stream().allMatch(benchmark -> benchmark.getDuration().equals(firstBenchmark.getDuration())),
+                "All benchmarks in a group must have the same duration.");
 
         try {
             macroService.runBenchmarkMacros(firstBenchmark.getBeforeBenchmarkMacros(), firstBenchmark);
@@ -197,26 +272,362 @@ public class BenchmarkExecutionDriver
             }
         }
 
+        Map<String, ConnectionPoolMetrics.Snapshot> poolSnapshots = snapshotConnectionPools(validBenchmarks);
+        ReportingMetrics.Snapshot reportingSnapshot = statusReporter.snapshotMetrics();
+        boolean startedAlone = runningBenchmarkGroups.incrementAndGet() == 1;
+        long startedGroups = startedBenchmarkGroups.incrementAndGet();
+        validBenchmarks.forEach(benchmark -> latencyRecorders.put(benchmark, new LatencyRecorder(queryNames(benchmark), queryClasses(benchmark))));
         try {
-            executions = executeQueries(validBenchmarks, firstBenchmark.getRuns(), false, executionTimeLimit);
+            prerenderStatements(validBenchmarks);
+            if (driverCoordinator.isCoordinated(firstBenchmark)) {
+                awaitCoordinatedStart(validBenchmarks, results);
+            }
+            if (firstBenchmark.isConcurrencySweep()) {
+                executions = executeConcurrencySweep(validBenchmarks, results, executionTimeLimit);
+            }
+            else if (firstBenchmark.isAdaptiveRuns()) {
+                executions = executeAdaptiveRuns(validBenchmarks, results, executionTimeLimit);
+            }
+            else {
+                executions = executeQueries(validBenchmarks, firstBenchmark.getRuns(), false, executionTimeLimit);
+            }
         }
         catch (Exception e) {
+            benchmarks.forEach(schedulingStatistics::remove);
+            benchmarks.forEach(latencyRecorders::remove);
+            benchmarks.forEach(prewarmRuns::remove);
+            benchmarks.forEach(measurementWindows::remove);
+            benchmarks.forEach(coordinatedDeadlines::remove);
+            benchmarks.forEach(arrivalSeeds::remove);
+            benchmarks.forEach(queryMixSeeds::remove);
+            benchmarks.forEach(resumedBenchmarks::remove);
+            runningBenchmarkGroups.decrementAndGet();
             return results.values().stream()
                     .map(builder -> builder.withUnexpectedException(e).build())
                     .collect(toList());
         }
         Map<Benchmark, List<QueryExecutionResult>> groups = executions.stream().collect(groupingBy(QueryExecutionResult::getBenchmark, LinkedHashMap::new, toList()));
         groups.forEach((key, value) -> results.get(key).withExecutions(value).endTimer());
+        if (firstBenchmark.isAbTest()) {
+            AbComparison.variants(validBenchmarks).stream()
+                    .filter(variants -> variants.size() == 2)
+                    .forEach(variants -> {
+                        AbComparison comparison = new AbComparison(
+                                groups.getOrDefault(variants.get(0), List.of()),
+                                groups.getOrDefault(variants.get(1), List.of()));
+                        LOG.info("A/B comparison of benchmark {} on data sources {} and {}: {}",
+                                firstBenchmark.getName(), variants.get(0).getDataSource(), variants.get(1).getDataSource(), comparison);
+                        results.get(variants.get(1)).addMeasurements(comparison.toMeasurements());
+                    });
+        }
+        results.forEach((benchmark, builder) -> Optional.ofNullable(schedulingStatistics.remove(benchmark))
+                .ifPresent(statistics -> {
+                    LOG.info("Driver scheduling delay for benchmark {}: {}", benchmark.getName(), statistics);
+                    builder.addMeasurements(statistics.toMeasurements());
+                }));
+        results.forEach((benchmark, builder) -> Optional.ofNullable(latencyRecorders.remove(benchmark))
+                .ifPresent(latencyRecorder -> builder
+                        .addMeasurements(latencyRecorder.toMeasurements())
+                        .addAttributes(latencyRecorder.toAttributes())));
+        results.forEach((benchmark, builder) -> Optional.ofNullable(prewarmRuns.remove(benchmark))
+                .ifPresent(runsPerQuery -> {
+                    LOG.info("Automatic prewarm runs for benchmark {}: {}", benchmark.getName(), runsPerQuery);
+                    int maxPrewarmRuns = runsPerQuery.values().stream()
+                            .flatMap(Queue::stream)
+                            .mapToInt(Integer::intValue)
+                            .max()
+                            .orElse(0);
+                    builder.addMeasurement(measurement("prewarm_runs_max", "NONE", maxPrewarmRuns));
+                    runsPerQuery.forEach((queryName, counts) -> builder.addAttributes(Map.of(
+                            "prewarm_runs." + queryName,
+                            counts.stream().map(String::valueOf).collect(Collectors.joining(",")))));
+                }));
+        benchmarks.forEach(coordinatedDeadlines::remove);
+        results.forEach((benchmark, builder) -> Optional.ofNullable(arrivalSeeds.remove(benchmark))
+                .ifPresent(seed -> builder.addAttributes(Map.of(ARRIVAL_SEED_ATTRIBUTE, String.valueOf(seed)))));
+        results.forEach((benchmark, builder) -> Optional.ofNullable(queryMixSeeds.remove(benchmark))
+                .ifPresent(seed -> builder.addAttributes(Map.of(QUERY_MIX_SEED_ATTRIBUTE, String.valueOf(seed)))));
+        results.forEach((benchmark, builder) -> {
+            if (resumedBenchmarks.remove(benchmark)) {
+                // executions finished before the resume are stored in the service, but measurements of the driver do not include them
+                LOG.warn("Measurements of benchmark {} only include executions after the resume", benchmark.getName());
+                builder.addAttributes(Map.of(PARTIAL_RESULTS_ATTRIBUTE, "true"));
+            }
+        });
+        if (driverCoordinator.isCoordinated(firstBenchmark)) {
+            results.values().forEach(builder -> builder.addAttributes(Map.of(DriverCoordinator.DRIVER_ID_ATTRIBUTE, driverCoordinator.getDriverId())));
+        }
+        results.forEach((benchmark, builder) -> Optional.ofNullable(measurementWindows.remove(benchmark))
+                .ifPresent(window -> {
+                    LOG.info("Measurement window of benchmark {}: {}", benchmark.getName(), window);
+                    builder.withMeasurementWindow(window)
+                            .addMeasurements(window.toMeasurements());
+                }));
+        poolSnapshots.forEach((dataSourceName, before) -> {
+            List<Measurement> poolMeasurements = getPooledDataSource(dataSourceName).get().getMetrics().snapshot().measurementsSince(before);
+            LOG.info("Connection pool usage for data source {}: {}", dataSourceName, poolMeasurements);
+            results.forEach((benchmark, builder) -> {
+                if (benchmark.getDataSource().equals(dataSourceName)) {
+                    builder.addMeasurements(poolMeasurements);
+                }
+            });
+        });
+        boolean executedAlone = startedAlone && startedBenchmarkGroups.get() == startedGroups;
+        runningBenchmarkGroups.decrementAndGet();
+        if (executedAlone) {
+            List<Measurement> reportingMeasurements = statusReporter.measurementsSince(reportingSnapshot);
+            LOG.info("Reporting of benchmark {}: {}", firstBenchmark.getName(), reportingMeasurements);
+            results.values().forEach(builder -> builder.addMeasurements(reportingMeasurements));
+        }
+        else {
+            LOG.info("Reporting measurements of benchmark {} are skipped, since benchmarks of other data source lanes were executed at the same time", firstBenchmark.getName());
+        }
 
         return results.values().stream()
                 .map(builder -> {
                     BenchmarkExecutionResult result = builder.build();
                     statusReporter.reportBenchmarkFinished(result);
+                    executionSynchronizer.awaitAfterBenchmarkExecutionAndBeforeResultReport(result.getBenchmark());
                     return result;
                 })
                 .collect(toImmutableList());
     }
 
+    /**
+     * Waits until all drivers executing the benchmarks joined them. Benchmark timers are restarted,
+     * so the time spent waiting for other drivers is not measured.
+     */
+    private void awaitCoordinatedStart(List<Benchmark> benchmarks, Map<Benchmark, BenchmarkExecutionResultBuilder> results)
+    {
+        // benchmark runs have to be started in the service before drivers can join them
+        statusReporter.awaitAllFutures(10, MINUTES);
+        reportSpool.awaitDelivered();
+        for (Benchmark benchmark : benchmarks) {
+            driverCoordinator.awaitStart(benchmark)
+                    .ifPresent(deadline -> coordinatedDeadlines.put(benchmark, System.nanoTime() + Duration.between(Instant.now(), deadline).toNanos()));
+            results.get(benchmark).startTimer();
+        }
+    }
+
+    /**
+     * Executes the throughput test with increasing concurrency levels, until throughput stops growing or latency exceeds the limit.
+     * Statistics of every step, the saturation point and fitted Universal Scalability Law coefficients are added to benchmark results.
+     */
+    private List<QueryExecutionResult> executeConcurrencySweep(
+            List<Benchmark> benchmarks,
+            Map<Benchmark, BenchmarkExecutionResultBuilder> results,
+            Optional<ZonedDateTime> executionTimeLimit)
+    {
+        Benchmark firstBenchmark = benchmarks.get(0);
+        Map<Benchmark, ConcurrencySweepStatistics> sweepStatistics = benchmarks.stream().collect(toMap(
+                Function.identity(),
+                benchmark -> new ConcurrencySweepStatistics(benchmark.getConcurrencySweepMinGain(), benchmark.getConcurrencySweepMaxLatency())));
+        ImmutableList.Builder<QueryExecutionResult> executions = ImmutableList.builder();
+        for (int concurrency : firstBenchmark.getConcurrencySweep()) {
+            LOG.info("Running concurrency sweep step with concurrency {}", concurrency);
+            long stepStart = System.nanoTime();
+            List<QueryExecutionResult> stepExecutions = executeQueries(benchmarks, concurrency, firstBenchmark.getRuns(), false, executionTimeLimit);
+            Duration stepDuration = Duration.ofNanos(System.nanoTime() - stepStart);
+            executions.addAll(stepExecutions);
+
+            Map<Benchmark, List<QueryExecutionResult>> stepGroups = stepExecutions.stream().collect(groupingBy(QueryExecutionResult::getBenchmark));
+            boolean saturated = false;
+            for (Benchmark benchmark : benchmarks) {
+                List<QueryExecutionResult> benchmarkExecutions = stepGroups.getOrDefault(benchmark, List.of());
+                long successful = benchmarkExecutions.stream().filter(QueryExecutionResult::isSuccessful).count();
+                Duration latencyP99 = LatencyRecorder.recordAll(List.of(), benchmarkExecutions).getLatencyAtPercentile(99.0);
+                ConcurrencySweepStatistics statistics = sweepStatistics.get(benchmark);
+                statistics.addStep(concurrency, ThroughputMeasurementProvider.calculateThroughput(successful, stepDuration), latencyP99);
+                saturated |= statistics.isSaturated();
+            }
+            if (saturated) {
+                LOG.info("Stopping concurrency sweep at concurrency {}, throughput does not grow or latency exceeds the limit", concurrency);
+                break;
+            }
+            if (isTimeLimitExceeded(executionTimeLimit)) {
+                LOG.warn("Interrupting concurrency sweep of benchmark {} due to time limit exceeded", firstBenchmark.getName());
+                break;
+            }
+        }
+        sweepStatistics.forEach((benchmark, statistics) -> {
+            LOG.info("Concurrency sweep of benchmark {}: {}", benchmark.getName(), statistics);
+            results.get(benchmark).addMeasurements(statistics.toMeasurements());
+        });
+        return executions.build();
+    }
+
+    /**
+     * Executes the minimal number of runs and then keeps adding runs of benchmarks, until the confidence interval
+     * of duration of every query is narrower than the target or the maximal number of runs is reached.
+     */
+    private List<QueryExecutionResult> executeAdaptiveRuns(
+            List<Benchmark> benchmarks,
+            Map<Benchmark, BenchmarkExecutionResultBuilder> results,
+            Optional<ZonedDateTime> executionTimeLimit)
+    {
+        Benchmark firstBenchmark = benchmarks.get(0);
+        List<QueryExecutionResult> executions = new ArrayList<>(executeQueries(benchmarks, firstBenchmark.getRuns(), false, executionTimeLimit));
+        Map<Benchmark, Integer> runs = new LinkedHashMap<>();
+        benchmarks.forEach(benchmark -> runs.put(benchmark, benchmark.getRuns()));
+        List<Benchmark> pendingBenchmarks = new ArrayList<>(benchmarks);
+        for (int run = firstBenchmark.getRuns() + 1; run <= firstBenchmark.getMaxRuns(); run++) {
+            Map<Benchmark, List<QueryExecutionResult>> groups = executions.stream().collect(groupingBy(QueryExecutionResult::getBenchmark));
+            pendingBenchmarks.removeIf(benchmark -> isConverged(benchmark, groups.getOrDefault(benchmark, List.of())));
+            if (firstBenchmark.isAbTest()) {
+                // variants are compared run by run, so both keep running until both converged
+                List<Benchmark> pendingVariants = AbComparison.variants(benchmarks).stream()
+                        .filter(variants -> variants.stream().anyMatch(pendingBenchmarks::contains))
+                        .flatMap(List::stream)
+                        .collect(toImmutableList());
+                pendingBenchmarks.clear();
+                pendingBenchmarks.addAll(pendingVariants);
+            }
+            if (pendingBenchmarks.isEmpty()) {
+                break;
+            }
+            if (isTimeLimitExceeded(executionTimeLimit)) {
+                LOG.warn("Interrupting adaptive runs of benchmark {} due to time limit exceeded", firstBenchmark.getName());
+                break;
+            }
+            LOG.info("Executing run {} of {} benchmarks with too wide confidence interval", run, pendingBenchmarks.size());
+            executions.addAll(executeRun(pendingBenchmarks, run));
+            int finalRun = run;
+            pendingBenchmarks.forEach(benchmark -> runs.put(benchmark, finalRun));
+        }
+
+        Map<Benchmark, List<QueryExecutionResult>> groups = executions.stream().collect(groupingBy(QueryExecutionResult::getBenchmark));
+        for (Benchmark benchmark : benchmarks) {
+            BenchmarkExecutionResultBuilder result = results.get(benchmark);
+            Optional<ConfidenceInterval> confidenceInterval = widestConfidenceInterval(benchmark, groups.getOrDefault(benchmark, List.of()));
+            LOG.info("Benchmark {} executed {} runs, confidence interval of query duration: {}", benchmark.getName(), runs.get(benchmark), confidenceInterval);
+            result.addMeasurement(measurement("runs", "NONE", runs.get(benchmark)));
+            confidenceInterval.ifPresent(interval -> result
+                    .addMeasurement(measurement("ci_lower", "MILLISECONDS", interval.getLower()))
+                    .addMeasurement(measurement("ci_upper", "MILLISECONDS", interval.getUpper()))
+                    .addMeasurement(measurement("ci_relative_width", "NONE", interval.getRelativeWidth())));
+        }
+        return ImmutableList.copyOf(executions);
+    }
+
+    private static boolean isConverged(Benchmark benchmark, List<QueryExecutionResult> executions)
+    {
+        return widestConfidenceInterval(benchmark, executions)
+                .map(interval -> interval.getRelativeWidth() <= benchmark.getTargetCiWidth().orElseThrow())
+                .orElse(false);
+    }
+
+    /**
+     * Confidence interval of successful execution durations of the least stable query of the benchmark,
+     * empty if it cannot be computed yet for some query.
+     */
+    private static Optional<ConfidenceInterval> widestConfidenceInterval(Benchmark benchmark, List<QueryExecutionResult> executions)
+    {
+        Map<String, List<Double>> durations = executions.stream()
+                .filter(execution -> !execution.getQueryExecution().isWarmup() && execution.isSuccessful())
+                .collect(groupingBy(QueryExecutionResult::getQueryName, mapping(execution -> execution.getQueryDuration().toNanos() / 1_000_000.0, toList())));
+        Optional<ConfidenceInterval> widest = Optional.empty();
+        for (String queryName : queryNames(benchmark)) {
+            List<Double> queryDurations = durations.getOrDefault(queryName, List.of());
+            Optional<ConfidenceInterval> confidenceInterval = benchmark.getCiStatistic() == Benchmark.CiStatistic.MEDIAN
+                    ? ConfidenceInterval.ofMedian(queryDurations, ConfidenceInterval.DEFAULT_CONFIDENCE)
+                    : ConfidenceInterval.ofMean(queryDurations, ConfidenceInterval.DEFAULT_CONFIDENCE);
+            if (confidenceInterval.isEmpty()) {
+                return Optional.empty();
+            }
+            if (widest.isEmpty() || confidenceInterval.get().getRelativeWidth() > widest.get().getRelativeWidth()) {
+                widest = confidenceInterval;
+            }
+        }
+        return widest;
+    }
+
+    /**
+     * Executes a single additional run of every query of the benchmarks, without benchmark prewarm. Variants of A/B tests
+     * are interleaved and executions finished before the driver was interrupted are skipped, like in other runs.
+     */
+    private List<QueryExecutionResult> executeRun(List<Benchmark> benchmarks, int run)
+    {
+        ListeningExecutorService executorService = executorServiceFactory.create(benchmarks.get(0).getConcurrency());
+        try {
+            List<Callable<List<QueryExecutionResult>>> queryExecutionCallables;
+            if (benchmarks.get(0).isAbTest()) {
+                queryExecutionCallables = AbComparison.variants(benchmarks).stream()
+                        .flatMap(variants -> variants.get(0).getQueries().stream()
+                                .flatMap(query -> buildAbRunCallables(variants, query, run).stream()))
+                        .collect(toList());
+            }
+            else {
+                queryExecutionCallables = benchmarks.stream()
+                        .flatMap(benchmark -> benchmark.getQueries().stream()
+                                .filter(query -> !isFinishedBeforeResume(benchmark, query, run))
+                                .map(query -> singleExecution(buildQueryExecutionCallable(benchmark, query, false, run))))
+                        .collect(toList());
+            }
+            return invokeAll(executorService, queryExecutionCallables);
+        }
+        catch (InterruptedException | ExecutionException e) {
+            throw new BenchmarkExecutionException("Could not execute benchmark", e);
+        }
+        finally {
+            executorService.shutdown();
+        }
+    }
+
+    private static List<String> queryNames(Benchmark benchmark)
+    {
+        return benchmark.getQueries().stream()
+                .map(Query::getName)
+                .collect(toImmutableList());
+    }
+
+    /**
+     * Compiles query templates and renders statements which do not depend on the execution before the measured runs,
+     * so measured executions only look them up in the caches of {@link SqlStatementGenerator}.
+     */
+    private void prerenderStatements(List<Benchmark> benchmarks)
+    {
+        for (Benchmark benchmark : benchmarks) {
+            for (Query query : benchmark.getQueries()) {
+                sqlStatementGenerator.prerender(query, benchmark.getNonReservedKeywordVariables());
+            }
+        }
+    }
+
+    /**
+     * Classes of the queries of a weighted query mix, latencies of other benchmarks are not reported per class.
+     */
+    private static Map<String, String> queryClasses(Benchmark benchmark)
+    {
+        if (!benchmark.isWeightedQueryMix()) {
+            return ImmutableMap.of();
+        }
+        return benchmark.getQueries().stream()
+                .collect(toImmutableMap(Query::getName, Query::getQueryClass, (first, second) -> first));
+    }
+
+    private Map<String, ConnectionPoolMetrics.Snapshot> snapshotConnectionPools(List<Benchmark> benchmarks)
+    {
+        Map<String, ConnectionPoolMetrics.Snapshot> snapshots = new LinkedHashMap<>();
+        benchmarks.stream()
+                .map(Benchmark::getDataSource)
+                .distinct()
+                .forEach(dataSourceName -> getPooledDataSource(dataSourceName)
+                        .ifPresent(dataSource -> snapshots.put(dataSourceName, dataSource.getMetrics().snapshot())));
+        return snapshots;
+    }
+
+    private Optional<PooledDataSource> getPooledDataSource(String dataSourceName)
+    {
+        if (applicationContext == null || dataSourceName == null || !applicationContext.containsBean(dataSourceName)) {
+            return Optional.empty();
+        }
+        DataSource dataSource = applicationContext.getBean(dataSourceName, DataSource.class);
+        if (dataSource instanceof PooledDataSource) {
+            return Optional.of((PooledDataSource) dataSource);
+        }
+        return Optional.empty();
+    }
+
     private static Map<Benchmark, String> getComparisonFailures(List<QueryExecutionResult> executions)
     {
         Map<Benchmark, List<QueryExecutionResult>> groups = executions.stream().collect(groupingBy(QueryExecutionResult::getBenchmark, LinkedHashMap::new, toList()));
@@ -239,34 +650,53 @@ public class BenchmarkExecutionDriver
                 .build();
     }
 
-    @SuppressWarnings("unchecked")
     private List<QueryExecutionResult> executeQueries(List<Benchmark> benchmarks, int runs, boolean warmup, Optional<ZonedDateTime> executionTimeLimit)
+    {
+        if (benchmarks.size() == 0) {
+            return List.of();
+        }
+        return executeQueries(benchmarks, benchmarks.get(0).getConcurrency(), runs, warmup, executionTimeLimit);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<QueryExecutionResult> executeQueries(List<Benchmark> benchmarks, int concurrency, int runs, boolean warmup, Optional<ZonedDateTime> executionTimeLimit)
     {
         if (benchmarks.size() == 0) {
             return List.of();
         }
         Benchmark firstBenchmark = benchmarks.get(0);
-        ListeningExecutorService executorService = executorServiceFactory.create(firstBenchmark.getConcurrency());
+        ListeningExecutorService executorService = executorServiceFactory.create(concurrency);
         try {
-            if (firstBenchmark.isThroughputTest()) {
-                List<Callable<List<QueryExecutionResult>>> queryExecutionCallables = benchmarks.stream()
-                        .flatMap(benchmark -> buildConcurrencyQueryExecutionCallables(benchmark, runs, warmup, executionTimeLimit).stream())
+            if (firstBenchmark.isThroughputTest() && firstBenchmark.getArrivalRate().isPresent() && !warmup) {
+                return executeOpenLoopQueries(benchmarks, runs, executorService, executionTimeLimit);
+            }
+            else if (firstBenchmark.isThroughputTest()) {
+                List<ListenableFuture<List<QueryExecutionResult>>> executionFutures = benchmarks.stream()
+                        .flatMap(benchmark -> startConcurrencyStreams(benchmark, concurrency, runs, warmup, executionTimeLimit, executorService).stream())
                         .collect(toImmutableList());
-                List<ListenableFuture<List<QueryExecutionResult>>> executionFutures = (List) executorService.invokeAll(queryExecutionCallables);
-                return Futures.allAsList(executionFutures).get().stream()
+                List<List<QueryExecutionResult>> streams = Futures.allAsList(executionFutures).get();
+                if (firstBenchmark.isDurationBounded() && !warmup) {
+                    recordMeasurementWindows(benchmarks, concurrency, streams);
+                }
+                return streams.stream()
                         .flatMap(List::stream)
                         .collect(toImmutableList());
             }
+            else if (firstBenchmark.isAbTest() && !warmup) {
+                List<Callable<List<QueryExecutionResult>>> queryExecutionCallables = AbComparison.variants(benchmarks).stream()
+                        .flatMap(variants -> buildAbQueryExecutionCallables(variants, runs).stream())
+                        .collect(toImmutableList());
+                return invokeAll(executorService, queryExecutionCallables);
+            }
             else {
                 int numberOfBenchmarkRuns = properties.getQueryRepetitionScope() == BenchmarkProperties.QueryRepetitionScope.SUITE ? runs : 1;
                 int numberOfQueryRuns = properties.getQueryRepetitionScope() == BenchmarkProperties.QueryRepetitionScope.BENCHMARK ? runs : 1;
-                List<Callable<QueryExecutionResult>> queryExecutionCallables = IntStream.rangeClosed(1, numberOfBenchmarkRuns)
+                List<Callable<List<QueryExecutionResult>>> queryExecutionCallables = IntStream.rangeClosed(1, numberOfBenchmarkRuns)
                         .boxed()
                         .flatMap(run -> benchmarks.stream()
                                 .flatMap(benchmark -> buildQueryExecutionCallables(benchmark, run, warmup, numberOfQueryRuns).stream()))
                         .collect(toList());
-                List<ListenableFuture<QueryExecutionResult>> executionFutures = (List) executorService.invokeAll(queryExecutionCallables);
-                return Futures.allAsList(executionFutures).get();
+                return invokeAll(executorService, queryExecutionCallables);
             }
         }
         catch (InterruptedException | ExecutionException e) {
@@ -277,105 +707,492 @@ public class BenchmarkExecutionDriver
         }
     }
 
-    private List<Callable<QueryExecutionResult>> buildQueryExecutionCallables(Benchmark benchmark, int benchmarkRun, boolean suiteWarmup, int queryRuns)
+    /**
+     * Every callable returns the results of one or more executions, e.g. all executions of an automatic prewarm.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<QueryExecutionResult> invokeAll(ListeningExecutorService executorService, List<Callable<List<QueryExecutionResult>>> queryExecutionCallables)
+            throws InterruptedException, ExecutionException
+    {
+        List<ListenableFuture<List<QueryExecutionResult>>> executionFutures = (List) executorService.invokeAll(queryExecutionCallables);
+        return Futures.allAsList(executionFutures).get().stream()
+                .flatMap(List::stream)
+                .collect(toImmutableList());
+    }
+
+    private static Callable<List<QueryExecutionResult>> singleExecution(Callable<QueryExecutionResult> callable)
+    {
+        return () -> ImmutableList.of(callable.call());
+    }
+
+    private List<Callable<List<QueryExecutionResult>>> buildQueryExecutionCallables(Benchmark benchmark, int benchmarkRun, boolean suiteWarmup, int queryRuns)
     {
-        List<Callable<QueryExecutionResult>> executionCallables = newArrayList();
+        List<Callable<List<QueryExecutionResult>>> executionCallables = newArrayList();
         for (Query query : benchmark.getQueries()) {
             // warmup locally, but skip local warmup during global warmup
-            if (!suiteWarmup) {
+            if (!suiteWarmup && benchmark.isBenchmarkPrewarmAuto()) {
+                executionCallables.add(buildAutoPrewarmCallable(benchmark, query));
+            }
+            else if (!suiteWarmup) {
                 for (int queryRun = 1; queryRun <= benchmark.getBenchmarkPrewarmRuns(); queryRun++) {
-                    executionCallables.add(buildQueryExecutionCallable(benchmark, query, true, queryRun));
+                    executionCallables.add(singleExecution(buildQueryExecutionCallable(benchmark, query, true, queryRun)));
                 }
             }
             // real benchmark
             for (int queryRun = 1; queryRun <= queryRuns; queryRun++) {
                 int run = properties.getQueryRepetitionScope() == BenchmarkProperties.QueryRepetitionScope.BENCHMARK ? queryRun : benchmarkRun;
-                executionCallables.add(buildQueryExecutionCallable(benchmark, query, suiteWarmup, run));
+                if (!suiteWarmup && isFinishedBeforeResume(benchmark, query, run)) {
+                    continue;
+                }
+                executionCallables.add(singleExecution(buildQueryExecutionCallable(benchmark, query, suiteWarmup, run)));
             }
         }
         return executionCallables;
     }
 
+    /**
+     * Interleaves executions of both variants of an A/B test in ABBA order, so a drift of the clusters during the benchmark
+     * affects both variants alike. A variant without the other one is executed as usual.
+     */
+    private List<Callable<List<QueryExecutionResult>>> buildAbQueryExecutionCallables(List<Benchmark> variants, int runs)
+    {
+        if (variants.size() == 1) {
+            return buildQueryExecutionCallables(variants.get(0), 1, false, runs);
+        }
+        List<Callable<List<QueryExecutionResult>>> executionCallables = newArrayList();
+        for (Query query : variants.get(0).getQueries()) {
+            for (Benchmark benchmark : variants) {
+                if (benchmark.isBenchmarkPrewarmAuto()) {
+                    executionCallables.add(buildAutoPrewarmCallable(benchmark, query));
+                    continue;
+                }
+                for (int queryRun = 1; queryRun <= benchmark.getBenchmarkPrewarmRuns(); queryRun++) {
+                    executionCallables.add(singleExecution(buildQueryExecutionCallable(benchmark, query, true, queryRun)));
+                }
+            }
+            for (int run = 1; run <= runs; run++) {
+                executionCallables.addAll(buildAbRunCallables(variants, query, run));
+            }
+        }
+        return executionCallables;
+    }
+
+    private List<Callable<List<QueryExecutionResult>>> buildAbRunCallables(List<Benchmark> variants, Query query, int run)
+    {
+        List<Benchmark> order = run % 2 == 1 ? variants : Lists.reverse(variants);
+        return order.stream()
+                .filter(benchmark -> !isFinishedBeforeResume(benchmark, query, run))
+                .map(benchmark -> singleExecution(buildQueryExecutionCallable(benchmark, query, false, run)))
+                .collect(toImmutableList());
+    }
+
+    /**
+     * Executions finished before the driver was interrupted are already reported.
+     */
+    private boolean isFinishedBeforeResume(Benchmark benchmark, Query query, int run)
+    {
+        if (properties.isResume() && executionJournal.isExecutionFinished(benchmark, query.getName(), run)) {
+            resumedBenchmarks.add(benchmark);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Runs prewarm executions of the query until their durations stabilize or the maximum number
+     * of prewarm runs is reached. Returns results of all prewarm executions, up to the first failed one.
+     */
+    private Callable<List<QueryExecutionResult>> buildAutoPrewarmCallable(Benchmark benchmark, Query query)
+    {
+        return () -> {
+            SteadyStateDetector detector = new SteadyStateDetector();
+            ImmutableList.Builder<QueryExecutionResult> results = ImmutableList.builder();
+            int queryRun = 0;
+            while (queryRun < benchmark.getBenchmarkPrewarmRuns() && !detector.isSteady()) {
+                queryRun++;
+                QueryExecutionResult result = buildQueryExecutionCallable(benchmark, query, true, queryRun).call();
+                results.add(result);
+                if (!result.isSuccessful()) {
+                    break;
+                }
+                detector.add(result.getQueryDuration().toNanos());
+            }
+            LOG.info("Query {} of benchmark {} prewarmed with {} runs, steady: {}", query.getName(), benchmark.getName(), queryRun, detector.isSteady());
+            prewarmRuns.computeIfAbsent(benchmark, key -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(query.getName(), key -> new ConcurrentLinkedQueue<>())
+                    .add(queryRun);
+            return results.build();
+        };
+    }
+
     private Callable<QueryExecutionResult> buildQueryExecutionCallable(Benchmark benchmark, Query query, boolean warmup, int run)
     {
-        QueryExecution queryExecution = new QueryExecution(benchmark, query, run, sqlStatementGenerator);
+        QueryExecution queryExecution = new QueryExecution(benchmark, query, run, sqlStatementGenerator, warmup);
         Optional<Path> resultFile = benchmark.getQueryResults()
                 // only check result of the first warmup run or all runs of non-select statements
                 .filter(dir -> (warmup && run == 1) || (!isSelectQuery(query.getSqlTemplate())))
                 .map(queryResult -> properties.getQueryResultsDir().resolve(queryResult));
         return () -> {
+            if (benchmark.getExecutionBackend() == ExecutionBackend.HTTP) {
+                // sequential runs wait for every query anyway, but they do not need a JDBC connection
+                return executeSingleQuery(queryExecution, benchmark, Optional.empty(), warmup, Optional.empty(), resultFile);
+            }
             try (Connection connection = getConnectionFor(queryExecution)) {
-                return executeSingleQuery(queryExecution, benchmark, connection, warmup, Optional.empty(), resultFile);
+                return executeSingleQuery(queryExecution, benchmark, Optional.of(connection), warmup, Optional.empty(), resultFile);
             }
         };
     }
 
-    private List<Callable<List<QueryExecutionResult>>> buildConcurrencyQueryExecutionCallables(Benchmark benchmark, int runs, boolean warmup, Optional<ZonedDateTime> executionTimeLimit)
+    /**
+     * Streams of every benchmark are consecutive, as started by {@link #startConcurrencyStreams}.
+     */
+    private void recordMeasurementWindows(List<Benchmark> benchmarks, int concurrency, List<List<QueryExecutionResult>> streams)
     {
-        List<Callable<List<QueryExecutionResult>>> executionCallables = newArrayList();
-        for (int thread = 0; thread < benchmark.getConcurrency(); thread++) {
-            int finalThread = thread;
-            executionCallables.add(() -> {
-                LOG.info("Running throughput test: {} queries, {} runs", benchmark.getQueries().size(), runs);
-                int[] queryOrder = PermutationUtils.preparePermutation(benchmark.getQueries().size(), finalThread);
-                List<QueryExecutionResult> queryExecutionResults = executeConcurrentQueries(benchmark, runs, warmup, executionTimeLimit, finalThread, queryOrder);
+        for (int benchmarkIndex = 0; benchmarkIndex < benchmarks.size(); benchmarkIndex++) {
+            MeasurementWindow window = new MeasurementWindow();
+            streams.subList(benchmarkIndex * concurrency, (benchmarkIndex + 1) * concurrency).forEach(window::addStream);
+            measurementWindows.put(benchmarks.get(benchmarkIndex), window);
+        }
+    }
+
+    /**
+     * Streams with the HTTP backend do not occupy a worker thread while their queries run, only their execution macros
+     * run on the worker threads.
+     */
+    private List<ListenableFuture<List<QueryExecutionResult>>> startConcurrencyStreams(
+            Benchmark benchmark,
+            int concurrency,
+            int runs,
+            boolean warmup,
+            Optional<ZonedDateTime> executionTimeLimit,
+            ListeningExecutorService executorService)
+    {
+        List<ListenableFuture<List<QueryExecutionResult>>> streamFutures = newArrayList();
+        long submitted = System.nanoTime();
+        // duration bounded streams keep cycling their queries until the common deadline, shared with other drivers if coordinated
+        Optional<Long> deadline = warmup ? Optional.empty() : Optional.ofNullable(coordinatedDeadlines.get(benchmark))
+                .or(() -> benchmark.getDuration().map(duration -> submitted + duration.toNanos()));
+        for (int thread = 0; thread < concurrency; thread++) {
+            ThroughputStream stream = new ThroughputStream(benchmark, concurrency, runs, deadline, warmup, thread);
+            ListenableFuture<List<QueryExecutionResult>> streamFuture;
+            if (benchmark.getExecutionBackend() == ExecutionBackend.HTTP) {
+                stream.start(submitted);
+                streamFuture = executeNonBlockingStream(stream, executorService, executionTimeLimit);
+            }
+            else {
+                streamFuture = executorService.submit(() -> {
+                    stream.start(submitted);
+                    return executeConcurrentQueries(stream, executionTimeLimit);
+                });
+            }
+            streamFutures.add(Futures.transform(streamFuture, queryExecutionResults -> {
                 if (!warmup) {
                     statusReporter.reportConcurrencyTestExecutionFinished(queryExecutionResults);
                 }
                 return queryExecutionResults;
-            });
+            }, directExecutor()));
         }
-        return executionCallables;
+        return streamFutures;
     }
 
-    private List<QueryExecutionResult> executeConcurrentQueries(Benchmark benchmark, int runs, boolean warmup, Optional<ZonedDateTime> executionTimeLimit, int threadNumber, int[] queryOrder)
+    private List<QueryExecutionResult> executeConcurrentQueries(ThroughputStream stream, Optional<ZonedDateTime> executionTimeLimit)
             throws SQLException
     {
-        boolean firstQuery = true;
         List<QueryExecutionResult> queryExecutionResults = newArrayList();
+        Benchmark benchmark = stream.getBenchmark();
         try (Connection connection = getConnectionFor(new QueryExecution(benchmark, benchmark.getQueries().get(0), 0, sqlStatementGenerator))) {
-            for (int run = 1; run <= runs; run++) {
-                for (int queryIndex = 0; queryIndex < benchmark.getQueries().size(); queryIndex++) {
-                    int permutedQueryIndex = queryIndex;
-                    if (warmup) {
-                        if (queryIndex % benchmark.getConcurrency() != threadNumber) {
-                            // for pre-warming we split queries among all threads instead
-                            // of each thread running all queries
-                            continue;
-                        }
-                        LOG.info("Executing pre-warm query {}", queryIndex);
-                    }
-                    else {
-                        permutedQueryIndex = queryOrder[queryIndex];
-                    }
-                    Query query = benchmark.getQueries().get(permutedQueryIndex);
-                    int sequenceId = queryIndex
-                            + threadNumber * benchmark.getQueries().size()
-                            + (run - 1) * benchmark.getConcurrency() * benchmark.getQueries().size();
-                    QueryExecution queryExecution = new QueryExecution(benchmark, query, sequenceId, sqlStatementGenerator);
-                    if (firstQuery && !warmup) {
-                        statusReporter.reportExecutionStarted(queryExecution);
-                        firstQuery = false;
-                    }
-                    try {
-                        // We want to skip a reporting for concurrency benchmarks because it is unnecessary overhead.
-                        // In concurrency benchmarks we are not interested in result for specific query
-                        queryExecutionResults.add(executeSingleQuery(queryExecution, benchmark, connection, true, executionTimeLimit));
-                    }
-                    catch (TimeLimitException e) {
-                        LOG.warn("Interrupting benchmark {} due to time limit exceeded", benchmark.getName());
-                        return queryExecutionResults;
+            for (Optional<QueryExecution> queryExecution = stream.next(); queryExecution.isPresent(); queryExecution = stream.next()) {
+                stream.beforeExecution(queryExecution.get());
+                try {
+                    // We want to skip a reporting for concurrency benchmarks because it is unnecessary overhead.
+                    // In concurrency benchmarks we are not interested in result for specific query
+                    queryExecutionResults.add(executeSingleQuery(queryExecution.get(), benchmark, Optional.of(connection), true, executionTimeLimit));
+                    stream.afterExecution();
+                }
+                catch (TimeLimitException e) {
+                    LOG.warn("Interrupting benchmark {} due to time limit exceeded", benchmark.getName());
+                    return queryExecutionResults;
+                }
+            }
+        }
+        return queryExecutionResults;
+    }
+
+    /**
+     * Executes queries of the stream one after another, starting every query from the completion of the previous one.
+     */
+    private ListenableFuture<List<QueryExecutionResult>> executeNonBlockingStream(ThroughputStream stream, Executor macroExecutor, Optional<ZonedDateTime> executionTimeLimit)
+    {
+        SettableFuture<List<QueryExecutionResult>> streamFuture = SettableFuture.create();
+        executeNextNonBlockingQuery(stream, macroExecutor, executionTimeLimit, new ArrayList<>(), streamFuture);
+        return streamFuture;
+    }
+
+    private void executeNextNonBlockingQuery(
+            ThroughputStream stream,
+            Executor macroExecutor,
+            Optional<ZonedDateTime> executionTimeLimit,
+            List<QueryExecutionResult> queryExecutionResults,
+            SettableFuture<List<QueryExecutionResult>> streamFuture)
+    {
+        Optional<QueryExecution> queryExecution = stream.next();
+        if (queryExecution.isEmpty()) {
+            streamFuture.set(queryExecutionResults);
+            return;
+        }
+        stream.beforeExecution(queryExecution.get());
+        Futures.addCallback(executeNonBlockingQuery(queryExecution.get(), stream.getBenchmark(), macroExecutor, executionTimeLimit), new FutureCallback<>()
+        {
+            @Override
+            public void onSuccess(List<QueryExecutionResult> results)
+            {
+                if (results.isEmpty()) {
+                    LOG.warn("Interrupting benchmark {} due to time limit exceeded", stream.getBenchmark().getName());
+                    streamFuture.set(queryExecutionResults);
+                    return;
+                }
+                queryExecutionResults.addAll(results);
+                stream.afterExecution();
+                executeNextNonBlockingQuery(stream, macroExecutor, executionTimeLimit, queryExecutionResults, streamFuture);
+            }
+
+            @Override
+            public void onFailure(Throwable failure)
+            {
+                streamFuture.setException(failure);
+            }
+        }, directExecutor());
+    }
+
+    /**
+     * Order of the executions of one closed-loop throughput stream, shared by the streams blocking on JDBC
+     * and the non-blocking ones of the HTTP backend.
+     */
+    private class ThroughputStream
+    {
+        private final Benchmark benchmark;
+        private final int concurrency;
+        private final int runs;
+        private final Optional<Long> deadline;
+        private final boolean warmup;
+        private final int threadNumber;
+        private final int[] queryOrder;
+        private final int sequenceIdOffset;
+        private final Optional<WeightedSampler> querySampler;
+        private int run = 1;
+        private int queryIndex;
+        private boolean firstQuery = true;
+        private long previousQueryFinished = -1;
+
+        ThroughputStream(Benchmark benchmark, int concurrency, int runs, Optional<Long> deadline, boolean warmup, int threadNumber)
+        {
+            this.benchmark = benchmark;
+            this.concurrency = concurrency;
+            this.runs = runs;
+            this.deadline = deadline;
+            this.warmup = warmup;
+            this.threadNumber = threadNumber;
+            this.queryOrder = PermutationUtils.preparePermutation(benchmark.getQueries().size(), threadNumber);
+            this.sequenceIdOffset = warmup ? 0 : concurrencySweepSequenceIdOffset(benchmark, concurrency, runs);
+            // every stream draws its own, reproducible sequence of queries from the weighted query mix
+            if (benchmark.isWeightedQueryMix() && !warmup) {
+                long runSeed = queryMixSeeds.computeIfAbsent(benchmark, BenchmarkExecutionDriver.this::runSeed);
+                this.querySampler = Optional.of(new WeightedSampler(benchmark.getQueryWeights(), ArrivalScheduleUtils.streamSeed(runSeed, threadNumber)));
+            }
+            else {
+                this.querySampler = Optional.empty();
+            }
+        }
+
+        Benchmark getBenchmark()
+        {
+            return benchmark;
+        }
+
+        void start(long submitted)
+        {
+            if (!warmup) {
+                recordSchedulingDelay(benchmark, System.nanoTime() - submitted);
+            }
+            if (deadline.isPresent()) {
+                LOG.info("Running throughput test: {} queries, for {}", benchmark.getQueries().size(), benchmark.getDuration().get());
+            }
+            else {
+                LOG.info("Running throughput test: {} queries, {} runs", benchmark.getQueries().size(), runs);
+            }
+        }
+
+        /**
+         * Returns the next execution of the stream, or nothing once all runs are done or the deadline has passed.
+         */
+        Optional<QueryExecution> next()
+        {
+            while (deadline.isPresent() || run <= runs) {
+                if (deadline.isPresent() && System.nanoTime() - deadline.get() >= 0) {
+                    return Optional.empty();
+                }
+                int currentRun = run;
+                int currentQueryIndex = queryIndex;
+                queryIndex++;
+                if (queryIndex == benchmark.getQueries().size()) {
+                    queryIndex = 0;
+                    run++;
+                }
+                int permutedQueryIndex = currentQueryIndex;
+                if (warmup) {
+                    if (currentQueryIndex % concurrency != threadNumber) {
+                        // for pre-warming we split queries among all threads instead
+                        // of each thread running all queries
+                        continue;
                     }
+                    LOG.info("Executing pre-warm query {}", currentQueryIndex);
                 }
+                else if (querySampler.isPresent()) {
+                    permutedQueryIndex = querySampler.get().next();
+                }
+                else {
+                    permutedQueryIndex = queryOrder[currentQueryIndex];
+                }
+                Query query = benchmark.getQueries().get(permutedQueryIndex);
+                int sequenceId = sequenceIdOffset
+                        + currentQueryIndex
+                        + threadNumber * benchmark.getQueries().size()
+                        + (currentRun - 1) * concurrency * benchmark.getQueries().size();
+                return Optional.of(new QueryExecution(benchmark, query, sequenceId, sqlStatementGenerator, warmup));
             }
+            return Optional.empty();
+        }
+
+        void beforeExecution(QueryExecution queryExecution)
+        {
+            if (firstQuery && !warmup) {
+                statusReporter.reportExecutionStarted(queryExecution);
+                firstQuery = false;
+            }
+            if (!warmup && previousQueryFinished >= 0) {
+                recordSchedulingDelay(benchmark, System.nanoTime() - previousQueryFinished);
+            }
+        }
+
+        void afterExecution()
+        {
+            previousQueryFinished = System.nanoTime();
+        }
+    }
+
+    /**
+     * Executions of all concurrency sweep steps are reported within one benchmark run, so sequence ids
+     * of a step continue after the ones used by the steps with lower concurrency.
+     */
+    private static int concurrencySweepSequenceIdOffset(Benchmark benchmark, int concurrency, int runs)
+    {
+        int previousStepsConcurrency = benchmark.getConcurrencySweep().stream()
+                .filter(level -> level < concurrency)
+                .mapToInt(Integer::intValue)
+                .sum();
+        return previousStepsConcurrency * runs * benchmark.getQueries().size();
+    }
+
+    /**
+     * Issues queries according to the benchmark arrival rate, regardless of how many earlier queries are still running.
+     * Executions started later than intended keep their intended start time, so latency is not hidden by coordinated omission.
+     */
+    @SuppressWarnings("unchecked")
+    private List<QueryExecutionResult> executeOpenLoopQueries(List<Benchmark> benchmarks, int runs, ListeningExecutorService executorService, Optional<ZonedDateTime> executionTimeLimit)
+            throws InterruptedException, ExecutionException
+    {
+        ListeningExecutorService dispatcherService = executorServiceFactory.create(benchmarks.size());
+        try {
+            List<Callable<List<QueryExecutionResult>>> dispatcherCallables = benchmarks.stream()
+                    .map(benchmark -> (Callable<List<QueryExecutionResult>>) () -> dispatchArrivals(benchmark, runs, executorService, executionTimeLimit))
+                    .collect(toImmutableList());
+            List<ListenableFuture<List<QueryExecutionResult>>> dispatcherFutures = (List) dispatcherService.invokeAll(dispatcherCallables);
+            return Futures.allAsList(dispatcherFutures).get().stream()
+                    .flatMap(List::stream)
+                    .collect(toImmutableList());
+        }
+        finally {
+            dispatcherService.shutdown();
+        }
+    }
+
+    private List<QueryExecutionResult> dispatchArrivals(Benchmark benchmark, int runs, ListeningExecutorService executorService, Optional<ZonedDateTime> executionTimeLimit)
+            throws InterruptedException, ExecutionException
+    {
+        List<Query> queries = benchmark.getQueries();
+        double arrivalRate = benchmark.getArrivalRate().orElseThrow();
+        LOG.info("Running open-loop throughput test: {} queries, {} runs, {} queries per second ({})",
+                queries.size(), runs, arrivalRate, benchmark.getArrivalDistribution());
+
+        long seed = runSeed(benchmark);
+        arrivalSeeds.put(benchmark, seed);
+        long[] intendedStartOffsets = ArrivalScheduleUtils.intendedStartOffsets(runs * queries.size(), arrivalRate, benchmark.getArrivalDistribution(), seed);
+        List<ListenableFuture<List<QueryExecutionResult>>> executionFutures = new ArrayList<>();
+        Optional<WeightedSampler> querySampler = benchmark.isWeightedQueryMix()
+                ? Optional.of(new WeightedSampler(benchmark.getQueryWeights(), seed))
+                : Optional.empty();
+        long scheduleStart = System.nanoTime();
+        for (int sequenceId = 0; sequenceId < intendedStartOffsets.length; sequenceId++) {
+            long intendedStart = scheduleStart + intendedStartOffsets[sequenceId];
+            long delay = intendedStart - System.nanoTime();
+            if (delay > 0) {
+                NANOSECONDS.sleep(delay);
+            }
+            recordSchedulingDelay(benchmark, System.nanoTime() - intendedStart);
+            if (isTimeLimitExceeded(executionTimeLimit)) {
+                LOG.warn("Interrupting benchmark {} due to time limit exceeded", benchmark.getName());
+                break;
+            }
+
+            Query query;
+            if (querySampler.isPresent()) {
+                query = queries.get(querySampler.get().next());
+            }
+            else {
+                int run = sequenceId / queries.size();
+                int[] queryOrder = PermutationUtils.preparePermutation(queries.size(), run);
+                query = queries.get(queryOrder[sequenceId % queries.size()]);
+            }
+            QueryExecution queryExecution = new QueryExecution(benchmark, query, sequenceId, sqlStatementGenerator, false, Optional.of(intendedStart));
+            if (sequenceId == 0) {
+                statusReporter.reportExecutionStarted(queryExecution);
+            }
+            if (benchmark.getExecutionBackend() == ExecutionBackend.HTTP) {
+                executionFutures.add(executeNonBlockingQuery(queryExecution, benchmark, executorService, executionTimeLimit));
+                continue;
+            }
+            executionFutures.add(executorService.submit(() -> {
+                try (Connection connection = getConnectionFor(queryExecution)) {
+                    return List.of(executeSingleQuery(queryExecution, benchmark, Optional.of(connection), true, executionTimeLimit));
+                }
+                catch (TimeLimitException e) {
+                    LOG.warn("Interrupting benchmark {} due to time limit exceeded", benchmark.getName());
+                    return List.<QueryExecutionResult>of();
+                }
+            }));
         }
+
+        List<QueryExecutionResult> queryExecutionResults = Futures.allAsList(executionFutures).get().stream()
+                .flatMap(List::stream)
+                .collect(toImmutableList());
+        statusReporter.reportConcurrencyTestExecutionFinished(queryExecutionResults);
         return queryExecutionResults;
     }
 
+    /**
+     * Seed of the random choices of a benchmark run executed by this driver, see {@link ArrivalScheduleUtils#arrivalSeed}.
+     */
+    private long runSeed(Benchmark benchmark)
+    {
+        // coordinated drivers execute the same benchmark run, so they need different schedules and query sequences
+        String driverId = driverCoordinator.isCoordinated(benchmark) ? driverCoordinator.getDriverId() : properties.getShard().orElse("");
+        return ArrivalScheduleUtils.arrivalSeed(benchmark.getUniqueName(), benchmark.getSequenceId(), driverId);
+    }
+
     private QueryExecutionResult executeSingleQuery(
             QueryExecution queryExecution,
             Benchmark benchmark,
-            Connection connection,
+            Optional<Connection> connection,
             boolean skipReport,
             Optional<ZonedDateTime> executionTimeLimit)
             throws TimeLimitException
@@ -386,7 +1203,7 @@ public class BenchmarkExecutionDriver
     private QueryExecutionResult executeSingleQuery(
             QueryExecution queryExecution,
             Benchmark benchmark,
-            Connection connection,
+            Optional<Connection> connection,
             boolean skipReport,
             Optional<ZonedDateTime> executionTimeLimit,
             Optional<Path> outputFile)
@@ -394,7 +1211,8 @@ public class BenchmarkExecutionDriver
     {
         LOG.info("Execute query, query=%s, skipReport=%s".formatted(benchmark.getQueries().get(0).getName(), skipReport));
         QueryExecutionResult result;
-        macroService.runBenchmarkMacros(benchmark.getBeforeExecutionMacros(), benchmark, connection);
+        // executions with the HTTP backend do not have JDBC connections, macros open their own
+        macroService.runBenchmarkMacros(benchmark.getBeforeExecutionMacros(), Optional.of(benchmark), connection);
 
         if (!skipReport) {
             statusReporter.reportExecutionStarted(queryExecution);
@@ -402,7 +1220,20 @@ public class BenchmarkExecutionDriver
         QueryExecutionResultBuilder failureResult = new QueryExecutionResultBuilder(queryExecution)
                 .startTimer();
         try {
-            result = queryExecutionDriver.execute(queryExecution, connection, outputFile);
+            if (benchmark.getExecutionBackend() == ExecutionBackend.HTTP) {
+                // only sequential runs execute queries of the HTTP backend on a worker thread, they wait for every query anyway
+                result = httpQueryExecutionDriver.execute(queryExecution).get();
+            }
+            else {
+                result = queryExecutionDriver.execute(queryExecution, connection.orElseThrow(), outputFile);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = failureResult
+                    .endTimer()
+                    .failed(e)
+                    .build();
         }
         catch (Exception e) {
             LOG.error(format("Query Execution failed for benchmark %s query %s", benchmark.getName(), queryExecution.getQueryName()), e);
@@ -414,21 +1245,89 @@ public class BenchmarkExecutionDriver
         if (isTimeLimitExceeded(executionTimeLimit)) {
             throw new TimeLimitException(benchmark, queryExecution);
         }
+        recordLatency(queryExecution, result);
 
         if (!skipReport) {
             statusReporter.reportExecutionFinished(result);
+            // listeners are invoked asynchronously, so the pause between queries has to be made here
+            executionSynchronizer.awaitAfterQueryExecutionAndBeforeResultReport(result);
         }
 
-        macroService.runBenchmarkMacros(benchmark.getAfterExecutionMacros(), benchmark, connection);
+        macroService.runBenchmarkMacros(benchmark.getAfterExecutionMacros(), Optional.of(benchmark), connection);
         return result;
     }
 
+    /**
+     * Executes a query with the HTTP backend without occupying a worker thread while it runs, only its execution macros
+     * run on the worker threads. Executions finished after the time limit are discarded, like the ones interrupted by
+     * {@link TimeLimitException}.
+     */
+    private ListenableFuture<List<QueryExecutionResult>> executeNonBlockingQuery(
+            QueryExecution queryExecution,
+            Benchmark benchmark,
+            Executor macroExecutor,
+            Optional<ZonedDateTime> executionTimeLimit)
+    {
+        SettableFuture<List<QueryExecutionResult>> executionFuture = SettableFuture.create();
+        runExecutionMacros(benchmark.getBeforeExecutionMacros(), benchmark, macroExecutor)
+                .thenCompose(ignored -> httpQueryExecutionDriver.execute(queryExecution))
+                .thenCompose(result -> runExecutionMacros(benchmark.getAfterExecutionMacros(), benchmark, macroExecutor).thenApply(ignored -> result))
+                .whenComplete((result, failure) -> {
+                    if (failure != null) {
+                        // macro failures are wrapped by the composed futures
+                        executionFuture.setException(failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+                        return;
+                    }
+                    if (!result.isSuccessful()) {
+                        LOG.error(format("Query Execution failed for benchmark %s query %s", benchmark.getName(), queryExecution.getQueryName()), result.getFailureCause());
+                    }
+                    if (isTimeLimitExceeded(executionTimeLimit)) {
+                        executionFuture.set(List.of());
+                        return;
+                    }
+                    recordLatency(queryExecution, result);
+                    executionFuture.set(List.of(result));
+                });
+        return executionFuture;
+    }
+
+    /**
+     * Macros are blocking, so they are not run on the HTTP client threads. They open their own connections, since
+     * the HTTP backend does not use JDBC connections for executions.
+     */
+    private CompletableFuture<Void> runExecutionMacros(List<String> macros, Benchmark benchmark, Executor macroExecutor)
+    {
+        if (macros.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> macroService.runBenchmarkMacros(macros, Optional.of(benchmark), Optional.empty()), macroExecutor);
+    }
+
+    private void recordLatency(QueryExecution queryExecution, QueryExecutionResult result)
+    {
+        if (!queryExecution.isWarmup()) {
+            LatencyRecorder latencyRecorder = latencyRecorders.get(queryExecution.getBenchmark());
+            if (latencyRecorder != null) {
+                latencyRecorder.record(result);
+            }
+        }
+    }
+
     private Connection getConnectionFor(QueryExecution queryExecution)
             throws SQLException
     {
         return applicationContext.getBean(queryExecution.getBenchmark().getDataSource(), DataSource.class).getConnection();
     }
 
+    /**
+     * Records time the driver spent between a query becoming due and the driver being able to start it,
+     * e.g. waiting for a worker thread or preparing the next query of a stream.
+     */
+    private void recordSchedulingDelay(Benchmark benchmark, long delayNanos)
+    {
+        schedulingStatistics.computeIfAbsent(benchmark, key -> new SchedulingStatistics()).record(delayNanos);
+    }
+
     private boolean isTimeLimitExceeded(Optional<ZonedDateTime> executionTimeLimit)
     {
         return executionTimeLimit.map(limit -> limit.compareTo(nowUtc()) < 0).orElse(false);
@@ -30,6 +30,7 @@ public class BenchmarkExecutionResult
     private final Benchmark benchmark;
     private Optional<Exception> failure = Optional.empty();
     private List<QueryExecutionResult> executions;
+    private Optional<MeasurementWindow> measurementWindow = Optional.empty();
 
     private BenchmarkExecutionResult(Benchmark benchmark)
     {
@@ -53,6 +54,14 @@ public class BenchmarkExecutionResult
         return executions;
     }
 
+    /**
+     * Period of a duration bounded throughput test in which all streams were active.
+     */
+    public Optional<MeasurementWindow> getMeasurementWindow()
+    {
+        return measurementWindow;
+    }
+
     @Override
     public boolean isSuccessful()
     {
@@ -100,6 +109,12 @@ public class BenchmarkExecutionResult
             return this;
         }
 
+        public BenchmarkExecutionResultBuilder withMeasurementWindow(MeasurementWindow measurementWindow)
+        {
+            object.measurementWindow = Optional.of(measurementWindow);
+            return this;
+        }
+
         @Override
         public BenchmarkExecutionResult build()
         {
@@ -0,0 +1,157 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.benchto.driver.service.Measurement;
+import io.trino.benchto.driver.utils.UniversalScalabilityLaw;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.benchto.driver.service.Measurement.measurement;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Throughput and latency of a benchmark at subsequent concurrency sweep steps.
+ * <p>
+ * A step is saturated when its throughput grew less than the required fraction compared to the previous step,
+ * or when its 99th percentile latency exceeds the limit. The knee point is the last step before saturation.
+ */
+public class ConcurrencySweepStatistics
+{
+    private final double minGain;
+    private final Optional<Duration> maxLatency;
+    private final List<Step> steps = new ArrayList<>();
+
+    public ConcurrencySweepStatistics(double minGain, Optional<Duration> maxLatency)
+    {
+        this.minGain = minGain;
+        this.maxLatency = requireNonNull(maxLatency, "maxLatency is null");
+    }
+
+    public void addStep(int concurrency, double throughput, Duration latencyP99)
+    {
+        steps.add(new Step(concurrency, throughput, latencyP99));
+    }
+
+    public boolean isSaturated()
+    {
+        return !steps.isEmpty() && isSaturated(steps.size() - 1);
+    }
+
+    private boolean isSaturated(int stepIndex)
+    {
+        Step step = steps.get(stepIndex);
+        if (maxLatency.map(limit -> step.latencyP99.compareTo(limit) > 0).orElse(false)) {
+            return true;
+        }
+        if (stepIndex == 0) {
+            return false;
+        }
+        double previousThroughput = steps.get(stepIndex - 1).throughput;
+        return step.throughput < previousThroughput * (1 + minGain);
+    }
+
+    public Optional<Step> getKnee()
+    {
+        Optional<Step> knee = Optional.empty();
+        for (int i = 0; i < steps.size() && !isSaturated(i); i++) {
+            knee = Optional.of(steps.get(i));
+        }
+        return knee;
+    }
+
+    public Optional<UniversalScalabilityLaw> fitUniversalScalabilityLaw()
+    {
+        return UniversalScalabilityLaw.fit(
+                steps.stream().map(step -> step.concurrency).collect(toImmutableList()),
+                steps.stream().map(step -> step.throughput).collect(toImmutableList()));
+    }
+
+    public List<Measurement> toMeasurements()
+    {
+        ImmutableList.Builder<Measurement> measurements = ImmutableList.builder();
+        for (Step step : steps) {
+            measurements.add(measurement("sweep_throughput_" + step.concurrency, "QUERY_PER_SECOND", step.throughput));
+            measurements.add(measurement("sweep_latency_p99_" + step.concurrency, "MILLISECONDS", step.latencyP99.toNanos() / 1_000_000.0));
+        }
+        getKnee().ifPresent(knee -> {
+            measurements.add(measurement("sweep_knee_concurrency", "NONE", knee.concurrency));
+            measurements.add(measurement("sweep_knee_throughput", "QUERY_PER_SECOND", knee.throughput));
+        });
+        fitUniversalScalabilityLaw().ifPresent(model -> {
+            measurements.add(measurement("usl_contention", "NONE", model.getContention()));
+            measurements.add(measurement("usl_coherency", "NONE", model.getCoherency()));
+            model.getPeakConcurrency().ifPresent(peak -> {
+                measurements.add(measurement("usl_peak_concurrency", "NONE", peak));
+                measurements.add(measurement("usl_peak_throughput", "QUERY_PER_SECOND", model.throughput(peak)));
+            });
+        });
+        return measurements.build();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("steps", steps)
+                .add("knee", getKnee())
+                .add("universalScalabilityLaw", fitUniversalScalabilityLaw())
+                .toString();
+    }
+
+    public static class Step
+    {
+        private final int concurrency;
+        private final double throughput;
+        private final Duration latencyP99;
+
+        private Step(int concurrency, double throughput, Duration latencyP99)
+        {
+            this.concurrency = concurrency;
+            this.throughput = throughput;
+            this.latencyP99 = requireNonNull(latencyP99, "latencyP99 is null");
+        }
+
+        public int getConcurrency()
+        {
+            return concurrency;
+        }
+
+        public double getThroughput()
+        {
+            return throughput;
+        }
+
+        public Duration getLatencyP99()
+        {
+            return latencyP99;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("concurrency", concurrency)
+                    .add("throughput", throughput)
+                    .add("latencyP99", latencyP99)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.benchto.driver.Benchmark;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Partitions benchmark groups into lanes that can be executed in parallel, because they use disjoint data sources.
+ * Groups using the same data source are in the same lane, in their original order.
+ */
+public class DataSourceLanes
+{
+    /**
+     * Returns names of groups in every lane, with lanes of the longest expected duration first.
+     */
+    public static List<List<String>> partition(Map<String, List<Benchmark>> groups, Function<String, Duration> expectedGroupDuration)
+    {
+        List<String> groupNames = ImmutableList.copyOf(groups.keySet());
+        List<Set<String>> laneDataSources = new ArrayList<>();
+        List<TreeSet<Integer>> laneGroups = new ArrayList<>();
+        for (int group = 0; group < groupNames.size(); group++) {
+            Set<String> dataSources = groups.get(groupNames.get(group)).stream()
+                    .map(Benchmark::getDataSource)
+                    .collect(toSet());
+            Set<String> mergedDataSources = new HashSet<>(dataSources);
+            TreeSet<Integer> mergedGroups = new TreeSet<>(List.of(group));
+            // a group using data sources of several lanes joins them into one
+            Iterator<Set<String>> dataSourcesIterator = laneDataSources.iterator();
+            Iterator<TreeSet<Integer>> groupsIterator = laneGroups.iterator();
+            while (dataSourcesIterator.hasNext()) {
+                Set<String> lane = dataSourcesIterator.next();
+                TreeSet<Integer> groupsOfLane = groupsIterator.next();
+                if (lane.stream().anyMatch(dataSources::contains)) {
+                    mergedDataSources.addAll(lane);
+                    mergedGroups.addAll(groupsOfLane);
+                    dataSourcesIterator.remove();
+                    groupsIterator.remove();
+                }
+            }
+            laneDataSources.add(mergedDataSources);
+            laneGroups.add(mergedGroups);
+        }
+
+        return laneGroups.stream()
+                .sorted(Comparator.comparing(TreeSet::first))
+                .map(lane -> lane.stream()
+                        .map(groupNames::get)
+                        .collect(toImmutableList()))
+                .sorted(Comparator.comparing((List<String> lane) -> expectedDuration(lane, expectedGroupDuration)).reversed())
+                .collect(toImmutableList());
+    }
+
+    private static Duration expectedDuration(List<String> lane, Function<String, Duration> expectedGroupDuration)
+    {
+        return lane.stream()
+                .map(expectedGroupDuration)
+                .reduce(Duration.ZERO, Duration::plus);
+    }
+
+    private DataSourceLanes()
+    {
+    }
+}
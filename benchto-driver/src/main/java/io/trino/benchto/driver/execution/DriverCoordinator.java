@@ -0,0 +1,116 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import io.trino.benchto.driver.Benchmark;
+import io.trino.benchto.driver.BenchmarkExecutionException;
+import io.trino.benchto.driver.service.BenchmarkServiceClient;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.DriverBarrier;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.DriverJoinRequest;
+import io.trino.benchto.driver.utils.TimeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Lets several driver processes execute the same throughput benchmark run, identified by its unique name and sequence id,
+ * so that together they can generate more load than a single driver. Drivers wait for each other on a start barrier
+ * kept by the benchmark service, start at the same time and share the deadline of duration bounded benchmarks.
+ */
+@Component
+public class DriverCoordinator
+{
+    private static final Logger LOG = LoggerFactory.getLogger(DriverCoordinator.class);
+
+    public static final String DRIVER_ID_ATTRIBUTE = "driver_id";
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(500);
+    private static final Duration MAX_BARRIER_WAIT = Duration.ofMinutes(30);
+    // driver id is part of execution sequence ids, which are limited to 64 characters
+    private static final int MAX_DRIVER_ID_LENGTH = 40;
+
+    @Autowired
+    private BenchmarkServiceClient benchmarkServiceClient;
+
+    @Value("${coordinatedDrivers:1}")
+    private int coordinatedDrivers = 1;
+
+    @Value("${driverId:#{null}}")
+    private String driverId;
+
+    public boolean isCoordinated(Benchmark benchmark)
+    {
+        return coordinatedDrivers > 1 && benchmark.isThroughputTest() && !benchmark.isConcurrencySweep();
+    }
+
+    public String getDriverId()
+    {
+        if (driverId == null) {
+            driverId = defaultDriverId();
+        }
+        return driverId;
+    }
+
+    /**
+     * Joins the benchmark run and blocks until all drivers joined and their common start time came.
+     *
+     * @return common deadline of the benchmark, if it is duration bounded
+     */
+    public Optional<Instant> awaitStart(Benchmark benchmark)
+    {
+        DriverJoinRequest request = new DriverJoinRequest(coordinatedDrivers, benchmark.getDuration());
+        Instant barrierTimeout = Instant.now().plus(MAX_BARRIER_WAIT);
+        DriverBarrier barrier = benchmarkServiceClient.joinBenchmark(benchmark.getUniqueName(), benchmark.getSequenceId(), getDriverId(), request);
+        while (barrier.getStartTime().isEmpty()) {
+            if (Instant.now().isAfter(barrierTimeout)) {
+                throw new BenchmarkExecutionException("Only " + barrier.getJoinedDrivers() + " of " + barrier.getExpectedDrivers()
+                        + " drivers joined benchmark " + benchmark.getUniqueName() + " within " + MAX_BARRIER_WAIT);
+            }
+            LOG.info("Waiting for drivers to join benchmark {}: {} of {}", benchmark.getUniqueName(), barrier.getJoinedDrivers(), barrier.getExpectedDrivers());
+            TimeUtils.sleep(POLL_INTERVAL.toMillis(), MILLISECONDS);
+            barrier = benchmarkServiceClient.joinBenchmark(benchmark.getUniqueName(), benchmark.getSequenceId(), getDriverId(), request);
+        }
+
+        Instant startTime = barrier.getStartTime().get();
+        LOG.info("All {} drivers joined benchmark {}, starting at {}", barrier.getExpectedDrivers(), benchmark.getUniqueName(), startTime);
+        long delay = Duration.between(Instant.now(), startTime).toMillis();
+        if (delay > 0) {
+            TimeUtils.sleep(delay, MILLISECONDS);
+        }
+        return barrier.getDeadline();
+    }
+
+    private static String defaultDriverId()
+    {
+        String hostName;
+        try {
+            hostName = InetAddress.getLocalHost().getHostName();
+        }
+        catch (UnknownHostException e) {
+            hostName = "unknown";
+        }
+        String id = ProcessHandle.current().pid() + "@" + hostName;
+        return id.length() > MAX_DRIVER_ID_LENGTH ? id.substring(0, MAX_DRIVER_ID_LENGTH) : id;
+    }
+}
@@ -19,22 +19,34 @@ import io.trino.benchto.driver.FailedBenchmarkExecutionException;
 import io.trino.benchto.driver.listeners.benchmark.BenchmarkStatusReporter;
 import io.trino.benchto.driver.loader.BenchmarkLoader;
 import io.trino.benchto.driver.macro.MacroService;
+import io.trino.benchto.driver.service.BenchmarkServiceClient;
+import io.trino.benchto.driver.service.ReportSpool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Lists.newArrayList;
 import static io.trino.benchto.driver.utils.TimeUtils.nowUtc;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 
@@ -59,6 +71,18 @@ public class ExecutionDriver
     @Autowired
     private MacroService macroService;
 
+    @Autowired
+    private BenchmarkServiceClient benchmarkServiceClient;
+
+    @Autowired
+    private ExecutionJournal executionJournal;
+
+    @Autowired
+    private ReportSpool reportSpool;
+
+    @Value("${dataSourceLanes:1}")
+    private int dataSourceLanes = 1;
+
     private final ZonedDateTime startTime = nowUtc();
 
     public void execute()
@@ -103,15 +127,28 @@ public class ExecutionDriver
 
     private List<Benchmark> loadBenchmarks()
     {
+        checkArgument(!properties.isResume() || properties.getExecutionSequenceId().isPresent(), "Resuming execution requires executionSequenceId to be set");
+        checkArgument(properties.getShard().isEmpty() || properties.getExecutionSequenceId().isPresent(), "Sharded execution requires executionSequenceId to be set, so all shards report to the same benchmark runs");
         List<String> executionSequenceIds = benchmarkExecutionSequenceIds();
         LOG.info("Running benchmarks(executionSequenceIds={}) with properties: {}", executionSequenceIds, properties);
 
         String firstSequenceId = executionSequenceIds.stream().findFirst().orElseThrow();
         List<Benchmark> baseBenchmarks = benchmarkLoader.loadBenchmarks(firstSequenceId);
         LOG.info("Loaded {} benchmarks", baseBenchmarks.size());
-        return executionSequenceIds.stream()
+        List<Benchmark> benchmarks = executionSequenceIds.stream()
                 .flatMap(sequenceId -> baseBenchmarks.stream().map(benchmark -> new Benchmark.BenchmarkBuilder(benchmark, sequenceId).build()))
                 .collect(toList());
+        executionJournal.open(executionSequenceIds);
+        if (!properties.isResume()) {
+            return benchmarks;
+        }
+        List<Benchmark> unfinishedBenchmarks = benchmarks.stream()
+                .filter(benchmark -> !executionJournal.isBenchmarkFinished(benchmark))
+                .collect(toList());
+        LOG.info("Resuming execution, skipping {} finished benchmarks, {} benchmarks were interrupted",
+                benchmarks.size() - unfinishedBenchmarks.size(),
+                unfinishedBenchmarks.stream().filter(executionJournal::isBenchmarkStarted).count());
+        return unfinishedBenchmarks;
     }
 
     private List<String> benchmarkExecutionSequenceIds()
@@ -130,6 +167,7 @@ public class ExecutionDriver
                 .collect(toList());
 
         benchmarkStatusReporter.awaitAllFutures(10, TimeUnit.MINUTES);
+        reportSpool.awaitDelivered();
 
         if (!failedBenchmarkResults.isEmpty()) {
             throw new FailedBenchmarkExecutionException(failedBenchmarkResults, benchmarkExecutionResults.size());
@@ -138,11 +176,55 @@ public class ExecutionDriver
 
     private List<BenchmarkExecutionResult> executeBenchmarkGroups(Map<String, List<Benchmark>> groups, int numberOfBenchmarks)
     {
-        List<BenchmarkExecutionResult> benchmarkExecutionResults = newArrayList();
+        Map<String, Integer> ordinalNumbers = new HashMap<>();
         int benchmarkOrdinalNumber = 1;
-        // use a LinkedHashMap to preserve order
         for (Map.Entry<String, List<Benchmark>> group : groups.entrySet()) {
-            for (Benchmark benchmark : group.getValue()) {
+            ordinalNumbers.put(group.getKey(), benchmarkOrdinalNumber);
+            benchmarkOrdinalNumber += group.getValue().size();
+        }
+        if (dataSourceLanes <= 1) {
+            return executeLane(List.copyOf(groups.keySet()), groups, ordinalNumbers, numberOfBenchmarks);
+        }
+
+        Map<String, Duration> expectedDurations = expectedGroupDurations(groups);
+        List<List<String>> lanes = DataSourceLanes.partition(groups, name -> expectedDurations.getOrDefault(name, Duration.ZERO));
+        LOG.info("Executing benchmark groups in {} data source lanes, at most {} at a time: {}", lanes.size(), dataSourceLanes, lanes);
+        // lanes are submitted longest expected first, which keeps the total duration short when not all of them can run at once
+        ExecutorService executor = newFixedThreadPool(Math.min(dataSourceLanes, lanes.size()));
+        try {
+            List<Future<List<BenchmarkExecutionResult>>> laneFutures = lanes.stream()
+                    .map(lane -> executor.submit(() -> executeLane(lane, groups, ordinalNumbers, numberOfBenchmarks)))
+                    .collect(toImmutableList());
+            List<BenchmarkExecutionResult> benchmarkExecutionResults = newArrayList();
+            for (Future<List<BenchmarkExecutionResult>> laneFuture : laneFutures) {
+                benchmarkExecutionResults.addAll(laneFuture.get());
+            }
+            // report results in the order of benchmarks, regardless of lanes
+            benchmarkExecutionResults.sort(Comparator.comparing(result -> ordinalNumbers.get(result.getBenchmark().getName())));
+            return benchmarkExecutionResults;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        catch (ExecutionException e) {
+            throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Executes benchmark groups one after another.
+     */
+    private List<BenchmarkExecutionResult> executeLane(List<String> lane, Map<String, List<Benchmark>> groups, Map<String, Integer> ordinalNumbers, int numberOfBenchmarks)
+    {
+        List<BenchmarkExecutionResult> benchmarkExecutionResults = newArrayList();
+        for (String groupName : lane) {
+            List<Benchmark> group = groups.get(groupName);
+            for (Benchmark benchmark : group) {
                 if (isTimeLimitEnded()) {
                     LOG.warn("Time limit for running benchmarks has run out");
                     return benchmarkExecutionResults;
@@ -150,13 +232,35 @@ public class ExecutionDriver
                 executeHealthCheck(benchmark);
             }
 
-            benchmarkExecutionResults.addAll(benchmarkExecutionDriver.execute(group.getValue(), benchmarkOrdinalNumber, numberOfBenchmarks, getExecutionTimeLimit()));
-            benchmarkOrdinalNumber += group.getValue().size();
+            benchmarkExecutionResults.addAll(benchmarkExecutionDriver.execute(group, ordinalNumbers.get(groupName), numberOfBenchmarks, getExecutionTimeLimit()));
             benchmarkStatusReporter.processCompletedFutures();
         }
         return benchmarkExecutionResults;
     }
 
+    /**
+     * Sum of durations of the latest successful runs of benchmarks in every group.
+     */
+    private Map<String, Duration> expectedGroupDurations(Map<String, List<Benchmark>> groups)
+    {
+        List<Benchmark> benchmarks = groups.values().stream()
+                .flatMap(List::stream)
+                .collect(toImmutableList());
+        Map<String, Duration> expectedDurations = new HashMap<>();
+        try {
+            List<Duration> durations = benchmarkServiceClient.getBenchmarkSuccessfulExecutionDurations(benchmarks.stream()
+                    .map(Benchmark::getUniqueName)
+                    .collect(toImmutableList()), Optional.empty());
+            for (int i = 0; i < benchmarks.size(); i++) {
+                expectedDurations.merge(benchmarks.get(i).getName(), durations.get(i), Duration::plus);
+            }
+        }
+        catch (RuntimeException e) {
+            LOG.warn("Could not load durations of previous benchmark runs, lanes are executed in order of benchmarks", e);
+        }
+        return expectedDurations;
+    }
+
     private boolean isTimeLimitEnded()
     {
         Optional<Duration> timeLimit = properties.getTimeLimit();
@@ -0,0 +1,211 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import io.trino.benchto.driver.Benchmark;
+import io.trino.benchto.driver.BenchmarkProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.DSYNC;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Local record of benchmarks and executions finished by the driver, kept in a separate file for every execution sequence id.
+ * It allows resuming the execution of benchmarks after the driver was interrupted, skipping finished benchmarks
+ * and executions, so results keep being reported to the same benchmark runs.
+ */
+@Component
+public class ExecutionJournal
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ExecutionJournal.class);
+
+    private static final String BENCHMARK_STARTED = "BENCHMARK_STARTED";
+    private static final String EXECUTION_FINISHED = "EXECUTION_FINISHED";
+    private static final String BENCHMARK_FINISHED = "BENCHMARK_FINISHED";
+    private static final char FIELD_SEPARATOR = '\t';
+
+    @Autowired
+    private BenchmarkProperties properties;
+
+    private final Set<String> startedBenchmarks = ConcurrentHashMap.newKeySet();
+    private final Set<String> finishedBenchmarks = ConcurrentHashMap.newKeySet();
+    private final Set<String> finishedExecutions = ConcurrentHashMap.newKeySet();
+
+    public boolean isEnabled()
+    {
+        return properties.getJournalDir().isPresent();
+    }
+
+    /**
+     * Loads journals of resumed executions, or makes sure journals of new executions do not exist yet.
+     */
+    public void open(List<String> executionSequenceIds)
+    {
+        if (!isEnabled()) {
+            checkArgument(!properties.isResume(), "Resuming execution requires journal-dir to be set");
+            return;
+        }
+        try {
+            Files.createDirectories(properties.getJournalDir().get());
+            for (String executionSequenceId : executionSequenceIds) {
+                Path journalFile = journalFile(executionSequenceId);
+                if (!properties.isResume()) {
+                    checkState(!Files.exists(journalFile), "Journal %s already exists, set resume to continue execution %s", journalFile, executionSequenceId);
+                }
+                else if (Files.exists(journalFile)) {
+                    replay(executionSequenceId, readRecords(journalFile));
+                }
+                else {
+                    LOG.warn("Journal {} does not exist, execution {} is started from the beginning", journalFile, executionSequenceId);
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads complete records of the journal. A record the driver was interrupted while appending is removed,
+     * so records appended after resuming start on a new line.
+     */
+    private static List<String> readRecords(Path journalFile)
+            throws IOException
+    {
+        byte[] content = Files.readAllBytes(journalFile);
+        int end = content.length;
+        while (end > 0 && content[end - 1] != '\n') {
+            end--;
+        }
+        if (end < content.length) {
+            LOG.warn("Removing incomplete record at the end of journal {}: {}", journalFile, new String(content, end, content.length - end, UTF_8));
+            try (FileChannel channel = FileChannel.open(journalFile, WRITE, DSYNC)) {
+                channel.truncate(end);
+            }
+        }
+        return Splitter.on('\n').omitEmptyStrings().splitToList(new String(content, 0, end, UTF_8));
+    }
+
+    private void replay(String executionSequenceId, List<String> lines)
+    {
+        for (String line : lines) {
+            List<String> fields = Splitter.on(FIELD_SEPARATOR).splitToList(line);
+            switch (fields.get(0)) {
+                case BENCHMARK_STARTED:
+                    if (fields.size() == 2) {
+                        startedBenchmarks.add(key(executionSequenceId, fields.get(1)));
+                        continue;
+                    }
+                    break;
+                case BENCHMARK_FINISHED:
+                    if (fields.size() == 2) {
+                        finishedBenchmarks.add(key(executionSequenceId, fields.get(1)));
+                        continue;
+                    }
+                    break;
+                case EXECUTION_FINISHED:
+                    if (fields.size() == 4) {
+                        finishedExecutions.add(key(executionSequenceId, fields.get(1), fields.get(2), fields.get(3)));
+                        continue;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            LOG.warn("Skipping malformed record of journal for execution {}: {}", executionSequenceId, line);
+        }
+    }
+
+    public boolean isBenchmarkStarted(Benchmark benchmark)
+    {
+        return startedBenchmarks.contains(key(benchmark));
+    }
+
+    public boolean isBenchmarkFinished(Benchmark benchmark)
+    {
+        return finishedBenchmarks.contains(key(benchmark));
+    }
+
+    public boolean isExecutionFinished(Benchmark benchmark, String queryName, int sequenceId)
+    {
+        return finishedExecutions.contains(key(key(benchmark), queryName, Integer.toString(sequenceId)));
+    }
+
+    public void benchmarkStarted(Benchmark benchmark)
+    {
+        if (startedBenchmarks.add(key(benchmark))) {
+            append(benchmark, BENCHMARK_STARTED, benchmark.getUniqueName());
+        }
+    }
+
+    public void executionFinished(QueryExecution execution)
+    {
+        Benchmark benchmark = execution.getBenchmark();
+        String sequenceId = Integer.toString(execution.getSequenceId());
+        if (finishedExecutions.add(key(key(benchmark), execution.getQueryName(), sequenceId))) {
+            append(benchmark, EXECUTION_FINISHED, benchmark.getUniqueName(), execution.getQueryName(), sequenceId);
+        }
+    }
+
+    public void benchmarkFinished(Benchmark benchmark)
+    {
+        if (finishedBenchmarks.add(key(benchmark))) {
+            append(benchmark, BENCHMARK_FINISHED, benchmark.getUniqueName());
+        }
+    }
+
+    private synchronized void append(Benchmark benchmark, String... fields)
+    {
+        try {
+            Files.writeString(journalFile(benchmark.getSequenceId()), Joiner.on(FIELD_SEPARATOR).join(fields) + "\n", UTF_8, CREATE, APPEND, DSYNC);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path journalFile(String executionSequenceId)
+    {
+        return properties.getJournalDir().get().resolve(executionSequenceId + ".journal");
+    }
+
+    private static String key(Benchmark benchmark)
+    {
+        return key(benchmark.getSequenceId(), benchmark.getUniqueName());
+    }
+
+    private static String key(String... fields)
+    {
+        return Joiner.on(FIELD_SEPARATOR).join(fields);
+    }
+}
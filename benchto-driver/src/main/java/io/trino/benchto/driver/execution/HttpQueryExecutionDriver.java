@@ -0,0 +1,400 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Splitter;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.trino.benchto.driver.BenchmarkExecutionException;
+import io.trino.benchto.driver.execution.QueryExecutionResult.QueryExecutionResultBuilder;
+import io.trino.benchto.driver.jdbc.PooledDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.datasource.AbstractDriverBasedDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.toIntExact;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.delayedExecutor;
+import static java.util.concurrent.CompletableFuture.failedFuture;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Executes queries with the Trino statement REST protocol instead of JDBC: the statement is submitted,
+ * then {@code nextUri} is followed until the query finishes, draining result data on the way.
+ * Requests are non-blocking, so a few HTTP client threads can drive thousands of concurrent queries.
+ */
+@Component
+public class HttpQueryExecutionDriver
+{
+    private static final String STATEMENT_PATH = "/v1/statement";
+    // server is overloaded or a proxy in front of it failed, the protocol requires the same request to be retried
+    private static final Set<Integer> RETRIED_STATUS_CODES = Set.of(502, 503, 504);
+    private static final long RETRY_DELAY_MILLIS = 100;
+    private static final Duration RETRY_TIMEOUT = Duration.ofMinutes(2);
+    // other parameters of the Trino JDBC URL, e.g. roles or SSL trust stores, change the session in ways the backend does not reproduce
+    private static final Set<String> SUPPORTED_URL_PARAMETERS = Set.of("SSL", "user", "password", "source", "sessionProperties", "clientTags");
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Value("${httpClientThreads:4}")
+    private int httpClientThreads = 4;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private QueryTimeoutWatchdog queryTimeoutWatchdog;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Supplier<ExecutorService> executor = Suppliers.memoize(() -> newFixedThreadPool(httpClientThreads, new ThreadFactoryBuilder()
+            .setNameFormat("trino-http-%s")
+            .setDaemon(true)
+            .build()));
+    private final Supplier<HttpClient> httpClient = Suppliers.memoize(() -> HttpClient.newBuilder()
+            .executor(executor.get())
+            .build());
+
+    public CompletableFuture<QueryExecutionResult> execute(QueryExecution queryExecution)
+    {
+        Session session;
+        try {
+            session = sessionFor(queryExecution.getBenchmark().getDataSource());
+        }
+        catch (RuntimeException e) {
+            return completedFuture(new QueryExecutionResultBuilder(queryExecution)
+                    .startTimer()
+                    .endTimer()
+                    .failed(e)
+                    .build());
+        }
+        return execute(queryExecution, session);
+    }
+
+    /**
+     * Returned future is never completed exceptionally, failures are reported by the query execution result.
+     */
+    public CompletableFuture<QueryExecutionResult> execute(QueryExecution queryExecution, Session session)
+    {
+        QueryExecutionResultBuilder queryExecutionResultBuilder = new QueryExecutionResultBuilder(queryExecution)
+                .startTimer();
+        HttpRequest.Builder request = newRequest(session.getServerUri().resolve(STATEMENT_PATH), session)
+                .POST(HttpRequest.BodyPublishers.ofString(queryExecution.getStatement()))
+                .header("X-Trino-Source", session.getSource());
+        session.getCatalog().ifPresent(catalog -> request.header("X-Trino-Catalog", catalog));
+        session.getSchema().ifPresent(schema -> request.header("X-Trino-Schema", schema));
+        session.getSessionProperties().forEach((name, value) -> request.header("X-Trino-Session", name + "=" + URLEncoder.encode(value, UTF_8)));
+        if (!session.getClientTags().isEmpty()) {
+            request.header("X-Trino-Client-Tags", String.join(",", session.getClientTags()));
+        }
+
+        QueryTimeoutWatchdog.Watch watch = queryTimeoutWatchdog.watch(queryExecution.getTimeout());
+        return send(request.build())
+                .thenCompose(results -> advance(queryExecutionResultBuilder, results, session, 0, watch))
+                .handle((rowsCount, failure) -> {
+                    watch.close();
+                    if (failure != null && watch.isTimedOut()) {
+                        queryExecutionResultBuilder.failed(new QueryTimeoutException(format("Query %s exceeded timeout of %s", queryExecution.getQueryName(), watch.getTimeout().orElseThrow()), unwrap(failure)));
+                    }
+                    else if (failure != null) {
+                        queryExecutionResultBuilder.failed(unwrap(failure));
+                    }
+                    else {
+                        queryExecutionResultBuilder.setRowsCount(toIntExact(rowsCount));
+                    }
+                    return queryExecutionResultBuilder
+                            .endTimer()
+                            .build();
+                });
+    }
+
+    private CompletableFuture<Long> advance(QueryExecutionResultBuilder queryExecutionResultBuilder, JsonNode results, Session session, long rowsCount, QueryTimeoutWatchdog.Watch watch)
+    {
+        if (results.hasNonNull("id")) {
+            queryExecutionResultBuilder.setPrestoQueryId(results.get("id").asText());
+            watch.setQueryId(results.get("id").asText());
+        }
+        if (results.hasNonNull("error")) {
+            JsonNode error = results.get("error");
+            return failedFuture(new SQLException(format("Query failed (#%s): %s", results.path("id").asText(), error.path("message").asText()), error.path("errorName").asText()));
+        }
+        long fetchedRows = rowsCount + results.path("data").size();
+        if (!results.hasNonNull("nextUri")) {
+            return completedFuture(fetchedRows);
+        }
+        URI nextUri = URI.create(results.get("nextUri").asText());
+        if (watch.isTimedOut()) {
+            // deleting the next uri cancels the query, the response is not awaited
+            httpClient.get().sendAsync(newRequest(nextUri, session).DELETE().build(), HttpResponse.BodyHandlers.discarding());
+            return failedFuture(new SQLException(format("Query %s was cancelled", results.path("id").asText())));
+        }
+        HttpRequest request = newRequest(nextUri, session)
+                .GET()
+                .build();
+        return send(request)
+                .thenCompose(nextResults -> advance(queryExecutionResultBuilder, nextResults, session, fetchedRows, watch));
+    }
+
+    private static HttpRequest.Builder newRequest(URI uri, Session session)
+    {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .header("X-Trino-User", session.getUser());
+        session.getPassword().ifPresent(password -> request.header("Authorization",
+                "Basic " + Base64.getEncoder().encodeToString((session.getUser() + ":" + password).getBytes(UTF_8))));
+        return request;
+    }
+
+    private CompletableFuture<JsonNode> send(HttpRequest request)
+    {
+        return send(request, System.nanoTime() + RETRY_TIMEOUT.toNanos());
+    }
+
+    private CompletableFuture<JsonNode> send(HttpRequest request, long retryDeadline)
+    {
+        return httpClient.get().sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenCompose(response -> {
+                    if (RETRIED_STATUS_CODES.contains(response.statusCode()) && System.nanoTime() - retryDeadline < 0) {
+                        return CompletableFuture.supplyAsync(() -> request, delayedExecutor(RETRY_DELAY_MILLIS, MILLISECONDS, executor.get()))
+                                .thenCompose(retriedRequest -> send(retriedRequest, retryDeadline));
+                    }
+                    if (response.statusCode() != 200) {
+                        return failedFuture(new IOException(format("Request %s %s failed with HTTP status %s", request.method(), request.uri(), response.statusCode())));
+                    }
+                    try {
+                        return completedFuture(OBJECT_MAPPER.readTree(response.body()));
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private static Exception unwrap(Throwable failure)
+    {
+        Throwable cause = failure;
+        while ((cause instanceof CompletionException || cause instanceof UncheckedIOException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+    }
+
+    private Session sessionFor(String dataSourceName)
+    {
+        return sessions.computeIfAbsent(dataSourceName, name -> {
+            DataSource dataSource = applicationContext.getBean(name, DataSource.class);
+            try (Connection connection = dataSource.getConnection()) {
+                // connections expose neither the password nor all parameters of the URL, so they are taken from the data source
+                String jdbcUrl;
+                Optional<String> password;
+                if (dataSource instanceof PooledDataSource) {
+                    jdbcUrl = ((PooledDataSource) dataSource).getJdbcUrl();
+                    password = ((PooledDataSource) dataSource).getPassword();
+                }
+                else if (dataSource instanceof AbstractDriverBasedDataSource) {
+                    jdbcUrl = ((AbstractDriverBasedDataSource) dataSource).getUrl();
+                    password = Optional.ofNullable(((AbstractDriverBasedDataSource) dataSource).getPassword());
+                }
+                else {
+                    throw new BenchmarkExecutionException(format("Data source %s of type %s is not supported by the HTTP execution backend", name, dataSource.getClass().getName()));
+                }
+                return session(
+                        jdbcUrl,
+                        connection.getMetaData().getUserName(),
+                        password,
+                        Optional.ofNullable(connection.getCatalog()),
+                        Optional.ofNullable(connection.getSchema()));
+            }
+            catch (SQLException e) {
+                throw new BenchmarkExecutionException(format("Could not resolve Trino server of data source %s", name), e);
+            }
+        });
+    }
+
+    /**
+     * Creates the session of a Trino JDBC URL, e.g. {@code jdbc:trino://host:8443/catalog?SSL=true&sessionProperties=query_max_memory:1GB;join_distribution_type:BROADCAST&clientTags=a,b}.
+     * Other URL parameters are rejected, so queries run with the same session as with JDBC.
+     */
+    static Session session(String jdbcUrl, String user, Optional<String> password, Optional<String> catalog, Optional<String> schema)
+    {
+        Map<String, String> parameters = urlParameters(jdbcUrl);
+        parameters.keySet().forEach(parameter -> checkArgument(SUPPORTED_URL_PARAMETERS.contains(parameter),
+                "Parameter %s of JDBC URL %s is not supported by the HTTP execution backend", parameter, jdbcUrl));
+        URI serverUri = serverUri(jdbcUrl);
+        Optional<String> sessionPassword = Optional.ofNullable(parameters.get("password"))
+                .or(() -> password)
+                .filter(value -> !value.isEmpty());
+        // like the JDBC driver, credentials are never sent unencrypted
+        checkArgument(sessionPassword.isEmpty() || serverUri.getScheme().equals("https"), "Authentication with password requires SSL to be enabled in JDBC URL %s", jdbcUrl);
+        return new Session(
+                serverUri,
+                user,
+                sessionPassword,
+                catalog,
+                schema,
+                parameters.getOrDefault("source", "benchto"),
+                Optional.ofNullable(parameters.get("sessionProperties"))
+                        .map(properties -> Splitter.on(';').omitEmptyStrings().withKeyValueSeparator(':').split(properties))
+                        .map(ImmutableMap::copyOf)
+                        .orElse(ImmutableMap.of()),
+                Optional.ofNullable(parameters.get("clientTags"))
+                        .map(tags -> Splitter.on(',').omitEmptyStrings().trimResults().splitToList(tags))
+                        .map(ImmutableList::copyOf)
+                        .orElse(ImmutableList.of()));
+    }
+
+    /**
+     * Extracts HTTP address of the coordinator from a Trino JDBC URL, e.g. {@code jdbc:trino://host:8080/catalog/schema?SSL=true}.
+     */
+    static URI serverUri(String jdbcUrl)
+    {
+        checkArgument(jdbcUrl.startsWith("jdbc:trino://"), "HTTP execution backend requires a Trino data source, got %s", jdbcUrl);
+        URI uri = URI.create(jdbcUrl.substring("jdbc:".length()));
+        String scheme = "true".equalsIgnoreCase(urlParameters(jdbcUrl).get("SSL")) ? "https" : "http";
+        return URI.create(format("%s://%s", scheme, uri.getAuthority()));
+    }
+
+    private static Map<String, String> urlParameters(String jdbcUrl)
+    {
+        int queryStart = jdbcUrl.indexOf('?');
+        if (queryStart < 0) {
+            return ImmutableMap.of();
+        }
+        return Splitter.on('&').omitEmptyStrings().withKeyValueSeparator(Splitter.on('=').limit(2)).split(jdbcUrl.substring(queryStart + 1));
+    }
+
+    public static class Session
+    {
+        private final URI serverUri;
+        private final String user;
+        private final Optional<String> password;
+        private final Optional<String> catalog;
+        private final Optional<String> schema;
+        private final String source;
+        private final Map<String, String> sessionProperties;
+        private final List<String> clientTags;
+
+        public Session(URI serverUri, String user, Optional<String> catalog, Optional<String> schema)
+        {
+            this(serverUri, user, Optional.empty(), catalog, schema, "benchto", ImmutableMap.of(), ImmutableList.of());
+        }
+
+        public Session(
+                URI serverUri,
+                String user,
+                Optional<String> password,
+                Optional<String> catalog,
+                Optional<String> schema,
+                String source,
+                Map<String, String> sessionProperties,
+                List<String> clientTags)
+        {
+            this.serverUri = requireNonNull(serverUri, "serverUri is null");
+            this.user = requireNonNull(user, "user is null");
+            this.password = requireNonNull(password, "password is null");
+            this.catalog = requireNonNull(catalog, "catalog is null");
+            this.schema = requireNonNull(schema, "schema is null");
+            this.source = requireNonNull(source, "source is null");
+            this.sessionProperties = ImmutableMap.copyOf(requireNonNull(sessionProperties, "sessionProperties is null"));
+            this.clientTags = ImmutableList.copyOf(requireNonNull(clientTags, "clientTags is null"));
+        }
+
+        public URI getServerUri()
+        {
+            return serverUri;
+        }
+
+        public String getUser()
+        {
+            return user;
+        }
+
+        public Optional<String> getPassword()
+        {
+            return password;
+        }
+
+        public Optional<String> getCatalog()
+        {
+            return catalog;
+        }
+
+        public Optional<String> getSchema()
+        {
+            return schema;
+        }
+
+        public String getSource()
+        {
+            return source;
+        }
+
+        public Map<String, String> getSessionProperties()
+        {
+            return sessionProperties;
+        }
+
+        public List<String> getClientTags()
+        {
+            return clientTags;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("serverUri", serverUri)
+                    .add("user", user)
+                    .add("catalog", catalog)
+                    .add("schema", schema)
+                    .add("source", source)
+                    .add("sessionProperties", sessionProperties)
+                    .add("clientTags", clientTags)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.trino.benchto.driver.service.Measurement;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+
+import static io.trino.benchto.driver.service.Measurement.measurement;
+
+/**
+ * Records query latencies of a benchmark, in total, per query name and per query class, into HDR histograms.
+ * <p>
+ * Histograms are allocated upfront for all query names, so recording neither locks nor allocates and
+ * can be done directly by the threads executing queries.
+ */
+public class LatencyRecorder
+{
+    public static final String HISTOGRAM_ATTRIBUTE = "latency_histogram";
+
+    // latencies are recorded in microseconds
+    private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.DAYS.toMicros(1);
+    private static final int TOTAL_SIGNIFICANT_DIGITS = 3;
+    private static final int PER_QUERY_SIGNIFICANT_DIGITS = 2;
+    private static final double MICROSECONDS_PER_MILLISECOND = 1000.0;
+    private static final Map<String, Double> PERCENTILES = ImmutableMap.<String, Double>builder()
+            .put("latency_p50", 50.0)
+            .put("latency_p90", 90.0)
+            .put("latency_p95", 95.0)
+            .put("latency_p99", 99.0)
+            .put("latency_p99_9", 99.9)
+            .build();
+
+    private final Histogram total = new ConcurrentHistogram(HIGHEST_TRACKABLE_LATENCY, TOTAL_SIGNIFICANT_DIGITS);
+    private final Map<String, Histogram> perQuery;
+    private final Map<String, String> queryClasses;
+    private final Map<String, Histogram> perQueryClass;
+
+    public LatencyRecorder(Collection<String> queryNames)
+    {
+        this(queryNames, ImmutableMap.of());
+    }
+
+    /**
+     * @param queryClasses classes of the queries by query name, latency percentiles are reported also per class
+     */
+    public LatencyRecorder(Collection<String> queryNames, Map<String, String> queryClasses)
+    {
+        Map<String, Histogram> perQuery = new LinkedHashMap<>();
+        for (String queryName : queryNames) {
+            perQuery.put(queryName, new ConcurrentHistogram(HIGHEST_TRACKABLE_LATENCY, PER_QUERY_SIGNIFICANT_DIGITS));
+        }
+        this.perQuery = ImmutableMap.copyOf(perQuery);
+        this.queryClasses = ImmutableMap.copyOf(queryClasses);
+        Map<String, Histogram> perQueryClass = new LinkedHashMap<>();
+        for (String queryClass : queryClasses.values()) {
+            perQueryClass.putIfAbsent(queryClass, new ConcurrentHistogram(HIGHEST_TRACKABLE_LATENCY, TOTAL_SIGNIFICANT_DIGITS));
+        }
+        this.perQueryClass = ImmutableMap.copyOf(perQueryClass);
+    }
+
+    public static LatencyRecorder recordAll(Collection<String> queryNames, Collection<QueryExecutionResult> executions)
+    {
+        LatencyRecorder recorder = new LatencyRecorder(queryNames);
+        executions.forEach(recorder::record);
+        return recorder;
+    }
+
+    /**
+     * Records latency of a successful execution. Open-loop executions are recorded with the latency corrected
+     * for coordinated omission, as experienced by the issuing client.
+     */
+    public void record(QueryExecutionResult execution)
+    {
+        if (!execution.isSuccessful()) {
+            return;
+        }
+        Duration latency = execution.getCorrectedQueryDuration().orElse(execution.getQueryDuration());
+        record(execution.getQueryName(), latency.toNanos());
+    }
+
+    public void record(String queryName, long latencyNanos)
+    {
+        long latencyMicros = Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(latencyNanos), 0), HIGHEST_TRACKABLE_LATENCY);
+        total.recordValue(latencyMicros);
+        Histogram queryHistogram = perQuery.get(queryName);
+        if (queryHistogram != null) {
+            queryHistogram.recordValue(latencyMicros);
+        }
+        String queryClass = queryClasses.get(queryName);
+        if (queryClass != null) {
+            perQueryClass.get(queryClass).recordValue(latencyMicros);
+        }
+    }
+
+    public long getTotalCount()
+    {
+        return total.getTotalCount();
+    }
+
+    public Duration getLatencyAtPercentile(double percentile)
+    {
+        return Duration.of(total.getValueAtPercentile(percentile), ChronoUnit.MICROS);
+    }
+
+    /**
+     * Latency percentiles of all recorded executions, and of every query class, with the class name as a suffix.
+     * Percentiles of particular queries can be computed from histogram attributes.
+     */
+    public List<Measurement> toMeasurements()
+    {
+        if (total.getTotalCount() == 0) {
+            return ImmutableList.of();
+        }
+        ImmutableList.Builder<Measurement> measurements = ImmutableList.<Measurement>builder()
+                .addAll(percentileMeasurements(total));
+        perQueryClass.forEach((queryClass, histogram) -> {
+            if (histogram.getTotalCount() > 0) {
+                measurements.addAll(percentileMeasurements(histogram, "." + queryClass));
+            }
+        });
+        return measurements.build();
+    }
+
+    /**
+     * Compressed histograms, so latencies of several runs or drivers can be merged later.
+     */
+    public Map<String, String> toAttributes()
+    {
+        ImmutableMap.Builder<String, String> attributes = ImmutableMap.builder();
+        if (total.getTotalCount() == 0) {
+            return attributes.build();
+        }
+        attributes.put(HISTOGRAM_ATTRIBUTE, encodeHistogram(total));
+        if (perQuery.size() > 1) {
+            perQuery.forEach((queryName, histogram) -> {
+                if (histogram.getTotalCount() > 0) {
+                    attributes.put(HISTOGRAM_ATTRIBUTE + "." + queryName, encodeHistogram(histogram));
+                }
+            });
+        }
+        return attributes.build();
+    }
+
+    public static String encodeHistogram(Histogram histogram)
+    {
+        Histogram copy = histogram.copy();
+        ByteBuffer buffer = ByteBuffer.allocate(copy.getNeededByteBufferCapacity());
+        int length = copy.encodeIntoCompressedByteBuffer(buffer, Deflater.BEST_COMPRESSION);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    public static Histogram decodeHistogram(String encoded)
+    {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(encoded)), 0);
+        }
+        catch (DataFormatException e) {
+            throw new IllegalArgumentException("Invalid latency histogram: " + encoded, e);
+        }
+    }
+
+    public static List<Measurement> percentileMeasurements(Histogram histogram)
+    {
+        return percentileMeasurements(histogram, "");
+    }
+
+    private static List<Measurement> percentileMeasurements(Histogram histogram, String nameSuffix)
+    {
+        ImmutableList.Builder<Measurement> measurements = ImmutableList.builder();
+        PERCENTILES.forEach((name, percentile) ->
+                measurements.add(measurement(name + nameSuffix, "MILLISECONDS", histogram.getValueAtPercentile(percentile) / MICROSECONDS_PER_MILLISECOND)));
+        measurements.add(measurement("latency_max" + nameSuffix, "MILLISECONDS", histogram.getMaxValue() / MICROSECONDS_PER_MILLISECOND));
+        return measurements.build();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.benchto.driver.listeners.measurements.ThroughputMeasurementProvider;
+import io.trino.benchto.driver.service.Measurement;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.benchto.driver.service.Measurement.additiveMeasurement;
+import static io.trino.benchto.driver.service.Measurement.measurement;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Period of a throughput test in which all its streams are executing queries, i.e. excluding
+ * the ramp-up, when some streams have not started yet, and the ramp-down, when some streams have already finished.
+ */
+public class MeasurementWindow
+{
+    private ZonedDateTime firstStart;
+    private ZonedDateTime lastEnd;
+    private ZonedDateTime start;
+    private ZonedDateTime end;
+    private boolean idleStream;
+    private final List<ZonedDateTime> completions = new ArrayList<>();
+
+    public void addStream(List<QueryExecutionResult> executions)
+    {
+        if (executions.isEmpty()) {
+            idleStream = true;
+            return;
+        }
+        List<ZonedDateTime> streamCompletions = executions.stream()
+                .filter(QueryExecutionResult::isSuccessful)
+                .map(QueryExecutionResult::getUtcEnd)
+                .collect(toImmutableList());
+        addStream(executions.get(0).getUtcStart(), executions.get(executions.size() - 1).getUtcEnd(), streamCompletions);
+    }
+
+    void addStream(ZonedDateTime streamStart, ZonedDateTime streamEnd, List<ZonedDateTime> streamCompletions)
+    {
+        requireNonNull(streamStart, "streamStart is null");
+        requireNonNull(streamEnd, "streamEnd is null");
+        firstStart = firstStart == null || streamStart.isBefore(firstStart) ? streamStart : firstStart;
+        lastEnd = lastEnd == null || streamEnd.isAfter(lastEnd) ? streamEnd : lastEnd;
+        start = start == null || streamStart.isAfter(start) ? streamStart : start;
+        end = end == null || streamEnd.isBefore(end) ? streamEnd : end;
+        completions.addAll(streamCompletions);
+    }
+
+    /**
+     * Duration of the period when all streams were active, empty if there was no such period.
+     */
+    public Optional<Duration> getDuration()
+    {
+        if (idleStream || start == null || !end.isAfter(start)) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.between(start, end));
+    }
+
+    /**
+     * Number of successful queries completed while all streams were active.
+     */
+    public long getCompletedQueries()
+    {
+        if (getDuration().isEmpty()) {
+            return 0;
+        }
+        return completions.stream()
+                .filter(completion -> !completion.isBefore(start) && !completion.isAfter(end))
+                .count();
+    }
+
+    public Optional<Double> getThroughput()
+    {
+        return getDuration().map(duration -> ThroughputMeasurementProvider.calculateThroughput(getCompletedQueries(), duration));
+    }
+
+    public List<Measurement> toMeasurements()
+    {
+        ImmutableList.Builder<Measurement> measurements = ImmutableList.builder();
+        getDuration().ifPresent(duration -> {
+            measurements.add(measurement("measurement_window", "MILLISECONDS", duration.toMillis()));
+            measurements.add(additiveMeasurement("measurement_window_queries", "NONE", getCompletedQueries()));
+            measurements.add(measurement("ramp_up", "MILLISECONDS", Duration.between(firstStart, start).toMillis()));
+            measurements.add(measurement("ramp_down", "MILLISECONDS", Duration.between(end, lastEnd).toMillis()));
+        });
+        return measurements.build();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("start", start)
+                .add("end", end)
+                .add("duration", getDuration())
+                .add("completedQueries", getCompletedQueries())
+                .toString();
+    }
+}
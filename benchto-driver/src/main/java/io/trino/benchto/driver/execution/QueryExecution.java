@@ -18,11 +18,13 @@ import io.trino.benchto.driver.Benchmark;
 import io.trino.benchto.driver.Query;
 import io.trino.benchto.driver.loader.SqlStatementGenerator;
 
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkState;
+import static io.trino.benchto.driver.loader.SqlStatementGenerator.EXECUTION_SEQUENCE_ID_VARIABLE;
 import static java.util.Objects.requireNonNull;
 
 public class QueryExecution
@@ -34,11 +36,28 @@ public class QueryExecution
 
     private final String statement;
 
+    private final boolean warmup;
+
+    // System.nanoTime() at which an open-loop test intended to start this execution
+    private final Optional<Long> intendedStart;
+
     public QueryExecution(Benchmark benchmark, Query query, int sequenceId, SqlStatementGenerator sqlStatementGenerator)
+    {
+        this(benchmark, query, sequenceId, sqlStatementGenerator, false, Optional.empty());
+    }
+
+    public QueryExecution(Benchmark benchmark, Query query, int sequenceId, SqlStatementGenerator sqlStatementGenerator, boolean warmup)
+    {
+        this(benchmark, query, sequenceId, sqlStatementGenerator, warmup, Optional.empty());
+    }
+
+    public QueryExecution(Benchmark benchmark, Query query, int sequenceId, SqlStatementGenerator sqlStatementGenerator, boolean warmup, Optional<Long> intendedStart)
     {
         this.benchmark = requireNonNull(benchmark);
         this.query = requireNonNull(query);
         this.sequenceId = sequenceId;
+        this.warmup = warmup;
+        this.intendedStart = requireNonNull(intendedStart, "intendedStart is null");
 
         this.statement = generateQuerySqlStatement(sqlStatementGenerator);
     }
@@ -68,22 +87,46 @@ public class QueryExecution
         return statement;
     }
 
+    /**
+     * Whether this is a suite or benchmark prewarm execution, which is not part of measured runs.
+     */
+    public boolean isWarmup()
+    {
+        return warmup;
+    }
+
+    public Optional<Long> getIntendedStart()
+    {
+        return intendedStart;
+    }
+
+    /**
+     * Timeout of the query, if defined, falling back to the one of the benchmark.
+     */
+    public Optional<Duration> getTimeout()
+    {
+        return query.getTimeout().or(benchmark::getQueryTimeout);
+    }
+
     @Override
     public String toString()
     {
         return toStringHelper(this)
                 .add("query", query)
                 .add("run", sequenceId)
+                .add("warmup", warmup)
                 .toString();
     }
 
     private String generateQuerySqlStatement(SqlStatementGenerator sqlStatementGenerator)
     {
-        Map<String, String> variables = ImmutableMap.<String, String>builder()
-                .put("execution_sequence_id", Integer.toString(getSequenceId()))
-                .putAll(getBenchmark().getNonReservedKeywordVariables())
-                .build();
-        List<String> sqlQueries = sqlStatementGenerator.generateQuerySqlStatement(getQuery(), variables);
+        ImmutableMap.Builder<String, String> variables = ImmutableMap.builder();
+        // statements not using the sequence id are the same for all executions, so they are rendered only once
+        if (SqlStatementGenerator.usesPerExecutionVariables(getQuery())) {
+            variables.put(EXECUTION_SEQUENCE_ID_VARIABLE, Integer.toString(getSequenceId()));
+        }
+        variables.putAll(getBenchmark().getNonReservedKeywordVariables());
+        List<String> sqlQueries = sqlStatementGenerator.generateQuerySqlStatement(getQuery(), variables.build());
         checkState(sqlQueries.size() == 1, "Multiple statements in one query file are not supported");
         return sqlQueries.get(0);
     }
@@ -13,93 +13,210 @@
  */
 package io.trino.benchto.driver.execution;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableList;
+import io.trino.benchto.driver.Benchmark.FetchMode;
 import io.trino.benchto.driver.execution.QueryExecutionResult.QueryExecutionResultBuilder;
+import io.trino.benchto.driver.service.Measurement;
+import io.trino.benchto.driver.utils.FetchStatistics;
 import io.trino.jdbc.TrinoResultSet;
 import io.trino.jdbc.TrinoStatement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
+import static io.trino.benchto.driver.service.Measurement.measurement;
+import static io.trino.benchto.driver.utils.QueryUtils.compareChecksum;
 import static io.trino.benchto.driver.utils.QueryUtils.compareCount;
 import static io.trino.benchto.driver.utils.QueryUtils.compareRows;
 import static io.trino.benchto.driver.utils.QueryUtils.fetchRows;
+import static io.trino.benchto.driver.utils.QueryUtils.isChecksumFile;
 import static io.trino.benchto.driver.utils.QueryUtils.isSelectQuery;
+import static java.lang.Math.toIntExact;
+import static java.lang.String.format;
 
 public class QueryExecutionDriver
 {
     private static final Logger LOG = LoggerFactory.getLogger(QueryExecutionDriver.class);
+    private static final double NANOS_PER_MILLISECOND = 1_000_000.0;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final int MAX_CONNECTIONS_WITH_PREPARED_STATEMENTS = 1_000;
+    private static final Duration PREPARED_STATEMENTS_IDLE_TIMEOUT = Duration.ofMinutes(10);
+
+    @Autowired
+    private QueryParameterGenerator queryParameterGenerator;
+
+    @Autowired
+    private QueryTimeoutWatchdog queryTimeoutWatchdog;
+
+    /**
+     * Statements prepared on each physical connection of the driver, so they are reused by all borrows of a pooled connection.
+     * Statements of closed connections are closed once another connection prepares its first statement, connections which
+     * are no longer used are evicted after a while or when there are too many of them, closing their statements.
+     */
+    private final Cache<Connection, Map<String, PreparedStatement>> preparedStatements = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CONNECTIONS_WITH_PREPARED_STATEMENTS)
+            .expireAfterAccess(PREPARED_STATEMENTS_IDLE_TIMEOUT)
+            .removalListener(QueryExecutionDriver::closePreparedStatements)
+            .build();
 
     public QueryExecutionResult execute(QueryExecution queryExecution, Connection connection, Optional<Path> resultFile)
             throws SQLException
     {
-        QueryExecutionResultBuilder queryExecutionResultBuilder = new QueryExecutionResultBuilder(queryExecution)
-                .startTimer();
+        QueryExecutionResultBuilder queryExecutionResultBuilder = new QueryExecutionResultBuilder(queryExecution);
 
         String sqlStatement = queryExecution.getStatement();
 
-        if (isSelectQuery(sqlStatement)) {
-            return executeSelectQuery(connection, queryExecutionResultBuilder, sqlStatement, resultFile);
+        try (QueryTimeoutWatchdog.Watch watch = queryTimeoutWatchdog.watch(queryExecution.getTimeout())) {
+            try {
+                if (queryExecution.getBenchmark().isPreparedStatements()) {
+                    return executePreparedStatement(queryExecution, connection, queryExecutionResultBuilder, sqlStatement, resultFile, watch);
+                }
+                queryExecutionResultBuilder.startTimer();
+                if (isSelectQuery(sqlStatement)) {
+                    return executeSelectQuery(connection, queryExecutionResultBuilder, sqlStatement, resultFile, queryExecution.getBenchmark().getFetchMode(), watch);
+                }
+                else {
+                    return executeUpdateQuery(connection, queryExecutionResultBuilder, sqlStatement, resultFile, watch);
+                }
+            }
+            catch (SQLException | RuntimeException e) {
+                if (watch.isTimedOut()) {
+                    throw new QueryTimeoutException(format("Query %s exceeded timeout of %s", queryExecution.getQueryName(), watch.getTimeout().orElseThrow()), e);
+                }
+                throw e;
+            }
         }
-        else {
-            return executeUpdateQuery(connection, queryExecutionResultBuilder, sqlStatement, resultFile);
+    }
+
+    /**
+     * Tracks id of the query and cancels the statement when the query exceeds its timeout.
+     */
+    private static void watchStatement(Statement statement, QueryExecutionResultBuilder queryExecutionResultBuilder, QueryTimeoutWatchdog.Watch watch)
+            throws SQLException
+    {
+        if (statement.isWrapperFor(TrinoStatement.class)) {
+            TrinoStatement trinoStatement = statement.unwrap(TrinoStatement.class);
+            trinoStatement.setProgressMonitor(stats -> {
+                queryExecutionResultBuilder.setPrestoQueryId(stats.getQueryId());
+                watch.setQueryId(stats.getQueryId());
+            });
         }
+        watch.onTimeout(() -> {
+            try {
+                statement.cancel();
+            }
+            catch (SQLException e) {
+                LOG.warn("Could not cancel statement", e);
+            }
+        });
     }
 
     private QueryExecutionResult executeSelectQuery(
             Connection connection,
             QueryExecutionResultBuilder queryExecutionResultBuilder,
             String sqlStatement,
-            Optional<Path> resultFile)
+            Optional<Path> resultFile,
+            FetchMode fetchMode,
+            QueryTimeoutWatchdog.Watch watch)
             throws SQLException
     {
-        try (Statement statement = connection.createStatement();
-                ResultSet resultSet = statement.executeQuery(sqlStatement)) {
-            int rowsCount;
-            if (resultFile.isPresent()) {
-                // load results from file and compare
-                rowsCount = compareRows(resultFile.get(), resultSet);
-            }
-            else {
-                // ignore results
-                rowsCount = fetchRows(sqlStatement, resultSet);
+        long queryStart = System.nanoTime();
+        try (Statement statement = connection.createStatement()) {
+            watchStatement(statement, queryExecutionResultBuilder, watch);
+            try (ResultSet resultSet = statement.executeQuery(sqlStatement)) {
+                return processResultSet(connection, queryExecutionResultBuilder, sqlStatement, resultSet, resultFile, fetchMode, queryStart);
             }
+        }
+    }
 
-            try {
-                if (resultSet.isWrapperFor(TrinoResultSet.class)) {
-                    TrinoResultSet trinoResultSet = resultSet.unwrap(TrinoResultSet.class);
-                    queryExecutionResultBuilder.setPrestoQueryId(trinoResultSet.getQueryId());
-                }
-            }
-            catch (AbstractMethodError | Exception e) {
-                // this error is caught by the compiler, but some drivers (hsqldb, hive, ...?) sucks
-                LOG.warn("Driver ({}) does not support isWrapperFor/unwrap method", connection);
+    private QueryExecutionResult processResultSet(
+            Connection connection,
+            QueryExecutionResultBuilder queryExecutionResultBuilder,
+            String sqlStatement,
+            ResultSet resultSet,
+            Optional<Path> resultFile,
+            FetchMode fetchMode,
+            long queryStart)
+            throws SQLException
+    {
+        int rowsCount;
+        if (resultFile.isPresent() && isChecksumFile(resultFile.get())) {
+            // hash results while fetching and compare with the checksum
+            rowsCount = compareChecksum(resultFile.get(), resultSet);
+        }
+        else if (resultFile.isPresent()) {
+            // load results from file and compare
+            rowsCount = compareRows(resultFile.get(), resultSet);
+        }
+        else {
+            // ignore results
+            FetchStatistics fetchStatistics = fetchRows(sqlStatement, resultSet, fetchMode);
+            rowsCount = toIntExact(fetchStatistics.getRows());
+            queryExecutionResultBuilder.addMeasurements(fetchMeasurements(fetchStatistics, queryStart, fetchMode));
+        }
+
+        try {
+            if (resultSet.isWrapperFor(TrinoResultSet.class)) {
+                TrinoResultSet trinoResultSet = resultSet.unwrap(TrinoResultSet.class);
+                queryExecutionResultBuilder.setPrestoQueryId(trinoResultSet.getQueryId());
             }
+        }
+        catch (AbstractMethodError | Exception e) {
+            // this error is caught by the compiler, but some drivers (hsqldb, hive, ...?) sucks
+            LOG.warn("Driver ({}) does not support isWrapperFor/unwrap method", connection);
+        }
 
-            return queryExecutionResultBuilder
-                    .setRowsCount(rowsCount)
-                    .endTimer()
-                    .build();
+        return queryExecutionResultBuilder
+                .setRowsCount(rowsCount)
+                .endTimer()
+                .build();
+    }
+
+    /**
+     * Client side fetch measurements, so decoding cost of the driver can be told apart from the engine time.
+     */
+    private static List<Measurement> fetchMeasurements(FetchStatistics fetchStatistics, long queryStart, FetchMode fetchMode)
+    {
+        ImmutableList.Builder<Measurement> measurements = ImmutableList.builder();
+        fetchStatistics.getTimeToFirstRow(queryStart)
+                .ifPresent(timeToFirstRow -> measurements.add(measurement("time_to_first_row", "MILLISECONDS", timeToFirstRow.toNanos() / NANOS_PER_MILLISECOND)));
+        Duration fetchDuration = fetchStatistics.getFetchDuration();
+        measurements.add(measurement("fetch_duration", "MILLISECONDS", fetchDuration.toNanos() / NANOS_PER_MILLISECOND));
+        if (!fetchDuration.isZero()) {
+            double fetchSeconds = fetchDuration.toNanos() / NANOS_PER_SECOND;
+            measurements.add(measurement("fetch_rows_per_second", "NONE", fetchStatistics.getRows() / fetchSeconds));
+            if (fetchMode == FetchMode.DECODE) {
+                measurements.add(measurement("fetch_bytes_per_second", "BYTES_PER_SECOND", fetchStatistics.getBytes() / fetchSeconds));
+            }
         }
+        return measurements.build();
     }
 
     private QueryExecutionResult executeUpdateQuery(
             Connection connection,
             QueryExecutionResultBuilder queryExecutionResultBuilder,
             String sqlStatement,
-            Optional<Path> resultFile)
+            Optional<Path> resultFile,
+            QueryTimeoutWatchdog.Watch watch)
             throws SQLException
     {
         try (Statement statement = connection.createStatement()) {
-            if (statement.isWrapperFor(TrinoStatement.class)) {
-                TrinoStatement trinoStatement = statement.unwrap(TrinoStatement.class);
-                trinoStatement.setProgressMonitor(stats -> queryExecutionResultBuilder.setPrestoQueryId(stats.getQueryId()));
-            }
+            watchStatement(statement, queryExecutionResultBuilder, watch);
 
             int rowCount = statement.executeUpdate(sqlStatement);
             resultFile.ifPresent(path -> compareCount(path, rowCount));
@@ -110,4 +227,102 @@ public class QueryExecutionDriver
                     .build();
         }
     }
+
+    private QueryExecutionResult executePreparedStatement(
+            QueryExecution queryExecution,
+            Connection connection,
+            QueryExecutionResultBuilder queryExecutionResultBuilder,
+            String sqlStatement,
+            Optional<Path> resultFile,
+            QueryTimeoutWatchdog.Watch watch)
+            throws SQLException
+    {
+        // preparing and binding parameters, including loading them, are reported separately from the query duration
+        long prepareStart = System.nanoTime();
+        PreparedStatement statement = prepareStatement(connection, sqlStatement);
+        List<Object> parameters = queryParameterGenerator.generate(queryExecution);
+        for (int parameter = 0; parameter < parameters.size(); parameter++) {
+            statement.setObject(parameter + 1, parameters.get(parameter));
+        }
+        watchStatement(statement, queryExecutionResultBuilder, watch);
+        queryExecutionResultBuilder.addMeasurement(measurement("prepare_duration", "MILLISECONDS", (System.nanoTime() - prepareStart) / NANOS_PER_MILLISECOND));
+
+        queryExecutionResultBuilder.startTimer();
+        long queryStart = System.nanoTime();
+        QueryExecutionResult result;
+        if (isSelectQuery(sqlStatement)) {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                result = processResultSet(connection, queryExecutionResultBuilder, sqlStatement, resultSet, resultFile, queryExecution.getBenchmark().getFetchMode(), queryStart);
+            }
+        }
+        else {
+            int rowCount = statement.executeUpdate();
+            resultFile.ifPresent(path -> compareCount(path, rowCount));
+            result = queryExecutionResultBuilder
+                    .setRowsCount(rowCount)
+                    .endTimer()
+                    .build();
+        }
+        statement.clearParameters();
+        return result;
+    }
+
+    /**
+     * Returns the statement prepared on the connection before, so it is reused by subsequent executions on the same connection.
+     * Statements are prepared on the physical connection, since connection pools close statements of a connection when it is returned.
+     */
+    private PreparedStatement prepareStatement(Connection connection, String sqlStatement)
+            throws SQLException
+    {
+        Connection physicalConnection = physicalConnection(connection);
+        Map<String, PreparedStatement> connectionStatements = preparedStatements.getIfPresent(physicalConnection);
+        if (connectionStatements == null) {
+            closeStatementsOfClosedConnections();
+            connectionStatements = preparedStatements.asMap().computeIfAbsent(physicalConnection, key -> new ConcurrentHashMap<>());
+        }
+        PreparedStatement statement = connectionStatements.get(sqlStatement);
+        if (statement == null || statement.isClosed()) {
+            statement = physicalConnection.prepareStatement(sqlStatement);
+            connectionStatements.put(sqlStatement, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Pooled connections are wrapped anew on every borrow, while the wrapped connection of the driver stays the same.
+     */
+    private static Connection physicalConnection(Connection connection)
+            throws SQLException
+    {
+        if (connection.isWrapperFor(Connection.class)) {
+            return connection.unwrap(Connection.class);
+        }
+        return connection;
+    }
+
+    private void closeStatementsOfClosedConnections()
+    {
+        for (Connection connection : preparedStatements.asMap().keySet()) {
+            try {
+                if (connection.isClosed()) {
+                    preparedStatements.invalidate(connection);
+                }
+            }
+            catch (SQLException e) {
+                preparedStatements.invalidate(connection);
+            }
+        }
+    }
+
+    private static void closePreparedStatements(RemovalNotification<Connection, Map<String, PreparedStatement>> notification)
+    {
+        for (PreparedStatement statement : notification.getValue().values()) {
+            try {
+                statement.close();
+            }
+            catch (SQLException e) {
+                LOG.debug("Could not close prepared statement", e);
+            }
+        }
+    }
 }
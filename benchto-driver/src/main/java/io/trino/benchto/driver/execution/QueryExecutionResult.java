@@ -16,9 +16,12 @@ package io.trino.benchto.driver.execution;
 import io.trino.benchto.driver.Benchmark;
 import io.trino.benchto.driver.Measurable;
 
+import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.util.Optional;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.time.temporal.ChronoUnit.NANOS;
 
 public class QueryExecutionResult
         extends Measurable
@@ -58,6 +61,14 @@ public class QueryExecutionResult
         return failureCause == null;
     }
 
+    /**
+     * Whether the query was cancelled after exceeding its timeout.
+     */
+    public boolean isTimedOut()
+    {
+        return failureCause instanceof QueryTimeoutException;
+    }
+
     public int getRowsCount()
     {
         return rowsCount;
@@ -78,6 +89,30 @@ public class QueryExecutionResult
         return queryExecution.getQueryName();
     }
 
+    public Optional<ZonedDateTime> getUtcIntendedStart()
+    {
+        return queryExecution.getIntendedStart()
+                .map(intendedStart -> utcStart.minus(start - intendedStart, NANOS));
+    }
+
+    /**
+     * Time between the moment an open-loop test intended to start this execution and its actual start.
+     */
+    public Optional<Duration> getStartDelay()
+    {
+        return queryExecution.getIntendedStart()
+                .map(intendedStart -> Duration.of(start - intendedStart, NANOS));
+    }
+
+    /**
+     * Query duration measured from the intended start, which accounts for coordinated omission in open-loop tests.
+     */
+    public Optional<Duration> getCorrectedQueryDuration()
+    {
+        return queryExecution.getIntendedStart()
+                .map(intendedStart -> Duration.of(end - intendedStart, NANOS));
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,168 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.trino.benchto.driver.Benchmark;
+import io.trino.benchto.driver.BenchmarkExecutionException;
+import io.trino.benchto.driver.BenchmarkProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Generates values bound to parameters of prepared statements. Query property {@code parameters} is either
+ * {@code random(min, max)}, binding uniformly distributed integers seeded by the benchmark run, the driver and
+ * the execution sequence id, or a name of a CSV file in one of the SQL directories, whose rows are used by
+ * subsequent executions.
+ */
+@Component
+public class QueryParameterGenerator
+{
+    public static final String PARAMETERS_PROPERTY = "parameters";
+
+    private static final Pattern RANDOM_PATTERN = Pattern.compile("random\\(\\s*(-?\\d+)\\s*,\\s*(-?\\d+)\\s*\\)");
+    private static final Splitter CSV_SPLITTER = Splitter.on(',').trimResults();
+
+    @Autowired
+    private BenchmarkProperties properties;
+
+    @Autowired
+    private DriverCoordinator driverCoordinator;
+
+    private final Map<String, List<List<Object>>> csvParameters = new ConcurrentHashMap<>();
+
+    public List<Object> generate(QueryExecution queryExecution)
+    {
+        String statement = queryExecution.getStatement();
+        int parameterCount = countParameters(statement);
+        Optional<String> parameters = queryExecution.getQuery().getProperty(PARAMETERS_PROPERTY);
+        if (parameters.isEmpty()) {
+            checkState(parameterCount == 0, "Query %s has %s parameters, but property %s is not defined", queryExecution.getQueryName(), parameterCount, PARAMETERS_PROPERTY);
+            return ImmutableList.of();
+        }
+
+        Matcher random = RANDOM_PATTERN.matcher(parameters.get());
+        if (random.matches()) {
+            long min = Long.parseLong(random.group(1));
+            long max = Long.parseLong(random.group(2));
+            checkState(min <= max, "Invalid parameters range of query %s: %s", queryExecution.getQueryName(), parameters.get());
+            Random generator = new Random(randomSeed(queryExecution));
+            ImmutableList.Builder<Object> values = ImmutableList.builder();
+            for (int parameter = 0; parameter < parameterCount; parameter++) {
+                values.add(min + (long) (generator.nextDouble() * (max - min + 1)));
+            }
+            return values.build();
+        }
+
+        List<List<Object>> rows = csvParameters.computeIfAbsent(parameters.get(), this::loadCsv);
+        List<Object> row = rows.get(queryExecution.getSequenceId() % rows.size());
+        checkState(row.size() == parameterCount, "Query %s has %s parameters, but %s has %s columns", queryExecution.getQueryName(), parameterCount, parameters.get(), row.size());
+        return row;
+    }
+
+    /**
+     * Executions of different benchmark runs and coordinated drivers get independent values, while every execution
+     * can be reproduced. Sequence ids of executions are unique among the streams of a benchmark run.
+     */
+    private long randomSeed(QueryExecution queryExecution)
+    {
+        Benchmark benchmark = queryExecution.getBenchmark();
+        String driverId = driverCoordinator.isCoordinated(benchmark) ? driverCoordinator.getDriverId() : "";
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (String component : new String[] {benchmark.getUniqueName(), benchmark.getSequenceId(), driverId}) {
+            hasher.putInt(component.length()).putString(component, UTF_8);
+        }
+        return hasher.putInt(queryExecution.getSequenceId()).hash().asLong();
+    }
+
+    private List<List<Object>> loadCsv(String fileName)
+    {
+        Path file = properties.sqlFilesDirs().stream()
+                .map(sqlFilesDir -> sqlFilesDir.resolve(fileName))
+                .filter(Files::isRegularFile)
+                .findFirst()
+                .orElseThrow(() -> new BenchmarkExecutionException(format("Could not find parameters file: %s", fileName)));
+        try {
+            List<List<Object>> rows = Files.readAllLines(file).stream()
+                    .filter(line -> !line.isBlank())
+                    .map(line -> CSV_SPLITTER.splitToStream(line)
+                            .map(QueryParameterGenerator::parseValue)
+                            .collect(toImmutableList()))
+                    .collect(toImmutableList());
+            checkState(!rows.isEmpty(), "Parameters file %s is empty", file);
+            return rows;
+        }
+        catch (IOException e) {
+            throw new BenchmarkExecutionException(format("Error during loading parameters from path %s", file), e);
+        }
+    }
+
+    private static Object parseValue(String value)
+    {
+        try {
+            return Long.valueOf(value);
+        }
+        catch (NumberFormatException ignored) {
+        }
+        try {
+            return Double.valueOf(value);
+        }
+        catch (NumberFormatException ignored) {
+        }
+        return value;
+    }
+
+    /**
+     * Counts parameter markers outside of string literals and quoted identifiers.
+     */
+    static int countParameters(String sql)
+    {
+        int count = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char character = sql.charAt(i);
+            if (quote != 0) {
+                if (character == quote) {
+                    quote = 0;
+                }
+            }
+            else if (character == '\'' || character == '"') {
+                quote = character;
+            }
+            else if (character == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.trino.benchto.driver.presto.PrestoClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Cancels queries running longer than their timeout. Cancellation of the client side, e.g. {@code Statement.cancel()},
+ * is registered by the caller, while the query is also killed on the server when its id is already known.
+ * Both are blocking HTTP calls, so they run on their own threads and queries timing out together are cancelled in parallel,
+ * the scheduler thread only fires the timeouts.
+ */
+@Component
+public class QueryTimeoutWatchdog
+{
+    private static final Logger LOG = LoggerFactory.getLogger(QueryTimeoutWatchdog.class);
+
+    @Autowired(required = false)
+    private PrestoClient prestoClient;
+
+    private final ScheduledExecutorService scheduler = newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("query-timeout-watchdog")
+            .setDaemon(true)
+            .build());
+    private final ExecutorService cancellationExecutor = newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("query-timeout-cancellation-%s")
+            .setDaemon(true)
+            .build());
+
+    public Watch watch(Optional<Duration> timeout)
+    {
+        Watch watch = new Watch(timeout);
+        timeout.ifPresent(value -> watch.timeoutFuture = scheduler.schedule(() -> timeout(watch), value.toNanos(), NANOSECONDS));
+        return watch;
+    }
+
+    private void timeout(Watch watch)
+    {
+        Optional<List<Runnable>> cancellations = watch.timeout();
+        if (cancellations.isEmpty()) {
+            return;
+        }
+        cancellationExecutor.execute(() -> cancel(watch, cancellations.get()));
+    }
+
+    private void cancel(Watch watch, List<Runnable> cancellations)
+    {
+        cancellations.forEach(Runnable::run);
+        LOG.warn("Cancelled query {} after timeout of {}", watch.getQueryId().orElse("with unknown id"), watch.getTimeout().orElseThrow());
+        if (prestoClient != null) {
+            watch.getQueryId().ifPresent(queryId -> {
+                try {
+                    prestoClient.killQuery(queryId);
+                }
+                catch (RuntimeException e) {
+                    LOG.warn("Could not kill query {}", queryId, e);
+                }
+            });
+        }
+    }
+
+    public static class Watch
+            implements AutoCloseable
+    {
+        private final Optional<Duration> timeout;
+        private final List<Runnable> cancellations = new ArrayList<>();
+        private volatile ScheduledFuture<?> timeoutFuture;
+        private Optional<String> queryId = Optional.empty();
+        private boolean timedOut;
+        private boolean closed;
+
+        private Watch(Optional<Duration> timeout)
+        {
+            this.timeout = timeout;
+        }
+
+        public Optional<Duration> getTimeout()
+        {
+            return timeout;
+        }
+
+        public synchronized Optional<String> getQueryId()
+        {
+            return queryId;
+        }
+
+        public synchronized void setQueryId(String queryId)
+        {
+            this.queryId = Optional.of(queryId);
+        }
+
+        public synchronized boolean isTimedOut()
+        {
+            return timedOut;
+        }
+
+        /**
+         * Registers cancellation of the client side of the query, run immediately if the timeout has already elapsed.
+         */
+        public void onTimeout(Runnable cancellation)
+        {
+            synchronized (this) {
+                if (!timedOut) {
+                    cancellations.add(cancellation);
+                    return;
+                }
+            }
+            cancellation.run();
+        }
+
+        /**
+         * Marks the watch as timed out and returns the cancellations to run, nothing if the watch is already closed.
+         */
+        private synchronized Optional<List<Runnable>> timeout()
+        {
+            if (closed) {
+                return Optional.empty();
+            }
+            timedOut = true;
+            List<Runnable> pendingCancellations = List.copyOf(cancellations);
+            cancellations.clear();
+            return Optional.of(pendingCancellations);
+        }
+
+        @Override
+        public void close()
+        {
+            synchronized (this) {
+                closed = true;
+            }
+            ScheduledFuture<?> future = timeoutFuture;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@ package io.trino.benchto.driver.graphite;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.google.common.base.Joiner;
 import io.trino.benchto.driver.BenchmarkExecutionException;
+import io.trino.benchto.driver.http.HttpRequestMetrics;
 import io.trino.benchto.driver.utils.TimeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,6 +57,9 @@ public class GraphiteClient
     @Autowired
     private RestTemplate restTemplate;
 
+    @Autowired
+    private HttpRequestMetrics httpRequestMetrics;
+
     @Retryable(value = RestClientException.class, backoff = @Backoff(1000))
     public void storeEvent(GraphiteEventRequest request)
     {
@@ -66,7 +70,7 @@ public class GraphiteClient
                 .path("/events/");
         URI uri = uriBuilder.build().toUri();
 
-        restTemplate.postForObject(uri, request, Object.class);
+        httpRequestMetrics.time("graphite /events/", () -> restTemplate.postForObject(uri, request, Object.class));
     }
 
     @Retryable(value = {RestClientException.class, IncompleteDataException.class}, backoff = @Backoff(delay = 5000, multiplier = 2), maxAttempts = 4)
@@ -76,7 +80,7 @@ public class GraphiteClient
 
         LOGGER.debug("Loading metrics: {}", uri);
 
-        ResponseEntity<GraphiteRenderResponseItem[]> response = restTemplate.getForEntity(uri, GraphiteRenderResponseItem[].class);
+        ResponseEntity<GraphiteRenderResponseItem[]> response = httpRequestMetrics.time("graphite /render", () -> restTemplate.getForEntity(uri, GraphiteRenderResponseItem[].class));
 
         if (response.getStatusCode() != OK) {
             throw new BenchmarkExecutionException("Could not load metrics: " + metrics + " - error: " + response);
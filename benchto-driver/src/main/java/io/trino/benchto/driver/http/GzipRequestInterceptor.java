@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.http;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Compresses bodies of requests sent to the given server, e.g. finish requests carrying query info JSON.
+ * Requests to other servers are sent unchanged, as they might not accept compressed bodies.
+ */
+public class GzipRequestInterceptor
+        implements ClientHttpRequestInterceptor
+{
+    private static final String GZIP = "gzip";
+
+    private final URI serverUri;
+    private final int minCompressedSize;
+
+    /**
+     * @param minCompressedSize smaller bodies are sent uncompressed, as compressing them does not pay off
+     */
+    public GzipRequestInterceptor(URI serverUri, int minCompressedSize)
+    {
+        this.serverUri = requireNonNull(serverUri, "serverUri is null");
+        checkArgument(minCompressedSize >= 0, "minCompressedSize must not be negative, got: %s", minCompressedSize);
+        this.minCompressedSize = minCompressedSize;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException
+    {
+        HttpHeaders headers = request.getHeaders();
+        if (body.length < minCompressedSize || headers.containsKey(HttpHeaders.CONTENT_ENCODING) || !isSameServer(request.getURI())) {
+            return execution.execute(request, body);
+        }
+        byte[] compressed = gzip(body);
+        headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+        headers.setContentLength(compressed.length);
+        return execution.execute(request, compressed);
+    }
+
+    private boolean isSameServer(URI uri)
+    {
+        return serverUri.getScheme().equalsIgnoreCase(uri.getScheme())
+                && serverUri.getHost().equalsIgnoreCase(uri.getHost())
+                && port(serverUri) == port(uri);
+    }
+
+    private static int port(URI uri)
+    {
+        if (uri.getPort() != -1) {
+            return uri.getPort();
+        }
+        return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+
+    static byte[] gzip(byte[] body)
+    {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream output = new GZIPOutputStream(compressed)) {
+            output.write(body);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+}
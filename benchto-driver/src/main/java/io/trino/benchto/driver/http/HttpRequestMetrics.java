@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.http;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.lang.String.format;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Latencies of HTTP requests sent by the driver, per endpoint, so the overhead of reporting to the benchmark service
+ * and of collecting metrics from Graphite or Presto is visible. A summary is logged every {@code httpMetricsLogInterval},
+ * so it is available while long benchmarks are still running, and when the driver finishes.
+ */
+@Component
+public class HttpRequestMetrics
+{
+    private static final Logger LOG = LoggerFactory.getLogger(HttpRequestMetrics.class);
+
+    // latencies are recorded in microseconds
+    private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.HOURS.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final double MICROSECONDS_PER_MILLISECOND = 1000.0;
+
+    @Value("${httpMetricsLogInterval:PT5M}")
+    private Duration logInterval = Duration.ofMinutes(5);
+
+    private final Map<String, EndpointLatency> endpoints = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("http-metrics-summary")
+            .setDaemon(true)
+            .build());
+
+    @PostConstruct
+    public void start()
+    {
+        if (!logInterval.isZero()) {
+            scheduler.scheduleAtFixedRate(this::logSummary, logInterval.toNanos(), logInterval.toNanos(), NANOSECONDS);
+        }
+    }
+
+    /**
+     * Sends the request, recording its latency also when it fails.
+     *
+     * @param endpoint name of the endpoint, e.g. the URL template, so requests with different parameters are recorded together
+     */
+    public <T> T time(String endpoint, Supplier<T> request)
+    {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T response = request.get();
+            failed = false;
+            return response;
+        }
+        finally {
+            record(endpoint, System.nanoTime() - start, failed);
+        }
+    }
+
+    public void record(String endpoint, long latencyNanos, boolean failed)
+    {
+        endpoints.computeIfAbsent(endpoint, name -> new EndpointLatency()).record(latencyNanos, failed);
+    }
+
+    /**
+     * Copy of the histogram of request latencies to the endpoint, in microseconds.
+     */
+    public Optional<Histogram> getLatencies(String endpoint)
+    {
+        return Optional.ofNullable(endpoints.get(endpoint))
+                .map(latency -> latency.histogram.copy());
+    }
+
+    public long getFailedRequests(String endpoint)
+    {
+        EndpointLatency latency = endpoints.get(endpoint);
+        return latency == null ? 0 : latency.failed.sum();
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        scheduler.shutdownNow();
+        logSummary();
+    }
+
+    private void logSummary()
+    {
+        getSummary().forEach(LOG::info);
+    }
+
+    /**
+     * Requests to every endpoint since the driver started, one line per endpoint.
+     */
+    public List<String> getSummary()
+    {
+        return new TreeMap<>(endpoints).entrySet().stream()
+                .map(entry -> {
+                    EndpointLatency latency = entry.getValue();
+                    Histogram histogram = latency.histogram.copy();
+                    return format("HTTP requests to %s: %d requests, %d failed, latency mean %.1f ms, p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms",
+                            entry.getKey(),
+                            histogram.getTotalCount(),
+                            latency.failed.sum(),
+                            histogram.getMean() / MICROSECONDS_PER_MILLISECOND,
+                            histogram.getValueAtPercentile(50.0) / MICROSECONDS_PER_MILLISECOND,
+                            histogram.getValueAtPercentile(90.0) / MICROSECONDS_PER_MILLISECOND,
+                            histogram.getValueAtPercentile(99.0) / MICROSECONDS_PER_MILLISECOND,
+                            histogram.getMaxValue() / MICROSECONDS_PER_MILLISECOND);
+                })
+                .collect(toImmutableList());
+    }
+
+    private static class EndpointLatency
+    {
+        private final Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+        private final LongAdder failed = new LongAdder();
+
+        private void record(long latencyNanos, boolean failed)
+        {
+            histogram.recordValue(Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(latencyNanos), 0), HIGHEST_TRACKABLE_LATENCY));
+            if (failed) {
+                this.failed.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.jdbc;
+
+import com.google.common.collect.ImmutableList;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import io.trino.benchto.driver.service.Measurement;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.trino.benchto.driver.service.Measurement.additiveMeasurement;
+import static io.trino.benchto.driver.service.Measurement.measurement;
+
+/**
+ * Connection pool statistics of a single {@link PooledDataSource}. Counters are cumulative, so measurements
+ * for a time window are computed as a difference of two snapshots.
+ */
+public class ConnectionPoolMetrics
+        implements IMetricsTracker
+{
+    private static final double NANOS_PER_MILLISECOND = 1_000_000.0;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder createMillis = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos)
+    {
+        acquired.increment();
+        acquireNanos.add(elapsedAcquiredNanos);
+        maxAcquireNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+    }
+
+    @Override
+    public void recordConnectionCreatedMillis(long connectionCreatedMillis)
+    {
+        created.increment();
+        createMillis.add(connectionCreatedMillis);
+    }
+
+    @Override
+    public void recordConnectionTimeout()
+    {
+        timeouts.increment();
+    }
+
+    void connectionBorrowed()
+    {
+        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+    }
+
+    void connectionReturned()
+    {
+        active.decrementAndGet();
+    }
+
+    /**
+     * Takes a snapshot of cumulative counters and starts tracking maximum values anew.
+     */
+    public Snapshot snapshot()
+    {
+        return new Snapshot(
+                acquired.sum(),
+                acquireNanos.sum(),
+                maxAcquireNanos.getAndSet(0),
+                created.sum(),
+                createMillis.sum(),
+                timeouts.sum(),
+                maxActive.getAndSet(active.get()));
+    }
+
+    public static class Snapshot
+    {
+        private final long acquired;
+        private final long acquireNanos;
+        private final long maxAcquireNanos;
+        private final long created;
+        private final long createMillis;
+        private final long timeouts;
+        private final int maxActive;
+
+        private Snapshot(long acquired, long acquireNanos, long maxAcquireNanos, long created, long createMillis, long timeouts, int maxActive)
+        {
+            this.acquired = acquired;
+            this.acquireNanos = acquireNanos;
+            this.maxAcquireNanos = maxAcquireNanos;
+            this.created = created;
+            this.createMillis = createMillis;
+            this.timeouts = timeouts;
+            this.maxActive = maxActive;
+        }
+
+        /**
+         * Measurements of the pool usage between {@code earlier} snapshot and this one.
+         */
+        public List<Measurement> measurementsSince(Snapshot earlier)
+        {
+            long acquiredCount = acquired - earlier.acquired;
+            long createdCount = created - earlier.created;
+            ImmutableList.Builder<Measurement> measurements = ImmutableList.<Measurement>builder()
+                    .add(measurement("pool_active_max", "NONE", maxActive))
+                    .add(additiveMeasurement("pool_connections_created", "NONE", createdCount))
+                    .add(additiveMeasurement("pool_timeouts", "NONE", timeouts - earlier.timeouts));
+            if (acquiredCount > 0) {
+                measurements.add(measurement("pool_wait_mean", "MILLISECONDS", (acquireNanos - earlier.acquireNanos) / NANOS_PER_MILLISECOND / acquiredCount));
+                measurements.add(measurement("pool_wait_max", "MILLISECONDS", maxAcquireNanos / NANOS_PER_MILLISECOND));
+            }
+            if (createdCount > 0) {
+                measurements.add(measurement("pool_connection_creation_mean", "MILLISECONDS", (double) (createMillis - earlier.createMillis) / createdCount));
+            }
+            return measurements.build();
+        }
+    }
+}
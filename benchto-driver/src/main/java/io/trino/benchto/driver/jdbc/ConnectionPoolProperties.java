@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.jdbc;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Connection pool settings of a single data source, bound from {@code data-sources.<name>.pool}.
+ */
+public class ConnectionPoolProperties
+{
+    private boolean enabled;
+    private int maxSize = 10;
+    private int minIdle;
+    private Duration connectionTimeout = Duration.ofMinutes(5);
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private Duration maxLifetime = Duration.ofMinutes(30);
+    private Duration validationTimeout = Duration.ofSeconds(5);
+    private String validationQuery;
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize)
+    {
+        this.maxSize = maxSize;
+    }
+
+    public int getMinIdle()
+    {
+        return minIdle;
+    }
+
+    public void setMinIdle(int minIdle)
+    {
+        this.minIdle = minIdle;
+    }
+
+    public Duration getConnectionTimeout()
+    {
+        return connectionTimeout;
+    }
+
+    public void setConnectionTimeout(Duration connectionTimeout)
+    {
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    public Duration getIdleTimeout()
+    {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout)
+    {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public Duration getMaxLifetime()
+    {
+        return maxLifetime;
+    }
+
+    public void setMaxLifetime(Duration maxLifetime)
+    {
+        this.maxLifetime = maxLifetime;
+    }
+
+    public Duration getValidationTimeout()
+    {
+        return validationTimeout;
+    }
+
+    public void setValidationTimeout(Duration validationTimeout)
+    {
+        this.validationTimeout = validationTimeout;
+    }
+
+    /**
+     * Query used to validate connections. When empty, JDBC {@code Connection.isValid()} is used.
+     */
+    public Optional<String> getValidationQuery()
+    {
+        return Optional.ofNullable(validationQuery);
+    }
+
+    public void setValidationQuery(String validationQuery)
+    {
+        this.validationQuery = validationQuery;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("enabled", enabled)
+                .add("maxSize", maxSize)
+                .add("minIdle", minIdle)
+                .add("connectionTimeout", connectionTimeout)
+                .add("idleTimeout", idleTimeout)
+                .add("maxLifetime", maxLifetime)
+                .add("validationTimeout", validationTimeout)
+                .add("validationQuery", validationQuery)
+                .toString();
+    }
+}
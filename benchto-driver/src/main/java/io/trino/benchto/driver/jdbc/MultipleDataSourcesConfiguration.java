@@ -17,7 +17,7 @@ import io.trino.benchto.driver.utils.PropertiesUtils;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
-import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.beans.factory.support.DefaultSingletonBeanRegistry;
 import org.springframework.context.EnvironmentAware;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.ConfigurableEnvironment;
@@ -55,11 +55,14 @@ public class MultipleDataSourcesConfiguration
     {
         return multipleDataSourcesProperties.getDataSources()
                 .entrySet().stream()
-                .collect(toMap(Map.Entry::getKey, (entry) -> createDataSource(entry.getValue())));
+                .collect(toMap(Map.Entry::getKey, (entry) -> createDataSource(entry.getKey(), entry.getValue())));
     }
 
-    private DataSource createDataSource(DataSourceProperties properties)
+    private DataSource createDataSource(String name, JdbcDataSourceProperties properties)
     {
+        if (properties.getPool().isEnabled()) {
+            return new PooledDataSource(name, properties);
+        }
         DriverManagerDataSource dataSource = new DriverManagerDataSource();
         dataSource.setDriverClassName(properties.determineDriverClassName());
         dataSource.setUrl(properties.determineUrl());
@@ -72,6 +75,10 @@ public class MultipleDataSourcesConfiguration
     {
         for (Map.Entry<String, DataSource> entry : dataSources.entrySet()) {
             beanFactory.registerSingleton(entry.getKey(), entry.getValue());
+            if (entry.getValue() instanceof PooledDataSource && beanFactory instanceof DefaultSingletonBeanRegistry) {
+                PooledDataSource pooledDataSource = (PooledDataSource) entry.getValue();
+                ((DefaultSingletonBeanRegistry) beanFactory).registerDisposableBean(entry.getKey(), pooledDataSource::close);
+            }
         }
     }
 }
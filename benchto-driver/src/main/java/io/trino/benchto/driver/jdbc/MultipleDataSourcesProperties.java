@@ -13,16 +13,14 @@
  */
 package io.trino.benchto.driver.jdbc;
 
-import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
-
 import java.util.HashMap;
 import java.util.Map;
 
 public class MultipleDataSourcesProperties
 {
-    private final Map<String, DataSourceProperties> dataSources = new HashMap<>();
+    private final Map<String, JdbcDataSourceProperties> dataSources = new HashMap<>();
 
-    public Map<String, DataSourceProperties> getDataSources()
+    public Map<String, JdbcDataSourceProperties> getDataSources()
     {
         return dataSources;
     }
@@ -0,0 +1,283 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.jdbc;
+
+import com.google.common.base.Objects;
+import com.zaxxer.hikari.HikariDataSource;
+import io.trino.jdbc.TrinoConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+
+import java.io.Closeable;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Data source backed by a HikariCP connection pool.
+ * <p>
+ * Hikari resets JDBC level state (auto-commit, isolation, catalog, schema) of returned connections.
+ * Session state changed by SQL statements, like {@code SET SESSION} or {@code USE}, cannot be reset,
+ * so connections returned with such changes are evicted from the pool instead of being reused.
+ */
+public class PooledDataSource
+        implements DataSource, Closeable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(PooledDataSource.class);
+
+    private final HikariDataSource dataSource;
+    private final ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+
+    public PooledDataSource(String name, JdbcDataSourceProperties properties)
+    {
+        ConnectionPoolProperties pool = properties.getPool();
+        // configuring the data source instead of passing HikariConfig defers connecting until the first use
+        dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(properties.determineUrl());
+        dataSource.setUsername(properties.determineUsername());
+        dataSource.setPassword(properties.determinePassword());
+        dataSource.setMaximumPoolSize(pool.getMaxSize());
+        dataSource.setMinimumIdle(pool.getMinIdle());
+        dataSource.setConnectionTimeout(pool.getConnectionTimeout().toMillis());
+        dataSource.setIdleTimeout(pool.getIdleTimeout().toMillis());
+        dataSource.setMaxLifetime(pool.getMaxLifetime().toMillis());
+        dataSource.setValidationTimeout(pool.getValidationTimeout().toMillis());
+        pool.getValidationQuery().ifPresent(dataSource::setConnectionTestQuery);
+        dataSource.setMetricsTrackerFactory((poolName, poolStats) -> metrics);
+        LOG.info("Created connection pool {}: {}", name, pool);
+    }
+
+    public ConnectionPoolMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    public String getJdbcUrl()
+    {
+        return dataSource.getJdbcUrl();
+    }
+
+    public Optional<String> getPassword()
+    {
+        return Optional.ofNullable(dataSource.getPassword());
+    }
+
+    @Override
+    public Connection getConnection()
+            throws SQLException
+    {
+        Connection connection = dataSource.getConnection();
+        metrics.connectionBorrowed();
+        return (Connection) Proxy.newProxyInstance(
+                PooledDataSource.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                new SessionTrackingConnectionHandler(connection));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password)
+            throws SQLException
+    {
+        throw new SQLFeatureNotSupportedException("Pooled data source does not support per connection credentials");
+    }
+
+    @Override
+    public PrintWriter getLogWriter()
+            throws SQLException
+    {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out)
+            throws SQLException
+    {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds)
+            throws SQLException
+    {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout()
+            throws SQLException
+    {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger()
+            throws SQLFeatureNotSupportedException
+    {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface)
+            throws SQLException
+    {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface)
+            throws SQLException
+    {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+
+    @Override
+    public void close()
+    {
+        dataSource.close();
+    }
+
+    private class SessionTrackingConnectionHandler
+            implements InvocationHandler
+    {
+        private final Connection connection;
+        private final SessionState borrowedState;
+        private boolean closed;
+
+        private SessionTrackingConnectionHandler(Connection connection)
+                throws SQLException
+        {
+            this.connection = requireNonNull(connection, "connection is null");
+            this.borrowedState = SessionState.of(connection);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args)
+                throws Throwable
+        {
+            if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                returnConnection();
+                return null;
+            }
+            try {
+                return method.invoke(connection, args);
+            }
+            catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void returnConnection()
+                throws SQLException
+        {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            metrics.connectionReturned();
+            if (!connection.isClosed() && !borrowedState.equals(SessionState.of(connection))) {
+                LOG.debug("Evicting connection with modified session from pool {}", dataSource.getPoolName());
+                dataSource.evictConnection(connection);
+                return;
+            }
+            connection.close();
+        }
+    }
+
+    private static class SessionState
+    {
+        private static final Optional<Method> TRINO_SESSION_PROPERTIES = trinoSessionPropertiesMethod();
+
+        private final String catalog;
+        private final String schema;
+        private final Optional<Map<?, ?>> sessionProperties;
+
+        private SessionState(String catalog, String schema, Optional<Map<?, ?>> sessionProperties)
+        {
+            this.catalog = catalog;
+            this.schema = schema;
+            this.sessionProperties = sessionProperties;
+        }
+
+        static SessionState of(Connection connection)
+                throws SQLException
+        {
+            return new SessionState(connection.getCatalog(), connection.getSchema(), trinoSessionProperties(connection));
+        }
+
+        private static Optional<Map<?, ?>> trinoSessionProperties(Connection connection)
+                throws SQLException
+        {
+            if (TRINO_SESSION_PROPERTIES.isEmpty() || !connection.isWrapperFor(TrinoConnection.class)) {
+                return Optional.empty();
+            }
+            try {
+                // session properties are updated by the server on SET SESSION, but TrinoConnection does not expose them publicly
+                return Optional.of((Map<?, ?>) TRINO_SESSION_PROPERTIES.get().invoke(connection.unwrap(TrinoConnection.class)));
+            }
+            catch (ReflectiveOperationException e) {
+                throw new SQLException("Could not read Trino session properties", e);
+            }
+        }
+
+        private static Optional<Method> trinoSessionPropertiesMethod()
+        {
+            try {
+                Method method = TrinoConnection.class.getDeclaredMethod("getSessionProperties");
+                method.setAccessible(true);
+                return Optional.of(method);
+            }
+            catch (ReflectiveOperationException | RuntimeException e) {
+                LOG.warn("Trino session properties cannot be tracked, pooled connections with modified session may be reused", e);
+                return Optional.empty();
+            }
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            SessionState that = (SessionState) o;
+            return Objects.equal(catalog, that.catalog) &&
+                    Objects.equal(schema, that.schema) &&
+                    Objects.equal(sessionProperties, that.sessionProperties);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hashCode(catalog, schema, sessionProperties);
+        }
+    }
+}
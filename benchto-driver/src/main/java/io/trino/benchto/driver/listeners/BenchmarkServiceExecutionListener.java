@@ -18,6 +18,9 @@ import com.google.common.math.LongMath;
 import io.trino.benchto.driver.Benchmark;
 import io.trino.benchto.driver.Measurable;
 import io.trino.benchto.driver.execution.BenchmarkExecutionResult;
+import io.trino.benchto.driver.execution.DriverCoordinator;
+import io.trino.benchto.driver.execution.ExecutionJournal;
+import io.trino.benchto.driver.execution.LatencyRecorder;
 import io.trino.benchto.driver.execution.QueryExecution;
 import io.trino.benchto.driver.execution.QueryExecutionResult;
 import io.trino.benchto.driver.listeners.benchmark.BenchmarkExecutionListener;
@@ -29,15 +32,22 @@ import io.trino.benchto.driver.service.BenchmarkServiceClient.ExecutionStartRequ
 import io.trino.benchto.driver.service.BenchmarkServiceClient.ExecutionStartRequest.ExecutionStartRequestBuilder;
 import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishRequest;
 import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishRequest.FinishRequestBuilder;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishedExecution;
+import io.trino.benchto.driver.service.ExecutionBatcher;
 import io.trino.benchto.driver.service.Measurement;
+import io.trino.benchto.driver.service.ReportSpool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
 
 import java.sql.SQLException;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -48,8 +58,10 @@ import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+import static com.google.common.base.Preconditions.checkState;
 import static io.trino.benchto.driver.loader.BenchmarkDescriptor.RESERVED_KEYWORDS;
 import static io.trino.benchto.driver.service.BenchmarkServiceClient.FinishRequest.Status.ENDED;
 import static io.trino.benchto.driver.service.BenchmarkServiceClient.FinishRequest.Status.FAILED;
@@ -63,6 +75,7 @@ import static java.util.concurrent.CompletableFuture.completedFuture;
 public class BenchmarkServiceExecutionListener
         implements BenchmarkExecutionListener
 {
+    private static final Logger LOG = LoggerFactory.getLogger(BenchmarkServiceExecutionListener.class);
     private static final Duration MAX_CLOCK_DRIFT = Duration.of(1, ChronoUnit.SECONDS);
 
     @Autowired
@@ -80,6 +93,18 @@ public class BenchmarkServiceExecutionListener
     @Autowired(required = false)
     private QueryInfoProvider queryInfoProvider;
 
+    @Autowired
+    private DriverCoordinator driverCoordinator;
+
+    @Autowired
+    private ExecutionBatcher executionBatcher;
+
+    @Autowired
+    private ReportSpool reportSpool;
+
+    @Autowired
+    private ExecutionJournal executionJournal;
+
     @Override
     public int getOrder()
     {
@@ -93,7 +118,8 @@ public class BenchmarkServiceExecutionListener
 
         return taskExecutor.submit(() -> {
             BenchmarkStartRequestBuilder requestBuilder = new BenchmarkStartRequestBuilder(benchmark.getName())
-                    .environmentName(benchmark.getEnvironment());
+                    .environmentName(benchmark.getEnvironment())
+                    .withStartTime(Instant.now());
 
             for (Map.Entry<String, String> variableEntry : benchmark.getVariables().entrySet()) {
                 if (RESERVED_KEYWORDS.contains(variableEntry.getKey())) {
@@ -111,6 +137,21 @@ public class BenchmarkServiceExecutionListener
     }
 
     private void checkClocksSync()
+    {
+        if (reportSpool.isEnabled()) {
+            // reports are spooled so benchmarks keep running while the service is unavailable
+            try {
+                checkClocksSyncWithService();
+            }
+            catch (RestClientException e) {
+                LOG.warn("Could not check clocks of the driver and the benchmark service: {}", e.getMessage());
+            }
+            return;
+        }
+        checkClocksSyncWithService();
+    }
+
+    private void checkClocksSyncWithService()
     {
         long timeBefore = System.currentTimeMillis();
         long serviceTime = benchmarkServiceClient.getServiceCurrentTime().toEpochMilli();
@@ -129,35 +170,52 @@ public class BenchmarkServiceExecutionListener
     @Override
     public Future<?> benchmarkFinished(BenchmarkExecutionResult benchmarkExecutionResult)
     {
+        Benchmark benchmark = benchmarkExecutionResult.getBenchmark();
+        AtomicInteger droppedExecutions = new AtomicInteger();
         return CompletableFuture.supplyAsync(() -> getMeasurements(benchmarkExecutionResult), taskExecutor::execute)
                 .thenCompose(future -> future)
                 .thenApply(measurements -> {
+                    // executions have to be stored before the benchmark is finished, for them to be included in its aggregates
+                    if (isBatched(benchmark)) {
+                        droppedExecutions.set(executionBatcher.flush(benchmark.getUniqueName(), benchmark.getSequenceId()));
+                    }
                     FinishRequestBuilder builder = new FinishRequestBuilder()
-                            .withStatus(benchmarkExecutionResult.isSuccessful() ? ENDED : FAILED)
+                            .withStatus(benchmarkExecutionResult.isSuccessful() && droppedExecutions.get() == 0 ? ENDED : FAILED)
                             .addMeasurements(measurements);
+                    builder.addAttributes(benchmarkExecutionResult.getAttributes());
+                    if (droppedExecutions.get() > 0) {
+                        // aggregates of the benchmark are computed over an incomplete set of executions
+                        builder.addAttribute("failureMessage", format("%s executions could not be stored in the benchmark service", droppedExecutions.get()));
+                    }
                     if (benchmarkExecutionResult.getUtcEnd() != null) {
                         builder.withEndTime(benchmarkExecutionResult.getUtcEnd().toInstant());
                     }
                     // Throughput tests have a different query in every execution, but only one, aggregated execution is saved
                     // so don't save statements for them.
-                    if (!benchmarkExecutionResult.getBenchmark().isThroughputTest()) {
+                    if (!benchmark.isThroughputTest()) {
                         benchmarkExecutionResult.getExecutions().stream()
                                 .findFirst()
                                 .ifPresent(e -> builder.addAttribute("statement", e.getQueryExecution().getStatement()));
                     }
                     return builder.build();
                 })
-                .thenAccept(request -> benchmarkServiceClient.finishBenchmark(
-                        benchmarkExecutionResult.getBenchmark().getUniqueName(),
-                        benchmarkExecutionResult.getBenchmark().getSequenceId(),
-                        request));
+                .thenAccept(request -> {
+                    benchmarkServiceClient.finishBenchmark(benchmark.getUniqueName(), benchmark.getSequenceId(), request);
+                    checkState(droppedExecutions.get() == 0, "%s executions of benchmark %s could not be stored in the benchmark service",
+                            droppedExecutions.get(), benchmark.getUniqueName());
+                });
     }
 
     @Override
     public Future<?> executionStarted(QueryExecution execution)
     {
+        if (isBatched(execution.getBenchmark())) {
+            // batched executions are created in the benchmark service together with their results
+            return completedFuture(null);
+        }
         return taskExecutor.submit(() -> {
             ExecutionStartRequest request = new ExecutionStartRequestBuilder()
+                    .withStartTime(Instant.now())
                     .build();
 
             benchmarkServiceClient.startExecution(execution.getBenchmark().getUniqueName(), execution.getBenchmark().getSequenceId(), executionSequenceId(execution), request);
@@ -170,11 +228,28 @@ public class BenchmarkServiceExecutionListener
         return CompletableFuture.supplyAsync(() -> getMeasurementsWithQueryInfo(executionResult), taskExecutor::execute)
                 .thenCompose(future -> future)
                 .thenApply(measurements -> buildExecutionFinishedRequest(executionResult, measurements))
-                .thenAccept(request -> benchmarkServiceClient.finishExecution(
-                        executionResult.getBenchmark().getUniqueName(),
-                        executionResult.getBenchmark().getSequenceId(),
-                        executionSequenceId(executionResult.getQueryExecution()),
-                        request));
+                .thenAccept(request -> {
+                    Benchmark benchmark = executionResult.getBenchmark();
+                    String executionSequenceId = executionSequenceId(executionResult.getQueryExecution());
+                    if (isBatched(benchmark)) {
+                        Optional<Instant> startTime = Optional.ofNullable(executionResult.getUtcStart()).map(ZonedDateTime::toInstant);
+                        // batched executions are journaled only once they are stored, and not when they are added to a batch
+                        executionBatcher.add(benchmark.getUniqueName(), benchmark.getSequenceId(), new FinishedExecution(executionSequenceId, startTime, request), () -> {
+                            if (executionJournal.isEnabled()) {
+                                executionJournal.executionFinished(executionResult.getQueryExecution());
+                            }
+                        });
+                    }
+                    else {
+                        benchmarkServiceClient.finishExecution(benchmark.getUniqueName(), benchmark.getSequenceId(), executionSequenceId, request);
+                    }
+                });
+    }
+
+    private boolean isBatched(Benchmark benchmark)
+    {
+        // throughput tests store a single, aggregated execution
+        return executionBatcher.isEnabled() && !benchmark.isThroughputTest();
     }
 
     @Override
@@ -184,6 +259,7 @@ public class BenchmarkServiceExecutionListener
             return completedFuture(emptyList());
         }
         return taskExecutor.submit(() -> {
+            LatencyRecorder latencyRecorder = LatencyRecorder.recordAll(List.of(), executions);
             FinishRequest finishRequest = new FinishRequestBuilder()
                     .withStatus(ENDED)
                     .withEndTime(
@@ -200,6 +276,8 @@ public class BenchmarkServiceExecutionListener
                             "queries_failed",
                             "NONE",
                             executions.stream().filter(query -> !query.isSuccessful()).count()))
+                    .addMeasurements(latencyRecorder.toMeasurements())
+                    .addAttributes(latencyRecorder.toAttributes())
                     .addAttribute(
                             "queries_order",
                             executions.stream()
@@ -271,6 +349,10 @@ public class BenchmarkServiceExecutionListener
 
     private String executionSequenceId(QueryExecution execution)
     {
+        // executions of drivers coordinated within the same benchmark run must not collide
+        if (driverCoordinator.isCoordinated(execution.getBenchmark())) {
+            return driverCoordinator.getDriverId() + "-" + execution.getSequenceId();
+        }
         return Integer.toString(execution.getSequenceId());
     }
 
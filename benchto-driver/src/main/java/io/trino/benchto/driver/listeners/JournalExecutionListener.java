@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.listeners;
+
+import io.trino.benchto.driver.Benchmark;
+import io.trino.benchto.driver.execution.BenchmarkExecutionResult;
+import io.trino.benchto.driver.execution.ExecutionJournal;
+import io.trino.benchto.driver.execution.QueryExecution;
+import io.trino.benchto.driver.execution.QueryExecutionResult;
+import io.trino.benchto.driver.listeners.benchmark.BenchmarkExecutionListener;
+import io.trino.benchto.driver.service.ExecutionBatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * Records finished benchmarks and executions in the {@link ExecutionJournal}. Throughput test executions are not recorded,
+ * because they are always executed together. Events are recorded only after other listeners, like the one reporting
+ * to the service, succeeded, so a resumed execution repeats everything that was not reported. Executions stored in
+ * the service in batches are recorded once their batch was stored, by {@link BenchmarkServiceExecutionListener}.
+ */
+@Component
+public class JournalExecutionListener
+        implements BenchmarkExecutionListener
+{
+    @Autowired
+    private ExecutionJournal executionJournal;
+
+    @Autowired
+    private ExecutionBatcher executionBatcher;
+
+    @Override
+    public int getOrder()
+    {
+        // record progress after it was passed to other listeners
+        return 100;
+    }
+
+    @Override
+    public boolean requiresPreviousListeners()
+    {
+        return true;
+    }
+
+    @Override
+    public Future<?> benchmarkStarted(Benchmark benchmark)
+    {
+        if (executionJournal.isEnabled()) {
+            executionJournal.benchmarkStarted(benchmark);
+        }
+        return CompletableFuture.completedFuture("");
+    }
+
+    @Override
+    public Future<?> benchmarkFinished(BenchmarkExecutionResult result)
+    {
+        if (executionJournal.isEnabled()) {
+            executionJournal.benchmarkFinished(result.getBenchmark());
+        }
+        return CompletableFuture.completedFuture("");
+    }
+
+    @Override
+    public Future<?> executionStarted(QueryExecution execution)
+    {
+        return CompletableFuture.completedFuture("");
+    }
+
+    @Override
+    public Future<?> executionFinished(QueryExecutionResult result)
+    {
+        if (executionJournal.isEnabled() && !result.getBenchmark().isThroughputTest() && !executionBatcher.isEnabled()) {
+            executionJournal.executionFinished(result.getQueryExecution());
+        }
+        return CompletableFuture.completedFuture("");
+    }
+
+    @Override
+    public Future<?> concurrencyTestExecutionFinished(List<QueryExecutionResult> executions)
+    {
+        return CompletableFuture.completedFuture("");
+    }
+}
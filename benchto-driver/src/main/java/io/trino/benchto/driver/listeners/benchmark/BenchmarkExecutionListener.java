@@ -34,4 +34,21 @@ public interface BenchmarkExecutionListener
     Future<?> executionFinished(QueryExecutionResult execution);
 
     Future<?> concurrencyTestExecutionFinished(List<QueryExecutionResult> executions);
+
+    /**
+     * Whether the listener is notified only of events which all listeners before it reported successfully.
+     */
+    default boolean requiresPreviousListeners()
+    {
+        return false;
+    }
+
+    /**
+     * Whether the listener has to be notified of starts of benchmarks and executions before they proceed, e.g. to attach
+     * profilers before the query is sent. Such starts are reported on the benchmark thread, other events are not.
+     */
+    default boolean requiresSynchronousStart()
+    {
+        return false;
+    }
 }
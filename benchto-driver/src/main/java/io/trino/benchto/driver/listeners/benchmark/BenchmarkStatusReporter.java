@@ -16,134 +16,418 @@ package io.trino.benchto.driver.listeners.benchmark;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Ordering;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.trino.benchto.driver.Benchmark;
 import io.trino.benchto.driver.execution.BenchmarkExecutionResult;
 import io.trino.benchto.driver.execution.QueryExecution;
 import io.trino.benchto.driver.execution.QueryExecutionResult;
+import io.trino.benchto.driver.service.Measurement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.OrderComparator;
 import org.springframework.core.Ordered;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.CancellationException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.function.BiFunction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
-import static com.google.common.collect.Queues.synchronizedQueue;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
+/**
+ * Passes benchmark events to {@link BenchmarkExecutionListener}s on a pool of {@code reportingThreads} threads,
+ * so reporting does not slow down the benchmark. For every event listeners are invoked one after another, in their order,
+ * and after a listener failed, listeners which {@link BenchmarkExecutionListener#requiresPreviousListeners() require}
+ * previous listeners to succeed are not notified of the event.
+ * Events of the same execution are reported in the order they were submitted, after the start of their benchmark,
+ * and the benchmark finish is reported after all its executions. Events of different executions are reported in parallel.
+ * Starts of benchmarks and executions are reported to listeners which {@link BenchmarkExecutionListener#requiresSynchronousStart()
+ * require it} on the benchmark thread, before the benchmark or the query proceeds.
+ * <p>
+ * At most {@code reportingQueueSize} events wait for, or are being processed by listeners. When the queue is full,
+ * benchmark threads submitting events wait for free space, unless {@link QueueOverflowPolicy#COALESCE} allows
+ * merging the event into a queue entry of the same execution.
+ */
 @Component
 public class BenchmarkStatusReporter
 {
     private static final Logger LOG = LoggerFactory.getLogger(BenchmarkStatusReporter.class);
 
     private final List<BenchmarkExecutionListener> executionListeners;
+    private final List<BenchmarkExecutionListener> synchronousStartListeners;
+    private final QueueOverflowPolicy overflowPolicy;
+    private final Semaphore queueSlots;
+    private final ExecutorService executor;
+    private final ReportingMetrics metrics = new ReportingMetrics();
 
-    private final Queue<Future<?>> pendingFutures = synchronizedQueue(new ArrayDeque<>());
+    // guards dependencies between events and contents of entries which were not started yet
+    private final Object lock = new Object();
+    private final Map<Benchmark, BenchmarkEntries> benchmarkEntries = new HashMap<>();
+    private final Set<Entry> pendingEntries = ConcurrentHashMap.newKeySet();
+    // guarded by lock
+    private long nextEntrySequence;
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
 
-    @Autowired
     public BenchmarkStatusReporter(List<BenchmarkExecutionListener> executionListeners)
     {
+        this(executionListeners, 1, 1000, QueueOverflowPolicy.BLOCK);
+    }
+
+    @Autowired
+    public BenchmarkStatusReporter(
+            List<BenchmarkExecutionListener> executionListeners,
+            @Value("${reportingThreads:4}") int reportingThreads,
+            @Value("${reportingQueueSize:1000}") int reportingQueueSize,
+            @Value("${reportingQueuePolicy:BLOCK}") QueueOverflowPolicy overflowPolicy)
+    {
+        checkArgument(reportingThreads > 0, "reportingThreads must be positive, got: %s", reportingThreads);
+        checkArgument(reportingQueueSize > 0, "reportingQueueSize must be positive, got: %s", reportingQueueSize);
         this.executionListeners = ImmutableList.copyOf(
                 Ordering.<Ordered>from(OrderComparator.INSTANCE::compare)
                         // HACK: listeners have to be sorted to provide tests determinism
                         .compound(Ordering.usingToString())
                         .sortedCopy(executionListeners));
+        this.synchronousStartListeners = this.executionListeners.stream()
+                .filter(BenchmarkExecutionListener::requiresSynchronousStart)
+                .collect(toImmutableList());
+        this.overflowPolicy = overflowPolicy;
+        this.queueSlots = new Semaphore(reportingQueueSize);
+        // entries ready to be reported are processed in the order they were submitted
+        this.executor = new ThreadPoolExecutor(reportingThreads, reportingThreads, 0, MILLISECONDS, new PriorityBlockingQueue<>(), new ThreadFactoryBuilder()
+                .setNameFormat("benchmark-reporting-%d")
+                .setDaemon(true)
+                .build());
+        executionListeners.forEach(listener -> metrics.listenerRegistered(listenerName(listener)));
     }
 
+    /**
+     * Fails if any listener failed since the last check.
+     */
     public void processCompletedFutures()
     {
-        synchronized (pendingFutures) {
-            while (!pendingFutures.isEmpty() && pendingFutures.element().isDone()) {
-                Future<?> doneFuture = pendingFutures.remove();
-                try {
-                    doneFuture.get();
-                }
-                catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("Interrupted when retrieving result of an already done future", e);
-                }
-                catch (ExecutionException | CancellationException e) {
-                    throw new RuntimeException("Listener failed with: " + e, e);
-                }
-            }
+        Exception listenerFailure = failure.getAndSet(null);
+        if (listenerFailure != null) {
+            throw new RuntimeException("Listener failed with: " + listenerFailure, listenerFailure);
         }
     }
 
     public void awaitAllFutures(long timeout, TimeUnit unit)
     {
         processCompletedFutures();
-        List<Future<?>> futures = drainFutures();
+        List<Entry> entries = new ArrayList<>(pendingEntries);
 
-        LOG.info("Awaiting completion of {} futures", futures.size());
+        LOG.info("Awaiting completion of {} reported events", entries.size());
 
         Stopwatch stopwatch = Stopwatch.createStarted();
-        for (Future<?> future : futures) {
+        for (Entry entry : entries) {
             long remainingNanos = unit.toNanos(timeout) - stopwatch.elapsed(NANOSECONDS);
             remainingNanos = Math.max(remainingNanos, 0); // let Future.get handle timeout
 
             try {
-                future.get(remainingNanos, NANOSECONDS);
+                entry.done.get(remainingNanos, NANOSECONDS);
             }
             catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                throw new RuntimeException("Interrupted when retrieving result of an already done future", e);
+                throw new RuntimeException("Interrupted when waiting for listener completion", e);
             }
-            catch (ExecutionException | TimeoutException | CancellationException e) {
+            catch (ExecutionException | TimeoutException e) {
                 throw new RuntimeException("Failure when waiting for listener completion: " + e, e);
             }
         }
+        processCompletedFutures();
     }
 
-    private List<Future<?>> drainFutures()
+    public ReportingMetrics.Snapshot snapshotMetrics()
     {
-        synchronized (pendingFutures) {
-            List<Future<?>> futures = new ArrayList<>(pendingFutures);
-            pendingFutures.clear();
-            return futures;
-        }
+        return metrics.snapshot();
+    }
+
+    /**
+     * Measurements of the reporting pipeline since the {@code earlier} snapshot.
+     */
+    public List<Measurement> measurementsSince(ReportingMetrics.Snapshot earlier)
+    {
+        return metrics.snapshot().measurementsSince(earlier);
     }
 
     public void reportBenchmarkStarted(Benchmark benchmark)
     {
-        fireListeners(BenchmarkExecutionListener::benchmarkStarted, benchmark);
+        reportStartSynchronously(listener -> listener.benchmarkStarted(benchmark));
+        submit(benchmark, EventType.BENCHMARK_STARTED, Optional.empty(), asynchronousStart(listener -> listener.benchmarkStarted(benchmark)));
     }
 
     public void reportBenchmarkFinished(BenchmarkExecutionResult benchmarkExecutionResult)
     {
-        fireListeners(BenchmarkExecutionListener::benchmarkFinished, benchmarkExecutionResult);
+        submit(benchmarkExecutionResult.getBenchmark(), EventType.BENCHMARK_FINISHED, Optional.empty(), allListeners(listener -> listener.benchmarkFinished(benchmarkExecutionResult)));
     }
 
     public void reportExecutionStarted(QueryExecution queryExecution)
     {
-        fireListeners(BenchmarkExecutionListener::executionStarted, queryExecution);
+        reportStartSynchronously(listener -> listener.executionStarted(queryExecution));
+        submit(queryExecution.getBenchmark(), EventType.EXECUTION, Optional.of(queryExecution.getSequenceId()), asynchronousStart(listener -> listener.executionStarted(queryExecution)));
     }
 
     public void reportExecutionFinished(QueryExecutionResult queryExecutionResult)
     {
-        fireListeners(BenchmarkExecutionListener::executionFinished, queryExecutionResult);
+        QueryExecution queryExecution = queryExecutionResult.getQueryExecution();
+        submit(queryExecution.getBenchmark(), EventType.EXECUTION, Optional.of(queryExecution.getSequenceId()), allListeners(listener -> listener.executionFinished(queryExecutionResult)));
     }
 
     public void reportConcurrencyTestExecutionFinished(List<QueryExecutionResult> executionResults)
     {
-        fireListeners(BenchmarkExecutionListener::concurrencyTestExecutionFinished, executionResults);
+        if (executionResults.isEmpty()) {
+            // nothing identifies the benchmark, listeners ignore such events anyway
+            fireListeners(listener -> listener.concurrencyTestExecutionFinished(executionResults));
+            return;
+        }
+        // results of a stream are reported as the execution which was reported started for its first query
+        QueryExecution queryExecution = executionResults.get(0).getQueryExecution();
+        submit(queryExecution.getBenchmark(), EventType.EXECUTION, Optional.of(queryExecution.getSequenceId()),
+                allListeners(listener -> listener.concurrencyTestExecutionFinished(executionResults)));
+    }
+
+    private void reportStartSynchronously(Function<BenchmarkExecutionListener, Future<?>> invoker)
+    {
+        for (BenchmarkExecutionListener listener : synchronousStartListeners) {
+            long start = System.nanoTime();
+            try {
+                invoker.apply(listener).get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted when reporting start to listener " + listenerName(listener), e);
+            }
+            catch (ExecutionException | RuntimeException e) {
+                failure.compareAndSet(null, e);
+            }
+            metrics.listenerFinished(listenerName(listener), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Skips listeners which were notified of the start synchronously.
+     */
+    private static Function<BenchmarkExecutionListener, Optional<Future<?>>> asynchronousStart(Function<BenchmarkExecutionListener, Future<?>> invoker)
+    {
+        return listener -> listener.requiresSynchronousStart() ? Optional.empty() : Optional.of(invoker.apply(listener));
+    }
+
+    private static Function<BenchmarkExecutionListener, Optional<Future<?>>> allListeners(Function<BenchmarkExecutionListener, Future<?>> invoker)
+    {
+        return listener -> Optional.of(invoker.apply(listener));
+    }
+
+    private void submit(Benchmark benchmark, EventType type, Optional<Integer> executionSequenceId, Function<BenchmarkExecutionListener, Optional<Future<?>>> invoker)
+    {
+        Event event = new Event(invoker);
+        if (!queueSlots.tryAcquire()) {
+            if (overflowPolicy == QueueOverflowPolicy.COALESCE && tryCoalesce(benchmark, executionSequenceId, event)) {
+                metrics.eventCoalesced();
+                return;
+            }
+            long blockedStart = System.nanoTime();
+            try {
+                queueSlots.acquire();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted when waiting for space in the reporting queue", e);
+            }
+            metrics.submitterBlocked(System.nanoTime() - blockedStart);
+        }
+        metrics.entryQueued();
+        Entry entry;
+
+        CompletableFuture<?> dependencies;
+        synchronized (lock) {
+            entry = new Entry(nextEntrySequence++, event);
+            pendingEntries.add(entry);
+            BenchmarkEntries entries = benchmarkEntries.computeIfAbsent(benchmark, ignored -> new BenchmarkEntries());
+            switch (type) {
+                case BENCHMARK_STARTED:
+                    dependencies = completedFuture(null);
+                    entries.started = entry.done;
+                    break;
+                case EXECUTION:
+                    int sequenceId = executionSequenceId.orElseThrow();
+                    Entry previous = entries.executions.put(sequenceId, entry);
+                    dependencies = CompletableFuture.allOf(entries.started, previous == null ? completedFuture(null) : previous.done);
+                    entry.done.thenRun(() -> {
+                        synchronized (lock) {
+                            entries.executions.remove(sequenceId, entry);
+                        }
+                    });
+                    break;
+                case BENCHMARK_FINISHED:
+                    List<CompletableFuture<?>> previousEntries = new ArrayList<>();
+                    previousEntries.add(entries.started);
+                    entries.executions.values().forEach(execution -> previousEntries.add(execution.done));
+                    dependencies = CompletableFuture.allOf(previousEntries.toArray(new CompletableFuture[0]));
+                    benchmarkEntries.remove(benchmark);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported event type: " + type);
+            }
+        }
+        dependencies.thenRun(() -> executor.execute(entry));
+    }
+
+    private boolean tryCoalesce(Benchmark benchmark, Optional<Integer> executionSequenceId, Event event)
+    {
+        if (executionSequenceId.isEmpty()) {
+            return false;
+        }
+        synchronized (lock) {
+            BenchmarkEntries entries = benchmarkEntries.get(benchmark);
+            Entry previous = entries == null ? null : entries.executions.get(executionSequenceId.get());
+            if (previous == null || previous.started) {
+                return false;
+            }
+            previous.events.add(event);
+            return true;
+        }
     }
 
-    private <T> void fireListeners(BiFunction<BenchmarkExecutionListener, T, Future<?>> invoker, T argument)
+    private void fireListeners(Function<BenchmarkExecutionListener, Future<?>> invoker)
     {
-        List<Future<?>> futures = new ArrayList<>();
         for (BenchmarkExecutionListener listener : executionListeners) {
-            futures.add(invoker.apply(listener, argument));
+            invoker.apply(listener);
+        }
+    }
+
+    private static String listenerName(BenchmarkExecutionListener listener)
+    {
+        String name = listener.getClass().getSimpleName();
+        return name.isEmpty() ? listener.getClass().getName() : name;
+    }
+
+    public enum QueueOverflowPolicy
+    {
+        /**
+         * Wait for free space in the queue.
+         */
+        BLOCK,
+        /**
+         * Merge the event into a waiting queue entry of the same execution, like its start, or wait
+         * for free space if there is no such entry.
+         */
+        COALESCE,
+    }
+
+    private enum EventType
+    {
+        BENCHMARK_STARTED,
+        EXECUTION,
+        BENCHMARK_FINISHED,
+    }
+
+    private static class Event
+    {
+        private final long submitted = System.nanoTime();
+        // empty for listeners which are not notified of the event
+        private final Function<BenchmarkExecutionListener, Optional<Future<?>>> invoker;
+
+        private Event(Function<BenchmarkExecutionListener, Optional<Future<?>>> invoker)
+        {
+            this.invoker = invoker;
+        }
+    }
+
+    private static class BenchmarkEntries
+    {
+        private CompletableFuture<?> started = completedFuture(null);
+        private final Map<Integer, Entry> executions = new HashMap<>();
+    }
+
+    /**
+     * Events occupying a single slot in the reporting queue.
+     */
+    private class Entry
+            implements Runnable, Comparable<Entry>
+    {
+        private final long sequence;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        // guarded by lock
+        private final List<Event> events = new ArrayList<>();
+        // guarded by lock
+        private boolean started;
+
+        private Entry(long sequence, Event event)
+        {
+            this.sequence = sequence;
+            events.add(event);
+        }
+
+        @Override
+        public int compareTo(Entry other)
+        {
+            return Long.compare(sequence, other.sequence);
+        }
+
+        @Override
+        public void run()
+        {
+            List<Event> reportedEvents;
+            synchronized (lock) {
+                started = true;
+                reportedEvents = ImmutableList.copyOf(events);
+            }
+            try {
+                for (Event event : reportedEvents) {
+                    boolean failed = false;
+                    for (BenchmarkExecutionListener listener : executionListeners) {
+                        if (failed && listener.requiresPreviousListeners()) {
+                            continue;
+                        }
+                        long start = System.nanoTime();
+                        try {
+                            Optional<Future<?>> reported = event.invoker.apply(listener);
+                            if (reported.isEmpty()) {
+                                continue;
+                            }
+                            reported.get().get();
+                        }
+                        catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            failure.compareAndSet(null, e);
+                            return;
+                        }
+                        catch (ExecutionException | RuntimeException e) {
+                            failure.compareAndSet(null, e);
+                            failed = true;
+                        }
+                        metrics.listenerFinished(listenerName(listener), System.nanoTime() - start);
+                    }
+                    metrics.eventReported(System.nanoTime() - event.submitted);
+                }
+            }
+            finally {
+                pendingEntries.remove(this);
+                metrics.entryProcessed();
+                queueSlots.release();
+                done.complete(null);
+            }
         }
-        pendingFutures.addAll(futures);
     }
 }
@@ -0,0 +1,168 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.listeners.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.trino.benchto.driver.service.Measurement;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.trino.benchto.driver.service.Measurement.measurement;
+
+/**
+ * Statistics of the {@link BenchmarkStatusReporter} pipeline. Counters are cumulative, so measurements
+ * for a time window are computed as a difference of two snapshots.
+ */
+public class ReportingMetrics
+{
+    private static final double NANOS_PER_MILLISECOND = 1_000_000.0;
+
+    private final LongAdder reported = new LongAdder();
+    private final LongAdder lagNanos = new LongAdder();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+    private final LongAdder blockedNanos = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger maxQueued = new AtomicInteger();
+    private final Map<String, ListenerLatency> listenerLatencies = new ConcurrentHashMap<>();
+
+    void entryQueued()
+    {
+        maxQueued.accumulateAndGet(queued.incrementAndGet(), Math::max);
+    }
+
+    void entryProcessed()
+    {
+        queued.decrementAndGet();
+    }
+
+    /**
+     * @param lagNanos time between the event was submitted and all listeners finished processing it
+     */
+    void eventReported(long lagNanos)
+    {
+        reported.increment();
+        this.lagNanos.add(lagNanos);
+        maxLagNanos.accumulateAndGet(lagNanos, Math::max);
+    }
+
+    void eventCoalesced()
+    {
+        coalesced.increment();
+    }
+
+    void submitterBlocked(long blockedNanos)
+    {
+        this.blockedNanos.add(blockedNanos);
+    }
+
+    void listenerRegistered(String listenerName)
+    {
+        listenerLatencies.putIfAbsent(listenerName, new ListenerLatency());
+    }
+
+    void listenerFinished(String listenerName, long latencyNanos)
+    {
+        listenerLatencies.computeIfAbsent(listenerName, name -> new ListenerLatency()).record(latencyNanos);
+    }
+
+    /**
+     * Number of queue entries waiting for, or being processed by listeners.
+     */
+    public int getQueueDepth()
+    {
+        return queued.get();
+    }
+
+    /**
+     * Takes a snapshot of cumulative counters and starts tracking maximum values anew.
+     */
+    public Snapshot snapshot()
+    {
+        ImmutableMap.Builder<String, long[]> listeners = ImmutableMap.builder();
+        listenerLatencies.forEach((name, latency) -> listeners.put(name, new long[] {latency.count.sum(), latency.nanos.sum()}));
+        return new Snapshot(
+                reported.sum(),
+                lagNanos.sum(),
+                maxLagNanos.getAndSet(0),
+                blockedNanos.sum(),
+                coalesced.sum(),
+                maxQueued.getAndSet(queued.get()),
+                listeners.buildOrThrow());
+    }
+
+    private static class ListenerLatency
+    {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private void record(long latencyNanos)
+        {
+            count.increment();
+            nanos.add(latencyNanos);
+        }
+    }
+
+    public static class Snapshot
+    {
+        private final long reported;
+        private final long lagNanos;
+        private final long maxLagNanos;
+        private final long blockedNanos;
+        private final long coalesced;
+        private final int maxQueued;
+        private final Map<String, long[]> listenerLatencies;
+
+        private Snapshot(long reported, long lagNanos, long maxLagNanos, long blockedNanos, long coalesced, int maxQueued, Map<String, long[]> listenerLatencies)
+        {
+            this.reported = reported;
+            this.lagNanos = lagNanos;
+            this.maxLagNanos = maxLagNanos;
+            this.blockedNanos = blockedNanos;
+            this.coalesced = coalesced;
+            this.maxQueued = maxQueued;
+            this.listenerLatencies = listenerLatencies;
+        }
+
+        /**
+         * Measurements of the reporting between {@code earlier} snapshot and this one.
+         */
+        public List<Measurement> measurementsSince(Snapshot earlier)
+        {
+            long reportedCount = reported - earlier.reported;
+            ImmutableList.Builder<Measurement> measurements = ImmutableList.<Measurement>builder()
+                    .add(measurement("reporting_queue_depth_max", "NONE", maxQueued))
+                    .add(measurement("reporting_blocked", "MILLISECONDS", (blockedNanos - earlier.blockedNanos) / NANOS_PER_MILLISECOND))
+                    .add(measurement("reporting_coalesced_events", "NONE", coalesced - earlier.coalesced))
+                    .add(measurement("reporting_lag_mean", "MILLISECONDS", mean(lagNanos - earlier.lagNanos, reportedCount)))
+                    .add(measurement("reporting_lag_max", "MILLISECONDS", maxLagNanos / NANOS_PER_MILLISECOND));
+            listenerLatencies.forEach((name, latency) -> {
+                long[] earlierLatency = earlier.listenerLatencies.getOrDefault(name, new long[2]);
+                measurements.add(measurement("listener_latency_mean." + name, "MILLISECONDS", mean(latency[1] - earlierLatency[1], latency[0] - earlierLatency[0])));
+            });
+            return measurements.build();
+        }
+
+        private static double mean(long nanos, long count)
+        {
+            return count == 0 ? 0 : nanos / NANOS_PER_MILLISECOND / count;
+        }
+    }
+}
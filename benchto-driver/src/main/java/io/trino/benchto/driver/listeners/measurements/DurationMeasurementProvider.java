@@ -20,7 +20,9 @@ import io.trino.benchto.driver.execution.QueryExecutionResult;
 import io.trino.benchto.driver.service.Measurement;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.LongSummaryStatistics;
 import java.util.concurrent.CompletableFuture;
 
 import static io.trino.benchto.driver.service.Measurement.measurement;
@@ -33,15 +35,41 @@ public class DurationMeasurementProvider
     @Override
     public CompletableFuture<List<Measurement>> loadMeasurements(Measurable measurable)
     {
-        List<Measurement> measurements;
+        ImmutableList.Builder<Measurement> measurements = ImmutableList.builder();
         if (shouldMeasureDuration(measurable)) {
-            measurements = ImmutableList.of(measurement("duration", "MILLISECONDS", measurable.getQueryDuration().toMillis()));
+            measurements.add(measurement("duration", "MILLISECONDS", measurable.getQueryDuration().toMillis()));
         }
-        else {
-            measurements = ImmutableList.of();
+        if (measurable instanceof QueryExecutionResult) {
+            QueryExecutionResult executionResult = (QueryExecutionResult) measurable;
+            executionResult.getCorrectedQueryDuration()
+                    .ifPresent(duration -> measurements.add(measurement("corrected_duration", "MILLISECONDS", duration.toMillis())));
+            executionResult.getStartDelay()
+                    .ifPresent(delay -> measurements.add(measurement("start_delay", "MILLISECONDS", delay.toMillis())));
+        }
+        else if (measurable instanceof BenchmarkExecutionResult && measurable.getBenchmark().getArrivalRate().isPresent()) {
+            measurements.addAll(openLoopMeasurements((BenchmarkExecutionResult) measurable));
         }
 
-        return completedFuture(measurements);
+        return completedFuture(measurements.build());
+    }
+
+    private List<Measurement> openLoopMeasurements(BenchmarkExecutionResult benchmarkExecutionResult)
+    {
+        LongSummaryStatistics correctedDurations = benchmarkExecutionResult.getExecutions().stream()
+                .flatMap(execution -> execution.getCorrectedQueryDuration().stream())
+                .mapToLong(Duration::toMillis)
+                .summaryStatistics();
+        LongSummaryStatistics startDelays = benchmarkExecutionResult.getExecutions().stream()
+                .flatMap(execution -> execution.getStartDelay().stream())
+                .mapToLong(Duration::toMillis)
+                .summaryStatistics();
+        if (correctedDurations.getCount() == 0) {
+            return ImmutableList.of();
+        }
+        return ImmutableList.of(
+                measurement("corrected_duration_mean", "MILLISECONDS", correctedDurations.getAverage()),
+                measurement("corrected_duration_max", "MILLISECONDS", correctedDurations.getMax()),
+                measurement("start_delay_max", "MILLISECONDS", startDelays.getMax()));
     }
 
     private boolean shouldMeasureDuration(Measurable measurable)
@@ -16,14 +16,22 @@ package io.trino.benchto.driver.listeners.measurements;
 import com.google.common.collect.ImmutableList;
 import io.trino.benchto.driver.Measurable;
 import io.trino.benchto.driver.execution.BenchmarkExecutionResult;
+import io.trino.benchto.driver.execution.MeasurementWindow;
+import io.trino.benchto.driver.execution.QueryExecutionResult;
 import io.trino.benchto.driver.service.Measurement;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 
 import static java.util.Collections.emptyList;
 import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
 
 @Component
 public class ThroughputMeasurementProvider
@@ -33,8 +41,26 @@ public class ThroughputMeasurementProvider
     public CompletableFuture<List<Measurement>> loadMeasurements(Measurable measurable)
     {
         List<Measurement> measurements;
-        if (measurable instanceof BenchmarkExecutionResult && measurable.getBenchmark().isConcurrent() && measurable.isSuccessful()) {
-            measurements = ImmutableList.of(Measurement.measurement("throughput", "QUERY_PER_SECOND", calculateThroughput((BenchmarkExecutionResult) measurable)));
+        Optional<Double> arrivalRate = measurable.getBenchmark().getArrivalRate();
+        if (measurable instanceof BenchmarkExecutionResult && (measurable.getBenchmark().isConcurrent() || arrivalRate.isPresent()) && measurable.isSuccessful()) {
+            BenchmarkExecutionResult benchmarkExecutionResult = (BenchmarkExecutionResult) measurable;
+            double throughput = calculateThroughput(benchmarkExecutionResult);
+            ImmutableList.Builder<Measurement> builder = ImmutableList.builder();
+            builder.add(Measurement.additiveMeasurement("throughput", "QUERY_PER_SECOND", throughput));
+            if (measurable.getBenchmark().isWeightedQueryMix()) {
+                queryClassThroughput(benchmarkExecutionResult, throughput).forEach((queryClass, classThroughput) ->
+                        builder.add(Measurement.additiveMeasurement("throughput." + queryClass, "QUERY_PER_SECOND", classThroughput)));
+            }
+            arrivalRate.ifPresent(rate -> builder.add(Measurement.additiveMeasurement("offered_throughput", "QUERY_PER_SECOND", rate)));
+            if (measurable.getBenchmark().hasQueryTimeouts()) {
+                // throughput counts timed out executions as completed, report it without them as well
+                long timedOutQueries = benchmarkExecutionResult.getExecutions().stream()
+                        .filter(QueryExecutionResult::isTimedOut)
+                        .count();
+                builder.add(Measurement.additiveMeasurement("timed_out_queries", "NONE", timedOutQueries));
+                builder.add(Measurement.additiveMeasurement("throughput_excluding_timeouts", "QUERY_PER_SECOND", calculateThroughputExcludingTimeouts(benchmarkExecutionResult, timedOutQueries)));
+            }
+            measurements = builder.build();
         }
         else {
             measurements = emptyList();
@@ -45,7 +71,41 @@ public class ThroughputMeasurementProvider
 
     private double calculateThroughput(BenchmarkExecutionResult benchmarkExecutionResult)
     {
-        long durationInMillis = benchmarkExecutionResult.getQueryDuration().toMillis();
-        return (double) benchmarkExecutionResult.getExecutions().size() / durationInMillis * 1000;
+        // duration bounded tests exclude ramp-up and ramp-down of the streams
+        Optional<Double> windowThroughput = benchmarkExecutionResult.getMeasurementWindow().flatMap(MeasurementWindow::getThroughput);
+        if (windowThroughput.isPresent()) {
+            return windowThroughput.get();
+        }
+        return calculateThroughput(benchmarkExecutionResult.getExecutions().size(), benchmarkExecutionResult.getQueryDuration());
+    }
+
+    private double calculateThroughputExcludingTimeouts(BenchmarkExecutionResult benchmarkExecutionResult, long timedOutQueries)
+    {
+        // measurement window only counts successful executions
+        Optional<Double> windowThroughput = benchmarkExecutionResult.getMeasurementWindow().flatMap(MeasurementWindow::getThroughput);
+        if (windowThroughput.isPresent()) {
+            return windowThroughput.get();
+        }
+        return calculateThroughput(benchmarkExecutionResult.getExecutions().size() - timedOutQueries, benchmarkExecutionResult.getQueryDuration());
+    }
+
+    /**
+     * Splits the throughput among query classes of a weighted query mix, proportionally to their successful executions.
+     */
+    private static Map<String, Double> queryClassThroughput(BenchmarkExecutionResult benchmarkExecutionResult, double throughput)
+    {
+        Map<String, Long> successfulExecutions = benchmarkExecutionResult.getExecutions().stream()
+                .filter(QueryExecutionResult::isSuccessful)
+                .collect(groupingBy(execution -> execution.getQueryExecution().getQuery().getQueryClass(), TreeMap::new, counting()));
+        long total = successfulExecutions.values().stream().mapToLong(Long::longValue).sum();
+        Map<String, Double> queryClassThroughput = new TreeMap<>();
+        successfulExecutions.forEach((queryClass, executions) -> queryClassThroughput.put(queryClass, throughput * executions / total));
+        return queryClassThroughput;
+    }
+
+    public static double calculateThroughput(long executions, Duration duration)
+    {
+        long durationInMillis = duration.toMillis();
+        return (double) executions / durationInMillis * 1000;
     }
 }
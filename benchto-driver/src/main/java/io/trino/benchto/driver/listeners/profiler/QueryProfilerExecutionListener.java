@@ -55,6 +55,13 @@ public class QueryProfilerExecutionListener
         return -100;
     }
 
+    @Override
+    public boolean requiresSynchronousStart()
+    {
+        // profilers have to be attached before the query is sent
+        return true;
+    }
+
     @Override
     public synchronized Future<?> benchmarkStarted(Benchmark benchmark)
     {
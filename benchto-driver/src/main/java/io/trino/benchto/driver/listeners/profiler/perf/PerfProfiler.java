@@ -13,6 +13,7 @@
  */
 package io.trino.benchto.driver.listeners.profiler.perf;
 
+import io.trino.benchto.driver.http.HttpRequestMetrics;
 import io.trino.benchto.driver.listeners.profiler.QueryProfiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +44,9 @@ public class PerfProfiler
     @Autowired
     private RestTemplate restTemplate;
 
+    @Autowired
+    private HttpRequestMetrics httpRequestMetrics;
+
     @Override
     @Retryable(value = IOException.class, backoff = @Backoff(200), maxAttempts = 2)
     public void start(String workerName, String benchmarkName, String queryName, int sequenceId)
@@ -68,7 +72,7 @@ public class PerfProfiler
                 .path("/start-perf")
                 .build()
                 .toUri();
-        restTemplate.getForObject(uri, Object.class);
+        httpRequestMetrics.time("perf /start-perf", () -> restTemplate.getForObject(uri, Object.class));
     }
 
     private void stopPerf(String nodeName, int port)
@@ -79,7 +83,7 @@ public class PerfProfiler
                 .path("/stop-perf")
                 .build()
                 .toUri();
-        restTemplate.getForObject(uri, Object.class);
+        httpRequestMetrics.time("perf /stop-perf", () -> restTemplate.getForObject(uri, Object.class));
     }
 
     @Override
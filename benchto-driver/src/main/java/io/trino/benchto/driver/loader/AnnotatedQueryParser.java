@@ -44,6 +44,8 @@ import static java.util.stream.Collectors.toList;
  * SECOND
  * SQL
  * QUERY;
+ * <p>
+ * Properties {@code weight} and {@code class} define the share and class of the query in a weighted query mix.
  */
 @Component
 public class AnnotatedQueryParser
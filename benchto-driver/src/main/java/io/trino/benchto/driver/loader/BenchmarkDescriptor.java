@@ -15,11 +15,13 @@ package io.trino.benchto.driver.loader;
 
 import com.google.common.collect.ImmutableSet;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.trino.benchto.driver.utils.YamlUtils.asStringList;
 
 /**
@@ -33,6 +35,8 @@ public class BenchmarkDescriptor
     public static final String RUNS_KEY = "runs";
     public static final String SUITE_PREWARM_RUNS_KEY = "suite-prewarm-runs";
     public static final String BENCHMARK_PREWARM_RUNS_KEY = "benchmark-prewarm-runs";
+    public static final String BENCHMARK_PREWARM_MAX_RUNS_KEY = "benchmark-prewarm-max-runs";
+    public static final String AUTO_VALUE = "auto";
     public static final String CONCURRENCY_KEY = "concurrency";
     public static final String BEFORE_BENCHMARK_MACROS_KEY = "before-benchmark";
     public static final String AFTER_BENCHMARK_MACROS_KEY = "after-benchmark";
@@ -43,6 +47,25 @@ public class BenchmarkDescriptor
     public static final String FREQUENCY_KEY = "frequency";
     public static final String THROUGHPUT_TEST_KEY = "throughput-test";
     public static final String QUERY_RESULTS_KEY = "query-results";
+    public static final String ARRIVAL_RATE_KEY = "arrival-rate";
+    public static final String ARRIVAL_DISTRIBUTION_KEY = "arrival-distribution";
+    public static final String CONCURRENCY_SWEEP_KEY = "concurrency-sweep";
+    public static final String CONCURRENCY_SWEEP_MIN_GAIN_KEY = "concurrency-sweep-min-gain";
+    public static final String CONCURRENCY_SWEEP_MAX_LATENCY_KEY = "concurrency-sweep-max-latency";
+    public static final String TARGET_CI_WIDTH_KEY = "target-ci-width";
+    public static final String CI_STATISTIC_KEY = "ci-statistic";
+    public static final String MAX_RUNS_KEY = "max-runs";
+    public static final String DURATION_KEY = "duration";
+    public static final String QUERY_WEIGHTS_KEY = "query-weights";
+    public static final String FETCH_MODE_KEY = "fetch-mode";
+    public static final String PREPARED_STATEMENTS_KEY = "prepared-statements";
+    public static final String EXECUTION_BACKEND_KEY = "execution-backend";
+    public static final String QUERY_TIMEOUT_KEY = "query-timeout";
+    public static final String AB_DATA_SOURCE_KEY = "ab-datasource";
+    /**
+     * Not reserved, so variants of an A/B test get different unique names and results are saved in separate benchmark runs.
+     */
+    public static final String AB_VARIANT_VARIABLE = "ab-variant";
 
     public static final Set<String> RESERVED_KEYWORDS = ImmutableSet.of(
             NAME_KEY,
@@ -51,6 +74,7 @@ public class BenchmarkDescriptor
             RUNS_KEY,
             SUITE_PREWARM_RUNS_KEY,
             BENCHMARK_PREWARM_RUNS_KEY,
+            BENCHMARK_PREWARM_MAX_RUNS_KEY,
             CONCURRENCY_KEY,
             BEFORE_BENCHMARK_MACROS_KEY,
             AFTER_BENCHMARK_MACROS_KEY,
@@ -60,7 +84,22 @@ public class BenchmarkDescriptor
             QUARANTINE_KEY,
             FREQUENCY_KEY,
             THROUGHPUT_TEST_KEY,
-            QUERY_RESULTS_KEY);
+            QUERY_RESULTS_KEY,
+            ARRIVAL_RATE_KEY,
+            ARRIVAL_DISTRIBUTION_KEY,
+            CONCURRENCY_SWEEP_KEY,
+            CONCURRENCY_SWEEP_MIN_GAIN_KEY,
+            CONCURRENCY_SWEEP_MAX_LATENCY_KEY,
+            TARGET_CI_WIDTH_KEY,
+            CI_STATISTIC_KEY,
+            MAX_RUNS_KEY,
+            DURATION_KEY,
+            QUERY_WEIGHTS_KEY,
+            FETCH_MODE_KEY,
+            PREPARED_STATEMENTS_KEY,
+            EXECUTION_BACKEND_KEY,
+            QUERY_TIMEOUT_KEY,
+            AB_DATA_SOURCE_KEY);
 
     private final Map<String, String> variables;
 
@@ -102,9 +141,22 @@ public class BenchmarkDescriptor
 
     public Optional<Integer> getBenchmarkPrewarmRuns()
     {
+        if (isBenchmarkPrewarmAuto()) {
+            return Optional.empty();
+        }
         return getIntegerOptional(BENCHMARK_PREWARM_RUNS_KEY);
     }
 
+    public boolean isBenchmarkPrewarmAuto()
+    {
+        return AUTO_VALUE.equalsIgnoreCase(variables.get(BENCHMARK_PREWARM_RUNS_KEY));
+    }
+
+    public Optional<Integer> getBenchmarkPrewarmMaxRuns()
+    {
+        return getIntegerOptional(BENCHMARK_PREWARM_MAX_RUNS_KEY);
+    }
+
     public Optional<Integer> getConcurrency()
     {
         return getIntegerOptional(CONCURRENCY_KEY);
@@ -145,6 +197,85 @@ public class BenchmarkDescriptor
         return getStringOptional(QUERY_RESULTS_KEY);
     }
 
+    public Optional<Double> getArrivalRate()
+    {
+        return getDoubleOptional(ARRIVAL_RATE_KEY);
+    }
+
+    public Optional<String> getArrivalDistribution()
+    {
+        return getStringOptional(ARRIVAL_DISTRIBUTION_KEY);
+    }
+
+    public List<Integer> getConcurrencySweep()
+    {
+        return asStringList(variables.getOrDefault(CONCURRENCY_SWEEP_KEY, "")).stream()
+                .map(Integer::valueOf)
+                .collect(toImmutableList());
+    }
+
+    public Optional<Double> getConcurrencySweepMinGain()
+    {
+        return getDoubleOptional(CONCURRENCY_SWEEP_MIN_GAIN_KEY);
+    }
+
+    public Optional<Duration> getConcurrencySweepMaxLatency()
+    {
+        return getStringOptional(CONCURRENCY_SWEEP_MAX_LATENCY_KEY).map(Duration::parse);
+    }
+
+    public Optional<Double> getTargetCiWidth()
+    {
+        return getDoubleOptional(TARGET_CI_WIDTH_KEY);
+    }
+
+    public Optional<String> getCiStatistic()
+    {
+        return getStringOptional(CI_STATISTIC_KEY);
+    }
+
+    public Optional<Integer> getMaxRuns()
+    {
+        return getIntegerOptional(MAX_RUNS_KEY);
+    }
+
+    public Optional<Duration> getDuration()
+    {
+        return getStringOptional(DURATION_KEY).map(Duration::parse);
+    }
+
+    public List<Double> getQueryWeights()
+    {
+        return asStringList(variables.getOrDefault(QUERY_WEIGHTS_KEY, "")).stream()
+                .map(Double::valueOf)
+                .collect(toImmutableList());
+    }
+
+    public Optional<String> getFetchMode()
+    {
+        return getStringOptional(FETCH_MODE_KEY);
+    }
+
+    public boolean getPreparedStatements()
+    {
+        return variables.getOrDefault(PREPARED_STATEMENTS_KEY, "false").equalsIgnoreCase("true");
+    }
+
+    public Optional<String> getExecutionBackend()
+    {
+        return getStringOptional(EXECUTION_BACKEND_KEY);
+    }
+
+    public Optional<Duration> getQueryTimeout()
+    {
+        return getStringOptional(QUERY_TIMEOUT_KEY).map(Duration::parse);
+    }
+
+    public Optional<String> getAbDataSource()
+    {
+        return getStringOptional(AB_DATA_SOURCE_KEY);
+    }
+
     private Optional<Integer> getIntegerOptional(String key)
     {
         if (variables.containsKey(key)) {
@@ -153,6 +284,14 @@ public class BenchmarkDescriptor
         return Optional.empty();
     }
 
+    private Optional<Double> getDoubleOptional(String key)
+    {
+        if (variables.containsKey(key)) {
+            return Optional.of(Double.valueOf(variables.get(key)));
+        }
+        return Optional.empty();
+    }
+
     private Optional<String> getStringOptional(String key)
     {
         if (variables.containsKey(key)) {
@@ -15,10 +15,16 @@ package io.trino.benchto.driver.loader;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import freemarker.template.Configuration;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
 import io.trino.benchto.driver.Benchmark;
+import io.trino.benchto.driver.Benchmark.AbVariant;
+import io.trino.benchto.driver.Benchmark.ArrivalDistribution;
+import io.trino.benchto.driver.Benchmark.CiStatistic;
+import io.trino.benchto.driver.Benchmark.ExecutionBackend;
+import io.trino.benchto.driver.Benchmark.FetchMode;
 import io.trino.benchto.driver.BenchmarkExecutionException;
 import io.trino.benchto.driver.BenchmarkProperties;
 import io.trino.benchto.driver.Query;
@@ -53,6 +59,7 @@ import java.util.stream.IntStream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Lists.newArrayListWithCapacity;
 import static com.google.common.collect.Maps.newHashMap;
 import static com.google.common.collect.Sets.newLinkedHashSet;
@@ -60,6 +67,7 @@ import static io.trino.benchto.driver.loader.BenchmarkDescriptor.NAME_KEY;
 import static java.lang.String.format;
 import static java.nio.file.Files.isRegularFile;
 import static java.util.Collections.emptyMap;
+import static java.util.Locale.ENGLISH;
 import static java.util.UUID.randomUUID;
 import static java.util.stream.Collectors.toList;
 import static org.apache.commons.io.FilenameUtils.removeExtension;
@@ -78,6 +86,8 @@ public class BenchmarkLoader
     private static final int DEFAULT_CONCURRENCY = 1;
     private static final int DEFAULT_SUITE_PREWARM_RUNS = 0;
     private static final int DEFAULT_BENCHMARK_PREWARM_RUNS = 2;
+    private static final int DEFAULT_BENCHMARK_PREWARM_MAX_RUNS = 10;
+    private static final int DEFAULT_MAX_RUNS = 30;
 
     @Autowired
     private Environment environment;
@@ -137,6 +147,15 @@ public class BenchmarkLoader
 
             fillUniqueBenchmarkNames(includedBenchmarks);
 
+            // shards are assigned before skipping recently tested benchmarks, which shards may see differently
+            Set<Benchmark> otherShardsBenchmarks = ImmutableSet.of();
+            if (properties.getShard().isPresent()) {
+                List<Benchmark> shardBenchmarks = selectShardBenchmarks(BenchmarkShard.parse(properties.getShard().get()), includedBenchmarks, sequenceId, formatString);
+                otherShardsBenchmarks = newLinkedHashSet(includedBenchmarks);
+                otherShardsBenchmarks.removeAll(shardBenchmarks);
+                includedBenchmarks.removeAll(otherShardsBenchmarks);
+            }
+
             List<Benchmark> freshBenchmarks = ImmutableList.of();
             if (properties.isFrequencyCheckEnabled()) {
                 freshBenchmarks = filterFreshBenchmarks(includedBenchmarks);
@@ -148,7 +167,7 @@ public class BenchmarkLoader
             includedBenchmarks.removeAll(freshBenchmarks);
             printFormattedBenchmarksInfo(formatString, includedBenchmarks);
 
-            checkState(allBenchmarks.size() == includedBenchmarks.size() + excludedBenchmarks.size() + freshBenchmarks.size());
+            checkState(allBenchmarks.size() == includedBenchmarks.size() + excludedBenchmarks.size() + otherShardsBenchmarks.size() + freshBenchmarks.size());
 
             return includedBenchmarks;
         }
@@ -222,13 +241,19 @@ public class BenchmarkLoader
             for (BenchmarkDescriptor benchmarkDescriptor : benchmarkDescriptors) {
                 String benchmarkName = benchmarkDescriptor.getName();
                 List<Query> queries = queryLoader.loadFromFiles(benchmarkDescriptor.getQueryNames());
+                List<Double> descriptorWeights = benchmarkDescriptor.getQueryWeights();
+                checkArgument(descriptorWeights.isEmpty() || descriptorWeights.size() == queries.size(),
+                        "Variable %s must define weights of all %s queries in file %s", BenchmarkDescriptor.QUERY_WEIGHTS_KEY, BenchmarkDescriptor.QUERY_NAMES_KEY, benchmarkFile);
 
                 Benchmark benchmark = new Benchmark.BenchmarkBuilder(benchmarkName, sequenceId, queries)
                         .withDataSource(benchmarkDescriptor.getDataSource())
                         .withEnvironment(properties.getEnvironmentName())
                         .withRuns(benchmarkDescriptor.getRuns().orElse(DEFAULT_RUNS))
                         .withSuitePrewarmRuns(benchmarkDescriptor.getSuitePrewarmRuns().orElse(DEFAULT_SUITE_PREWARM_RUNS))
-                        .withBenchmarkPrewarmRuns(benchmarkDescriptor.getBenchmarkPrewarmRuns().orElse(DEFAULT_BENCHMARK_PREWARM_RUNS))
+                        .withBenchmarkPrewarmRuns(benchmarkDescriptor.isBenchmarkPrewarmAuto()
+                                ? benchmarkDescriptor.getBenchmarkPrewarmMaxRuns().orElse(DEFAULT_BENCHMARK_PREWARM_MAX_RUNS)
+                                : benchmarkDescriptor.getBenchmarkPrewarmRuns().orElse(DEFAULT_BENCHMARK_PREWARM_RUNS))
+                        .withBenchmarkPrewarmAuto(benchmarkDescriptor.isBenchmarkPrewarmAuto())
                         .withConcurrency(benchmarkDescriptor.getConcurrency().orElse(DEFAULT_CONCURRENCY))
                         .withFrequency(benchmarkDescriptor.getFrequency().map(Duration::ofDays))
                         .withThroughputTest(benchmarkDescriptor.getThroughputTest())
@@ -237,8 +262,65 @@ public class BenchmarkLoader
                         .withBeforeExecutionMacros(benchmarkDescriptor.getBeforeExecutionMacros())
                         .withAfterExecutionMacros(benchmarkDescriptor.getAfterExecutionMacros())
                         .withQueryResults(benchmarkDescriptor.getResults())
+                        .withArrivalRate(benchmarkDescriptor.getArrivalRate())
+                        .withArrivalDistribution(benchmarkDescriptor.getArrivalDistribution()
+                                .map(distribution -> ArrivalDistribution.valueOf(distribution.toUpperCase(ENGLISH)))
+                                .orElse(ArrivalDistribution.FIXED))
+                        .withConcurrencySweep(benchmarkDescriptor.getConcurrencySweep())
+                        .withConcurrencySweepMinGain(benchmarkDescriptor.getConcurrencySweepMinGain().orElse(Benchmark.DEFAULT_CONCURRENCY_SWEEP_MIN_GAIN))
+                        .withConcurrencySweepMaxLatency(benchmarkDescriptor.getConcurrencySweepMaxLatency())
+                        .withTargetCiWidth(benchmarkDescriptor.getTargetCiWidth())
+                        .withCiStatistic(benchmarkDescriptor.getCiStatistic()
+                                .map(statistic -> CiStatistic.valueOf(statistic.toUpperCase(ENGLISH)))
+                                .orElse(CiStatistic.MEAN))
+                        .withMaxRuns(benchmarkDescriptor.getMaxRuns().orElse(Math.max(DEFAULT_MAX_RUNS, benchmarkDescriptor.getRuns().orElse(DEFAULT_RUNS))))
+                        .withDuration(benchmarkDescriptor.getDuration())
+                        .withQueryWeights(queryWeights(descriptorWeights, queries))
+                        .withFetchMode(benchmarkDescriptor.getFetchMode()
+                                .map(fetchMode -> FetchMode.valueOf(fetchMode.toUpperCase(ENGLISH)))
+                                .orElse(FetchMode.LOG))
+                        .withPreparedStatements(benchmarkDescriptor.getPreparedStatements())
+                        .withExecutionBackend(benchmarkDescriptor.getExecutionBackend()
+                                .map(backend -> ExecutionBackend.valueOf(backend.toUpperCase(ENGLISH)))
+                                .orElse(ExecutionBackend.JDBC))
+                        .withQueryTimeout(benchmarkDescriptor.getQueryTimeout())
                         .withVariables(benchmarkDescriptor.getVariables())
                         .build();
+                checkArgument(benchmark.getArrivalRate().isEmpty() || benchmark.isThroughputTest(),
+                        "Variable %s requires %s to be enabled in file %s", BenchmarkDescriptor.ARRIVAL_RATE_KEY, BenchmarkDescriptor.THROUGHPUT_TEST_KEY, benchmarkFile);
+                checkArgument(!benchmark.isAdaptiveRuns() || !benchmark.isThroughputTest(),
+                        "Variable %s cannot be used with %s in file %s", BenchmarkDescriptor.TARGET_CI_WIDTH_KEY, BenchmarkDescriptor.THROUGHPUT_TEST_KEY, benchmarkFile);
+                checkArgument(!benchmark.isConcurrencySweep() || benchmark.isThroughputTest(),
+                        "Variable %s requires %s to be enabled in file %s", BenchmarkDescriptor.CONCURRENCY_SWEEP_KEY, BenchmarkDescriptor.THROUGHPUT_TEST_KEY, benchmarkFile);
+                checkArgument(!benchmark.isConcurrencySweep() || benchmark.getArrivalRate().isEmpty(),
+                        "Variables %s and %s cannot be used together in file %s", BenchmarkDescriptor.CONCURRENCY_SWEEP_KEY, BenchmarkDescriptor.ARRIVAL_RATE_KEY, benchmarkFile);
+                checkArgument(!benchmark.isDurationBounded() || benchmark.isThroughputTest(),
+                        "Variable %s requires %s to be enabled in file %s", BenchmarkDescriptor.DURATION_KEY, BenchmarkDescriptor.THROUGHPUT_TEST_KEY, benchmarkFile);
+                checkArgument(!benchmark.isDurationBounded() || (benchmark.getArrivalRate().isEmpty() && !benchmark.isConcurrencySweep()),
+                        "Variable %s cannot be used with %s or %s in file %s", BenchmarkDescriptor.DURATION_KEY, BenchmarkDescriptor.ARRIVAL_RATE_KEY, BenchmarkDescriptor.CONCURRENCY_SWEEP_KEY, benchmarkFile);
+                checkArgument(!benchmark.isWeightedQueryMix() || benchmark.isThroughputTest(),
+                        "Variable %s requires %s to be enabled in file %s", BenchmarkDescriptor.QUERY_WEIGHTS_KEY, BenchmarkDescriptor.THROUGHPUT_TEST_KEY, benchmarkFile);
+                if (benchmark.getExecutionBackend() == ExecutionBackend.HTTP) {
+                    // the HTTP backend only drains results and does not execute statements with JDBC, so results are neither verified nor fetched in a chosen way
+                    Map<String, Boolean> unsupportedVariables = ImmutableMap.of(
+                            BenchmarkDescriptor.QUERY_RESULTS_KEY, benchmark.getQueryResults().isPresent(),
+                            BenchmarkDescriptor.FETCH_MODE_KEY, benchmarkDescriptor.getFetchMode().isPresent(),
+                            BenchmarkDescriptor.PREPARED_STATEMENTS_KEY, benchmark.isPreparedStatements());
+                    unsupportedVariables.forEach((key, used) -> checkArgument(!used,
+                            "Variable %s cannot be used with %s %s in file %s", key, BenchmarkDescriptor.EXECUTION_BACKEND_KEY, ExecutionBackend.HTTP, benchmarkFile));
+                }
+                if (benchmarkDescriptor.getAbDataSource().isPresent()) {
+                    String abDataSource = benchmarkDescriptor.getAbDataSource().get();
+                    // executions of both variants are interleaved one by one
+                    checkArgument(!benchmark.isThroughputTest() && !benchmark.isAdaptiveRuns() && benchmark.getConcurrency() == 1,
+                            "Variable %s cannot be used with %s, %s or %s other than 1 in file %s", BenchmarkDescriptor.AB_DATA_SOURCE_KEY, BenchmarkDescriptor.THROUGHPUT_TEST_KEY,
+                            BenchmarkDescriptor.TARGET_CI_WIDTH_KEY, BenchmarkDescriptor.CONCURRENCY_KEY, benchmarkFile);
+                    checkArgument(!abDataSource.equals(benchmark.getDataSource()),
+                            "Variables %s and %s must be different in file %s", BenchmarkDescriptor.AB_DATA_SOURCE_KEY, BenchmarkDescriptor.DATA_SOURCE_KEY, benchmarkFile);
+                    benchmarks.add(abVariant(benchmark, AbVariant.A, benchmark.getDataSource()));
+                    benchmarks.add(abVariant(benchmark, AbVariant.B, abDataSource));
+                    continue;
+                }
                 benchmarks.add(benchmark);
             }
 
@@ -249,6 +331,35 @@ public class BenchmarkLoader
         }
     }
 
+    private static Benchmark abVariant(Benchmark benchmark, AbVariant variant, String dataSource)
+    {
+        Map<String, String> variables = newHashMap(benchmark.getVariables());
+        variables.put(BenchmarkDescriptor.DATA_SOURCE_KEY, dataSource);
+        variables.put(BenchmarkDescriptor.AB_VARIANT_VARIABLE, variant.name());
+        return new Benchmark.BenchmarkBuilder(benchmark, benchmark.getSequenceId())
+                .withDataSource(dataSource)
+                .withAbVariant(variant)
+                .withVariables(variables)
+                .build();
+    }
+
+    /**
+     * Weights from the benchmark descriptor take precedence over the ones defined in query files,
+     * queries without any weight have weight 1. Empty if no query has a weight.
+     */
+    private static List<Double> queryWeights(List<Double> descriptorWeights, List<Query> queries)
+    {
+        if (!descriptorWeights.isEmpty()) {
+            return descriptorWeights;
+        }
+        if (queries.stream().noneMatch(query -> query.getWeight().isPresent())) {
+            return ImmutableList.of();
+        }
+        return queries.stream()
+                .map(query -> query.getWeight().orElse(1.0))
+                .collect(toImmutableList());
+    }
+
     private Map<Object, Object> mergeTopLevelVariables(Map<Object, Object> baseYaml)
     {
         ImmutableMap.Builder<Object, Object> result = ImmutableMap.builder();
@@ -405,6 +516,21 @@ public class BenchmarkLoader
                 .collect(toList());
     }
 
+    private List<Benchmark> selectShardBenchmarks(BenchmarkShard shard, List<Benchmark> benchmarks, String sequenceId, String formatString)
+    {
+        if (benchmarks.isEmpty()) {
+            return benchmarks;
+        }
+        // runs of the executed sequence are ignored, so shards starting after others finished some benchmarks compute the same assignment
+        List<Duration> expectedDurations = benchmarkServiceClient.getBenchmarkSuccessfulExecutionDurations(benchmarks.stream()
+                .map(Benchmark::getUniqueName)
+                .collect(toList()), Optional.of(sequenceId));
+        List<Benchmark> shardBenchmarks = shard.select(benchmarks, expectedDurations);
+        LOGGER.info("Benchmarks of shard {}:", shard);
+        printFormattedBenchmarksInfo(formatString, shardBenchmarks);
+        return shardBenchmarks;
+    }
+
     private void printFormattedBenchmarksInfo(String formatString, Collection<Benchmark> benchmarks)
     {
         LOGGER.info(format(formatString, "Benchmark Name", "Data Source", "Runs", "SuitePrewarms", "BenchmarkPrewarms", "Concurrency", "Throughput Test"));
@@ -414,7 +540,7 @@ public class BenchmarkLoader
                         benchmark.getDataSource(),
                         benchmark.getRuns() + "",
                         benchmark.getSuitePrewarmRuns() + "",
-                        benchmark.getBenchmarkPrewarmRuns() + "",
+                        benchmark.isBenchmarkPrewarmAuto() ? BenchmarkDescriptor.AUTO_VALUE : benchmark.getBenchmarkPrewarmRuns() + "",
                         benchmark.getConcurrency() + "",
                         benchmark.isThroughputTest() + ""))
                 .distinct()
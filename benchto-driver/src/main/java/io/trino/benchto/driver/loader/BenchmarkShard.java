@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.loader;
+
+import com.google.common.base.Splitter;
+import com.google.common.hash.Hashing;
+import io.trino.benchto.driver.Benchmark;
+import io.trino.benchto.driver.utils.NaturalOrderComparator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * One of shards executing a suite of benchmarks on separate drivers. Groups of benchmarks with the same name are
+ * assigned to shards balancing their expected durations, so all shards finish at about the same time. Every shard
+ * computes the same assignment, as long as it is given the same benchmarks and durations. When no group has
+ * an expected duration, groups are assigned by a hash of their name, which does not depend on other groups.
+ */
+class BenchmarkShard
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(BenchmarkShard.class);
+
+    private final int index;
+    private final int count;
+
+    public static BenchmarkShard parse(String shard)
+    {
+        List<String> parts = Splitter.on('/').trimResults().splitToList(shard);
+        checkArgument(parts.size() == 2 && parts.stream().allMatch(part -> part.matches("\\d+")), "Shard must have INDEX/COUNT format, got: %s", shard);
+        return new BenchmarkShard(Integer.parseInt(parts.get(0)), Integer.parseInt(parts.get(1)));
+    }
+
+    public BenchmarkShard(int index, int count)
+    {
+        checkArgument(count > 0 && index >= 1 && index <= count, "Shard index must be between 1 and %s, got: %s", count, index);
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * Returns benchmarks assigned to this shard, in their original order.
+     *
+     * @param expectedDurations durations of latest successful runs of benchmarks, zero if there were none
+     */
+    public List<Benchmark> select(List<Benchmark> benchmarks, List<Duration> expectedDurations)
+    {
+        checkArgument(benchmarks.size() == expectedDurations.size(), "Expected durations of %s benchmarks, got %s", benchmarks.size(), expectedDurations.size());
+        Map<String, Duration> groupDurations = new LinkedHashMap<>();
+        for (int i = 0; i < benchmarks.size(); i++) {
+            groupDurations.merge(benchmarks.get(i).getName(), expectedDurations.get(i), Duration::plus);
+        }
+        // groups which never succeeded are expected to take as long as an average group
+        List<Duration> knownDurations = groupDurations.values().stream()
+                .filter(duration -> !duration.isZero())
+                .collect(toImmutableList());
+        if (knownDurations.isEmpty()) {
+            return benchmarks.stream()
+                    .filter(benchmark -> hashShard(benchmark.getName()) == index)
+                    .collect(toImmutableList());
+        }
+        Duration defaultDuration = knownDurations.stream().reduce(Duration.ZERO, Duration::plus).dividedBy(knownDurations.size());
+        groupDurations.replaceAll((name, duration) -> duration.isZero() ? defaultDuration : duration);
+
+        // longest processing time first: the longest remaining group goes to the least loaded shard
+        List<String> groups = groupDurations.keySet().stream()
+                .sorted(Comparator.comparing((String group) -> groupDurations.get(group)).reversed()
+                        .thenComparing(NaturalOrderComparator.forStrings()))
+                .collect(toImmutableList());
+        List<Duration> shardDurations = new ArrayList<>(Collections.nCopies(count, Duration.ZERO));
+        Map<String, Integer> assignment = new LinkedHashMap<>();
+        for (String group : groups) {
+            int shard = 0;
+            for (int candidate = 1; candidate < count; candidate++) {
+                if (shardDurations.get(candidate).compareTo(shardDurations.get(shard)) < 0) {
+                    shard = candidate;
+                }
+            }
+            shardDurations.set(shard, shardDurations.get(shard).plus(groupDurations.get(group)));
+            assignment.put(group, shard + 1);
+        }
+        LOGGER.info("Expected durations of shards: {}, benchmarks of shard {}: {}", shardDurations, this, assignment.entrySet().stream()
+                .filter(entry -> entry.getValue() == index)
+                .map(Map.Entry::getKey)
+                .collect(toImmutableList()));
+
+        return benchmarks.stream()
+                .filter(benchmark -> assignment.get(benchmark.getName()) == index)
+                .collect(toImmutableList());
+    }
+
+    private int hashShard(String group)
+    {
+        return Math.floorMod(Hashing.murmur3_32_fixed().hashString(group, UTF_8).asInt(), count) + 1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return format("%s/%s", index, count);
+    }
+}
@@ -14,7 +14,11 @@
 package io.trino.benchto.driver.loader;
 
 import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import freemarker.template.Configuration;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
@@ -28,24 +32,69 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
+/**
+ * Generates SQL statements from FreeMarker query templates. Templates are compiled once per query and statements
+ * which do not depend on the execution are rendered once, both kept in bounded caches.
+ */
 @Component
 public class SqlStatementGenerator
 {
+    public static final String EXECUTION_SEQUENCE_ID_VARIABLE = "execution_sequence_id";
+    // variables with a different value for every execution, statements using them are never reused
+    private static final Set<String> PER_EXECUTION_VARIABLES = Set.of(EXECUTION_SEQUENCE_ID_VARIABLE);
+
     private static final Splitter SQL_STATEMENT_SPLITTER = Splitter.on(";").trimResults().omitEmptyStrings();
+    private static final int MAX_CACHED_TEMPLATES = 1_000;
+    private static final int MAX_CACHED_STATEMENTS = 10_000;
 
     @Autowired
     private Configuration freemarkerConfiguration;
 
+    // compiled templates by template text
+    private final Cache<String, Template> templates = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_TEMPLATES)
+            .build();
+    // rendered statements by template text and variables
+    private final Cache<Map.Entry<String, Map<String, ?>>, List<String>> statements = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_STATEMENTS)
+            .build();
+
     public List<String> generateQuerySqlStatement(Query query, Map<String, ?> attributes)
     {
-        ImmutableList.Builder<String> sqlQueries = ImmutableList.builder();
-        String sqlTemplate = generateQuerySqlStatement(query.getSqlTemplate(), attributes);
-        for (String sqlQuery : toSqlQueries(sqlTemplate)) {
-            sqlQueries.add(sqlQuery);
+        if (usesPerExecutionVariables(query)) {
+            return toSqlQueries(generateQuerySqlStatement(compileTemplate(query), attributes));
+        }
+        List<String> sqlQueries = statements.getIfPresent(Map.entry(query.getSqlTemplate(), attributes));
+        if (sqlQueries == null) {
+            sqlQueries = toSqlQueries(generateQuerySqlStatement(compileTemplate(query), attributes));
+            statements.put(Map.entry(query.getSqlTemplate(), ImmutableMap.copyOf(attributes)), sqlQueries);
+        }
+        return sqlQueries;
+    }
+
+    /**
+     * Compiles the query template and renders its statements, unless they depend on the execution, so later executions
+     * only look them up in the caches.
+     */
+    public void prerender(Query query, Map<String, ?> attributes)
+    {
+        if (usesPerExecutionVariables(query)) {
+            compileTemplate(query);
+        }
+        else {
+            generateQuerySqlStatement(query, attributes);
         }
-        return sqlQueries.build();
+    }
+
+    /**
+     * Whether the query template may refer to a variable which is different for every execution.
+     */
+    public static boolean usesPerExecutionVariables(Query query)
+    {
+        return PER_EXECUTION_VARIABLES.stream().anyMatch(query.getSqlTemplate()::contains);
     }
 
     private static ImmutableList<String> toSqlQueries(String sqlTemplate)
@@ -53,13 +102,19 @@ public class SqlStatementGenerator
         return ImmutableList.copyOf(SQL_STATEMENT_SPLITTER.split(sqlTemplate));
     }
 
-    private String generateQuerySqlStatement(String sqlTemplate, Map<String, ?> attributes)
+    private Template compileTemplate(Query query)
     {
         try {
-            // template name must be unique to ensure correct templates caching
-            String templateName = UUID.randomUUID().toString();
-            Template queryTemplate = new Template(templateName, new StringReader(sqlTemplate), freemarkerConfiguration);
+            return templates.get(query.getSqlTemplate(), () -> new Template(query.getName(), new StringReader(query.getSqlTemplate()), freemarkerConfiguration));
+        }
+        catch (ExecutionException | UncheckedExecutionException e) {
+            throw new BenchmarkExecutionException(e.getCause());
+        }
+    }
 
+    private static String generateQuerySqlStatement(Template queryTemplate, Map<String, ?> attributes)
+    {
+        try {
             return FreeMarkerTemplateUtils.processTemplateIntoString(queryTemplate, attributes);
         }
         catch (IOException | TemplateException e) {
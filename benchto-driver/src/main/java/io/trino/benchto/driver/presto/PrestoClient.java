@@ -16,6 +16,7 @@ package io.trino.benchto.driver.presto;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.google.common.collect.ImmutableMap;
 import io.trino.benchto.driver.BenchmarkProperties;
+import io.trino.benchto.driver.http.HttpRequestMetrics;
 import io.trino.benchto.driver.service.Measurement;
 import io.trino.benchto.driver.utils.UnitConverter;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -68,6 +69,9 @@ public class PrestoClient
     @Autowired
     private RestTemplate restTemplate;
 
+    @Autowired
+    private HttpRequestMetrics httpRequestMetrics;
+
     @Autowired
     private BenchmarkProperties properties;
 
@@ -86,11 +90,24 @@ public class PrestoClient
         properties.getPrestoUsername().ifPresent(username -> headers.set("X-Trino-User", username));
 
         HttpEntity<String> entity = new HttpEntity<>(headers);
-        ResponseEntity<String> response = restTemplate.exchange(uri, HttpMethod.GET, entity, String.class);
+        ResponseEntity<String> response = httpRequestMetrics.time("presto GET /v1/query/{queryId}", () -> restTemplate.exchange(uri, HttpMethod.GET, entity, String.class));
 
         return response.getBody();
     }
 
+    /**
+     * Kills a running query, e.g. after it exceeded its timeout.
+     */
+    public void killQuery(String queryId)
+    {
+        URI uri = buildQueryInfoURI(queryId);
+
+        HttpHeaders headers = new HttpHeaders();
+        properties.getPrestoUsername().ifPresent(username -> headers.set("X-Trino-User", username));
+
+        httpRequestMetrics.time("presto DELETE /v1/query/{queryId}", () -> restTemplate.exchange(uri, HttpMethod.DELETE, new HttpEntity<>(headers), Void.class));
+    }
+
     private List<Measurement> loadMetrics(String queryId, Map<String, Unit> requiredStatistics)
     {
         URI uri = buildQueryInfoURI(queryId);
@@ -99,7 +116,7 @@ public class PrestoClient
         properties.getPrestoUsername().ifPresent(username -> headers.set("X-Trino-User", username));
 
         HttpEntity<String> entity = new HttpEntity<>(headers);
-        ResponseEntity<QueryInfoResponseItem> response = restTemplate.exchange(uri, HttpMethod.GET, entity, QueryInfoResponseItem.class);
+        ResponseEntity<QueryInfoResponseItem> response = httpRequestMetrics.time("presto GET /v1/query/{queryId}", () -> restTemplate.exchange(uri, HttpMethod.GET, entity, QueryInfoResponseItem.class));
 
         Map<String, Object> queryStats = response.getBody().getQueryStats();
         return queryStats.keySet()
@@ -14,9 +14,12 @@
 package io.trino.benchto.driver.service;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.trino.benchto.driver.BenchmarkProperties;
+import io.trino.benchto.driver.http.HttpRequestMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,17 +36,24 @@ import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.ANY;
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
+import static io.trino.benchto.driver.utils.BenchmarkUniqueNameUtils.generateBenchmarkUniqueName;
+import static java.util.Collections.nCopies;
 import static java.util.Objects.requireNonNull;
 
 @Component
 public class BenchmarkServiceClient
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(BenchmarkServiceClient.class);
+    // age of benchmarks without successful executions reported by the benchmark service
+    private static final Duration NEVER_EXECUTED_AGE = Duration.ofDays(Integer.MAX_VALUE);
 
     @Autowired
     private BenchmarkProperties properties;
@@ -51,9 +61,21 @@ public class BenchmarkServiceClient
     @Autowired
     private RestTemplate restTemplate;
 
+    @Autowired
+    private ReportSpool reportSpool;
+
+    @Autowired
+    private HttpRequestMetrics httpRequestMetrics;
+
+    @Autowired
+    private OfflineResultsStore offlineResultsStore;
+
     @Retryable(value = RestClientException.class, backoff = @Backoff(1000))
     public Instant getServiceCurrentTime()
     {
+        if (offlineResultsStore.isEnabled()) {
+            return Instant.now();
+        }
         Long serviceCurrentTime = postForObject("/v1/time/current-time-millis", null, Long.class);
         return Instant.ofEpochMilli(requireNonNull(serviceCurrentTime, "service returned null time"));
     }
@@ -61,6 +83,11 @@ public class BenchmarkServiceClient
     @Retryable(value = RestClientException.class, backoff = @Backoff(1000))
     public List<String> generateUniqueBenchmarkNames(List<GenerateUniqueNamesRequestItem> generateUniqueNamesRequestItems)
     {
+        if (offlineResultsStore.isEnabled()) {
+            return generateUniqueNamesRequestItems.stream()
+                    .map(item -> generateBenchmarkUniqueName(item.getName(), item.getVariables()))
+                    .collect(toImmutableList());
+        }
         String[] uniqueNames = postForObject("/v1/benchmark/generate-unique-names", generateUniqueNamesRequestItems, String[].class);
         return ImmutableList.copyOf(uniqueNames);
     }
@@ -68,42 +95,110 @@ public class BenchmarkServiceClient
     @Retryable(value = RestClientException.class, backoff = @Backoff(1000))
     public List<Duration> getBenchmarkSuccessfulExecutionAges(List<String> benchmarkUniqueNames)
     {
+        if (offlineResultsStore.isEnabled()) {
+            // without the service benchmarks look like they were never executed
+            return nCopies(benchmarkUniqueNames.size(), NEVER_EXECUTED_AGE);
+        }
         Duration[] ages = postForObject("/v1/benchmark/get-successful-execution-ages", benchmarkUniqueNames, Duration[].class);
         return ImmutableList.copyOf(ages);
     }
 
+    /**
+     * Durations of the latest successful runs of benchmarks, zero for benchmarks which were never run successfully.
+     *
+     * @param excludedSequenceId sequence id whose runs are ignored, like the one being executed
+     */
+    @Retryable(value = RestClientException.class, backoff = @Backoff(1000))
+    public List<Duration> getBenchmarkSuccessfulExecutionDurations(List<String> benchmarkUniqueNames, Optional<String> excludedSequenceId)
+    {
+        if (offlineResultsStore.isEnabled()) {
+            return nCopies(benchmarkUniqueNames.size(), Duration.ZERO);
+        }
+        String url = "/v1/benchmark/get-successful-execution-durations";
+        URI uri = UriComponentsBuilder
+                .fromUriString(properties.getServiceURL())
+                .path(url)
+                .queryParamIfPresent("excludedSequenceId", excludedSequenceId)
+                .build()
+                .toUri();
+        Duration[] durations = postForObject(url, uri, benchmarkUniqueNames, Duration[].class);
+        return ImmutableList.copyOf(durations);
+    }
+
     @Retryable(value = RestClientException.class, backoff = @Backoff(1000))
     public String startBenchmark(String uniqueBenchmarkName, String benchmarkSequenceId, BenchmarkStartRequest request)
     {
+        if (offlineResultsStore.isEnabled()) {
+            offlineResultsStore.benchmarkStarted(uniqueBenchmarkName, benchmarkSequenceId, request);
+            return uniqueBenchmarkName;
+        }
         Map<String, String> requestParams = requestParams(uniqueBenchmarkName, benchmarkSequenceId);
 
+        if (reportSpool.isEnabled()) {
+            reportSpool.append(uri("/v1/benchmark/{uniqueBenchmarkName}/{benchmarkSequenceId}/start", requestParams), request);
+            return uniqueBenchmarkName;
+        }
         return postForObject("/v1/benchmark/{uniqueBenchmarkName}/{benchmarkSequenceId}/start", request, requestParams);
     }
 
     @Retryable(value = RestClientException.class, backoff = @Backoff(1000))
     public void finishBenchmark(String uniqueBenchmarkName, String benchmarkSequenceId, FinishRequest request)
     {
+        if (offlineResultsStore.isEnabled()) {
+            offlineResultsStore.benchmarkFinished(uniqueBenchmarkName, benchmarkSequenceId, request);
+            return;
+        }
         Map<String, String> requestParams = requestParams(uniqueBenchmarkName, benchmarkSequenceId);
 
-        postForObject("/v1/benchmark/{uniqueBenchmarkName}/{benchmarkSequenceId}/finish", request, requestParams);
+        postReport("/v1/benchmark/{uniqueBenchmarkName}/{benchmarkSequenceId}/finish", request, requestParams);
+    }
+
+    @Retryable(value = RestClientException.class, backoff = @Backoff(1000))
+    public DriverBarrier joinBenchmark(String uniqueBenchmarkName, String benchmarkSequenceId, String driverId, DriverJoinRequest request)
+    {
+        checkState(!offlineResultsStore.isEnabled(), "Coordinated drivers require the benchmark service, they cannot store results offline");
+        Map<String, String> requestParams = requestParams(uniqueBenchmarkName, benchmarkSequenceId);
+        requestParams.put("driverId", driverId);
+
+        return postForObject("/v1/benchmark/{uniqueBenchmarkName}/{benchmarkSequenceId}/driver/{driverId}/join", request, DriverBarrier.class, requestParams);
     }
 
     @Retryable(value = RestClientException.class, backoff = @Backoff(1000))
     public void startExecution(String uniqueBenchmarkName, String benchmarkSequenceId, String executionSequenceId, ExecutionStartRequest request)
     {
+        if (offlineResultsStore.isEnabled()) {
+            offlineResultsStore.executionStarted(uniqueBenchmarkName, benchmarkSequenceId, executionSequenceId, request);
+            return;
+        }
         Map<String, String> requestParams = requestParams(uniqueBenchmarkName, benchmarkSequenceId);
         requestParams.put("executionSequenceId", executionSequenceId);
 
-        postForObject("/v1/benchmark/{uniqueBenchmarkName}/{benchmarkSequenceId}/execution/{executionSequenceId}/start", request, requestParams);
+        postReport("/v1/benchmark/{uniqueBenchmarkName}/{benchmarkSequenceId}/execution/{executionSequenceId}/start", request, requestParams);
     }
 
     @Retryable(value = RestClientException.class, backoff = @Backoff(1000))
     public void finishExecution(String uniqueBenchmarkName, String benchmarkSequenceId, String executionSequenceId, FinishRequest request)
     {
+        if (offlineResultsStore.isEnabled()) {
+            offlineResultsStore.executionFinished(uniqueBenchmarkName, benchmarkSequenceId, new FinishedExecution(executionSequenceId, Optional.empty(), request));
+            return;
+        }
         Map<String, String> requestParams = requestParams(uniqueBenchmarkName, benchmarkSequenceId);
         requestParams.put("executionSequenceId", executionSequenceId);
 
-        postForObject("/v1/benchmark/{uniqueBenchmarkName}/{benchmarkSequenceId}/execution/{executionSequenceId}/finish", request, requestParams);
+        postReport("/v1/benchmark/{uniqueBenchmarkName}/{benchmarkSequenceId}/execution/{executionSequenceId}/finish", request, requestParams);
+    }
+
+    @Retryable(value = RestClientException.class, backoff = @Backoff(1000))
+    public void finishExecutions(String uniqueBenchmarkName, String benchmarkSequenceId, ExecutionsBatchRequest request)
+    {
+        if (offlineResultsStore.isEnabled()) {
+            request.getExecutions().forEach(execution -> offlineResultsStore.executionFinished(uniqueBenchmarkName, benchmarkSequenceId, execution));
+            return;
+        }
+        Map<String, String> requestParams = requestParams(uniqueBenchmarkName, benchmarkSequenceId);
+
+        postReport("/v1/benchmark/{uniqueBenchmarkName}/{benchmarkSequenceId}/executions:batch", request, requestParams);
     }
 
     private Map<String, String> requestParams(String uniqueBenchmarkName, String benchmarkSequenceId)
@@ -115,6 +210,18 @@ public class BenchmarkServiceClient
         return params;
     }
 
+    /**
+     * Posts a report of benchmark results, or stores it in the spool, if it is enabled, to be delivered in the background.
+     */
+    private void postReport(String url, Object request, Map<String, String> requestParams)
+    {
+        if (reportSpool.isEnabled()) {
+            reportSpool.append(uri(url, requestParams), request);
+            return;
+        }
+        postForObject(url, request, requestParams);
+    }
+
     private String postForObject(String url, Object request, Map<String, String> requestParams)
     {
         return postForObject(url, request, String.class, requestParams);
@@ -127,16 +234,25 @@ public class BenchmarkServiceClient
 
     private <T> T postForObject(String url, Object request, Class<T> clazz, Map<String, String> requestParams)
     {
-        UriComponentsBuilder uriBuilder = UriComponentsBuilder
-                .fromUriString(properties.getServiceURL())
-                .path(url);
-        URI uri = uriBuilder.buildAndExpand(requestParams).toUri();
+        return postForObject(url, uri(url, requestParams), request, clazz);
+    }
 
+    private <T> T postForObject(String url, URI uri, Object request, Class<T> clazz)
+    {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Post object to benchmark service on URL: {}, with request: {}", uri, request);
         }
 
-        return restTemplate.postForObject(uri, request, clazz);
+        return httpRequestMetrics.time("benchmark-service " + url, () -> restTemplate.postForObject(uri, request, clazz));
+    }
+
+    private URI uri(String url, Map<String, String> requestParams)
+    {
+        return UriComponentsBuilder
+                .fromUriString(properties.getServiceURL())
+                .path(url)
+                .buildAndExpand(requestParams)
+                .toUri();
     }
 
     public static class GenerateUniqueNamesRequestItem
@@ -181,6 +297,11 @@ public class BenchmarkServiceClient
     {
         protected Map<String, String> attributes = newHashMap();
 
+        public Map<String, String> getAttributes()
+        {
+            return attributes;
+        }
+
         public abstract static class AttributeRequestBuilder<T extends AttributeRequest>
         {
             protected final T request;
@@ -196,6 +317,12 @@ public class BenchmarkServiceClient
                 return this;
             }
 
+            public AttributeRequestBuilder<T> addAttributes(Map<String, String> attributes)
+            {
+                request.attributes.putAll(attributes);
+                return this;
+            }
+
             public T build()
             {
                 return request;
@@ -209,12 +336,33 @@ public class BenchmarkServiceClient
     {
         private String name;
         private String environmentName;
+        private Instant startTime;
         private final Map<String, String> variables = newHashMap();
 
         private BenchmarkStartRequest()
         {
         }
 
+        public String getName()
+        {
+            return name;
+        }
+
+        public String getEnvironmentName()
+        {
+            return environmentName;
+        }
+
+        public Optional<Instant> getStartTime()
+        {
+            return Optional.ofNullable(startTime);
+        }
+
+        public Map<String, String> getVariables()
+        {
+            return variables;
+        }
+
         public static class BenchmarkStartRequestBuilder
                 extends AttributeRequestBuilder<BenchmarkStartRequest>
         {
@@ -230,6 +378,12 @@ public class BenchmarkServiceClient
                 return this;
             }
 
+            public BenchmarkStartRequestBuilder withStartTime(Instant startTime)
+            {
+                request.startTime = startTime;
+                return this;
+            }
+
             public BenchmarkStartRequestBuilder addVariable(String name, String value)
             {
                 request.variables.put(name, value);
@@ -243,19 +397,105 @@ public class BenchmarkServiceClient
             return toStringHelper(this)
                     .add("name", name)
                     .add("environmentName", environmentName)
+                    .add("startTime", startTime)
                     .add("variables", variables)
                     .add("attributes", attributes)
                     .toString();
         }
     }
 
+    @SuppressWarnings("unused")
+    @JsonAutoDetect(fieldVisibility = ANY)
+    public static class DriverJoinRequest
+    {
+        private final int expectedDrivers;
+        private final String duration;
+
+        public DriverJoinRequest(int expectedDrivers, Optional<Duration> duration)
+        {
+            this.expectedDrivers = expectedDrivers;
+            this.duration = duration.map(Duration::toString).orElse(null);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("expectedDrivers", expectedDrivers)
+                    .add("duration", duration)
+                    .toString();
+        }
+    }
+
+    public static class DriverBarrier
+    {
+        private final int joinedDrivers;
+        private final int expectedDrivers;
+        private final Optional<Instant> startTime;
+        private final Optional<Instant> deadline;
+
+        @JsonCreator
+        public DriverBarrier(
+                @JsonProperty("joinedDrivers") int joinedDrivers,
+                @JsonProperty("expectedDrivers") int expectedDrivers,
+                @JsonProperty("startTimeMillis") Long startTimeMillis,
+                @JsonProperty("deadlineMillis") Long deadlineMillis)
+        {
+            this.joinedDrivers = joinedDrivers;
+            this.expectedDrivers = expectedDrivers;
+            this.startTime = Optional.ofNullable(startTimeMillis).map(Instant::ofEpochMilli);
+            this.deadline = Optional.ofNullable(deadlineMillis).map(Instant::ofEpochMilli);
+        }
+
+        public int getJoinedDrivers()
+        {
+            return joinedDrivers;
+        }
+
+        public int getExpectedDrivers()
+        {
+            return expectedDrivers;
+        }
+
+        /**
+         * Common start time of all drivers, empty until all of them joined.
+         */
+        public Optional<Instant> getStartTime()
+        {
+            return startTime;
+        }
+
+        public Optional<Instant> getDeadline()
+        {
+            return deadline;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("joinedDrivers", joinedDrivers)
+                    .add("expectedDrivers", expectedDrivers)
+                    .add("startTime", startTime)
+                    .add("deadline", deadline)
+                    .toString();
+        }
+    }
+
     public static class ExecutionStartRequest
             extends AttributeRequest
     {
+        private Instant startTime;
+
         private ExecutionStartRequest()
         {
         }
 
+        public Optional<Instant> getStartTime()
+        {
+            return Optional.ofNullable(startTime);
+        }
+
         public static class ExecutionStartRequestBuilder
                 extends AttributeRequestBuilder<ExecutionStartRequest>
         {
@@ -263,12 +503,19 @@ public class BenchmarkServiceClient
             {
                 super(new ExecutionStartRequest());
             }
+
+            public ExecutionStartRequestBuilder withStartTime(Instant startTime)
+            {
+                request.startTime = startTime;
+                return this;
+            }
         }
 
         @Override
         public String toString()
         {
             return toStringHelper(this)
+                    .add("startTime", startTime)
                     .add("attributes", attributes)
                     .toString();
         }
@@ -291,6 +538,26 @@ public class BenchmarkServiceClient
         {
         }
 
+        public Status getStatus()
+        {
+            return status;
+        }
+
+        public Optional<Instant> getEndTime()
+        {
+            return Optional.ofNullable(endTime);
+        }
+
+        public List<Measurement> getMeasurements()
+        {
+            return measurements;
+        }
+
+        public Optional<String> getQueryInfo()
+        {
+            return Optional.ofNullable(queryInfo);
+        }
+
         public static class FinishRequestBuilder
                 extends AttributeRequestBuilder<FinishRequest>
         {
@@ -341,4 +608,70 @@ public class BenchmarkServiceClient
                     .toString();
         }
     }
+
+    @SuppressWarnings("unused")
+    @JsonAutoDetect(fieldVisibility = ANY)
+    public static class FinishedExecution
+    {
+        private final String sequenceId;
+        private final Instant startTime;
+        private final FinishRequest finish;
+
+        public FinishedExecution(String sequenceId, Optional<Instant> startTime, FinishRequest finish)
+        {
+            this.sequenceId = requireNonNull(sequenceId, "sequenceId is null");
+            this.startTime = startTime.orElse(null);
+            this.finish = requireNonNull(finish, "finish is null");
+        }
+
+        public String getSequenceId()
+        {
+            return sequenceId;
+        }
+
+        public Optional<Instant> getStartTime()
+        {
+            return Optional.ofNullable(startTime);
+        }
+
+        public FinishRequest getFinish()
+        {
+            return finish;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("sequenceId", sequenceId)
+                    .add("startTime", startTime)
+                    .add("finish", finish)
+                    .toString();
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @JsonAutoDetect(fieldVisibility = ANY)
+    public static class ExecutionsBatchRequest
+    {
+        private final List<FinishedExecution> executions;
+
+        public ExecutionsBatchRequest(List<FinishedExecution> executions)
+        {
+            this.executions = ImmutableList.copyOf(executions);
+        }
+
+        public List<FinishedExecution> getExecutions()
+        {
+            return executions;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("executions", executions)
+                    .toString();
+        }
+    }
 }
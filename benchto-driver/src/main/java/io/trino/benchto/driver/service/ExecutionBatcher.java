@@ -0,0 +1,217 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.ExecutionsBatchRequest;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishedExecution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Collects finished executions and stores them in the benchmark service in batches of {@code executionBatchSize}
+ * executions of the same benchmark run. Executions waiting longer than {@code executionBatchFlushInterval} are stored
+ * in the background, so results show up in the service while long benchmarks are still running. Executions which failed
+ * to be stored in the background are stored again with the next batch, at most {@code executionBatchRetries} times.
+ * Callbacks of executions are run once their batch was stored. Executions which were dropped are counted, so their
+ * benchmark can be failed when it finishes.
+ */
+@Component
+public class ExecutionBatcher
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ExecutionBatcher.class);
+
+    @Autowired
+    private BenchmarkServiceClient benchmarkServiceClient;
+
+    @Value("${executionBatchSize:1}")
+    private int batchSize = 1;
+
+    @Value("${executionBatchFlushInterval:PT5S}")
+    private Duration flushInterval = Duration.ofSeconds(5);
+
+    @Value("${executionBatchRetries:3}")
+    private int retries = 3;
+
+    // guarded by this
+    private final Map<BenchmarkRun, List<PendingExecution>> batches = new HashMap<>();
+    // guarded by this
+    private final Map<BenchmarkRun, Integer> droppedExecutions = new HashMap<>();
+
+    private final ScheduledExecutorService scheduler = newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("execution-batch-flush")
+            .setDaemon(true)
+            .build());
+
+    /**
+     * Executions are stored in batches only if more than one execution can be stored at once.
+     */
+    public boolean isEnabled()
+    {
+        return batchSize > 1;
+    }
+
+    /**
+     * @param onStored run after the execution was stored in the service, it is not run if storing the execution failed
+     */
+    public void add(String uniqueBenchmarkName, String benchmarkSequenceId, FinishedExecution execution, Runnable onStored)
+    {
+        add(new BenchmarkRun(uniqueBenchmarkName, benchmarkSequenceId), new PendingExecution(execution, onStored, 0));
+    }
+
+    private void add(BenchmarkRun benchmarkRun, PendingExecution execution)
+    {
+        List<PendingExecution> fullBatch;
+        synchronized (this) {
+            List<PendingExecution> batch = batches.computeIfAbsent(benchmarkRun, ignored -> new ArrayList<>());
+            batch.add(execution);
+            if (batch.size() == 1) {
+                scheduler.schedule(() -> flushExpired(benchmarkRun, batch), flushInterval.toNanos(), NANOSECONDS);
+            }
+            if (batch.size() < batchSize) {
+                return;
+            }
+            fullBatch = batches.remove(benchmarkRun);
+        }
+        store(benchmarkRun, fullBatch);
+    }
+
+    /**
+     * Stores all waiting executions of the benchmark run.
+     *
+     * @return number of executions of the benchmark run which were dropped since the last flush, because storing them failed
+     */
+    public int flush(String uniqueBenchmarkName, String benchmarkSequenceId)
+    {
+        // a batch which is being stored in the background is either stored, waiting to be retried or dropped afterwards
+        try {
+            scheduler.submit(() -> {}).get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted when waiting for executions stored in the background", e);
+        }
+        catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+        BenchmarkRun benchmarkRun = new BenchmarkRun(uniqueBenchmarkName, benchmarkSequenceId);
+        List<PendingExecution> batch;
+        Integer dropped;
+        synchronized (this) {
+            batch = batches.remove(benchmarkRun);
+            dropped = droppedExecutions.remove(benchmarkRun);
+        }
+        if (batch != null) {
+            store(benchmarkRun, batch);
+        }
+        return dropped == null ? 0 : dropped;
+    }
+
+    private void flushExpired(BenchmarkRun benchmarkRun, List<PendingExecution> batch)
+    {
+        synchronized (this) {
+            // the batch could already be stored because it was full or explicitly flushed
+            if (!batches.remove(benchmarkRun, batch)) {
+                return;
+            }
+        }
+        try {
+            store(benchmarkRun, batch);
+        }
+        catch (RuntimeException e) {
+            List<PendingExecution> retried = batch.stream()
+                    .filter(execution -> execution.failedAttempts() < retries)
+                    .collect(toImmutableList());
+            if (retried.size() < batch.size()) {
+                synchronized (this) {
+                    droppedExecutions.merge(benchmarkRun, batch.size() - retried.size(), Integer::sum);
+                }
+                LOG.error("Failed to store {} executions of benchmark {}, dropping executions which were retried {} times: {}", batch.size(), benchmarkRun, retries, batch.stream()
+                        .filter(execution -> !retried.contains(execution))
+                        .map(execution -> execution.execution().getSequenceId())
+                        .collect(toImmutableList()), e);
+            }
+            else {
+                LOG.warn("Failed to store {} executions of benchmark {}, will retry: {}", batch.size(), benchmarkRun, e.getMessage());
+            }
+            retried.forEach(execution -> add(benchmarkRun, new PendingExecution(execution.execution(), execution.onStored(), execution.failedAttempts() + 1)));
+        }
+    }
+
+    private void store(BenchmarkRun benchmarkRun, List<PendingExecution> batch)
+    {
+        LOG.debug("Storing {} executions of benchmark {}", batch.size(), benchmarkRun);
+        benchmarkServiceClient.finishExecutions(benchmarkRun.uniqueName, benchmarkRun.sequenceId, new ExecutionsBatchRequest(batch.stream()
+                .map(PendingExecution::execution)
+                .collect(toImmutableList())));
+        batch.forEach(execution -> execution.onStored().run());
+    }
+
+    private record PendingExecution(FinishedExecution execution, Runnable onStored, int failedAttempts)
+    {
+    }
+
+    private static class BenchmarkRun
+    {
+        private final String uniqueName;
+        private final String sequenceId;
+
+        private BenchmarkRun(String uniqueName, String sequenceId)
+        {
+            this.uniqueName = uniqueName;
+            this.sequenceId = sequenceId;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BenchmarkRun that = (BenchmarkRun) o;
+            return uniqueName.equals(that.uniqueName) && sequenceId.equals(that.sequenceId);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(uniqueName, sequenceId);
+        }
+
+        @Override
+        public String toString()
+        {
+            return uniqueName + "/" + sequenceId;
+        }
+    }
+}
@@ -25,6 +25,7 @@ public class Measurement
     private String name;
     private String unit;
     private double value;
+    private boolean additive;
 
     public static Measurement measurement(String name, String unit, double value)
     {
@@ -35,6 +36,37 @@ public class Measurement
         return measurement;
     }
 
+    /**
+     * Measurement which is added up, instead of taking the maximum, when results of several drivers executing the same
+     * benchmark run are merged, e.g. a throughput or a count of queries.
+     */
+    public static Measurement additiveMeasurement(String name, String unit, double value)
+    {
+        Measurement measurement = measurement(name, unit, value);
+        measurement.additive = true;
+        return measurement;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getUnit()
+    {
+        return unit;
+    }
+
+    public double getValue()
+    {
+        return value;
+    }
+
+    public boolean isAdditive()
+    {
+        return additive;
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -47,7 +79,7 @@ public class Measurement
 
         Measurement that = (Measurement) o;
 
-        return Double.compare(that.value, value) == 0 && name.equals(that.name) && unit.equals(that.unit);
+        return Double.compare(that.value, value) == 0 && additive == that.additive && name.equals(that.name) && unit.equals(that.unit);
     }
 
     @Override
@@ -59,6 +91,7 @@ public class Measurement
         result = 31 * result + unit.hashCode();
         temp = Double.doubleToLongBits(value);
         result = 31 * result + (int) (temp ^ (temp >>> 32));
+        result = 31 * result + (additive ? 1 : 0);
         return result;
     }
 
@@ -69,6 +102,7 @@ public class Measurement
                 .add("name", name)
                 .add("unit", unit)
                 .add("value", value)
+                .add("additive", additive)
                 .toString();
     }
 }
@@ -0,0 +1,207 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.service;
+
+import io.trino.benchto.driver.service.BenchmarkServiceClient.BenchmarkStartRequest;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.ExecutionStartRequest;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.ExecutionsBatchRequest;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishRequest;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishedExecution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+
+/**
+ * Loads results stored offline by {@link OfflineResultsStore} into the benchmark service. Executions are stored
+ * in batches, which the service inserts together. Benchmark runs which were imported are recorded in a progress file
+ * next to the results, and skipped when the results are imported again, e.g. after an import which failed midway.
+ * Runs interrupted during a failed import are sent again, the service ignores their repeated starts and executions.
+ */
+@Component
+public class OfflineResultsImporter
+{
+    private static final Logger LOG = LoggerFactory.getLogger(OfflineResultsImporter.class);
+    private static final String PROGRESS_FILE_SUFFIX = ".imported";
+
+    @Autowired
+    private BenchmarkServiceClient benchmarkServiceClient;
+
+    @Autowired
+    private OfflineResultsStore offlineResultsStore;
+
+    @Value("${importBatchSize:1000}")
+    private int batchSize = 1000;
+
+    public void importResults(Path file)
+            throws IOException
+    {
+        checkState(!offlineResultsStore.isEnabled(), "Offline results cannot be imported by a driver storing results offline");
+        LOG.info("Importing offline results from {}", file);
+        Path progressFile = file.resolveSibling(file.getFileName() + PROGRESS_FILE_SUFFIX);
+        Importer importer = new Importer(progressFile, readImportedRuns(progressFile));
+        OfflineResultsStore.read(file, importer);
+        importer.finish();
+        LOG.info("Imported {} benchmark runs with {} executions from {}, skipped {} benchmark runs imported before",
+                importer.benchmarks, importer.executions, file, importer.skippedBenchmarks.size());
+    }
+
+    private static Set<List<String>> readImportedRuns(Path progressFile)
+            throws IOException
+    {
+        Set<List<String>> importedRuns = new HashSet<>();
+        if (Files.exists(progressFile)) {
+            for (String line : Files.readAllLines(progressFile, UTF_8)) {
+                String[] fields = line.split("\t");
+                // a line interrupted by a failure of the import is ignored, its run is imported again
+                if (fields.length == 2) {
+                    importedRuns.add(List.of(fields[0], fields[1]));
+                }
+            }
+        }
+        return importedRuns;
+    }
+
+    private class Importer
+            implements OfflineResultsStore.RecordHandler
+    {
+        private final Map<List<String>, Instant> executionStartTimes = new HashMap<>();
+        private final Map<List<String>, List<FinishedExecution>> batches = new LinkedHashMap<>();
+        private final Set<List<String>> unfinishedBenchmarks = new LinkedHashSet<>();
+        private final Set<List<String>> skippedBenchmarks = new HashSet<>();
+        private final Path progressFile;
+        private final Set<List<String>> importedRuns;
+        private int benchmarks;
+        private int executions;
+
+        private Importer(Path progressFile, Set<List<String>> importedRuns)
+        {
+            this.progressFile = progressFile;
+            this.importedRuns = importedRuns;
+        }
+
+        @Override
+        public void benchmarkStarted(String uniqueName, String sequenceId, BenchmarkStartRequest request)
+        {
+            if (isImported(uniqueName, sequenceId)) {
+                return;
+            }
+            benchmarkServiceClient.startBenchmark(uniqueName, sequenceId, request);
+            unfinishedBenchmarks.add(List.of(uniqueName, sequenceId));
+            benchmarks++;
+        }
+
+        @Override
+        public void executionStarted(String uniqueName, String sequenceId, String executionSequenceId, ExecutionStartRequest request)
+        {
+            if (isImported(uniqueName, sequenceId)) {
+                return;
+            }
+            // executions are created in the service together with their results
+            request.getStartTime().ifPresent(startTime -> executionStartTimes.put(List.of(uniqueName, sequenceId, executionSequenceId), startTime));
+        }
+
+        @Override
+        public void executionFinished(String uniqueName, String sequenceId, FinishedExecution execution)
+        {
+            if (isImported(uniqueName, sequenceId)) {
+                return;
+            }
+            FinishedExecution executionWithStartTime = new FinishedExecution(
+                    execution.getSequenceId(),
+                    execution.getStartTime().or(() -> Optional.ofNullable(executionStartTimes.remove(List.of(uniqueName, sequenceId, execution.getSequenceId())))),
+                    execution.getFinish());
+            List<FinishedExecution> batch = batches.computeIfAbsent(List.of(uniqueName, sequenceId), ignored -> new ArrayList<>());
+            batch.add(executionWithStartTime);
+            executions++;
+            if (batch.size() >= batchSize) {
+                storeExecutions(uniqueName, sequenceId);
+            }
+        }
+
+        @Override
+        public void benchmarkFinished(String uniqueName, String sequenceId, FinishRequest request)
+        {
+            if (isImported(uniqueName, sequenceId)) {
+                return;
+            }
+            // executions have to be stored before the benchmark is finished, for them to be included in its aggregates
+            storeExecutions(uniqueName, sequenceId);
+            benchmarkServiceClient.finishBenchmark(uniqueName, sequenceId, request);
+            unfinishedBenchmarks.remove(List.of(uniqueName, sequenceId));
+            markImported(List.of(uniqueName, sequenceId));
+        }
+
+        /**
+         * Stores executions of benchmarks which were interrupted before they finished.
+         */
+        private void finish()
+        {
+            unfinishedBenchmarks.addAll(batches.keySet());
+            for (List<String> benchmarkRun : unfinishedBenchmarks) {
+                storeExecutions(benchmarkRun.get(0), benchmarkRun.get(1));
+                markImported(benchmarkRun);
+            }
+        }
+
+        private boolean isImported(String uniqueName, String sequenceId)
+        {
+            List<String> benchmarkRun = List.of(uniqueName, sequenceId);
+            if (importedRuns.contains(benchmarkRun)) {
+                skippedBenchmarks.add(benchmarkRun);
+                return true;
+            }
+            return false;
+        }
+
+        private void markImported(List<String> benchmarkRun)
+        {
+            try {
+                Files.writeString(progressFile, String.join("\t", benchmarkRun) + "\n", UTF_8, CREATE, APPEND);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void storeExecutions(String uniqueName, String sequenceId)
+        {
+            List<FinishedExecution> batch = batches.remove(List.of(uniqueName, sequenceId));
+            if (batch != null) {
+                benchmarkServiceClient.finishExecutions(uniqueName, sequenceId, new ExecutionsBatchRequest(batch));
+            }
+        }
+    }
+}
@@ -0,0 +1,538 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.service;
+
+import io.trino.benchto.driver.BenchmarkProperties;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.BenchmarkStartRequest;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.BenchmarkStartRequest.BenchmarkStartRequestBuilder;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.ExecutionStartRequest;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.ExecutionStartRequest.ExecutionStartRequestBuilder;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishRequest;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishRequest.FinishRequestBuilder;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishRequest.Status;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishedExecution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.trino.benchto.driver.service.Measurement.additiveMeasurement;
+import static io.trino.benchto.driver.service.Measurement.measurement;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Local file with benchmark results, used instead of the benchmark service when it cannot be reached. Results are
+ * stored as binary records, in which repeated strings, like benchmark and measurement names, are replaced with references
+ * to their first occurrence. Records are appended in frames, each compressed with gzip and prefixed with its length
+ * and checksum, so that a frame torn by a failure of the driver is detected. Every run starts with a file header and
+ * discards a torn frame left at the end of the file by the previous run, before appending its own frames.
+ */
+@Component
+public class OfflineResultsStore
+{
+    private static final Logger LOG = LoggerFactory.getLogger(OfflineResultsStore.class);
+
+    private static final int MAGIC = 0x42544f52;
+    private static final int VERSION = 2;
+    private static final int FILE_HEADER = 0;
+    private static final int BENCHMARK_STARTED = 1;
+    private static final int EXECUTION_STARTED = 2;
+    private static final int EXECUTION_FINISHED = 3;
+    private static final int BENCHMARK_FINISHED = 4;
+    private static final Duration FLUSH_INTERVAL = Duration.ofSeconds(1);
+    private static final int FRAME_HEADER_SIZE = 2 * Integer.BYTES;
+
+    @Autowired
+    private BenchmarkProperties properties;
+
+    // guarded by this
+    private OutputStream file;
+    private final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+    private DataOutputStream output;
+    private final Map<String, Integer> symbols = new HashMap<>();
+    private long lastFlushNanos;
+
+    public boolean isEnabled()
+    {
+        return properties.getOfflineResults().isPresent();
+    }
+
+    @PostConstruct
+    public synchronized void open()
+            throws IOException
+    {
+        if (!isEnabled()) {
+            return;
+        }
+        checkArgument(properties.getSpoolDir().isEmpty(), "Offline results cannot be stored together with spooling reports for the benchmark service");
+        Path file = properties.getOfflineResults().get();
+        LOG.info("Benchmark service is not used, results are stored in {}", file);
+        if (Files.exists(file)) {
+            long validSize = readFrames(file, ignored -> {});
+            if (validSize < Files.size(file)) {
+                LOG.warn("Offline results {} end with an incomplete frame, it is discarded", file);
+                try (FileChannel channel = FileChannel.open(file, WRITE)) {
+                    channel.truncate(validSize);
+                }
+            }
+        }
+        this.file = Files.newOutputStream(file, CREATE, APPEND);
+        output = new DataOutputStream(frame);
+        output.writeByte(FILE_HEADER);
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        flush();
+    }
+
+    @PreDestroy
+    public synchronized void close()
+            throws IOException
+    {
+        if (output != null) {
+            flush();
+            file.close();
+            file = null;
+            output = null;
+        }
+    }
+
+    public synchronized void benchmarkStarted(String uniqueName, String sequenceId, BenchmarkStartRequest request)
+    {
+        write(() -> {
+            writeRecordHeader(BENCHMARK_STARTED, uniqueName, sequenceId);
+            writeSymbol(request.getName());
+            writeSymbol(request.getEnvironmentName());
+            writeInstant(request.getStartTime());
+            writeMap(request.getVariables());
+            writeMap(request.getAttributes());
+        });
+    }
+
+    public synchronized void executionStarted(String uniqueName, String sequenceId, String executionSequenceId, ExecutionStartRequest request)
+    {
+        write(() -> {
+            writeRecordHeader(EXECUTION_STARTED, uniqueName, sequenceId);
+            writeSymbol(executionSequenceId);
+            writeInstant(request.getStartTime());
+            writeMap(request.getAttributes());
+        });
+    }
+
+    public synchronized void executionFinished(String uniqueName, String sequenceId, FinishedExecution execution)
+    {
+        write(() -> {
+            writeRecordHeader(EXECUTION_FINISHED, uniqueName, sequenceId);
+            writeSymbol(execution.getSequenceId());
+            writeInstant(execution.getStartTime());
+            writeFinishRequest(execution.getFinish());
+        });
+    }
+
+    public synchronized void benchmarkFinished(String uniqueName, String sequenceId, FinishRequest request)
+    {
+        write(() -> {
+            writeRecordHeader(BENCHMARK_FINISHED, uniqueName, sequenceId);
+            writeFinishRequest(request);
+        });
+        // results of finished benchmarks are never lost
+        try {
+            flush();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(RecordWriter writer)
+    {
+        checkState(output != null, "Offline results store is not open");
+        try {
+            writer.write();
+            if (System.nanoTime() - lastFlushNanos > FLUSH_INTERVAL.toNanos()) {
+                flush();
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends records written since the last flush as a single frame, with one write to the file.
+     */
+    private void flush()
+            throws IOException
+    {
+        output.flush();
+        if (frame.size() > 0) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                frame.writeTo(gzip);
+            }
+            byte[] data = compressed.toByteArray();
+            CRC32 checksum = new CRC32();
+            checksum.update(data);
+            file.write(ByteBuffer.allocate(FRAME_HEADER_SIZE + data.length)
+                    .putInt(data.length)
+                    .putInt((int) checksum.getValue())
+                    .put(data)
+                    .array());
+            frame.reset();
+        }
+        lastFlushNanos = System.nanoTime();
+    }
+
+    private void writeRecordHeader(int type, String uniqueName, String sequenceId)
+            throws IOException
+    {
+        output.writeByte(type);
+        writeSymbol(uniqueName);
+        writeSymbol(sequenceId);
+    }
+
+    private void writeFinishRequest(FinishRequest request)
+            throws IOException
+    {
+        writeSymbol(request.getStatus().name());
+        writeInstant(request.getEndTime());
+        writeVarInt(request.getMeasurements().size());
+        for (Measurement measurement : request.getMeasurements()) {
+            writeSymbol(measurement.getName());
+            writeSymbol(measurement.getUnit());
+            output.writeDouble(measurement.getValue());
+            output.writeBoolean(measurement.isAdditive());
+        }
+        writeMap(request.getAttributes());
+        writeText(request.getQueryInfo().orElse(null));
+    }
+
+    private void writeMap(Map<String, String> map)
+            throws IOException
+    {
+        writeVarInt(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            writeSymbol(entry.getKey());
+            writeText(entry.getValue());
+        }
+    }
+
+    private void writeInstant(Optional<Instant> instant)
+            throws IOException
+    {
+        output.writeBoolean(instant.isPresent());
+        if (instant.isPresent()) {
+            output.writeLong(instant.get().getEpochSecond());
+            writeVarInt(instant.get().getNano());
+        }
+    }
+
+    /**
+     * Writes a reference to the earlier occurrence of the string, or the string itself, if it occurs for the first time.
+     */
+    private void writeSymbol(String value)
+            throws IOException
+    {
+        Integer symbol = symbols.get(value);
+        if (symbol != null) {
+            writeVarInt(symbol + 1);
+            return;
+        }
+        symbols.put(value, symbols.size());
+        writeVarInt(0);
+        writeText(value);
+    }
+
+    private void writeText(String value)
+            throws IOException
+    {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarInt(bytes.length + 1);
+        output.write(bytes);
+    }
+
+    private void writeVarInt(int value)
+            throws IOException
+    {
+        checkArgument(value >= 0, "negative value: %s", value);
+        while ((value & ~0x7f) != 0) {
+            output.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    /**
+     * Reads all results stored in the file. Reading stops at a frame which is incomplete or corrupted, e.g. interrupted
+     * by a failure of the driver, and the remaining content is skipped.
+     */
+    public static void read(Path file, RecordHandler handler)
+            throws IOException
+    {
+        RecordReader reader = new RecordReader(handler);
+        long validSize = readFrames(file, data -> {
+            try (DataInputStream input = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(data)))) {
+                reader.read(input);
+            }
+        });
+        if (validSize < Files.size(file)) {
+            LOG.warn("Offline results {} end with an incomplete or corrupted frame, it is skipped", file);
+        }
+    }
+
+    /**
+     * Passes content of consecutive frames to the handler, until the end of the file or a frame which is incomplete
+     * or does not match its checksum. Returns the size of the valid frames.
+     */
+    private static long readFrames(Path file, FrameHandler handler)
+            throws IOException
+    {
+        long fileSize = Files.size(file);
+        long validSize = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (fileSize - validSize >= FRAME_HEADER_SIZE) {
+                int length = input.readInt();
+                int checksum = input.readInt();
+                if (length < 0 || length > fileSize - validSize - FRAME_HEADER_SIZE) {
+                    break;
+                }
+                byte[] data = new byte[length];
+                input.readFully(data);
+                CRC32 crc = new CRC32();
+                crc.update(data);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                handler.frame(data);
+                validSize += FRAME_HEADER_SIZE + length;
+            }
+        }
+        return validSize;
+    }
+
+    public interface RecordHandler
+    {
+        void benchmarkStarted(String uniqueName, String sequenceId, BenchmarkStartRequest request);
+
+        void executionStarted(String uniqueName, String sequenceId, String executionSequenceId, ExecutionStartRequest request);
+
+        void executionFinished(String uniqueName, String sequenceId, FinishedExecution execution);
+
+        void benchmarkFinished(String uniqueName, String sequenceId, FinishRequest request);
+    }
+
+    private interface RecordWriter
+    {
+        void write()
+                throws IOException;
+    }
+
+    private interface FrameHandler
+    {
+        void frame(byte[] data)
+                throws IOException;
+    }
+
+    private static class RecordReader
+    {
+        private final RecordHandler handler;
+        private final List<String> symbols = new ArrayList<>();
+        // frame which is read, symbols are shared by frames of the same run
+        private DataInputStream input;
+
+        private RecordReader(RecordHandler handler)
+        {
+            this.handler = handler;
+        }
+
+        private void read(DataInputStream input)
+                throws IOException
+        {
+            this.input = input;
+            int type;
+            while ((type = input.read()) != -1) {
+                switch (type) {
+                    case FILE_HEADER:
+                        checkState(input.readInt() == MAGIC, "Not a file with offline results");
+                        int version = input.readInt();
+                        checkState(version == VERSION, "Unsupported version of offline results: %s", version);
+                        // every run writes its own symbols
+                        symbols.clear();
+                        break;
+                    case BENCHMARK_STARTED:
+                        readBenchmarkStarted();
+                        break;
+                    case EXECUTION_STARTED:
+                        readExecutionStarted();
+                        break;
+                    case EXECUTION_FINISHED:
+                        readExecutionFinished();
+                        break;
+                    case BENCHMARK_FINISHED:
+                        handler.benchmarkFinished(readSymbol(), readSymbol(), readFinishRequest());
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown type of offline results record: " + type);
+                }
+            }
+        }
+
+        private void readBenchmarkStarted()
+                throws IOException
+        {
+            String uniqueName = readSymbol();
+            String sequenceId = readSymbol();
+            BenchmarkStartRequestBuilder builder = new BenchmarkStartRequestBuilder(readSymbol())
+                    .environmentName(readSymbol());
+            readInstant().ifPresent(builder::withStartTime);
+            readMap().forEach(builder::addVariable);
+            builder.addAttributes(readMap());
+            handler.benchmarkStarted(uniqueName, sequenceId, builder.build());
+        }
+
+        private void readExecutionStarted()
+                throws IOException
+        {
+            String uniqueName = readSymbol();
+            String sequenceId = readSymbol();
+            String executionSequenceId = readSymbol();
+            ExecutionStartRequestBuilder builder = new ExecutionStartRequestBuilder();
+            readInstant().ifPresent(builder::withStartTime);
+            builder.addAttributes(readMap());
+            handler.executionStarted(uniqueName, sequenceId, executionSequenceId, builder.build());
+        }
+
+        private void readExecutionFinished()
+                throws IOException
+        {
+            String uniqueName = readSymbol();
+            String sequenceId = readSymbol();
+            String executionSequenceId = readSymbol();
+            Optional<Instant> startTime = readInstant();
+            handler.executionFinished(uniqueName, sequenceId, new FinishedExecution(executionSequenceId, startTime, readFinishRequest()));
+        }
+
+        private FinishRequest readFinishRequest()
+                throws IOException
+        {
+            FinishRequestBuilder builder = new FinishRequestBuilder()
+                    .withStatus(Status.valueOf(readSymbol()));
+            readInstant().ifPresent(builder::withEndTime);
+            int measurements = readVarInt();
+            for (int i = 0; i < measurements; i++) {
+                String name = readSymbol();
+                String unit = readSymbol();
+                double value = input.readDouble();
+                builder.addMeasurement(input.readBoolean() ? additiveMeasurement(name, unit, value) : measurement(name, unit, value));
+            }
+            builder.addAttributes(readMap());
+            String queryInfo = readText();
+            if (queryInfo != null) {
+                builder.addQueryInfo(queryInfo);
+            }
+            return builder.build();
+        }
+
+        private Map<String, String> readMap()
+                throws IOException
+        {
+            int size = readVarInt();
+            Map<String, String> map = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                map.put(readSymbol(), readText());
+            }
+            return map;
+        }
+
+        private Optional<Instant> readInstant()
+                throws IOException
+        {
+            if (!input.readBoolean()) {
+                return Optional.empty();
+            }
+            return Optional.of(Instant.ofEpochSecond(input.readLong(), readVarInt()));
+        }
+
+        private String readSymbol()
+                throws IOException
+        {
+            int symbol = readVarInt();
+            if (symbol > 0) {
+                return symbols.get(symbol - 1);
+            }
+            String value = readText();
+            symbols.add(value);
+            return value;
+        }
+
+        private String readText()
+                throws IOException
+        {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length - 1];
+            input.readFully(bytes);
+            return new String(bytes, UTF_8);
+        }
+
+        private int readVarInt()
+                throws IOException
+        {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = input.readUnsignedByte();
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.trino.benchto.driver.BenchmarkProperties;
+import io.trino.benchto.driver.http.HttpRequestMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.DSYNC;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.springframework.http.HttpStatus.BAD_GATEWAY;
+import static org.springframework.http.HttpStatus.GATEWAY_TIMEOUT;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * Local, append-only spool of reports for the benchmark service. Reports are numbered with consecutive sequence ids
+ * and delivered in order by a background thread, which retries until the service is available again, so benchmarks
+ * do not wait for the service. Reports and the sequence id of the last delivered report, stored next to the spool,
+ * are synced to disk, so reports left undelivered when the driver or its host stopped are delivered by the next run
+ * using the same spool directory. Delivery is at least once: the report being delivered when the driver stopped
+ * is delivered again, and the benchmark service ignores repeated finishes of benchmarks and executions.
+ */
+@Component
+public class ReportSpool
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ReportSpool.class);
+
+    private static final String SPOOL_FILE = "reports.spool";
+    private static final String OFFSET_FILE = "reports.offset";
+    private static final char FIELD_SEPARATOR = '\t';
+    private static final Duration MIN_RETRY_DELAY = Duration.ofSeconds(1);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(1);
+    private static final Set<HttpStatus> UNAVAILABLE_STATUSES = EnumSet.of(TOO_MANY_REQUESTS, BAD_GATEWAY, SERVICE_UNAVAILABLE, GATEWAY_TIMEOUT);
+
+    @Autowired
+    private BenchmarkProperties properties;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private HttpRequestMetrics httpRequestMetrics;
+
+    @Value("${spoolDrainTimeout:PT10M}")
+    private Duration drainTimeout = Duration.ofMinutes(10);
+
+    private ObjectMapper objectMapper;
+    private FileChannel spool;
+    private Thread replayer;
+
+    // guarded by this
+    private long appendedSequenceId;
+    private long deliveredSequenceId;
+    private int rejectedReports;
+    private Throwable failure;
+
+    // report which could have been delivered just before the driver stopped, but was not recorded as delivered
+    private long inDoubtSequenceId;
+
+    public boolean isEnabled()
+    {
+        return properties.getSpoolDir().isPresent();
+    }
+
+    @PostConstruct
+    public void open()
+            throws IOException
+    {
+        if (!isEnabled()) {
+            return;
+        }
+        objectMapper = restTemplate.getMessageConverters().stream()
+                .filter(MappingJackson2HttpMessageConverter.class::isInstance)
+                .map(converter -> ((MappingJackson2HttpMessageConverter) converter).getObjectMapper())
+                .findFirst()
+                .orElseGet(ObjectMapper::new);
+
+        Files.createDirectories(properties.getSpoolDir().get());
+        Path offsetFile = spoolPath(OFFSET_FILE);
+        long offset = Files.exists(offsetFile) ? Long.parseLong(Files.readString(offsetFile, UTF_8).trim()) : 0;
+        spool = FileChannel.open(spoolPath(SPOOL_FILE), CREATE, WRITE);
+        long lastSequenceId = recover();
+        synchronized (this) {
+            deliveredSequenceId = offset;
+            if (lastSequenceId > offset) {
+                LOG.info("Delivering {} reports left in spool {}", lastSequenceId - offset, spoolPath(SPOOL_FILE));
+                appendedSequenceId = lastSequenceId;
+                inDoubtSequenceId = offset + 1;
+            }
+            else {
+                // everything was delivered, start with an empty spool, keeping the sequence ids increasing
+                spool.truncate(0);
+                appendedSequenceId = offset;
+            }
+        }
+        spool.position(spool.size());
+
+        replayer = new ThreadFactoryBuilder()
+                .setNameFormat("report-spool-replayer")
+                .setDaemon(true)
+                .build()
+                .newThread(this::replay);
+        replayer.start();
+    }
+
+    /**
+     * Returns the sequence id of the last complete report, removing a report which was written only partially.
+     */
+    private long recover()
+            throws IOException
+    {
+        long lastSequenceId = 0;
+        long completeLength = 0;
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(spoolPath(SPOOL_FILE)))) {
+            StringBuilder sequenceId = new StringBuilder();
+            boolean inSequenceId = true;
+            long position = 0;
+            int value;
+            while ((value = input.read()) != -1) {
+                position++;
+                if (value == '\n') {
+                    lastSequenceId = Long.parseLong(sequenceId.toString());
+                    completeLength = position;
+                    sequenceId.setLength(0);
+                    inSequenceId = true;
+                }
+                else if (value == FIELD_SEPARATOR) {
+                    inSequenceId = false;
+                }
+                else if (inSequenceId) {
+                    sequenceId.append((char) value);
+                }
+            }
+        }
+        if (completeLength < spool.size()) {
+            LOG.warn("Discarding incomplete report at the end of spool {}", spoolPath(SPOOL_FILE));
+            spool.truncate(completeLength);
+        }
+        return lastSequenceId;
+    }
+
+    /**
+     * Stores the report in the spool, it is posted to the given URI of the benchmark service in the background.
+     */
+    public void append(URI uri, Object request)
+    {
+        checkState(spool != null, "Spool is not open");
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(request);
+        }
+        catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (this) {
+            long sequenceId = appendedSequenceId + 1;
+            ByteBuffer record = UTF_8.encode(Joiner.on(FIELD_SEPARATOR).join(sequenceId, uri, json) + "\n");
+            try {
+                while (record.hasRemaining()) {
+                    spool.write(record);
+                }
+                spool.force(false);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            appendedSequenceId = sequenceId;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Waits until all reports appended so far are delivered, at most for {@code spoolDrainTimeout}. Reports which are not
+     * delivered in time are kept in the spool for the next run.
+     */
+    public void awaitDelivered()
+    {
+        if (!isEnabled()) {
+            return;
+        }
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        synchronized (this) {
+            long sequenceId = appendedSequenceId;
+            while (deliveredSequenceId < sequenceId && failure == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    LOG.warn("{} reports were not delivered to the benchmark service within {}, they are kept in spool {} until the next run",
+                            sequenceId - deliveredSequenceId, drainTimeout, spoolPath(SPOOL_FILE));
+                    return;
+                }
+                try {
+                    NANOSECONDS.timedWait(this, remaining);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Delivering spooled reports failed", failure);
+            }
+            checkState(rejectedReports == 0, "%s spooled reports were rejected by the benchmark service", rejectedReports);
+        }
+    }
+
+    @PreDestroy
+    public void close()
+            throws IOException
+    {
+        if (replayer != null) {
+            replayer.interrupt();
+        }
+        if (spool != null) {
+            spool.force(false);
+            spool.close();
+        }
+    }
+
+    private void replay()
+    {
+        try (BufferedReader reader = Files.newBufferedReader(spoolPath(SPOOL_FILE), UTF_8)) {
+            while (true) {
+                synchronized (this) {
+                    while (deliveredSequenceId >= appendedSequenceId) {
+                        wait();
+                    }
+                }
+                // the record is complete, it is read only after it was appended
+                List<String> fields = Splitter.on(FIELD_SEPARATOR).limit(3).splitToList(reader.readLine());
+                long sequenceId = Long.parseLong(fields.get(0));
+                if (sequenceId <= deliveredSequenceId) {
+                    continue;
+                }
+                boolean rejected = !deliver(sequenceId, URI.create(fields.get(1)), fields.get(2));
+                Path offsetFile = spoolPath(OFFSET_FILE);
+                Path temporaryOffsetFile = spoolPath(OFFSET_FILE + ".tmp");
+                Files.writeString(temporaryOffsetFile, Long.toString(sequenceId), UTF_8, CREATE, TRUNCATE_EXISTING, WRITE, DSYNC);
+                Files.move(temporaryOffsetFile, offsetFile, REPLACE_EXISTING, ATOMIC_MOVE);
+                synchronized (this) {
+                    deliveredSequenceId = sequenceId;
+                    if (rejected) {
+                        rejectedReports++;
+                    }
+                    notifyAll();
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (IOException | RuntimeException e) {
+            LOG.error("Delivering spooled reports failed", e);
+            synchronized (this) {
+                failure = e;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Posts the report until the benchmark service accepts or rejects it, returns false if it was rejected.
+     */
+    private boolean deliver(long sequenceId, URI uri, String json)
+            throws InterruptedException
+    {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(APPLICATION_JSON);
+        Duration retryDelay = MIN_RETRY_DELAY;
+        while (true) {
+            try {
+                httpRequestMetrics.time("benchmark-service spooled reports", () -> restTemplate.postForObject(uri, new HttpEntity<>(json, headers), String.class));
+                return true;
+            }
+            catch (HttpStatusCodeException e) {
+                if (!UNAVAILABLE_STATUSES.contains(e.getStatusCode())) {
+                    if (sequenceId == inDoubtSequenceId) {
+                        // older benchmark services reject repeated reports finishing benchmarks and executions
+                        LOG.warn("Report {} to {} was rejected, assuming it was delivered before the driver stopped: {}", sequenceId, uri, e.getMessage());
+                        return true;
+                    }
+                    LOG.error("Report {} to {} was rejected: {}", sequenceId, uri, e.getMessage());
+                    return false;
+                }
+                LOG.warn("Benchmark service is unavailable, retrying report {} in {}: {}", sequenceId, retryDelay, e.getMessage());
+            }
+            catch (RestClientException e) {
+                LOG.warn("Benchmark service is unavailable, retrying report {} in {}: {}", sequenceId, retryDelay, e.getMessage());
+            }
+            Thread.sleep(retryDelay.toMillis());
+            retryDelay = retryDelay.multipliedBy(2).compareTo(MAX_RETRY_DELAY) < 0 ? retryDelay.multipliedBy(2) : MAX_RETRY_DELAY;
+        }
+    }
+
+    private Path spoolPath(String fileName)
+    {
+        return properties.getSpoolDir().get().resolve(fileName);
+    }
+}
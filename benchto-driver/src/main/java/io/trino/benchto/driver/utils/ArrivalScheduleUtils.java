@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.utils;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.trino.benchto.driver.Benchmark.ArrivalDistribution;
+
+import java.util.Random;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public final class ArrivalScheduleUtils
+{
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    /**
+     * Returns the offsets, in nanoseconds from the beginning of the schedule, at which consecutive
+     * queries should be issued to sustain the given arrival rate.
+     */
+    public static long[] intendedStartOffsets(int arrivals, double arrivalRate, ArrivalDistribution distribution, long seed)
+    {
+        checkArgument(arrivals >= 0, "arrivals must be non-negative");
+        checkArgument(arrivalRate > 0, "arrivalRate must be positive");
+
+        long[] offsets = new long[arrivals];
+        double meanInterval = NANOS_PER_SECOND / arrivalRate;
+        Random random = new Random(seed * 7823L);
+        double offset = 0;
+        for (int i = 0; i < arrivals; i++) {
+            offsets[i] = (long) offset;
+            switch (distribution) {
+                case FIXED:
+                    offset += meanInterval;
+                    break;
+                case POISSON:
+                    // inverse transform sampling of the exponential distribution
+                    offset += -Math.log(1.0 - random.nextDouble()) * meanInterval;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported arrival distribution: " + distribution);
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Seed of the arrival schedule of a benchmark run executed by a driver. Benchmarks, runs and coordinated drivers
+     * get independent schedules, so drivers do not issue queries in lockstep, while the same run can be reproduced.
+     */
+    public static long arrivalSeed(String benchmarkUniqueName, String sequenceId, String driverId)
+    {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (String component : new String[] {benchmarkUniqueName, sequenceId, driverId}) {
+            hasher.putInt(component.length()).putString(component, UTF_8);
+        }
+        return hasher.hash().asLong();
+    }
+
+    /**
+     * Seed of one stream of a closed-loop throughput test, derived from the seed of the benchmark run,
+     * so streams of the same run, as well as of other runs and drivers, draw different sequences of queries.
+     */
+    public static long streamSeed(long runSeed, int stream)
+    {
+        return Hashing.murmur3_128().newHasher()
+                .putLong(runSeed)
+                .putInt(stream)
+                .hash()
+                .asLong();
+    }
+
+    private ArrivalScheduleUtils()
+    {
+    }
+}
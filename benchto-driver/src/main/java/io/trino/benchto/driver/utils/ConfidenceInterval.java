@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.utils;
+
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Two-sided confidence interval of the mean or the median of measured values.
+ */
+public class ConfidenceInterval
+{
+    public static final double DEFAULT_CONFIDENCE = 0.95;
+
+    private final double estimate;
+    private final double lower;
+    private final double upper;
+
+    public ConfidenceInterval(double estimate, double lower, double upper)
+    {
+        checkArgument(lower <= estimate && estimate <= upper, "estimate %s is not within [%s, %s]", estimate, lower, upper);
+        this.estimate = estimate;
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    /**
+     * Confidence interval of the mean based on Student's t-distribution, empty for less than two values.
+     */
+    public static Optional<ConfidenceInterval> ofMean(Collection<Double> values, double confidence)
+    {
+        if (values.size() < 2) {
+            return Optional.empty();
+        }
+        DescriptiveStatistics statistics = new DescriptiveStatistics(toArray(values));
+        double quantile = new TDistribution(values.size() - 1).inverseCumulativeProbability(1 - (1 - confidence) / 2);
+        double halfWidth = quantile * statistics.getStandardDeviation() / Math.sqrt(values.size());
+        double mean = statistics.getMean();
+        return Optional.of(new ConfidenceInterval(mean, mean - halfWidth, mean + halfWidth));
+    }
+
+    /**
+     * Distribution free confidence interval of the median given by order statistics, using the normal
+     * approximation of the binomial distribution. Empty when there are too few values for the confidence.
+     */
+    public static Optional<ConfidenceInterval> ofMedian(Collection<Double> values, double confidence)
+    {
+        int n = values.size();
+        if (n < 2) {
+            return Optional.empty();
+        }
+        double[] sorted = toArray(values);
+        Arrays.sort(sorted);
+        double quantile = new NormalDistribution().inverseCumulativeProbability(1 - (1 - confidence) / 2);
+        // 1-based ranks of the lower and upper bounds
+        int lowerRank = (int) Math.floor(n / 2.0 - quantile * Math.sqrt(n) / 2);
+        int upperRank = (int) Math.ceil(1 + n / 2.0 + quantile * Math.sqrt(n) / 2);
+        if (lowerRank < 1 || upperRank > n) {
+            return Optional.empty();
+        }
+        double median = new DescriptiveStatistics(sorted).getPercentile(50);
+        return Optional.of(new ConfidenceInterval(median, sorted[lowerRank - 1], sorted[upperRank - 1]));
+    }
+
+    private static double[] toArray(Collection<Double> values)
+    {
+        return values.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    public double getEstimate()
+    {
+        return estimate;
+    }
+
+    public double getLower()
+    {
+        return lower;
+    }
+
+    public double getUpper()
+    {
+        return upper;
+    }
+
+    /**
+     * Width of the interval relative to the estimate.
+     */
+    public double getRelativeWidth()
+    {
+        if (estimate == 0) {
+            return upper == lower ? 0 : Double.POSITIVE_INFINITY;
+        }
+        return (upper - lower) / Math.abs(estimate);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("estimate", estimate)
+                .add("lower", lower)
+                .add("upper", upper)
+                .toString();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.utils;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.time.temporal.ChronoUnit.NANOS;
+
+/**
+ * Timing and volume of fetching a query result on the client, separate from the time the engine needed to produce it.
+ */
+public class FetchStatistics
+{
+    private final long fetchStart;
+    private long firstRow = -1;
+    private long fetchEnd = -1;
+    private long rows;
+    private long bytes;
+
+    public FetchStatistics(long fetchStart)
+    {
+        this.fetchStart = fetchStart;
+    }
+
+    void firstRowFetched(long now)
+    {
+        firstRow = now;
+    }
+
+    void addBytes(long bytes)
+    {
+        this.bytes += bytes;
+    }
+
+    void finished(long now, long rows)
+    {
+        fetchEnd = now;
+        this.rows = rows;
+    }
+
+    public long getRows()
+    {
+        return rows;
+    }
+
+    /**
+     * Approximate size of decoded values, present only when values were decoded.
+     */
+    public long getBytes()
+    {
+        return bytes;
+    }
+
+    /**
+     * Time from the given query start to fetching the first row, empty for empty results.
+     */
+    public Optional<Duration> getTimeToFirstRow(long queryStart)
+    {
+        if (firstRow < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.of(firstRow - queryStart, NANOS));
+    }
+
+    /**
+     * Time from the statement returning a result set until all rows were fetched.
+     */
+    public Duration getFetchDuration()
+    {
+        return Duration.of(fetchEnd - fetchStart, NANOS);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("rows", rows)
+                .add("bytes", bytes)
+                .add("fetchDuration", getFetchDuration())
+                .toString();
+    }
+}
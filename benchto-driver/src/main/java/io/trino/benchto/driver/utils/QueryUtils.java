@@ -13,6 +13,8 @@
  */
 package io.trino.benchto.driver.utils;
 
+import com.google.common.base.Splitter;
+import io.trino.benchto.driver.Benchmark.FetchMode;
 import io.trino.benchto.driver.execution.ResultComparisonException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,10 +26,16 @@ import java.nio.file.Path;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.StringJoiner;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static java.lang.Math.toIntExact;
 import static java.lang.String.format;
 import static java.util.stream.Collectors.joining;
 
@@ -35,24 +43,107 @@ public final class QueryUtils
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(QueryUtils.class);
     private static final int LOGGED_ROWS = 10;
+    private static final String CHECKSUM_FILE_EXTENSION = ".checksum";
+    private static final Splitter CHECKSUM_LINE_SPLITTER = Splitter.on(':').trimResults().limit(2);
 
     public static int fetchRows(String sqlStatement, ResultSet resultSet)
             throws SQLException
     {
-        LOGGER.info("First {} rows for query: {}", LOGGED_ROWS, sqlStatement);
+        return toIntExact(fetchRows(sqlStatement, resultSet, FetchMode.LOG).getRows());
+    }
 
-        int rowsCount = 0;
-        while (resultSet.next()) {
-            if (rowsCount < LOGGED_ROWS) {
-                logRow(rowsCount + 1, resultSet);
+    public static FetchStatistics fetchRows(String sqlStatement, ResultSet resultSet, FetchMode fetchMode)
+            throws SQLException
+    {
+        FetchStatistics statistics = new FetchStatistics(System.nanoTime());
+        if (fetchMode == FetchMode.LOG) {
+            LOGGER.info("First {} rows for query: {}", LOGGED_ROWS, sqlStatement);
+        }
+        if (!resultSet.next()) {
+            statistics.finished(System.nanoTime(), 0);
+            return statistics;
+        }
+        // the clock is read only for the first row and at the end, to keep it out of the per-row path
+        statistics.firstRowFetched(System.nanoTime());
+        long rows = 0;
+        switch (fetchMode) {
+            case LOG:
+                do {
+                    rows++;
+                    if (rows <= LOGGED_ROWS) {
+                        logRow(toIntExact(rows), resultSet);
+                    }
+                    else if (rows == LOGGED_ROWS + 1) {
+                        LOGGER.info("There are more unlogged rows");
+                    }
+                }
+                while (resultSet.next());
+                break;
+            case SKIP:
+                do {
+                    rows++;
+                }
+                while (resultSet.next());
+                break;
+            case DECODE:
+                int[] columnTypes = columnTypes(resultSet);
+                long bytes = 0;
+                do {
+                    rows++;
+                    for (int column = 0; column < columnTypes.length; column++) {
+                        bytes += decodeColumn(resultSet, column + 1, columnTypes[column]);
+                    }
+                }
+                while (resultSet.next());
+                statistics.addBytes(bytes);
+                break;
+        }
+        statistics.finished(System.nanoTime(), rows);
+        return statistics;
+    }
+
+    /**
+     * Reads the value with a getter matching the column type and returns its approximate size in bytes.
+     */
+    private static int decodeColumn(ResultSet resultSet, int column, int columnType)
+            throws SQLException
+    {
+        switch (columnType) {
+            case Types.BOOLEAN:
+            case Types.BIT:
+                resultSet.getBoolean(column);
+                return 1;
+            case Types.TINYINT:
+                resultSet.getByte(column);
+                return Byte.BYTES;
+            case Types.SMALLINT:
+                resultSet.getShort(column);
+                return Short.BYTES;
+            case Types.INTEGER:
+                resultSet.getInt(column);
+                return Integer.BYTES;
+            case Types.BIGINT:
+                resultSet.getLong(column);
+                return Long.BYTES;
+            case Types.REAL:
+                resultSet.getFloat(column);
+                return Float.BYTES;
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                resultSet.getDouble(column);
+                return Double.BYTES;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY: {
+                byte[] value = resultSet.getBytes(column);
+                return value == null ? 0 : value.length;
             }
-            else if (rowsCount == LOGGED_ROWS) {
-                LOGGER.info("There are more unlogged rows");
+            default: {
+                // strings count one byte per character
+                String value = resultSet.getString(column);
+                return value == null ? 0 : value.length();
             }
-            rowsCount++;
         }
-
-        return rowsCount;
     }
 
     public static int compareRows(Path resultFile, ResultSet resultSet)
@@ -90,6 +181,136 @@ public final class QueryUtils
         }
     }
 
+    public static boolean isChecksumFile(Path resultFile)
+    {
+        return resultFile.getFileName().toString().endsWith(CHECKSUM_FILE_EXTENSION);
+    }
+
+    /**
+     * Compares a hash of the result with a checksum file, which contains lines {@code rows: <count>},
+     * {@code ordered: <true|false>} and {@code checksum: <32 hex digits>}. With {@code ordered: false}
+     * results differing only in row order match.
+     */
+    public static int compareChecksum(Path checksumFile, ResultSet resultSet)
+            throws SQLException
+    {
+        LOGGER.info("Comparing result checksum with {}", checksumFile);
+
+        Map<String, String> expected;
+        try (Stream<String> lines = Files.lines(checksumFile)) {
+            expected = lines.map(String::trim)
+                    .filter(line -> !line.isEmpty())
+                    .map(CHECKSUM_LINE_SPLITTER::splitToList)
+                    .filter(entry -> entry.size() == 2)
+                    .collect(toImmutableMap(entry -> entry.get(0), entry -> entry.get(1)));
+        }
+        catch (IOException e) {
+            throw new ResultComparisonException("Error opening result file", e);
+        }
+        if (!expected.keySet().containsAll(List.of("rows", "ordered", "checksum"))) {
+            throw new ResultComparisonException(format("Checksum file %s should contain rows, ordered and checksum lines", checksumFile));
+        }
+
+        ResultChecksum actual = checksumRows(resultSet, Boolean.parseBoolean(expected.get("ordered")));
+        if (!String.valueOf(actual.getRows()).equals(expected.get("rows"))) {
+            throw new ResultComparisonException(format("Incorrect row count, expected %s, got %d (%s)", expected.get("rows"), actual.getRows(), actual));
+        }
+        if (!actual.getChecksum().equalsIgnoreCase(expected.get("checksum"))) {
+            throw new ResultComparisonException(format("Incorrect result checksum, expected %s, got %s (%s)", expected.get("checksum"), actual.getChecksum(), actual));
+        }
+        return toIntExact(actual.getRows());
+    }
+
+    public static ResultChecksum checksumRows(ResultSet resultSet, boolean ordered)
+            throws SQLException
+    {
+        int[] columnTypes = columnTypes(resultSet);
+        ResultChecksum checksum = new ResultChecksum(ordered);
+        while (resultSet.next()) {
+            for (int column = 0; column < columnTypes.length; column++) {
+                addColumn(checksum, resultSet, column + 1, columnTypes[column]);
+            }
+            checksum.endRow();
+        }
+        return checksum;
+    }
+
+    private static int[] columnTypes(ResultSet resultSet)
+            throws SQLException
+    {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int[] columnTypes = new int[metaData.getColumnCount()];
+        for (int column = 0; column < columnTypes.length; column++) {
+            columnTypes[column] = metaData.getColumnType(column + 1);
+        }
+        return columnTypes;
+    }
+
+    private static void addColumn(ResultChecksum checksum, ResultSet resultSet, int column, int columnType)
+            throws SQLException
+    {
+        // values are read with typed getters, so fixed width values are neither boxed nor formatted
+        switch (columnType) {
+            case Types.BOOLEAN:
+            case Types.BIT: {
+                boolean value = resultSet.getBoolean(column);
+                if (resultSet.wasNull()) {
+                    checksum.addNull();
+                }
+                else {
+                    checksum.addBoolean(value);
+                }
+                return;
+            }
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT: {
+                long value = resultSet.getLong(column);
+                if (resultSet.wasNull()) {
+                    checksum.addNull();
+                }
+                else {
+                    checksum.addLong(value);
+                }
+                return;
+            }
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE: {
+                double value = resultSet.getDouble(column);
+                if (resultSet.wasNull()) {
+                    checksum.addNull();
+                }
+                else {
+                    checksum.addDouble(value);
+                }
+                return;
+            }
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY: {
+                byte[] value = resultSet.getBytes(column);
+                if (value == null) {
+                    checksum.addNull();
+                }
+                else {
+                    checksum.addBytes(value);
+                }
+                return;
+            }
+            default: {
+                String value = resultSet.getString(column);
+                if (value == null) {
+                    checksum.addNull();
+                }
+                else {
+                    checksum.addString(value);
+                }
+            }
+        }
+    }
+
     public static void compareCount(Path resultFile, int rowCount)
     {
         LOGGER.info("Comparing result count with {}", resultFile);
@@ -0,0 +1,180 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.utils;
+
+import static java.lang.String.format;
+
+/**
+ * Folds typed column values of result rows into a 128-bit hash, without allocating per row.
+ * <p>
+ * In ordered mode the checksum depends on the order of the rows, otherwise row hashes are added up,
+ * so results which differ only in row order have the same checksum. Order of columns always matters.
+ */
+public final class ResultChecksum
+{
+    private static final long SEED_LOW = 0x9e3779b97f4a7c15L;
+    private static final long SEED_HIGH = 0xc2b2ae3d27d4eb4fL;
+    private static final long MULTIPLIER_LOW = 0x87c37b91114253d5L;
+    private static final long MULTIPLIER_HIGH = 0x4cf5ad432745937fL;
+
+    private static final long NULL_TAG = 1;
+    private static final long BOOLEAN_TAG = 2;
+    private static final long LONG_TAG = 3;
+    private static final long DOUBLE_TAG = 4;
+    private static final long STRING_TAG = 5;
+    private static final long BYTES_TAG = 6;
+
+    private final boolean ordered;
+    private long rows;
+    private long low;
+    private long high;
+    private long rowLow;
+    private long rowHigh;
+
+    public ResultChecksum(boolean ordered)
+    {
+        this.ordered = ordered;
+        this.low = ordered ? SEED_LOW : 0;
+        this.high = ordered ? SEED_HIGH : 0;
+        beginRow();
+    }
+
+    public boolean isOrdered()
+    {
+        return ordered;
+    }
+
+    public long getRows()
+    {
+        return rows;
+    }
+
+    public ResultChecksum addNull()
+    {
+        mix(NULL_TAG);
+        return this;
+    }
+
+    public ResultChecksum addBoolean(boolean value)
+    {
+        mix(BOOLEAN_TAG);
+        mix(value ? 1 : 0);
+        return this;
+    }
+
+    public ResultChecksum addLong(long value)
+    {
+        mix(LONG_TAG);
+        mix(value);
+        return this;
+    }
+
+    public ResultChecksum addDouble(double value)
+    {
+        mix(DOUBLE_TAG);
+        // canonical NaN and both zeros hash the same
+        mix(value == 0 ? 0 : Double.doubleToLongBits(value));
+        return this;
+    }
+
+    public ResultChecksum addString(CharSequence value)
+    {
+        mix(STRING_TAG);
+        mix(value.length());
+        long packed = 0;
+        for (int i = 0; i < value.length(); i++) {
+            packed = (packed << 16) | value.charAt(i);
+            if (i % 4 == 3) {
+                mix(packed);
+                packed = 0;
+            }
+        }
+        if (value.length() % 4 != 0) {
+            mix(packed);
+        }
+        return this;
+    }
+
+    public ResultChecksum addBytes(byte[] value)
+    {
+        mix(BYTES_TAG);
+        mix(value.length);
+        long packed = 0;
+        for (int i = 0; i < value.length; i++) {
+            packed = (packed << 8) | (value[i] & 0xff);
+            if (i % 8 == 7) {
+                mix(packed);
+                packed = 0;
+            }
+        }
+        if (value.length % 8 != 0) {
+            mix(packed);
+        }
+        return this;
+    }
+
+    public ResultChecksum endRow()
+    {
+        long finalLow = fmix64(rowLow);
+        long finalHigh = fmix64(rowHigh ^ finalLow);
+        if (ordered) {
+            low = fmix64(low * MULTIPLIER_LOW + finalLow);
+            high = fmix64(high * MULTIPLIER_HIGH + finalHigh);
+        }
+        else {
+            low += finalLow;
+            high += finalHigh;
+        }
+        rows++;
+        beginRow();
+        return this;
+    }
+
+    /**
+     * Checksum as 32 hexadecimal digits.
+     */
+    public String getChecksum()
+    {
+        return format("%016x%016x", high, low);
+    }
+
+    @Override
+    public String toString()
+    {
+        return format("rows: %d, ordered: %s, checksum: %s", rows, ordered, getChecksum());
+    }
+
+    private void beginRow()
+    {
+        rowLow = SEED_LOW;
+        rowHigh = SEED_HIGH;
+    }
+
+    private void mix(long value)
+    {
+        rowLow = Long.rotateLeft(rowLow ^ (value * MULTIPLIER_LOW), 31) * MULTIPLIER_HIGH;
+        rowHigh = Long.rotateLeft(rowHigh + (value * MULTIPLIER_HIGH), 33) * MULTIPLIER_LOW + rowLow;
+    }
+
+    // finalization step of MurmurHash3
+    private static long fmix64(long value)
+    {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.utils;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Detects when a sequence of measurements, e.g. durations of subsequent prewarm runs, stopped changing.
+ * The sequence is steady when the spread of the most recent values is within a tolerance relative to their median,
+ * i.e. there is neither a trend nor a changepoint within the window.
+ */
+public class SteadyStateDetector
+{
+    public static final int DEFAULT_WINDOW = 3;
+    public static final double DEFAULT_TOLERANCE = 0.1;
+
+    private final int window;
+    private final double tolerance;
+    private final Deque<Double> recentValues = new ArrayDeque<>();
+
+    public SteadyStateDetector()
+    {
+        this(DEFAULT_WINDOW, DEFAULT_TOLERANCE);
+    }
+
+    public SteadyStateDetector(int window, double tolerance)
+    {
+        checkArgument(window >= 2, "window must be at least 2");
+        checkArgument(tolerance >= 0, "tolerance must not be negative");
+        this.window = window;
+        this.tolerance = tolerance;
+    }
+
+    public void add(double value)
+    {
+        recentValues.addLast(value);
+        if (recentValues.size() > window) {
+            recentValues.removeFirst();
+        }
+    }
+
+    public boolean isSteady()
+    {
+        if (recentValues.size() < window) {
+            return false;
+        }
+        double[] values = recentValues.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        double median = values.length % 2 == 1
+                ? values[values.length / 2]
+                : (values[values.length / 2 - 1] + values[values.length / 2]) / 2;
+        double spread = values[values.length - 1] - values[0];
+        return spread <= tolerance * Math.abs(median);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("window", window)
+                .add("tolerance", tolerance)
+                .add("recentValues", Arrays.toString(recentValues.toArray()))
+                .toString();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.utils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Universal Scalability Law model of throughput {@code X} at concurrency {@code N}:
+ * {@code X(N) = lambda * N / (1 + contention * (N - 1) + coherency * N * (N - 1))}.
+ */
+public class UniversalScalabilityLaw
+{
+    private static final int MIN_POINTS = 3;
+    private static final double EPSILON = 1e-12;
+
+    private final double lambda;
+    private final double contention;
+    private final double coherency;
+
+    public UniversalScalabilityLaw(double lambda, double contention, double coherency)
+    {
+        this.lambda = lambda;
+        this.contention = contention;
+        this.coherency = coherency;
+    }
+
+    /**
+     * Fits the model to measured throughput. Throughput of a single client ({@code lambda}) is estimated
+     * from the lowest concurrency, remaining coefficients are fitted using least squares on the linearized model.
+     * Coefficients are not allowed to be negative.
+     *
+     * @return empty if there are too few valid measurements to fit two coefficients
+     */
+    public static Optional<UniversalScalabilityLaw> fit(List<Integer> concurrency, List<Double> throughput)
+    {
+        checkArgument(concurrency.size() == throughput.size(), "concurrency and throughput must have the same size");
+        if (concurrency.size() < MIN_POINTS || throughput.stream().anyMatch(value -> !(value > 0))) {
+            return Optional.empty();
+        }
+        double lambda = throughput.get(0) / concurrency.get(0);
+
+        // lambda * N / X(N) - 1 = contention * (N - 1) + coherency * N * (N - 1)
+        double suu = 0;
+        double suv = 0;
+        double svv = 0;
+        double suy = 0;
+        double svy = 0;
+        for (int i = 0; i < concurrency.size(); i++) {
+            double n = concurrency.get(i);
+            double u = n - 1;
+            double v = n * (n - 1);
+            double y = lambda * n / throughput.get(i) - 1;
+            suu += u * u;
+            suv += u * v;
+            svv += v * v;
+            suy += u * y;
+            svy += v * y;
+        }
+        double determinant = suu * svv - suv * suv;
+        if (Math.abs(determinant) < EPSILON || svv < EPSILON) {
+            return Optional.empty();
+        }
+        double contention = (suy * svv - svy * suv) / determinant;
+        double coherency = (svy * suu - suy * suv) / determinant;
+        if (coherency < 0) {
+            coherency = 0;
+            contention = suy / suu;
+        }
+        if (contention < 0) {
+            contention = 0;
+            coherency = Math.max(svy / svv, 0);
+        }
+        return Optional.of(new UniversalScalabilityLaw(lambda, contention, coherency));
+    }
+
+    public double getLambda()
+    {
+        return lambda;
+    }
+
+    /**
+     * Serialization caused by shared resources, e.g. queueing on locks.
+     */
+    public double getContention()
+    {
+        return contention;
+    }
+
+    /**
+     * Cost of keeping shared state consistent, which makes throughput retrograde at high concurrency.
+     */
+    public double getCoherency()
+    {
+        return coherency;
+    }
+
+    public double throughput(double concurrency)
+    {
+        return lambda * concurrency / (1 + contention * (concurrency - 1) + coherency * concurrency * (concurrency - 1));
+    }
+
+    /**
+     * Concurrency with the maximal modeled throughput, empty when throughput never decreases.
+     */
+    public OptionalDouble getPeakConcurrency()
+    {
+        if (coherency <= 0) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(Math.sqrt(Math.max(1 - contention, 0) / coherency));
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("lambda", lambda)
+                .add("contention", contention)
+                .add("coherency", coherency)
+                .toString();
+    }
+}
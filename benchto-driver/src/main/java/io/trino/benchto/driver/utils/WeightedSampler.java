@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.utils;
+
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Draws indexes with probability proportional to their weights, using a seeded random generator,
+ * so the same seed always yields the same sequence.
+ */
+public class WeightedSampler
+{
+    private final double[] cumulativeWeights;
+    private final Random random;
+
+    public WeightedSampler(List<Double> weights, long seed)
+    {
+        checkArgument(!weights.isEmpty(), "weights is empty");
+        cumulativeWeights = new double[weights.size()];
+        double sum = 0;
+        for (int i = 0; i < weights.size(); i++) {
+            double weight = weights.get(i);
+            checkArgument(weight >= 0, "Weight must not be negative: %s", weight);
+            sum += weight;
+            cumulativeWeights[i] = sum;
+        }
+        checkArgument(sum > 0, "Sum of weights must be positive");
+        random = new Random(seed);
+    }
+
+    public int next()
+    {
+        double value = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        // first index with cumulative weight greater than the value, so indexes with zero weight are never drawn
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulativeWeights[middle] > value) {
+                high = middle;
+            }
+            else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+}
@@ -55,6 +55,17 @@ public class DriverAppIntegrationTest
     private static final List<String> GRAPHITE_MEASUREMENT_NAMES = ImmutableList.of(
             "cluster-memory_max", "cluster-memory_mean", "cluster-cpu_max", "cluster-cpu_mean", "cluster-network_max", "cluster-network_mean", "cluster-network_total");
 
+    private static final List<String> LATENCY_MEASUREMENT_NAMES = ImmutableList.of(
+            "latency_p50", "latency_p90", "latency_p95", "latency_p99", "latency_p99_9", "latency_max");
+
+    private static final List<String> FETCH_MEASUREMENT_NAMES = ImmutableList.of(
+            "time_to_first_row", "fetch_duration", "fetch_rows_per_second");
+
+    private static final List<String> REPORTING_MEASUREMENT_NAMES = ImmutableList.of(
+            "reporting_queue_depth_max", "reporting_blocked", "reporting_coalesced_events", "reporting_lag_mean", "reporting_lag_max",
+            "listener_latency_mean.BenchmarkServiceExecutionListener", "listener_latency_mean.GraphiteEventExecutionListener",
+            "listener_latency_mean.JournalExecutionListener", "listener_latency_mean.LoggingBenchmarkExecutionListener");
+
     private static final Matcher<String> ENDED_STATUS_MATCHER = is("ENDED");
 
     @Autowired
@@ -73,7 +84,7 @@ public class DriverAppIntegrationTest
         verifyBenchmarkStart("simple_select_benchmark", ImmutableList.of("simple_select_benchmark_schema=INFORMATION_SCHEMA"));
         verifySerialExecution("simple_select_benchmark_schema=INFORMATION_SCHEMA", "simple_select", 1);
         verifySerialExecution("simple_select_benchmark_schema=INFORMATION_SCHEMA", "simple_select", 2);
-        verifyBenchmarkFinish(ImmutableList.of("simple_select_benchmark_schema=INFORMATION_SCHEMA"), ImmutableList.of());
+        verifyBenchmarkFinish(ImmutableList.of("simple_select_benchmark_schema=INFORMATION_SCHEMA"), LATENCY_MEASUREMENT_NAMES);
         verifyComplete();
     }
 
@@ -84,18 +95,22 @@ public class DriverAppIntegrationTest
         verifyBenchmarkStart("test_benchmark", ImmutableList.of("test_benchmark"));
         verifySerialExecution("test_benchmark", "test_query", 1);
         verifySerialExecution("test_benchmark", "test_query", 2);
-        verifyBenchmarkFinish(ImmutableList.of("test_benchmark"), ImmutableList.of());
+        verifyBenchmarkFinish(ImmutableList.of("test_benchmark"), LATENCY_MEASUREMENT_NAMES);
         verifyComplete();
     }
 
     @Test
     public void testConcurrentBenchmark()
     {
-        ImmutableList<String> concurrentQueryMeasurementName = ImmutableList.of("duration");
+        ImmutableList<String> concurrentQueryMeasurementName = ImmutableList.<String>builder()
+                .add("duration")
+                .addAll(FETCH_MEASUREMENT_NAMES)
+                .build();
         ImmutableList<String> concurrentBenchmarkMeasurementNames = ImmutableList.<String>builder()
                 .addAll(GRAPHITE_MEASUREMENT_NAMES)
                 .add("throughput")
                 .add("duration")
+                .addAll(LATENCY_MEASUREMENT_NAMES)
                 .build();
 
         setBenchmark("test_concurrent_benchmark");
@@ -129,7 +144,7 @@ public class DriverAppIntegrationTest
         verifySerialExecution("benchmark_with_2_queries_schema=INFORMATION_SCHEMA_query=simple_select", "simple_select_2", 2);
         verifySerialExecution("benchmark_with_2_queries_schema=INFORMATION_SCHEMA_query=simple_select_2", "simple_select_2", 2);
         verifySerialExecution("benchmark_with_2_queries_schema=INFORMATION_SCHEMA_query=simple_select_2", "simple_select_2", 2);
-        verifyBenchmarkFinish(benchmarks, ImmutableList.of());
+        verifyBenchmarkFinish(benchmarks, LATENCY_MEASUREMENT_NAMES);
         verifyComplete(2, 2, 2 * 2, 2 * 2);
     }
 
@@ -148,7 +163,7 @@ public class DriverAppIntegrationTest
         verifySerialExecution("benchmark_with_2_queries_schema=INFORMATION_SCHEMA_query=simple_select_2", "simple_select_2", 2);
         verifySerialExecution("benchmark_with_2_queries_schema=INFORMATION_SCHEMA_query=simple_select_2", "simple_select_2", 1);
         verifySerialExecution("benchmark_with_2_queries_schema=INFORMATION_SCHEMA_query=simple_select_2", "simple_select_2", 2);
-        verifyBenchmarkFinish(benchmarks, ImmutableList.of());
+        verifyBenchmarkFinish(benchmarks, LATENCY_MEASUREMENT_NAMES);
         verifyComplete(2, 2, 2 * 2, 2);
     }
 
@@ -165,7 +180,7 @@ public class DriverAppIntegrationTest
         verifySerialExecution("benchmark_with_2_prewarms_schema=INFORMATION_SCHEMA_query=simple_select_2", "simple_select_2", 1);
         verifySerialExecution("benchmark_with_2_prewarms_schema=INFORMATION_SCHEMA_query=simple_select_2", "simple_select_2", 2);
         verifySerialExecution("benchmark_with_2_prewarms_schema=INFORMATION_SCHEMA_query=simple_select_2", "simple_select_2", 3);
-        verifyBenchmarkFinish(benchmarks, ImmutableList.of());
+        verifyBenchmarkFinish(benchmarks, LATENCY_MEASUREMENT_NAMES);
         verifyComplete(3, 2, 3, 3);
     }
 
@@ -215,12 +230,16 @@ public class DriverAppIntegrationTest
     private void verifyBenchmarkFinish(List<String> uniqueBenchmarkNames, List<String> measurementNames)
     {
         List<String> finishingUrls = uniqueBenchmarkNames.stream().map("http://benchmark-service:8080/v1/benchmark/%s/BEN_SEQ_ID/finish"::formatted).toList();
+        List<String> benchmarkMeasurementNames = ImmutableList.<String>builder()
+                .addAll(measurementNames)
+                .addAll(REPORTING_MEASUREMENT_NAMES)
+                .build();
         for (int i = 0; i < uniqueBenchmarkNames.size(); i++) {
             restServiceServer.expect(matchAll(
                     requestTo(is(in(finishingUrls))),
                     method(HttpMethod.POST),
                     jsonPath("$.status", ENDED_STATUS_MATCHER),
-                    jsonPath("$.measurements.[*].name", containsInAnyOrder(measurementNames.toArray()))
+                    jsonPath("$.measurements.[*].name", containsInAnyOrder(benchmarkMeasurementNames.toArray()))
             )).andRespond(withSuccess());
 
             restServiceServer.expect(matchAll(
@@ -238,6 +257,7 @@ public class DriverAppIntegrationTest
         ImmutableList<String> serialQueryMeasurementNames = ImmutableList.<String>builder()
                 .addAll(GRAPHITE_MEASUREMENT_NAMES)
                 .add("duration")
+                .addAll(FETCH_MEASUREMENT_NAMES)
                 .build();
         verifySerialExecutionStarted(uniqueBenchmarkName, queryName, executionNumber);
         verifyGetGraphiteMeasurements();
@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.concurrent;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import io.trino.benchto.driver.BenchmarkExecutionException;
+import io.trino.benchto.driver.concurrent.ExecutorServiceFactory.ThreadType;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ExecutorServiceFactoryTest
+{
+    private static final int VIRTUAL_THREADS_JDK = 21;
+
+    @Test
+    public void platformThreadsByDefault()
+    {
+        assertThat(threadType(Map.of())).isEqualTo(ThreadType.PLATFORM);
+    }
+
+    @Test
+    public void threadTypeSelectedByProperty()
+    {
+        assertThat(threadType(Map.of("executorThreads", "VIRTUAL"))).isEqualTo(ThreadType.VIRTUAL);
+        assertThat(threadType(Map.of("executorThreads", "PLATFORM"))).isEqualTo(ThreadType.PLATFORM);
+    }
+
+    @Test
+    public void platformExecutor()
+            throws Exception
+    {
+        ListeningExecutorService executor = factory(ThreadType.PLATFORM).create(2);
+        try {
+            assertThat(executor.submit(ExecutorServiceFactoryTest::isVirtualThread).get()).isFalse();
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void virtualExecutor()
+            throws Exception
+    {
+        ExecutorServiceFactory factory = factory(ThreadType.VIRTUAL);
+        if (Runtime.version().feature() < VIRTUAL_THREADS_JDK) {
+            assertThatThrownBy(() -> factory.create(2))
+                    .isInstanceOf(BenchmarkExecutionException.class)
+                    .hasMessageContaining("Virtual threads require JDK 21 or newer");
+            return;
+        }
+        ListeningExecutorService executor = factory.create(2);
+        try {
+            assertThat(executor.submit(ExecutorServiceFactoryTest::isVirtualThread).get()).isTrue();
+            assertThat(executor.submit(() -> Thread.currentThread().getName()).get()).startsWith("benchmark-virtual-");
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private static ThreadType threadType(Map<String, Object> properties)
+    {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", properties));
+            context.register(ExecutorServiceFactory.class);
+            context.refresh();
+            return (ThreadType) ReflectionTestUtils.getField(context.getBean(ExecutorServiceFactory.class), "threadType");
+        }
+    }
+
+    private static ExecutorServiceFactory factory(ThreadType threadType)
+    {
+        ExecutorServiceFactory factory = new ExecutorServiceFactory();
+        ReflectionTestUtils.setField(factory, "threadType", threadType);
+        return factory;
+    }
+
+    private static boolean isVirtualThread()
+            throws ReflectiveOperationException
+    {
+        if (Runtime.version().feature() < VIRTUAL_THREADS_JDK) {
+            return false;
+        }
+        return (boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+    }
+}
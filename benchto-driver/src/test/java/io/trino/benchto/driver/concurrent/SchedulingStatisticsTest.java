@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.concurrent;
+
+import io.trino.benchto.driver.service.Measurement;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class SchedulingStatisticsTest
+{
+    @Test
+    public void aggregatesDelays()
+    {
+        SchedulingStatistics statistics = new SchedulingStatistics();
+        statistics.record(MILLISECONDS.toNanos(2));
+        statistics.record(MILLISECONDS.toNanos(4));
+        // clock differences can make delays negative, they are counted as no delay
+        statistics.record(-MILLISECONDS.toNanos(3));
+
+        assertThat(statistics.getCount()).isEqualTo(3);
+        assertThat(statistics.getMeanMillis()).isEqualTo(2.0);
+        assertThat(statistics.getMaxMillis()).isEqualTo(4.0);
+        assertThat(statistics.toMeasurements())
+                .extracting(Measurement::getName, Measurement::getUnit, Measurement::getValue)
+                .containsExactly(
+                        tuple("scheduling_delay_mean", "MILLISECONDS", 2.0),
+                        tuple("scheduling_delay_max", "MILLISECONDS", 4.0));
+    }
+
+    @Test
+    public void noMeasurementsWithoutDelays()
+    {
+        SchedulingStatistics statistics = new SchedulingStatistics();
+
+        assertThat(statistics.getMeanMillis()).isZero();
+        assertThat(statistics.toMeasurements()).isEmpty();
+    }
+
+    @Test
+    public void aggregatesDelaysOfManyThreads()
+            throws InterruptedException
+    {
+        SchedulingStatistics statistics = new SchedulingStatistics();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int thread = 1; thread <= 8; thread++) {
+            long delay = MILLISECONDS.toNanos(thread);
+            executor.execute(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    statistics.record(delay);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(statistics.getCount()).isEqualTo(8000);
+        assertThat(statistics.getMeanMillis()).isEqualTo(4.5);
+        assertThat(statistics.getMaxMillis()).isEqualTo(8.0);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import io.trino.benchto.driver.Benchmark;
+import io.trino.benchto.driver.Benchmark.AbVariant;
+import io.trino.benchto.driver.service.Measurement;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.trino.benchto.driver.loader.BenchmarkDescriptor.AB_VARIANT_VARIABLE;
+import static java.util.stream.Collectors.toMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class AbComparisonTest
+{
+    @Test
+    public void detectsConsistentRegression()
+    {
+        // B is about 4% slower, while both variants drift by much more between runs
+        AbComparison comparison = new AbComparison(
+                Map.of("q1", Map.of(1, 1000.0, 2, 1500.0, 3, 900.0, 4, 1200.0)),
+                Map.of("q1", Map.of(1, 1045.0, 2, 1555.0, 3, 940.0, 4, 1245.0)));
+
+        Map<String, Double> measurements = measurementsByName(comparison.toMeasurements());
+        assertThat(measurements.get("ab_pairs.q1")).isEqualTo(4.0);
+        assertThat(measurements.get("ab_difference.q1")).isCloseTo(46.25, within(0.001));
+        assertThat(measurements.get("ab_relative_difference.q1")).isCloseTo(4.02, within(0.01));
+        assertThat(measurements.get("ab_p_value.q1")).isLessThan(AbComparison.SIGNIFICANCE_LEVEL);
+        assertThat(measurements.get("ab_significant_regressions")).isEqualTo(1.0);
+        assertThat(measurements.get("ab_significant_improvements")).isEqualTo(0.0);
+    }
+
+    @Test
+    public void noiseIsNotSignificant()
+    {
+        AbComparison comparison = new AbComparison(
+                Map.of("q1", Map.of(1, 1000.0, 2, 1100.0, 3, 950.0), "q2", Map.of(1, 10.0)),
+                Map.of("q1", Map.of(1, 1090.0, 2, 1020.0, 3, 960.0), "q2", Map.of(2, 10.0)));
+
+        Map<String, Double> measurements = measurementsByName(comparison.toMeasurements());
+        assertThat(measurements.get("ab_p_value.q1")).isGreaterThan(AbComparison.SIGNIFICANCE_LEVEL);
+        // runs of q2 do not form any pair
+        assertThat(measurements.get("ab_pairs.q2")).isEqualTo(0.0);
+        assertThat(measurements).doesNotContainKeys("ab_difference.q2", "ab_p_value.q2");
+        assertThat(measurements.get("ab_significant_regressions")).isEqualTo(0.0);
+    }
+
+    @Test
+    public void adjustsPValuesForMultipleQueries()
+    {
+        // q1 regressed, while q2 looks slower only by chance, which is likely with several equally fast queries
+        AbComparison comparison = new AbComparison(
+                Map.of(
+                        "q1", Map.of(1, 1000.0, 2, 1500.0, 3, 900.0, 4, 1200.0),
+                        "q2", Map.of(1, 1000.0, 2, 1500.0, 3, 900.0, 4, 1200.0),
+                        "q3", Map.of(1, 1000.0, 2, 1500.0, 3, 900.0, 4, 1200.0),
+                        "q4", Map.of(1, 1000.0, 2, 1500.0, 3, 900.0, 4, 1200.0),
+                        "q5", Map.of(1, 1000.0, 2, 1500.0, 3, 900.0, 4, 1200.0)),
+                Map.of(
+                        "q1", Map.of(1, 1045.0, 2, 1555.0, 3, 940.0, 4, 1245.0),
+                        "q2", Map.of(1, 1020.0, 2, 1508.0, 3, 930.0, 4, 1210.0),
+                        "q3", Map.of(1, 1030.0, 2, 1480.0, 3, 930.0, 4, 1240.0),
+                        "q4", Map.of(1, 1020.0, 2, 1510.0, 3, 915.0, 4, 1190.0),
+                        "q5", Map.of(1, 1010.0, 2, 1490.0, 3, 905.0, 4, 1195.0)));
+
+        Map<String, Double> measurements = measurementsByName(comparison.toMeasurements());
+        assertThat(measurements.get("ab_p_value.q2")).isLessThan(AbComparison.SIGNIFICANCE_LEVEL);
+        assertThat(measurements.get("ab_adjusted_p_value.q2")).isCloseTo(4 * measurements.get("ab_p_value.q2"), within(0.000001));
+        assertThat(measurements.get("ab_adjusted_p_value.q1")).isCloseTo(5 * measurements.get("ab_p_value.q1"), within(0.000001));
+        assertThat(measurements.get("ab_adjusted_p_value.q5")).isEqualTo(1.0);
+        assertThat(measurements.get("ab_significant_regressions")).isEqualTo(1.0);
+        assertThat(measurements.get("ab_significant_improvements")).isEqualTo(0.0);
+    }
+
+    @Test
+    public void groupsVariants()
+    {
+        Benchmark orcA = benchmark("orc", AbVariant.A);
+        Benchmark orcB = benchmark("orc", AbVariant.B);
+        Benchmark textB = benchmark("text", AbVariant.B);
+
+        assertThat(AbComparison.variants(List.of(orcB, textB, orcA)))
+                .containsExactly(List.of(orcA, orcB), List.of(textB));
+    }
+
+    private static Benchmark benchmark(String format, AbVariant variant)
+    {
+        return new Benchmark.BenchmarkBuilder("benchmark", "1", List.of())
+                .withDataSource("trino_" + variant)
+                .withAbVariant(variant)
+                .withVariables(Map.of("format", format, AB_VARIANT_VARIABLE, variant.name()))
+                .build();
+    }
+
+    private static Map<String, Double> measurementsByName(List<Measurement> measurements)
+    {
+        return measurements.stream().collect(toMap(Measurement::getName, Measurement::getValue));
+    }
+}
@@ -14,10 +14,15 @@
 package io.trino.benchto.driver.execution;
 
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import io.trino.benchto.driver.Benchmark;
+import io.trino.benchto.driver.Benchmark.AbVariant;
+import io.trino.benchto.driver.Benchmark.ExecutionBackend;
 import io.trino.benchto.driver.BenchmarkProperties;
+import io.trino.benchto.driver.BenchmarkProperties.QueryRepetitionScope;
 import io.trino.benchto.driver.Query;
 import io.trino.benchto.driver.concurrent.ExecutorServiceFactory;
+import io.trino.benchto.driver.execution.QueryExecutionResult.QueryExecutionResultBuilder;
 import io.trino.benchto.driver.listeners.benchmark.BenchmarkStatusReporter;
 import io.trino.benchto.driver.loader.SqlStatementGenerator;
 import io.trino.benchto.driver.macro.MacroService;
@@ -27,19 +32,33 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.ApplicationContext;
 
+import javax.sql.DataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -69,6 +88,21 @@ public class BenchmarkExecutionDriverTest
     @Mock
     SqlStatementGenerator sqlStatementGenerator;
 
+    @Mock
+    DriverCoordinator driverCoordinator;
+
+    @Mock
+    ExecutionJournal executionJournal;
+
+    @Mock
+    QueryExecutionDriver queryExecutionDriver;
+
+    @Mock
+    ApplicationContext applicationContext;
+
+    @Mock
+    HttpQueryExecutionDriver httpQueryExecutionDriver;
+
     @Before
     public void setUp()
     {
@@ -122,4 +156,191 @@ public class BenchmarkExecutionDriverTest
             assertThat(result.getFailureCauses()).containsExactly(executorServiceException);
         });
     }
+
+    @Test
+    public void adaptiveRunsInterleaveAbVariants()
+            throws SQLException
+    {
+        List<String> executed = recordExecutions();
+        Benchmark variantA = adaptiveBenchmark(Optional.of(AbVariant.A));
+        Benchmark variantB = adaptiveBenchmark(Optional.of(AbVariant.B));
+
+        List<BenchmarkExecutionResult> results = driver.execute(List.of(variantA, variantB), 0, 0, Optional.empty());
+
+        assertThat(results).flatExtracting(BenchmarkExecutionResult::getFailureCauses).isEmpty();
+        // runs after the second one are added by adaptive runs, with variants interleaved like in the first two runs
+        assertThat(executed).containsExactly("A-1", "B-1", "B-2", "A-2", "A-3", "B-3", "B-4", "A-4");
+    }
+
+    @Test
+    public void adaptiveRunsSkipExecutionsFinishedBeforeResume()
+            throws SQLException
+    {
+        List<String> executed = recordExecutions();
+        Benchmark benchmark = adaptiveBenchmark(Optional.empty());
+        when(benchmarkProperties.isResume()).thenReturn(true);
+        when(executionJournal.isExecutionFinished(eq(benchmark), eq("query"), anyInt()))
+                .thenAnswer(invocation -> invocation.getArgument(2, Integer.class) == 3);
+
+        List<BenchmarkExecutionResult> results = driver.execute(List.of(benchmark), 0, 0, Optional.empty());
+
+        assertThat(results).flatExtracting(BenchmarkExecutionResult::getFailureCauses).isEmpty();
+        assertThat(executed).containsExactly("-1", "-2", "-4");
+        assertThat(results.get(0).getAttributes()).containsEntry(BenchmarkExecutionDriver.PARTIAL_RESULTS_ATTRIBUTE, "true");
+    }
+
+    @Test
+    public void autoPrewarmReturnsAllPrewarmExecutions()
+            throws SQLException
+    {
+        List<String> executed = recordExecutions();
+        Benchmark benchmark = benchmarkBuilder()
+                .withRuns(1)
+                // durations of executions doing nothing never get steady within two prewarm runs
+                .withBenchmarkPrewarmRuns(2)
+                .withBenchmarkPrewarmAuto(true)
+                .build();
+
+        List<BenchmarkExecutionResult> results = driver.execute(List.of(benchmark), 0, 0, Optional.empty());
+
+        assertThat(executed).containsExactly("-1", "-2", "-1");
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).getExecutions())
+                .extracting(execution -> execution.getQueryExecution().isWarmup())
+                .containsExactly(true, true, false);
+    }
+
+    @Test
+    public void openLoopHttpExecutionsRunExecutionMacros()
+    {
+        when(executorServiceFactory.create(anyInt())).thenAnswer(invocation -> MoreExecutors.newDirectExecutorService());
+        Benchmark benchmark = benchmarkBuilder()
+                .withRuns(2)
+                .withThroughputTest(true)
+                .withArrivalRate(Optional.of(1000.0))
+                .withExecutionBackend(ExecutionBackend.HTTP)
+                .withBeforeExecutionMacros(List.of("before-execution"))
+                .withAfterExecutionMacros(List.of("after-execution"))
+                .build();
+        benchmark.setUniqueName("benchmark");
+        when(httpQueryExecutionDriver.execute(any(QueryExecution.class))).thenAnswer(invocation -> completedFuture(
+                new QueryExecutionResultBuilder(invocation.getArgument(0))
+                        .startTimer()
+                        .endTimer()
+                        .build()));
+
+        List<BenchmarkExecutionResult> results = driver.execute(List.of(benchmark), 0, 0, Optional.empty());
+
+        assertThat(results).flatExtracting(BenchmarkExecutionResult::getFailureCauses).isEmpty();
+        assertThat(results.get(0).getExecutions()).hasSize(2);
+        // executions with the HTTP backend do not have JDBC connections, macros open their own
+        verify(macroService, times(2)).runBenchmarkMacros(List.of("before-execution"), Optional.of(benchmark), Optional.empty());
+        verify(macroService, times(2)).runBenchmarkMacros(List.of("after-execution"), Optional.of(benchmark), Optional.empty());
+    }
+
+    @Test
+    public void closedLoopHttpStreamsDoNotUseConnections()
+    {
+        when(executorServiceFactory.create(anyInt())).thenAnswer(invocation -> MoreExecutors.newDirectExecutorService());
+        Benchmark benchmark = benchmarkBuilder()
+                .withRuns(2)
+                .withConcurrency(2)
+                .withThroughputTest(true)
+                .withExecutionBackend(ExecutionBackend.HTTP)
+                .withBeforeExecutionMacros(List.of("before-execution"))
+                .withAfterExecutionMacros(emptyList())
+                .build();
+        List<Integer> executed = new ArrayList<>();
+        when(httpQueryExecutionDriver.execute(any(QueryExecution.class))).thenAnswer(invocation -> {
+            QueryExecution execution = invocation.getArgument(0);
+            executed.add(execution.getSequenceId());
+            return completedFuture(new QueryExecutionResultBuilder(execution)
+                    .startTimer()
+                    .endTimer()
+                    .build());
+        });
+
+        List<BenchmarkExecutionResult> results = driver.execute(List.of(benchmark), 0, 0, Optional.empty());
+
+        assertThat(results).flatExtracting(BenchmarkExecutionResult::getFailureCauses).isEmpty();
+        assertThat(executed).containsExactly(0, 2, 1, 3);
+        verify(applicationContext, never()).getBean("datasource", DataSource.class);
+        verify(macroService, times(4)).runBenchmarkMacros(List.of("before-execution"), Optional.of(benchmark), Optional.empty());
+    }
+
+    @Test
+    public void skipsReportingMeasurementsOfBenchmarksExecutedAtTheSameTime()
+            throws SQLException
+    {
+        List<String> executed = recordExecutions();
+        Benchmark benchmark = benchmarkBuilder()
+                .withRuns(1)
+                .build();
+        Benchmark otherBenchmark = benchmarkBuilder()
+                .withRuns(1)
+                .withDataSource("other-datasource")
+                .build();
+        DataSource dataSource = applicationContext.getBean("datasource", DataSource.class);
+        DataSource otherDataSource = mock(DataSource.class);
+        when(applicationContext.getBean("other-datasource", DataSource.class)).thenReturn(otherDataSource);
+        when(otherDataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        // the other benchmark is executed while the first one gets its connection, like in another data source lane
+        doAnswer(invocation -> {
+            driver.execute(List.of(otherBenchmark), 0, 0, Optional.empty());
+            return mock(Connection.class);
+        }).doAnswer(invocation -> mock(Connection.class))
+                .when(dataSource).getConnection();
+
+        driver.execute(List.of(benchmark), 0, 0, Optional.empty());
+        driver.execute(List.of(benchmark), 0, 0, Optional.empty());
+
+        assertThat(executed).hasSize(3);
+        // only the second execution of the benchmark did not overlap with another one
+        verify(statusReporter, times(1)).measurementsSince(any());
+    }
+
+    private List<String> recordExecutions()
+            throws SQLException
+    {
+        when(executorServiceFactory.create(anyInt())).thenAnswer(invocation -> MoreExecutors.newDirectExecutorService());
+        when(benchmarkProperties.getQueryRepetitionScope()).thenReturn(QueryRepetitionScope.BENCHMARK);
+        DataSource dataSource = mock(DataSource.class);
+        when(applicationContext.getBean("datasource", DataSource.class)).thenReturn(dataSource);
+        when(dataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        List<String> executed = new ArrayList<>();
+        when(queryExecutionDriver.execute(any(QueryExecution.class), any(Connection.class), any())).thenAnswer(invocation -> {
+            QueryExecution execution = invocation.getArgument(0);
+            executed.add(execution.getBenchmark().getAbVariant().map(Enum::name).orElse("") + "-" + execution.getSequenceId());
+            return new QueryExecutionResultBuilder(execution)
+                    .startTimer()
+                    .endTimer()
+                    .build();
+        });
+        return executed;
+    }
+
+    private static Benchmark adaptiveBenchmark(Optional<AbVariant> abVariant)
+    {
+        Benchmark.BenchmarkBuilder builder = benchmarkBuilder()
+                .withRuns(2)
+                .withMaxRuns(4)
+                // durations of executions doing nothing never get that stable
+                .withTargetCiWidth(Optional.of(1e-9));
+        abVariant.ifPresent(builder::withAbVariant);
+        return builder.build();
+    }
+
+    private static Benchmark.BenchmarkBuilder benchmarkBuilder()
+    {
+        return new Benchmark.BenchmarkBuilder("benchmark", "sequenceId", List.of(new Query("query", "SELECT 1", Map.of())))
+                .withDataSource("datasource")
+                .withEnvironment("environment")
+                .withSuitePrewarmRuns(0)
+                .withBenchmarkPrewarmRuns(0)
+                .withConcurrency(1)
+                .withBeforeBenchmarkMacros(emptyList())
+                .withAfterBenchmarkMacros(emptyList())
+                .withQueryResults(Optional.empty())
+                .withVariables(emptyMap());
+    }
 }
@@ -0,0 +1,58 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import io.trino.benchto.driver.service.Measurement;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.stream.Collectors.toMap;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrencySweepStatisticsTest
+{
+    @Test
+    public void kneeIsLastStepWithSufficientGain()
+    {
+        ConcurrencySweepStatistics statistics = new ConcurrencySweepStatistics(0.1, Optional.empty());
+        statistics.addStep(1, 10.0, Duration.ofMillis(100));
+        assertThat(statistics.isSaturated()).isFalse();
+        statistics.addStep(2, 19.0, Duration.ofMillis(105));
+        statistics.addStep(4, 30.0, Duration.ofMillis(130));
+        assertThat(statistics.isSaturated()).isFalse();
+        statistics.addStep(8, 31.0, Duration.ofMillis(260));
+        assertThat(statistics.isSaturated()).isTrue();
+
+        assertThat(statistics.getKnee().orElseThrow().getConcurrency()).isEqualTo(4);
+        Map<String, Double> measurements = statistics.toMeasurements().stream().collect(toMap(Measurement::getName, Measurement::getValue));
+        assertThat(measurements).containsEntry("sweep_knee_concurrency", 4.0);
+        assertThat(measurements).containsEntry("sweep_throughput_8", 31.0);
+        assertThat(measurements).containsEntry("sweep_latency_p99_8", 260.0);
+        assertThat(measurements).containsKeys("usl_contention", "usl_coherency");
+    }
+
+    @Test
+    public void latencyLimitSaturates()
+    {
+        ConcurrencySweepStatistics statistics = new ConcurrencySweepStatistics(0.1, Optional.of(Duration.ofMillis(200)));
+        statistics.addStep(1, 10.0, Duration.ofMillis(150));
+        statistics.addStep(2, 20.0, Duration.ofMillis(250));
+
+        assertThat(statistics.isSaturated()).isTrue();
+        assertThat(statistics.getKnee().orElseThrow().getConcurrency()).isEqualTo(1);
+    }
+}
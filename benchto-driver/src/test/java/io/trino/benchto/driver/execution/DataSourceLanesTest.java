@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import com.google.common.collect.ImmutableMap;
+import io.trino.benchto.driver.Benchmark;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DataSourceLanesTest
+{
+    @Test
+    public void groupsUsingSameDataSourceShareLane()
+    {
+        Map<String, List<Benchmark>> groups = ImmutableMap.of(
+                "a", List.of(benchmark("a", "trino")),
+                "b", List.of(benchmark("b", "postgres")),
+                "c", List.of(benchmark("c", "trino")));
+
+        assertThat(DataSourceLanes.partition(groups, name -> Duration.ZERO))
+                .containsExactly(List.of("a", "c"), List.of("b"));
+    }
+
+    @Test
+    public void groupUsingSeveralDataSourcesMergesLanes()
+    {
+        Map<String, List<Benchmark>> groups = ImmutableMap.of(
+                "a", List.of(benchmark("a", "trino")),
+                "b", List.of(benchmark("b", "postgres")),
+                "c", List.of(benchmark("c", "mysql")),
+                "d", List.of(benchmark("d", "mysql"), benchmark("d", "trino")));
+
+        assertThat(DataSourceLanes.partition(groups, name -> Duration.ZERO))
+                .containsExactly(List.of("a", "c", "d"), List.of("b"));
+    }
+
+    @Test
+    public void longestLaneFirst()
+    {
+        Map<String, List<Benchmark>> groups = ImmutableMap.of(
+                "a", List.of(benchmark("a", "trino")),
+                "b", List.of(benchmark("b", "postgres")),
+                "c", List.of(benchmark("c", "trino")),
+                "d", List.of(benchmark("d", "mysql")));
+        Map<String, Duration> durations = ImmutableMap.of(
+                "a", Duration.ofMinutes(1),
+                "b", Duration.ofMinutes(5),
+                "c", Duration.ofMinutes(2),
+                "d", Duration.ofMinutes(4));
+
+        assertThat(DataSourceLanes.partition(groups, durations::get))
+                .containsExactly(List.of("b"), List.of("d"), List.of("a", "c"));
+    }
+
+    private static Benchmark benchmark(String name, String dataSource)
+    {
+        return new Benchmark.BenchmarkBuilder(name, "1", List.of())
+                .withDataSource(dataSource)
+                .withVariables(Map.of())
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import io.trino.benchto.driver.Benchmark;
+import io.trino.benchto.driver.Query;
+import io.trino.benchto.driver.service.BenchmarkServiceClient;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.DriverBarrier;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DriverCoordinatorTest
+{
+    @Mock
+    BenchmarkServiceClient benchmarkServiceClient;
+
+    @InjectMocks
+    DriverCoordinator coordinator;
+
+    @Before
+    public void setUp()
+    {
+        ReflectionTestUtils.setField(coordinator, "coordinatedDrivers", 2);
+        ReflectionTestUtils.setField(coordinator, "driverId", "driver-1");
+    }
+
+    @Test
+    public void waitsUntilAllDriversJoined()
+    {
+        Benchmark benchmark = throughputBenchmark();
+        Instant start = Instant.now().plusMillis(100);
+        Instant deadline = start.plusSeconds(60);
+        when(benchmarkServiceClient.joinBenchmark(eq("benchmark"), eq("1"), eq("driver-1"), any()))
+                .thenReturn(new DriverBarrier(1, 2, null, null))
+                .thenReturn(new DriverBarrier(2, 2, start.toEpochMilli(), deadline.toEpochMilli()));
+
+        assertThat(coordinator.isCoordinated(benchmark)).isTrue();
+        assertThat(coordinator.awaitStart(benchmark)).contains(Instant.ofEpochMilli(deadline.toEpochMilli()));
+        assertThat(Instant.now()).isAfterOrEqualTo(Instant.ofEpochMilli(start.toEpochMilli()));
+        verify(benchmarkServiceClient, times(2)).joinBenchmark(eq("benchmark"), eq("1"), eq("driver-1"), any());
+    }
+
+    @Test
+    public void onlyThroughputTestsAreCoordinated()
+    {
+        Benchmark benchmark = new Benchmark.BenchmarkBuilder("benchmark", "1", List.of(new Query("q1", "SELECT 1", Map.of())))
+                .withConcurrency(1)
+                .withRuns(1)
+                .build();
+
+        assertThat(coordinator.isCoordinated(benchmark)).isFalse();
+    }
+
+    private static Benchmark throughputBenchmark()
+    {
+        Benchmark benchmark = new Benchmark.BenchmarkBuilder("benchmark", "1", List.of(new Query("q1", "SELECT 1", Map.of())))
+                .withConcurrency(2)
+                .withRuns(1)
+                .withThroughputTest(true)
+                .withDuration(Optional.of(Duration.ofMinutes(1)))
+                .build();
+        benchmark.setUniqueName("benchmark");
+        return benchmark;
+    }
+}
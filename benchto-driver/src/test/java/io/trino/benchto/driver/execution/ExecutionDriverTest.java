@@ -22,6 +22,7 @@ import io.trino.benchto.driver.listeners.benchmark.BenchmarkStatusReporter;
 import io.trino.benchto.driver.listeners.benchmark.DefaultBenchmarkExecutionListener;
 import io.trino.benchto.driver.loader.BenchmarkLoader;
 import io.trino.benchto.driver.macro.MacroService;
+import io.trino.benchto.driver.service.ReportSpool;
 import io.trino.benchto.driver.utils.TimeUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -67,6 +68,12 @@ public class ExecutionDriverTest
     @Mock
     BenchmarkStatusReporter benchmarkStatusReporter;
 
+    @Mock
+    ExecutionJournal executionJournal;
+
+    @Mock
+    ReportSpool reportSpool;
+
     @InjectMocks
     ExecutionDriver driver;
 
@@ -150,6 +157,7 @@ public class ExecutionDriverTest
         ReflectionTestUtils.setField(benchmarkExecutionDriver, "executionSynchronizer", mock(ExecutionSynchronizer.class));
         ReflectionTestUtils.setField(benchmarkExecutionDriver, "statusReporter", statusReporter);
         ReflectionTestUtils.setField(benchmarkExecutionDriver, "properties", benchmarkProperties);
+        ReflectionTestUtils.setField(benchmarkExecutionDriver, "driverCoordinator", new DriverCoordinator());
         ReflectionTestUtils.setField(driver, "benchmarkExecutionDriver", benchmarkExecutionDriver);
         ReflectionTestUtils.setField(driver, "benchmarkStatusReporter", statusReporter);
 
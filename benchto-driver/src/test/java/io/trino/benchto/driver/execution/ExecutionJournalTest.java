@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import io.trino.benchto.driver.Benchmark;
+import io.trino.benchto.driver.BenchmarkProperties;
+import io.trino.benchto.driver.Query;
+import io.trino.benchto.driver.loader.SqlStatementGenerator;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ExecutionJournalTest
+{
+    private static final Query QUERY = new Query("q1", "SELECT 1", Map.of());
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    BenchmarkProperties properties;
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        when(properties.getJournalDir()).thenReturn(Optional.of(temporaryFolder.newFolder().toPath()));
+    }
+
+    @Test
+    public void resumesFromRecordedProgress()
+    {
+        Benchmark finished = benchmark("finished");
+        Benchmark interrupted = benchmark("interrupted");
+        ExecutionJournal journal = journal();
+        journal.open(List.of("1"));
+        journal.benchmarkStarted(finished);
+        journal.executionFinished(new QueryExecution(finished, QUERY, 1, new SqlStatementGenerator()));
+        journal.benchmarkFinished(finished);
+        journal.benchmarkStarted(interrupted);
+        journal.executionFinished(new QueryExecution(interrupted, QUERY, 1, new SqlStatementGenerator()));
+
+        when(properties.isResume()).thenReturn(true);
+        ExecutionJournal resumed = journal();
+        resumed.open(List.of("1"));
+
+        assertThat(resumed.isBenchmarkFinished(finished)).isTrue();
+        assertThat(resumed.isBenchmarkFinished(interrupted)).isFalse();
+        assertThat(resumed.isBenchmarkStarted(interrupted)).isTrue();
+        assertThat(resumed.isExecutionFinished(interrupted, "q1", 1)).isTrue();
+        assertThat(resumed.isExecutionFinished(interrupted, "q1", 2)).isFalse();
+        assertThat(resumed.isBenchmarkFinished(benchmark("other"))).isFalse();
+    }
+
+    @Test
+    public void skipsIncompleteAndMalformedRecords()
+            throws IOException
+    {
+        Benchmark benchmark = benchmark("benchmark");
+        ExecutionJournal journal = journal();
+        journal.open(List.of("1"));
+        journal.benchmarkStarted(benchmark);
+        journal.executionFinished(new QueryExecution(benchmark, QUERY, 1, new SqlStatementGenerator()));
+        Path journalFile = properties.getJournalDir().get().resolve("1.journal");
+        Files.writeString(journalFile, "UNKNOWN\tbenchmark_unique\nEXECUTION_FINISHED\tbenchmark_unique\nEXECUTION_FINISHED\tbenchmark_unique\tq1", UTF_8, APPEND);
+
+        when(properties.isResume()).thenReturn(true);
+        ExecutionJournal resumed = journal();
+        resumed.open(List.of("1"));
+
+        assertThat(resumed.isBenchmarkStarted(benchmark)).isTrue();
+        assertThat(resumed.isExecutionFinished(benchmark, "q1", 1)).isTrue();
+        assertThat(resumed.isExecutionFinished(benchmark, "q1", 2)).isFalse();
+
+        // records appended after resuming are not merged with the incomplete one
+        resumed.executionFinished(new QueryExecution(benchmark, QUERY, 2, new SqlStatementGenerator()));
+        ExecutionJournal resumedAgain = journal();
+        resumedAgain.open(List.of("1"));
+
+        assertThat(resumedAgain.isExecutionFinished(benchmark, "q1", 1)).isTrue();
+        assertThat(resumedAgain.isExecutionFinished(benchmark, "q1", 2)).isTrue();
+    }
+
+    @Test
+    public void refusesToOverwriteJournal()
+    {
+        ExecutionJournal journal = journal();
+        journal.open(List.of("1"));
+        journal.benchmarkStarted(benchmark("benchmark"));
+
+        assertThatThrownBy(() -> journal().open(List.of("1")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("set resume to continue execution 1");
+    }
+
+    private ExecutionJournal journal()
+    {
+        ExecutionJournal journal = new ExecutionJournal();
+        ReflectionTestUtils.setField(journal, "properties", properties);
+        return journal;
+    }
+
+    private static Benchmark benchmark(String name)
+    {
+        Benchmark benchmark = new Benchmark.BenchmarkBuilder(name, "1", List.of(QUERY))
+                .withVariables(Map.of())
+                .build();
+        benchmark.setUniqueName(name + "_unique");
+        return benchmark;
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.trino.benchto.driver.Benchmark;
+import io.trino.benchto.driver.Query;
+import io.trino.benchto.driver.execution.HttpQueryExecutionDriver.Session;
+import io.trino.benchto.driver.loader.SqlStatementGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HttpQueryExecutionDriverTest
+{
+    private HttpServer server;
+    private Session session;
+    private final AtomicInteger unavailableResponses = new AtomicInteger();
+    private volatile int unavailableStatus;
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+    private final List<Headers> requestHeaders = new CopyOnWriteArrayList<>();
+    private final HttpQueryExecutionDriver driver = new HttpQueryExecutionDriver();
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v1/statement", this::handle);
+        server.start();
+        ReflectionTestUtils.setField(driver, "queryTimeoutWatchdog", new QueryTimeoutWatchdog());
+        session = new Session(URI.create("http://localhost:" + server.getAddress().getPort()), "benchto", Optional.of("tpch"), Optional.of("tiny"));
+    }
+
+    @After
+    public void tearDown()
+    {
+        server.stop(0);
+    }
+
+    @Test
+    public void followsNextUriAndCountsRows()
+    {
+        QueryExecutionResult result = driver.execute(execution("SELECT 1"), session).join();
+
+        assertThat(result.isSuccessful()).isTrue();
+        assertThat(result.getRowsCount()).isEqualTo(3);
+        assertThat(result.getPrestoQueryId()).contains("query_1");
+    }
+
+    @Test
+    public void retriesWhenServerIsUnavailable()
+    {
+        assertRetried(503);
+    }
+
+    @Test
+    public void retriesOnBadGateway()
+    {
+        assertRetried(502);
+    }
+
+    @Test
+    public void retriesOnGatewayTimeout()
+    {
+        assertRetried(504);
+    }
+
+    @Test
+    public void doesNotRetryServerError()
+    {
+        unavailableStatus = 500;
+        unavailableResponses.set(1);
+
+        QueryExecutionResult result = driver.execute(execution("SELECT 1"), session).join();
+
+        assertThat(result.isSuccessful()).isFalse();
+        assertThat(result.getFailureCause()).hasMessageEndingWith("failed with HTTP status 500");
+    }
+
+    private void assertRetried(int status)
+    {
+        unavailableStatus = status;
+        unavailableResponses.set(2);
+
+        QueryExecutionResult result = driver.execute(execution("SELECT 1"), session).join();
+
+        assertThat(result.isSuccessful()).isTrue();
+        assertThat(result.getRowsCount()).isEqualTo(3);
+        assertThat(unavailableResponses.get()).isZero();
+    }
+
+    @Test
+    public void reportsQueryFailure()
+    {
+        QueryExecutionResult result = driver.execute(execution("SELECT fail"), session).join();
+
+        assertThat(result.isSuccessful()).isFalse();
+        assertThat(result.getFailureCause()).hasMessage("Query failed (#query_2): line 1:8: Column 'fail' cannot be resolved");
+        assertThat(result.getPrestoQueryId()).contains("query_2");
+    }
+
+    @Test
+    public void cancelsQueryAfterTimeout()
+            throws InterruptedException
+    {
+        QueryExecutionResult result = driver.execute(execution("SELECT sleep", Map.of("timeout", "PT0.2S")), session).join();
+
+        assertThat(result.isSuccessful()).isFalse();
+        assertThat(result.isTimedOut()).isTrue();
+        assertThat(result.getFailureCause()).hasMessage("Query query exceeded timeout of PT0.2S");
+        assertThat(cancelled.await(10, SECONDS)).isTrue();
+    }
+
+    @Test
+    public void sendsSessionOfDataSource()
+    {
+        Session session = new Session(
+                this.session.getServerUri(),
+                "benchto",
+                Optional.of("secret"),
+                Optional.of("tpch"),
+                Optional.of("tiny"),
+                "benchto",
+                Map.of("join_distribution_type", "BROADCAST"),
+                List.of("tag1", "tag2"));
+
+        QueryExecutionResult result = driver.execute(execution("SELECT 1"), session).join();
+
+        assertThat(result.isSuccessful()).isTrue();
+        assertThat(requestHeaders).hasSize(3);
+        assertThat(requestHeaders.get(0).get("X-Trino-Session")).containsExactly("join_distribution_type=BROADCAST");
+        assertThat(requestHeaders.get(0).getFirst("X-Trino-Client-Tags")).isEqualTo("tag1,tag2");
+        // results of the query are fetched with the same credentials
+        assertThat(requestHeaders).extracting(headers -> headers.getFirst("Authorization")).containsOnly("Basic YmVuY2h0bzpzZWNyZXQ=");
+    }
+
+    @Test
+    public void createsSessionFromJdbcUrl()
+    {
+        Session session = HttpQueryExecutionDriver.session(
+                "jdbc:trino://coordinator:8443/tpch?SSL=true&sessionProperties=query_max_memory:1GB;join_distribution_type:BROADCAST&clientTags=tag1,tag2",
+                "benchto",
+                Optional.of("secret"),
+                Optional.of("tpch"),
+                Optional.empty());
+
+        assertThat(session.getServerUri()).isEqualTo(URI.create("https://coordinator:8443"));
+        assertThat(session.getPassword()).contains("secret");
+        assertThat(session.getSource()).isEqualTo("benchto");
+        assertThat(session.getSessionProperties()).containsExactly(Map.entry("query_max_memory", "1GB"), Map.entry("join_distribution_type", "BROADCAST"));
+        assertThat(session.getClientTags()).containsExactly("tag1", "tag2");
+    }
+
+    @Test
+    public void rejectsUnsupportedJdbcUrl()
+    {
+        assertThatThrownBy(() -> HttpQueryExecutionDriver.session("jdbc:trino://coordinator:8443?SSL=true&roles=hive:admin", "benchto", Optional.empty(), Optional.empty(), Optional.empty()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Parameter roles of JDBC URL");
+        assertThatThrownBy(() -> HttpQueryExecutionDriver.session("jdbc:trino://coordinator:8080", "benchto", Optional.of("secret"), Optional.empty(), Optional.empty()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Authentication with password requires SSL");
+    }
+
+    @Test
+    public void extractsServerUriFromJdbcUrl()
+    {
+        assertThat(HttpQueryExecutionDriver.serverUri("jdbc:trino://coordinator:8080/tpch/tiny")).isEqualTo(URI.create("http://coordinator:8080"));
+        assertThat(HttpQueryExecutionDriver.serverUri("jdbc:trino://coordinator:8443?SSL=true")).isEqualTo(URI.create("https://coordinator:8443"));
+    }
+
+    private void handle(HttpExchange exchange)
+            throws IOException
+    {
+        requestHeaders.add(exchange.getRequestHeaders());
+        if (unavailableResponses.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+            respond(exchange, unavailableStatus, "");
+            return;
+        }
+        String baseUri = "http://localhost:" + server.getAddress().getPort() + "/v1/statement";
+        String path = exchange.getRequestURI().getPath();
+        if (exchange.getRequestMethod().equals("POST")) {
+            assertThat(exchange.getRequestHeaders().getFirst("X-Trino-User")).isEqualTo("benchto");
+            assertThat(exchange.getRequestHeaders().getFirst("X-Trino-Catalog")).isEqualTo("tpch");
+            String sql = new String(exchange.getRequestBody().readAllBytes(), UTF_8);
+            if (sql.equals("SELECT sleep")) {
+                respond(exchange, 200, "{\"id\": \"query_3\", \"nextUri\": \"" + baseUri + "/query_3/1\", \"stats\": {\"state\": \"QUEUED\"}}");
+                return;
+            }
+            if (sql.equals("SELECT fail")) {
+                respond(exchange, 200, "{\"id\": \"query_2\", \"error\": {\"message\": \"line 1:8: Column 'fail' cannot be resolved\", \"errorName\": \"COLUMN_NOT_FOUND\"}}");
+                return;
+            }
+            respond(exchange, 200, "{\"id\": \"query_1\", \"nextUri\": \"" + baseUri + "/query_1/1\", \"stats\": {\"state\": \"QUEUED\"}}");
+        }
+        else if (path.contains("/query_3/") && exchange.getRequestMethod().equals("DELETE")) {
+            cancelled.countDown();
+            respond(exchange, 204, "");
+        }
+        else if (path.contains("/query_3/")) {
+            sleep(50);
+            respond(exchange, 200, "{\"id\": \"query_3\", \"nextUri\": \"" + baseUri + "/query_3/1\", \"stats\": {\"state\": \"RUNNING\"}}");
+        }
+        else if (path.endsWith("/query_1/1")) {
+            respond(exchange, 200, "{\"id\": \"query_1\", \"nextUri\": \"" + baseUri + "/query_1/2\", \"data\": [[1], [2]], \"stats\": {\"state\": \"RUNNING\"}}");
+        }
+        else {
+            respond(exchange, 200, "{\"id\": \"query_1\", \"data\": [[3]], \"stats\": {\"state\": \"FINISHED\"}}");
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body)
+            throws IOException
+    {
+        byte[] bytes = body.getBytes(UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis)
+    {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static QueryExecution execution(String sql)
+    {
+        return execution(sql, Map.of());
+    }
+
+    private static QueryExecution execution(String sql, Map<String, String> properties)
+    {
+        Query query = new Query("query", sql, properties);
+        Benchmark benchmark = new Benchmark.BenchmarkBuilder("benchmark", "1", List.of(query))
+                .withExecutionBackend(Benchmark.ExecutionBackend.HTTP)
+                .withVariables(Map.of())
+                .build();
+        return new QueryExecution(benchmark, query, 0, new SqlStatementGenerator());
+    }
+}
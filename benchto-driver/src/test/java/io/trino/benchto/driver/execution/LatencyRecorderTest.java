@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import io.trino.benchto.driver.service.Measurement;
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyRecorderTest
+{
+    @Test
+    public void reportsPercentiles()
+    {
+        LatencyRecorder recorder = new LatencyRecorder(List.of("q1", "q2"));
+        for (int latency = 1; latency <= 1000; latency++) {
+            recorder.record(latency % 2 == 0 ? "q1" : "q2", MILLISECONDS.toNanos(latency));
+        }
+
+        Map<String, Double> measurements = measurementsByName(recorder.toMeasurements());
+        assertThat(measurements.get("latency_p50")).isCloseTo(500.0, within(1.0));
+        assertThat(measurements.get("latency_p99")).isCloseTo(990.0, within(1.0));
+        assertThat(measurements.get("latency_p99_9")).isCloseTo(999.0, within(1.0));
+        assertThat(measurements.get("latency_max")).isCloseTo(1000.0, within(1.0));
+        assertThat(measurements).containsOnlyKeys("latency_p50", "latency_p90", "latency_p95", "latency_p99", "latency_p99_9", "latency_max");
+        assertThat(recorder.toAttributes()).containsOnlyKeys(
+                LatencyRecorder.HISTOGRAM_ATTRIBUTE,
+                LatencyRecorder.HISTOGRAM_ATTRIBUTE + ".q1",
+                LatencyRecorder.HISTOGRAM_ATTRIBUTE + ".q2");
+        assertThat(LatencyRecorder.decodeHistogram(recorder.toAttributes().get(LatencyRecorder.HISTOGRAM_ATTRIBUTE + ".q1")).getTotalCount()).isEqualTo(500);
+    }
+
+    @Test
+    public void histogramAttributeCanBeMerged()
+    {
+        LatencyRecorder first = new LatencyRecorder(List.of("q1"));
+        LatencyRecorder second = new LatencyRecorder(List.of("q1"));
+        first.record("q1", MILLISECONDS.toNanos(10));
+        second.record("q1", MILLISECONDS.toNanos(20));
+        second.record("q1", MILLISECONDS.toNanos(30));
+
+        Histogram merged = LatencyRecorder.decodeHistogram(first.toAttributes().get(LatencyRecorder.HISTOGRAM_ATTRIBUTE));
+        merged.add(LatencyRecorder.decodeHistogram(second.toAttributes().get(LatencyRecorder.HISTOGRAM_ATTRIBUTE)));
+
+        assertThat(merged.getTotalCount()).isEqualTo(3);
+        assertThat(merged.getMaxValue()).isCloseTo(MILLISECONDS.toMicros(30), within(100L));
+        // per query histograms are only reported for benchmarks with more queries
+        assertThat(first.toAttributes()).containsOnlyKeys(LatencyRecorder.HISTOGRAM_ATTRIBUTE);
+    }
+
+    @Test
+    public void reportsPercentilesPerQueryClass()
+    {
+        LatencyRecorder recorder = new LatencyRecorder(List.of("q1", "q2", "q3"), Map.of("q1", "dashboard", "q2", "dashboard", "q3", "etl"));
+        recorder.record("q1", MILLISECONDS.toNanos(10));
+        recorder.record("q2", MILLISECONDS.toNanos(20));
+        recorder.record("q3", MILLISECONDS.toNanos(1000));
+
+        Map<String, Double> measurements = measurementsByName(recorder.toMeasurements());
+        assertThat(measurements.get("latency_max")).isCloseTo(1000.0, within(1.0));
+        assertThat(measurements.get("latency_max.dashboard")).isCloseTo(20.0, within(0.1));
+        assertThat(measurements.get("latency_max.etl")).isCloseTo(1000.0, within(1.0));
+        assertThat(measurements).containsKeys("latency_p50.dashboard", "latency_p99.etl");
+    }
+
+    @Test
+    public void emptyRecorderReportsNothing()
+    {
+        LatencyRecorder recorder = new LatencyRecorder(List.of("q1"));
+
+        assertThat(recorder.toMeasurements()).isEmpty();
+        assertThat(recorder.toAttributes()).isEmpty();
+    }
+
+    private static Map<String, Double> measurementsByName(List<Measurement> measurements)
+    {
+        return measurements.stream().collect(toMap(Measurement::getName, Measurement::getValue));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import io.trino.benchto.driver.service.Measurement;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toMap;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MeasurementWindowTest
+{
+    private static final ZonedDateTime START = ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @Test
+    public void excludesRampUpAndRampDown()
+    {
+        MeasurementWindow window = new MeasurementWindow();
+        window.addStream(at(0), at(100), List.of(at(5), at(50), at(100)));
+        window.addStream(at(10), at(90), List.of(at(40), at(80), at(90)));
+
+        assertThat(window.getDuration()).contains(Duration.ofSeconds(80));
+        assertThat(window.getCompletedQueries()).isEqualTo(4);
+        assertThat(window.getThroughput()).contains(0.05);
+        Map<String, Double> measurements = window.toMeasurements().stream().collect(toMap(Measurement::getName, Measurement::getValue));
+        assertThat(measurements).containsEntry("measurement_window", 80_000.0);
+        assertThat(measurements).containsEntry("measurement_window_queries", 4.0);
+        assertThat(measurements).containsEntry("ramp_up", 10_000.0);
+        assertThat(measurements).containsEntry("ramp_down", 10_000.0);
+    }
+
+    @Test
+    public void noWindowWhenStreamsDoNotOverlap()
+    {
+        MeasurementWindow window = new MeasurementWindow();
+        window.addStream(at(0), at(10), List.of(at(10)));
+        window.addStream(at(20), at(30), List.of(at(30)));
+
+        assertThat(window.getDuration()).isEmpty();
+        assertThat(window.getThroughput()).isEmpty();
+        assertThat(window.toMeasurements()).isEmpty();
+    }
+
+    @Test
+    public void noWindowWithIdleStream()
+    {
+        MeasurementWindow window = new MeasurementWindow();
+        window.addStream(at(0), at(10), List.of(at(10)));
+        window.addStream(List.of());
+
+        assertThat(window.getDuration()).isEmpty();
+    }
+
+    private static ZonedDateTime at(int seconds)
+    {
+        return START.plusSeconds(seconds);
+    }
+}
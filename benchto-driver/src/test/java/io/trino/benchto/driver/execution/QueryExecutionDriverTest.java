@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import io.trino.benchto.driver.Benchmark;
+import io.trino.benchto.driver.Query;
+import io.trino.benchto.driver.loader.SqlStatementGenerator;
+import io.trino.benchto.driver.service.Measurement;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class QueryExecutionDriverTest
+{
+    private static final String STATEMENT = "UPDATE t SET a = ?";
+    private static final Duration PARAMETERS_LOADING = Duration.ofMillis(100);
+
+    @Mock
+    QueryParameterGenerator queryParameterGenerator;
+
+    @Mock
+    QueryTimeoutWatchdog queryTimeoutWatchdog;
+
+    @InjectMocks
+    QueryExecutionDriver driver;
+
+    private QueryExecution queryExecution;
+
+    @Before
+    public void setUp()
+    {
+        when(queryTimeoutWatchdog.watch(any())).thenAnswer(invocation -> new QueryTimeoutWatchdog().watch(Optional.empty()));
+        Query query = new Query("q", STATEMENT, Map.of("parameters", "random(1, 10)"));
+        Benchmark benchmark = new Benchmark.BenchmarkBuilder("benchmark", "1", List.of(query))
+                .withPreparedStatements(true)
+                .withVariables(Map.of())
+                .build();
+        queryExecution = new QueryExecution(benchmark, query, 0, new SqlStatementGenerator());
+    }
+
+    @Test
+    public void preparedStatementIsReusedOnTheSameConnection()
+            throws SQLException
+    {
+        when(queryParameterGenerator.generate(queryExecution)).thenReturn(List.of(1L));
+        Connection connection = connection();
+        Connection otherConnection = connection();
+
+        driver.execute(queryExecution, connection, Optional.empty());
+        driver.execute(queryExecution, connection, Optional.empty());
+        driver.execute(queryExecution, otherConnection, Optional.empty());
+
+        verify(connection, times(1)).prepareStatement(STATEMENT);
+        verify(otherConnection, times(1)).prepareStatement(STATEMENT);
+    }
+
+    @Test
+    public void preparedStatementIsReusedByBorrowsOfPooledConnection()
+            throws SQLException
+    {
+        when(queryParameterGenerator.generate(queryExecution)).thenReturn(List.of(1L));
+        Connection physicalConnection = connection();
+
+        driver.execute(queryExecution, pooledConnection(physicalConnection), Optional.empty());
+        driver.execute(queryExecution, pooledConnection(physicalConnection), Optional.empty());
+
+        verify(physicalConnection, times(1)).prepareStatement(STATEMENT);
+    }
+
+    @Test
+    public void closesStatementsOfClosedConnections()
+            throws SQLException
+    {
+        when(queryParameterGenerator.generate(queryExecution)).thenReturn(List.of(1L));
+        Connection connection = connection();
+        driver.execute(queryExecution, connection, Optional.empty());
+        PreparedStatement statement = connection.prepareStatement(STATEMENT);
+        when(connection.isClosed()).thenReturn(true);
+
+        driver.execute(queryExecution, connection(), Optional.empty());
+
+        verify(statement).close();
+    }
+
+    @Test
+    public void queryDurationExcludesPreparingAndParameters()
+            throws SQLException
+    {
+        when(queryParameterGenerator.generate(queryExecution)).thenAnswer(invocation -> {
+            Thread.sleep(PARAMETERS_LOADING.toMillis());
+            return List.of(1L);
+        });
+        Connection connection = connection();
+
+        QueryExecutionResult first = driver.execute(queryExecution, connection, Optional.empty());
+        QueryExecutionResult second = driver.execute(queryExecution, connection, Optional.empty());
+
+        for (QueryExecutionResult result : List.of(first, second)) {
+            assertThat(result.isSuccessful()).isTrue();
+            assertThat(result.getQueryDuration()).isLessThan(PARAMETERS_LOADING);
+            // reported by every execution, not only by the one which prepared the statement
+            assertThat(result.getMeasurements())
+                    .filteredOn(measurement -> measurement.getName().equals("prepare_duration"))
+                    .extracting(Measurement::getValue)
+                    .singleElement()
+                    .satisfies(value -> assertThat(value).isGreaterThanOrEqualTo((double) PARAMETERS_LOADING.toMillis()));
+        }
+    }
+
+    private static Connection pooledConnection(Connection physicalConnection)
+            throws SQLException
+    {
+        Connection connection = mock(Connection.class);
+        when(connection.isWrapperFor(Connection.class)).thenReturn(true);
+        when(connection.unwrap(Connection.class)).thenReturn(physicalConnection);
+        return connection;
+    }
+
+    private static Connection connection()
+            throws SQLException
+    {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(STATEMENT)).thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(1);
+        return connection;
+    }
+}
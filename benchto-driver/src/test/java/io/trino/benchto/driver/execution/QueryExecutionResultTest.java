@@ -67,7 +67,7 @@ public class QueryExecutionResultTest
 
     private QueryExecution queryExecution()
     {
-        return new QueryExecution(mock(Benchmark.class), mock(Query.class), 0, new SqlStatementGenerator()
+        return new QueryExecution(mock(Benchmark.class), new Query("query", "SELECT 1", Map.of()), 0, new SqlStatementGenerator()
         {
             @Override
             public List<String> generateQuerySqlStatement(Query query, Map<String, ?> attributes)
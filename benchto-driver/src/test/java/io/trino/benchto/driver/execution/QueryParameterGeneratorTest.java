@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import io.trino.benchto.driver.Benchmark;
+import io.trino.benchto.driver.BenchmarkProperties;
+import io.trino.benchto.driver.Query;
+import io.trino.benchto.driver.loader.SqlStatementGenerator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class QueryParameterGeneratorTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    BenchmarkProperties properties;
+
+    @Mock
+    DriverCoordinator driverCoordinator;
+
+    @InjectMocks
+    QueryParameterGenerator generator;
+
+    @Test
+    public void randomParametersAreDeterministic()
+    {
+        Query query = new Query("q", "SELECT * FROM t WHERE a = ? AND b = ?", Map.of("parameters", "random(1, 10)"));
+
+        List<Object> parameters = generator.generate(execution(query, 7));
+
+        assertThat(parameters).hasSize(2);
+        assertThat(parameters).allSatisfy(value -> assertThat((Long) value).isBetween(1L, 10L));
+        assertThat(generator.generate(execution(query, 7))).isEqualTo(parameters);
+    }
+
+    @Test
+    public void randomParametersDifferPerBenchmarkRunAndDriver()
+    {
+        Query query = new Query("q", "SELECT * FROM t WHERE a = ? AND b = ? AND c = ?", Map.of("parameters", "random(1, 1000000)"));
+        List<Object> parameters = generator.generate(execution(query, "1", 7));
+
+        assertThat(generator.generate(execution(query, "2", 7))).isNotEqualTo(parameters);
+        assertThat(generator.generate(execution(query, "1", 8))).isNotEqualTo(parameters);
+
+        when(driverCoordinator.isCoordinated(any())).thenReturn(true);
+        when(driverCoordinator.getDriverId()).thenReturn("driver1", "driver2");
+        List<Object> firstDriverParameters = generator.generate(execution(query, "1", 7));
+        assertThat(generator.generate(execution(query, "1", 7))).isNotEqualTo(firstDriverParameters);
+    }
+
+    @Test
+    public void csvParametersAreCycled()
+            throws IOException
+    {
+        Path sqlDir = temporaryFolder.getRoot().toPath();
+        Files.writeString(sqlDir.resolve("params.csv"), "1, abc\n2.5, def\n");
+        when(properties.sqlFilesDirs()).thenReturn(List.of(sqlDir));
+        Query query = new Query("q", "SELECT * FROM t WHERE a = ? AND b = ?", Map.of("parameters", "params.csv"));
+
+        assertThat(generator.generate(execution(query, 0))).containsExactly(1L, "abc");
+        assertThat(generator.generate(execution(query, 1))).containsExactly(2.5, "def");
+        assertThat(generator.generate(execution(query, 2))).containsExactly(1L, "abc");
+    }
+
+    @Test
+    public void failsWithoutParametersProperty()
+    {
+        Query query = new Query("q", "SELECT * FROM t WHERE a = ?", Map.of());
+
+        assertThatThrownBy(() -> generator.generate(execution(query, 0)))
+                .hasMessage("Query q has 1 parameters, but property parameters is not defined");
+    }
+
+    @Test
+    public void countsParametersOutsideOfQuotes()
+    {
+        assertThat(QueryParameterGenerator.countParameters("SELECT '?', \"?\" FROM t WHERE a = ? AND b = ?")).isEqualTo(2);
+    }
+
+    private static QueryExecution execution(Query query, int sequenceId)
+    {
+        return execution(query, "1", sequenceId);
+    }
+
+    private static QueryExecution execution(Query query, String benchmarkSequenceId, int sequenceId)
+    {
+        Benchmark benchmark = new Benchmark.BenchmarkBuilder("benchmark", benchmarkSequenceId, List.of(query))
+                .withPreparedStatements(true)
+                .withVariables(Map.of())
+                .build();
+        benchmark.setUniqueName("benchmark");
+        return new QueryExecution(benchmark, query, sequenceId, new SqlStatementGenerator());
+    }
+}
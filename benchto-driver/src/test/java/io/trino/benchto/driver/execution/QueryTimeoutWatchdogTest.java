@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.execution;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueryTimeoutWatchdogTest
+{
+    private final QueryTimeoutWatchdog watchdog = new QueryTimeoutWatchdog();
+
+    @Test
+    public void cancelsAfterTimeout()
+            throws InterruptedException
+    {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        try (QueryTimeoutWatchdog.Watch watch = watchdog.watch(Optional.of(Duration.ofMillis(10)))) {
+            watch.onTimeout(cancelled::countDown);
+
+            assertThat(cancelled.await(10, SECONDS)).isTrue();
+            assertThat(watch.isTimedOut()).isTrue();
+
+            AtomicBoolean lateCancellation = new AtomicBoolean();
+            watch.onTimeout(() -> lateCancellation.set(true));
+            assertThat(lateCancellation).isTrue();
+        }
+    }
+
+    @Test
+    public void cancelsTimedOutQueriesInParallel()
+            throws InterruptedException
+    {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        try (QueryTimeoutWatchdog.Watch blockingWatch = watchdog.watch(Optional.of(Duration.ofMillis(10)));
+                QueryTimeoutWatchdog.Watch watch = watchdog.watch(Optional.of(Duration.ofMillis(20)))) {
+            // e.g. Statement.cancel() of a stuck cluster
+            blockingWatch.onTimeout(() -> {
+                try {
+                    blocked.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            watch.onTimeout(cancelled::countDown);
+
+            assertThat(cancelled.await(10, SECONDS)).isTrue();
+        }
+        finally {
+            blocked.countDown();
+        }
+    }
+
+    @Test
+    public void doesNotCancelClosedWatch()
+            throws InterruptedException
+    {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        try (QueryTimeoutWatchdog.Watch watch = watchdog.watch(Optional.of(Duration.ofMillis(50)))) {
+            watch.onTimeout(() -> cancelled.set(true));
+        }
+        Thread.sleep(200);
+
+        assertThat(cancelled).isFalse();
+    }
+
+    @Test
+    public void neverCancelsWithoutTimeout()
+    {
+        try (QueryTimeoutWatchdog.Watch watch = watchdog.watch(Optional.empty())) {
+            assertThat(watch.isTimedOut()).isFalse();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.http;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+import static org.springframework.http.HttpStatus.OK;
+
+public class GzipRequestInterceptorTest
+{
+    private static final byte[] LARGE_BODY = "{\"queryInfo\":\"".concat("x".repeat(4096)).concat("\"}").getBytes(UTF_8);
+
+    private final GzipRequestInterceptor interceptor = new GzipRequestInterceptor(URI.create("http://service:8080"), 1024);
+    private final AtomicReference<byte[]> sentBody = new AtomicReference<>();
+    private final ClientHttpRequestExecution execution = (request, body) -> {
+        sentBody.set(body);
+        return new MockClientHttpResponse(new byte[0], OK);
+    };
+
+    @Test
+    public void compressesLargeRequestsToServer()
+            throws IOException
+    {
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST, URI.create("http://service:8080/v1/benchmark/name/1/finish"));
+
+        interceptor.intercept(request, LARGE_BODY, execution);
+
+        assertThat(request.getHeaders().getFirst(CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(request.getHeaders().getContentLength()).isEqualTo(sentBody.get().length);
+        assertThat(sentBody.get().length).isLessThan(LARGE_BODY.length);
+        assertThat(ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(sentBody.get())))).isEqualTo(LARGE_BODY);
+    }
+
+    @Test
+    public void sendsSmallRequestsUncompressed()
+            throws IOException
+    {
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST, URI.create("http://service:8080/v1/time/current-time-millis"));
+        byte[] body = "{}".getBytes(UTF_8);
+
+        interceptor.intercept(request, body, execution);
+
+        assertThat(request.getHeaders().containsKey(CONTENT_ENCODING)).isFalse();
+        assertThat(sentBody.get()).isSameAs(body);
+    }
+
+    @Test
+    public void sendsRequestsToOtherServersUncompressed()
+            throws IOException
+    {
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST, URI.create("http://graphite:8080/events/"));
+
+        interceptor.intercept(request, LARGE_BODY, execution);
+
+        assertThat(request.getHeaders().containsKey(CONTENT_ENCODING)).isFalse();
+        assertThat(sentBody.get()).isSameAs(LARGE_BODY);
+    }
+}
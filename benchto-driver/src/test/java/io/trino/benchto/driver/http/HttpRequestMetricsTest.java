@@ -0,0 +1,70 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.http;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HttpRequestMetricsTest
+{
+    private final HttpRequestMetrics metrics = new HttpRequestMetrics();
+
+    @Test
+    public void recordsLatenciesPerEndpoint()
+    {
+        metrics.record("service /start", MILLISECONDS.toNanos(10), false);
+        metrics.record("service /start", MILLISECONDS.toNanos(30), false);
+        metrics.record("service /finish", MILLISECONDS.toNanos(100), true);
+
+        Histogram start = metrics.getLatencies("service /start").orElseThrow();
+        assertThat(start.getTotalCount()).isEqualTo(2);
+        assertThat(start.getValueAtPercentile(50.0)).isBetween(9_900L, 10_100L);
+        assertThat(start.getMaxValue()).isBetween(29_900L, 30_100L);
+        assertThat(metrics.getFailedRequests("service /start")).isZero();
+
+        assertThat(metrics.getLatencies("service /finish").orElseThrow().getTotalCount()).isEqualTo(1);
+        assertThat(metrics.getFailedRequests("service /finish")).isEqualTo(1);
+        assertThat(metrics.getLatencies("graphite /render")).isEmpty();
+    }
+
+    @Test
+    public void timesFailedRequests()
+    {
+        assertThat(metrics.time("service /start", () -> "ok")).isEqualTo("ok");
+        assertThatThrownBy(() -> metrics.time("service /start", () -> {
+            throw new ResourceAccessException("Connection refused");
+        })).isInstanceOf(ResourceAccessException.class);
+
+        assertThat(metrics.getLatencies("service /start").orElseThrow().getTotalCount()).isEqualTo(2);
+        assertThat(metrics.getFailedRequests("service /start")).isEqualTo(1);
+    }
+
+    @Test
+    public void summarizesEndpoints()
+    {
+        metrics.record("service /start", MILLISECONDS.toNanos(10), false);
+        metrics.record("graphite /render", MILLISECONDS.toNanos(100), true);
+
+        assertThat(metrics.getSummary()).hasSize(2);
+        // latencies are recorded with limited precision
+        assertThat(metrics.getSummary().get(0)).startsWith("HTTP requests to graphite /render: 1 requests, 1 failed, latency mean 100.");
+        assertThat(metrics.getSummary().get(1))
+                .isEqualTo("HTTP requests to service /start: 1 requests, 0 failed, latency mean 10.0 ms, p50 10.0 ms, p90 10.0 ms, p99 10.0 ms, max 10.0 ms");
+    }
+}
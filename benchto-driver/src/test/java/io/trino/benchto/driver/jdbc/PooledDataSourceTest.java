@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.jdbc;
+
+import io.trino.benchto.driver.IntegrationTest;
+import io.trino.benchto.driver.service.Measurement;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toMap;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PooledDataSourceTest
+        extends IntegrationTest
+{
+    private static final String SQL_TEST_STATEMENT = "SELECT TOP 1 1 as VAL FROM INFORMATION_SCHEMA.SYSTEM_TABLES";
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Test
+    public void shouldReuseConnections()
+            throws Exception
+    {
+        PooledDataSource dataSource = applicationContext.getBean("test_pooled_datasource", PooledDataSource.class);
+        ConnectionPoolMetrics.Snapshot before = dataSource.getMetrics().snapshot();
+
+        for (int i = 0; i < 5; i++) {
+            executeTestStatement(dataSource.getConnection());
+        }
+
+        Map<String, Double> measurements = measurementsByName(dataSource.getMetrics().snapshot().measurementsSince(before));
+        assertThat(measurements.get("pool_connections_created")).isLessThanOrEqualTo(1.0);
+        assertThat(measurements.get("pool_active_max")).isEqualTo(1.0);
+        assertThat(measurements.get("pool_timeouts")).isEqualTo(0.0);
+        assertThat(measurements).containsKeys("pool_wait_mean", "pool_wait_max");
+    }
+
+    @Test
+    public void shouldEvictConnectionWithModifiedSession()
+            throws Exception
+    {
+        PooledDataSource dataSource = applicationContext.getBean("test_pooled_datasource", PooledDataSource.class);
+        executeTestStatement(dataSource.getConnection());
+        ConnectionPoolMetrics.Snapshot before = dataSource.getMetrics().snapshot();
+
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute("SET SCHEMA INFORMATION_SCHEMA");
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            assertThat(connection.getSchema()).isEqualTo("PUBLIC");
+        }
+
+        Map<String, Double> measurements = measurementsByName(dataSource.getMetrics().snapshot().measurementsSince(before));
+        assertThat(measurements.get("pool_connections_created")).isEqualTo(1.0);
+    }
+
+    private static void executeTestStatement(Connection pooledConnection)
+            throws SQLException
+    {
+        try (Connection connection = pooledConnection;
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(SQL_TEST_STATEMENT)) {
+            assertThat(resultSet.next()).isTrue();
+        }
+    }
+
+    private static Map<String, Double> measurementsByName(List<Measurement> measurements)
+    {
+        return measurements.stream().collect(toMap(Measurement::getName, Measurement::getValue));
+    }
+}
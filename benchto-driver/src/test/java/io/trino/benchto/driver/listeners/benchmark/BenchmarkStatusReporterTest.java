@@ -0,0 +1,321 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.listeners.benchmark;
+
+import io.trino.benchto.driver.Benchmark;
+import io.trino.benchto.driver.Query;
+import io.trino.benchto.driver.execution.BenchmarkExecutionResult;
+import io.trino.benchto.driver.execution.BenchmarkExecutionResult.BenchmarkExecutionResultBuilder;
+import io.trino.benchto.driver.execution.ExecutionJournal;
+import io.trino.benchto.driver.execution.QueryExecution;
+import io.trino.benchto.driver.execution.QueryExecutionResult;
+import io.trino.benchto.driver.execution.QueryExecutionResult.QueryExecutionResultBuilder;
+import io.trino.benchto.driver.listeners.JournalExecutionListener;
+import io.trino.benchto.driver.listeners.benchmark.BenchmarkStatusReporter.QueueOverflowPolicy;
+import io.trino.benchto.driver.loader.SqlStatementGenerator;
+import io.trino.benchto.driver.service.ExecutionBatcher;
+import io.trino.benchto.driver.service.Measurement;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.stream.Collectors.toMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BenchmarkStatusReporterTest
+{
+    private final Benchmark benchmark = new Benchmark.BenchmarkBuilder("benchmark", "1", List.of(new Query("q1", "SELECT 1", Map.of())))
+            .withVariables(Map.of())
+            .build();
+
+    @Test
+    public void reportsEventsOfExecutionInOrder()
+    {
+        RecordingListener listener = new RecordingListener();
+        BenchmarkStatusReporter reporter = new BenchmarkStatusReporter(List.of(listener), 4, 100, QueueOverflowPolicy.BLOCK);
+
+        reporter.reportBenchmarkStarted(benchmark);
+        for (int sequenceId = 0; sequenceId < 10; sequenceId++) {
+            QueryExecution execution = execution(sequenceId);
+            reporter.reportExecutionStarted(execution);
+            reporter.reportExecutionFinished(result(execution));
+        }
+        reporter.reportBenchmarkFinished(benchmarkResult());
+        reporter.awaitAllFutures(1, MINUTES);
+
+        List<String> events = listener.events;
+        assertThat(events).hasSize(22);
+        assertThat(events.get(0)).isEqualTo("benchmark started");
+        assertThat(events.get(21)).isEqualTo("benchmark finished");
+        for (int sequenceId = 0; sequenceId < 10; sequenceId++) {
+            assertThat(events.indexOf("execution started " + sequenceId))
+                    .isLessThan(events.indexOf("execution finished " + sequenceId));
+        }
+    }
+
+    @Test
+    public void coalescesEventsOfExecutionWhenQueueIsFull()
+    {
+        CountDownLatch benchmarkStartReported = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener()
+        {
+            @Override
+            public Future<?> benchmarkStarted(Benchmark benchmark)
+            {
+                return CompletableFuture.runAsync(() -> {
+                    await(benchmarkStartReported);
+                    super.benchmarkStarted(benchmark);
+                });
+            }
+        };
+        BenchmarkStatusReporter reporter = new BenchmarkStatusReporter(List.of(listener), 2, 2, QueueOverflowPolicy.COALESCE);
+        ReportingMetrics.Snapshot before = reporter.snapshotMetrics();
+
+        QueryExecution execution = execution(0);
+        reporter.reportBenchmarkStarted(benchmark);
+        reporter.reportExecutionStarted(execution);
+        // the queue is full, but the execution did not start to be reported yet
+        reporter.reportExecutionFinished(result(execution));
+        benchmarkStartReported.countDown();
+        reporter.awaitAllFutures(1, MINUTES);
+
+        assertThat(listener.events).containsExactly("benchmark started", "execution started 0", "execution finished 0");
+        Map<String, Double> measurements = reporter.measurementsSince(before).stream()
+                .collect(toMap(Measurement::getName, Measurement::getValue));
+        assertThat(measurements.get("reporting_coalesced_events")).isEqualTo(1.0);
+        assertThat(measurements.get("reporting_queue_depth_max")).isEqualTo(2.0);
+        assertThat(measurements.get("reporting_blocked")).isEqualTo(0.0);
+        assertThat(measurements).containsKeys("reporting_lag_mean", "reporting_lag_max");
+        assertThat(measurements.keySet()).anyMatch(name -> name.startsWith("listener_latency_mean."));
+    }
+
+    @Test
+    public void blocksWhenQueueIsFull()
+    {
+        RecordingListener listener = new RecordingListener()
+        {
+            @Override
+            public Future<?> executionStarted(QueryExecution execution)
+            {
+                return CompletableFuture.runAsync(() -> {
+                    sleep(50);
+                    super.executionStarted(execution);
+                });
+            }
+        };
+        BenchmarkStatusReporter reporter = new BenchmarkStatusReporter(List.of(listener), 1, 1, QueueOverflowPolicy.COALESCE);
+        ReportingMetrics.Snapshot before = reporter.snapshotMetrics();
+
+        reporter.reportExecutionStarted(execution(0));
+        reporter.reportExecutionStarted(execution(1));
+        reporter.awaitAllFutures(1, MINUTES);
+
+        assertThat(listener.events).containsExactly("execution started 0", "execution started 1");
+        Map<String, Double> measurements = reporter.measurementsSince(before).stream()
+                .collect(toMap(Measurement::getName, Measurement::getValue));
+        assertThat(measurements.get("reporting_blocked")).isGreaterThan(0.0);
+        assertThat(measurements.get("reporting_coalesced_events")).isEqualTo(0.0);
+    }
+
+    @Test
+    public void reportsStartsSynchronouslyToListenersRequiringIt()
+    {
+        CountDownLatch asynchronousReported = new CountDownLatch(1);
+        RecordingListener asynchronousListener = new RecordingListener()
+        {
+            @Override
+            public Future<?> benchmarkStarted(Benchmark benchmark)
+            {
+                await(asynchronousReported);
+                return super.benchmarkStarted(benchmark);
+            }
+        };
+        RecordingListener synchronousListener = new RecordingListener()
+        {
+            @Override
+            public Future<?> executionStarted(QueryExecution execution)
+            {
+                events.add("execution started on " + Thread.currentThread().getName());
+                return CompletableFuture.completedFuture("");
+            }
+
+            @Override
+            public boolean requiresSynchronousStart()
+            {
+                return true;
+            }
+        };
+        BenchmarkStatusReporter reporter = new BenchmarkStatusReporter(List.of(asynchronousListener, synchronousListener), 2, 100, QueueOverflowPolicy.BLOCK);
+
+        QueryExecution execution = execution(0);
+        reporter.reportBenchmarkStarted(benchmark);
+        reporter.reportExecutionStarted(execution);
+        // starts are reported before the benchmark proceeds, while other listeners did not report them yet
+        assertThat(synchronousListener.events).containsExactly("benchmark started", "execution started on " + Thread.currentThread().getName());
+        assertThat(asynchronousListener.events).isEmpty();
+
+        reporter.reportExecutionFinished(result(execution));
+        asynchronousReported.countDown();
+        reporter.awaitAllFutures(1, MINUTES);
+
+        assertThat(synchronousListener.events).containsExactly(
+                "benchmark started",
+                "execution started on " + Thread.currentThread().getName(),
+                "execution finished 0");
+        assertThat(asynchronousListener.events).containsExactly("benchmark started", "execution started 0", "execution finished 0");
+    }
+
+    @Test
+    public void failsOnListenerFailure()
+    {
+        BenchmarkStatusReporter reporter = new BenchmarkStatusReporter(List.of(new DefaultBenchmarkExecutionListener()
+        {
+            @Override
+            public Future<?> benchmarkStarted(Benchmark benchmark)
+            {
+                throw new IllegalStateException("listener failure");
+            }
+        }));
+
+        reporter.reportBenchmarkStarted(benchmark);
+
+        assertThatThrownBy(() -> reporter.awaitAllFutures(1, MINUTES))
+                .hasMessageContaining("listener failure");
+        // the failure is reported once
+        reporter.processCompletedFutures();
+    }
+
+    @Test
+    public void doesNotJournalExecutionsWhichWereNotReported()
+    {
+        QueryExecution reported = execution(0);
+        QueryExecution notReported = execution(1);
+        BenchmarkExecutionListener serviceListener = new DefaultBenchmarkExecutionListener()
+        {
+            @Override
+            public Future<?> executionFinished(QueryExecutionResult execution)
+            {
+                if (execution.getQueryExecution() == notReported) {
+                    return CompletableFuture.failedFuture(new IllegalStateException("service unavailable"));
+                }
+                return CompletableFuture.completedFuture("");
+            }
+        };
+        ExecutionJournal journal = mock(ExecutionJournal.class);
+        when(journal.isEnabled()).thenReturn(true);
+        JournalExecutionListener journalListener = new JournalExecutionListener();
+        ReflectionTestUtils.setField(journalListener, "executionJournal", journal);
+        ReflectionTestUtils.setField(journalListener, "executionBatcher", mock(ExecutionBatcher.class));
+        BenchmarkStatusReporter reporter = new BenchmarkStatusReporter(List.of(journalListener, serviceListener));
+
+        reporter.reportExecutionFinished(result(reported));
+        reporter.reportExecutionFinished(result(notReported));
+
+        assertThatThrownBy(() -> reporter.awaitAllFutures(1, MINUTES))
+                .hasMessageContaining("service unavailable");
+        verify(journal).executionFinished(reported);
+        verify(journal, never()).executionFinished(notReported);
+    }
+
+    private QueryExecution execution(int sequenceId)
+    {
+        return new QueryExecution(benchmark, benchmark.getQueries().get(0), sequenceId, new SqlStatementGenerator());
+    }
+
+    private static QueryExecutionResult result(QueryExecution execution)
+    {
+        return new QueryExecutionResultBuilder(execution)
+                .startTimer()
+                .endTimer()
+                .build();
+    }
+
+    private BenchmarkExecutionResult benchmarkResult()
+    {
+        return new BenchmarkExecutionResultBuilder(benchmark)
+                .withExecutions(List.of())
+                .startTimer()
+                .endTimer()
+                .build();
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try {
+            latch.await();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void sleep(long millis)
+    {
+        try {
+            MILLISECONDS.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class RecordingListener
+            extends DefaultBenchmarkExecutionListener
+    {
+        protected final List<String> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Future<?> benchmarkStarted(Benchmark benchmark)
+        {
+            events.add("benchmark started");
+            return CompletableFuture.completedFuture("");
+        }
+
+        @Override
+        public Future<?> benchmarkFinished(BenchmarkExecutionResult benchmarkExecutionResult)
+        {
+            events.add("benchmark finished");
+            return CompletableFuture.completedFuture("");
+        }
+
+        @Override
+        public Future<?> executionStarted(QueryExecution execution)
+        {
+            events.add("execution started " + execution.getSequenceId());
+            return CompletableFuture.completedFuture("");
+        }
+
+        @Override
+        public Future<?> executionFinished(QueryExecutionResult execution)
+        {
+            events.add("execution finished " + execution.getQueryExecution().getSequenceId());
+            return CompletableFuture.completedFuture("");
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.listeners.measurements;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.benchto.driver.Benchmark;
+import io.trino.benchto.driver.concurrent.SchedulingStatistics;
+import io.trino.benchto.driver.execution.BenchmarkExecutionResult;
+import io.trino.benchto.driver.execution.BenchmarkExecutionResult.BenchmarkExecutionResultBuilder;
+import io.trino.benchto.driver.service.Measurement;
+import org.junit.Test;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecordedMeasurementProviderTest
+{
+    private final RecordedMeasurementProvider provider = new RecordedMeasurementProvider();
+
+    @Test
+    public void providesMeasurementsRecordedByDriver()
+    {
+        SchedulingStatistics statistics = new SchedulingStatistics();
+        statistics.record(MILLISECONDS.toNanos(5));
+        BenchmarkExecutionResult result = new BenchmarkExecutionResultBuilder(benchmark())
+                .withExecutions(ImmutableList.of())
+                .addMeasurements(statistics.toMeasurements())
+                .build();
+
+        assertThat(provider.loadMeasurements(result).join())
+                .extracting(Measurement::getName)
+                .containsExactly("scheduling_delay_mean", "scheduling_delay_max");
+    }
+
+    @Test
+    public void noMeasurementsWhenNothingRecorded()
+    {
+        BenchmarkExecutionResult result = new BenchmarkExecutionResultBuilder(benchmark())
+                .withExecutions(ImmutableList.of())
+                .build();
+
+        assertThat(provider.loadMeasurements(result).join()).isEmpty();
+    }
+
+    private static Benchmark benchmark()
+    {
+        return new Benchmark.BenchmarkBuilder("name", "sequenceId", emptyList())
+                .withDataSource("datasource")
+                .withEnvironment("environment")
+                .withRuns(1)
+                .withSuitePrewarmRuns(0)
+                .withBenchmarkPrewarmRuns(0)
+                .withConcurrency(1)
+                .withBeforeBenchmarkMacros(emptyList())
+                .withAfterBenchmarkMacros(emptyList())
+                .withVariables(emptyMap())
+                .build();
+    }
+}
@@ -37,6 +37,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
@@ -54,6 +55,10 @@ public class BenchmarkLoaderTest
 
     private Duration benchmarkExecutionAge = Duration.ofDays(Integer.MAX_VALUE);
 
+    private Function<String, Duration> benchmarkExecutionDuration = uniqueName -> Duration.ZERO;
+
+    private Optional<String> excludedSequenceId = Optional.empty();
+
     @Before
     public void setupBenchmarkLoader()
             throws Exception
@@ -104,6 +109,15 @@ public class BenchmarkLoaderTest
                         .map(benchmark -> benchmarkExecutionAge)
                         .collect(toList());
             }
+
+            @Override
+            public List<Duration> getBenchmarkSuccessfulExecutionDurations(List<String> benchmarkUniqueNames, Optional<String> excludedSequenceId)
+            {
+                BenchmarkLoaderTest.this.excludedSequenceId = excludedSequenceId;
+                return benchmarkUniqueNames.stream()
+                        .map(benchmarkExecutionDuration)
+                        .collect(toList());
+            }
         };
     }
 
@@ -301,6 +315,57 @@ public class BenchmarkLoaderTest
         assertLoadedBenchmarksCount(8);
     }
 
+    @Test
+    public void allBenchmarks_sharded()
+            throws IOException
+    {
+        withFrequencyCheckEnabled(false);
+        withShard("1/2");
+        // without history benchmark groups are assigned by their names
+        List<Benchmark> firstShard = assertLoadedBenchmarksCount(7);
+        withShard("2/2");
+        List<Benchmark> secondShard = assertLoadedBenchmarksCount(1);
+
+        assertThat(firstShard.stream().map(Benchmark::getUniqueName))
+                .doesNotContainAnyElementsOf(secondShard.stream().map(Benchmark::getUniqueName).collect(toList()));
+    }
+
+    @Test
+    public void allBenchmarks_sharded_with_different_freshness()
+            throws IOException
+    {
+        benchmarkExecutionDuration = uniqueName -> Duration.ofMinutes(uniqueName.length());
+        withFrequencyCheckEnabled(false);
+        loader.setup();
+        withShard("1/2");
+        Set<String> firstShard = uniqueNames(loader.loadBenchmarks("sequenceId"));
+        withShard("2/2");
+        Set<String> secondShard = uniqueNames(loader.loadBenchmarks("sequenceId"));
+        assertThat(excludedSequenceId).contains("sequenceId");
+
+        assertThat(secondShard).containsExactlyInAnyOrder("quarantine-benchmark_", "concurrent-benchmark_", "different-than-filename_to_be_overridden=42");
+        assertThat(firstShard).doesNotContainAnyElementsOf(secondShard);
+
+        // the first shard starts when no benchmark was tested recently, the second one when some of its benchmarks were
+        withFrequencyCheckEnabled(true);
+        withBenchmarkExecutionAge(Duration.ofDays(10));
+        withShard("1/2");
+        Set<String> freshFirstShard = uniqueNames(loader.loadBenchmarks("sequenceId"));
+        withBenchmarkExecutionAge(Duration.ofDays(2));
+        withShard("2/2");
+        Set<String> freshSecondShard = uniqueNames(loader.loadBenchmarks("sequenceId"));
+
+        assertThat(freshFirstShard).isEqualTo(firstShard);
+        assertThat(freshSecondShard).containsExactly("concurrent-benchmark_");
+    }
+
+    private static Set<String> uniqueNames(List<Benchmark> benchmarks)
+    {
+        return benchmarks.stream()
+                .map(Benchmark::getUniqueName)
+                .collect(toSet());
+    }
+
     private MapAssert<String, String> assertThatBenchmarkWithEntries(List<Benchmark> benchmarks, MapEntry<String, String>... entries)
     {
         Benchmark searchBenchmark = benchmarks.stream()
@@ -354,6 +419,11 @@ public class BenchmarkLoaderTest
         ReflectionTestUtils.setField(benchmarkProperties, "activeVariables", activeVariables);
     }
 
+    private void withShard(String shard)
+    {
+        ReflectionTestUtils.setField(benchmarkProperties, "shard", shard);
+    }
+
     private void withFrequencyCheckEnabled(boolean enabled)
     {
         ReflectionTestUtils.setField(benchmarkProperties, "frequencyCheckEnabled", Boolean.toString(enabled));
@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.loader;
+
+import io.trino.benchto.driver.Benchmark;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BenchmarkShardTest
+{
+    private static final List<Benchmark> BENCHMARKS = List.of(
+            benchmark("a"),
+            benchmark("b"),
+            benchmark("b"),
+            benchmark("c"),
+            benchmark("d"));
+
+    @Test
+    public void balancesExpectedDurations()
+    {
+        // groups take: a - 6, b - 4, c - 3, d - 1 minutes
+        List<Duration> durations = List.of(minutes(6), minutes(2), minutes(2), minutes(3), minutes(1));
+
+        assertThat(names(new BenchmarkShard(1, 2).select(BENCHMARKS, durations))).containsExactly("a", "d");
+        assertThat(names(new BenchmarkShard(2, 2).select(BENCHMARKS, durations))).containsExactly("b", "b", "c");
+    }
+
+    @Test
+    public void balancesGroupsWithoutHistoryAsAverage()
+    {
+        // b is expected to take as long as an average group: 3 minutes
+        List<Duration> durations = List.of(minutes(6), Duration.ZERO, Duration.ZERO, minutes(2), minutes(1));
+
+        assertThat(names(new BenchmarkShard(1, 2).select(BENCHMARKS, durations))).containsExactly("a");
+        assertThat(names(new BenchmarkShard(2, 2).select(BENCHMARKS, durations))).containsExactly("b", "b", "c", "d");
+    }
+
+    @Test
+    public void assignsGroupsByNameWithoutHistory()
+    {
+        List<Duration> durations = List.of(Duration.ZERO, Duration.ZERO, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+
+        List<String> firstShard = names(new BenchmarkShard(1, 2).select(BENCHMARKS, durations));
+        List<String> secondShard = names(new BenchmarkShard(2, 2).select(BENCHMARKS, durations));
+        assertThat(firstShard).doesNotContainAnyElementsOf(secondShard);
+        assertThat(firstShard.size() + secondShard.size()).isEqualTo(BENCHMARKS.size());
+
+        // the assignment of a group does not depend on other groups
+        for (Benchmark benchmark : BENCHMARKS) {
+            int shard = firstShard.contains(benchmark.getName()) ? 1 : 2;
+            assertThat(new BenchmarkShard(shard, 2).select(List.of(benchmark), List.of(Duration.ZERO))).containsExactly(benchmark);
+        }
+    }
+
+    @Test
+    public void parse()
+    {
+        assertThat(BenchmarkShard.parse("2/3")).hasToString("2/3");
+        assertThatThrownBy(() -> BenchmarkShard.parse("0/3"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Shard index must be between 1 and 3, got: 0");
+        assertThatThrownBy(() -> BenchmarkShard.parse("1-3"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Shard must have INDEX/COUNT format, got: 1-3");
+    }
+
+    private static List<String> names(List<Benchmark> benchmarks)
+    {
+        return benchmarks.stream()
+                .map(Benchmark::getName)
+                .toList();
+    }
+
+    private static Duration minutes(int minutes)
+    {
+        return Duration.ofMinutes(minutes);
+    }
+
+    private static Benchmark benchmark(String name)
+    {
+        return new Benchmark.BenchmarkBuilder(name, "1", List.of())
+                .withVariables(Map.of())
+                .build();
+    }
+}
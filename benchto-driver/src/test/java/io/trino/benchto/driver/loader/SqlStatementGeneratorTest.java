@@ -40,6 +40,36 @@ public class SqlStatementGeneratorTest
         assertThat(queries).containsExactly("select * from nation");
     }
 
+    @Test
+    public void testTemplateIsRenderedForEveryVariables()
+    {
+        Query query = new Query("templateQuery", "select * from ${table}", ImmutableMap.of());
+        assertThat(sqlStatementGenerator.generateQuerySqlStatement(query, ImmutableMap.of("table", "nation")))
+                .containsExactly("select * from nation");
+        assertThat(sqlStatementGenerator.generateQuerySqlStatement(query, ImmutableMap.of("table", "region")))
+                .containsExactly("select * from region");
+        assertThat(sqlStatementGenerator.generateQuerySqlStatement(query, ImmutableMap.of("table", "nation")))
+                .containsExactly("select * from nation");
+    }
+
+    @Test
+    public void testStatementsAreCachedUnlessTheyDependOnExecution()
+    {
+        Query query = new Query("templateQuery", "select * from ${table}", ImmutableMap.of());
+        sqlStatementGenerator.prerender(query, ImmutableMap.of("table", "nation"));
+        assertThat(sqlStatementGenerator.generateQuerySqlStatement(query, ImmutableMap.of("table", "nation")))
+                .isSameAs(sqlStatementGenerator.generateQuerySqlStatement(query, ImmutableMap.of("table", "nation")));
+
+        Query perExecutionQuery = new Query("perExecutionQuery", "select ${execution_sequence_id} from ${table}", ImmutableMap.of());
+        sqlStatementGenerator.prerender(perExecutionQuery, ImmutableMap.of("table", "nation"));
+        List<String> first = sqlStatementGenerator.generateQuerySqlStatement(perExecutionQuery, ImmutableMap.of("table", "nation", "execution_sequence_id", "1"));
+        List<String> again = sqlStatementGenerator.generateQuerySqlStatement(perExecutionQuery, ImmutableMap.of("table", "nation", "execution_sequence_id", "1"));
+        assertThat(first).containsExactly("select 1 from nation");
+        assertThat(again).isEqualTo(first).isNotSameAs(first);
+        assertThat(sqlStatementGenerator.generateQuerySqlStatement(perExecutionQuery, ImmutableMap.of("table", "nation", "execution_sequence_id", "2")))
+                .containsExactly("select 2 from nation");
+    }
+
     @Test
     public void testListTemplateQuery()
     {
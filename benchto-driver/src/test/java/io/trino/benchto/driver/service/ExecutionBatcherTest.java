@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.service;
+
+import io.trino.benchto.driver.service.BenchmarkServiceClient.ExecutionsBatchRequest;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishRequest.FinishRequestBuilder;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishedExecution;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.benchto.driver.service.BenchmarkServiceClient.FinishRequest.Status.ENDED;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ExecutionBatcherTest
+{
+    @Mock
+    BenchmarkServiceClient benchmarkServiceClient;
+
+    @InjectMocks
+    ExecutionBatcher batcher;
+
+    @Before
+    public void setUp()
+    {
+        ReflectionTestUtils.setField(batcher, "batchSize", 2);
+        ReflectionTestUtils.setField(batcher, "flushInterval", Duration.ofHours(1));
+    }
+
+    @Test
+    public void storesFullBatches()
+    {
+        batcher.add("benchmark", "1", execution("0"), () -> {});
+        verify(benchmarkServiceClient, never()).finishExecutions(anyString(), anyString(), any());
+
+        batcher.add("other", "1", execution("0"), () -> {});
+        batcher.add("benchmark", "1", execution("1"), () -> {});
+        batcher.add("benchmark", "1", execution("2"), () -> {});
+
+        assertThat(storedExecutions("benchmark", 1)).containsExactly(List.of("0", "1"));
+        verify(benchmarkServiceClient, never()).finishExecutions(eq("other"), anyString(), any());
+    }
+
+    @Test
+    public void flushStoresWaitingExecutions()
+    {
+        batcher.add("benchmark", "1", execution("0"), () -> {});
+        batcher.flush("benchmark", "1");
+        batcher.flush("benchmark", "1");
+
+        assertThat(storedExecutions("benchmark", 1)).containsExactly(List.of("0"));
+    }
+
+    @Test
+    public void storesExpiredBatches()
+    {
+        ReflectionTestUtils.setField(batcher, "flushInterval", Duration.ofMillis(10));
+        doThrow(new RuntimeException("service unavailable"))
+                .doNothing()
+                .when(benchmarkServiceClient).finishExecutions(eq("benchmark"), eq("1"), any());
+
+        batcher.add("benchmark", "1", execution("0"), () -> {});
+
+        // the failed batch is stored again with the next timed flush
+        ArgumentCaptor<ExecutionsBatchRequest> requests = ArgumentCaptor.forClass(ExecutionsBatchRequest.class);
+        verify(benchmarkServiceClient, timeout(10_000).times(2)).finishExecutions(eq("benchmark"), eq("1"), requests.capture());
+        assertThat(requests.getAllValues())
+                .extracting(request -> request.getExecutions().size())
+                .containsExactly(1, 1);
+    }
+
+    @Test
+    public void dropsExecutionsAfterRetries()
+            throws InterruptedException
+    {
+        ReflectionTestUtils.setField(batcher, "flushInterval", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(batcher, "retries", 2);
+        doThrow(new RuntimeException("service unavailable"))
+                .when(benchmarkServiceClient).finishExecutions(eq("benchmark"), eq("1"), any());
+
+        batcher.add("benchmark", "1", execution("0"), () -> {});
+
+        verify(benchmarkServiceClient, timeout(10_000).times(3)).finishExecutions(eq("benchmark"), eq("1"), any());
+        MILLISECONDS.sleep(100);
+        verify(benchmarkServiceClient, times(3)).finishExecutions(eq("benchmark"), eq("1"), any());
+        assertThat(batcher.flush("benchmark", "1")).isEqualTo(1);
+        assertThat(batcher.flush("benchmark", "1")).isZero();
+        verifyNoMoreInteractions(benchmarkServiceClient);
+    }
+
+    @Test
+    public void runsCallbacksOfStoredExecutions()
+    {
+        doThrow(new RuntimeException("service unavailable"))
+                .doNothing()
+                .when(benchmarkServiceClient).finishExecutions(eq("benchmark"), eq("1"), any());
+        List<String> stored = new CopyOnWriteArrayList<>();
+
+        batcher.add("benchmark", "1", execution("0"), () -> stored.add("0"));
+        assertThatThrownBy(() -> batcher.flush("benchmark", "1"))
+                .hasMessage("service unavailable");
+        batcher.add("benchmark", "1", execution("1"), () -> stored.add("1"));
+        assertThat(stored).isEmpty();
+        batcher.flush("benchmark", "1");
+
+        assertThat(stored).containsExactly("1");
+    }
+
+    private List<List<String>> storedExecutions(String uniqueName, int requests)
+    {
+        ArgumentCaptor<ExecutionsBatchRequest> captor = ArgumentCaptor.forClass(ExecutionsBatchRequest.class);
+        verify(benchmarkServiceClient, times(requests)).finishExecutions(eq(uniqueName), eq("1"), captor.capture());
+        return captor.getAllValues().stream()
+                .map(request -> request.getExecutions().stream()
+                        .map(FinishedExecution::getSequenceId)
+                        .collect(toImmutableList()))
+                .collect(toImmutableList());
+    }
+
+    private static FinishedExecution execution(String sequenceId)
+    {
+        return new FinishedExecution(sequenceId, Optional.empty(), new FinishRequestBuilder().withStatus(ENDED).build());
+    }
+}
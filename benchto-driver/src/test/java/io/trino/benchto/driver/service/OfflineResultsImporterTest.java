@@ -0,0 +1,145 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.service;
+
+import io.trino.benchto.driver.BenchmarkProperties;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.BenchmarkStartRequest;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.BenchmarkStartRequest.BenchmarkStartRequestBuilder;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.ExecutionStartRequest.ExecutionStartRequestBuilder;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.ExecutionsBatchRequest;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishRequest;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishRequest.FinishRequestBuilder;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishedExecution;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+
+import static io.trino.benchto.driver.service.BenchmarkServiceClient.FinishRequest.Status.ENDED;
+import static java.util.stream.Collectors.joining;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OfflineResultsImporterTest
+{
+    private static final Instant START = Instant.parse("2024-01-01T10:15:30Z");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    BenchmarkServiceClient benchmarkServiceClient;
+
+    @Mock
+    OfflineResultsStore offlineResultsStore;
+
+    @Mock
+    BenchmarkProperties properties;
+
+    @InjectMocks
+    OfflineResultsImporter importer;
+
+    @Test
+    public void importsExecutionsInBatches()
+            throws IOException
+    {
+        Path file = temporaryFolder.newFolder().toPath().resolve("results.bin");
+        when(properties.getOfflineResults()).thenReturn(Optional.of(file));
+        OfflineResultsStore store = new OfflineResultsStore();
+        ReflectionTestUtils.setField(store, "properties", properties);
+        store.open();
+        store.benchmarkStarted("finished", "1", new BenchmarkStartRequestBuilder("finished").environmentName("env").build());
+        store.benchmarkStarted("interrupted", "1", new BenchmarkStartRequestBuilder("interrupted").environmentName("env").build());
+        for (int execution = 0; execution < 3; execution++) {
+            store.executionStarted("finished", "1", Integer.toString(execution), new ExecutionStartRequestBuilder()
+                    .withStartTime(START.plusSeconds(execution))
+                    .build());
+            store.executionFinished("finished", "1", new FinishedExecution(Integer.toString(execution), Optional.empty(), finishRequest()));
+        }
+        store.executionFinished("interrupted", "1", new FinishedExecution("0", Optional.of(START), finishRequest()));
+        store.benchmarkFinished("finished", "1", finishRequest());
+        store.close();
+        ReflectionTestUtils.setField(importer, "batchSize", 2);
+
+        importer.importResults(file);
+
+        InOrder inOrder = inOrder(benchmarkServiceClient);
+        inOrder.verify(benchmarkServiceClient).startBenchmark(eq("finished"), eq("1"), any(BenchmarkStartRequest.class));
+        inOrder.verify(benchmarkServiceClient).startBenchmark(eq("interrupted"), eq("1"), any(BenchmarkStartRequest.class));
+        ArgumentCaptor<ExecutionsBatchRequest> batches = ArgumentCaptor.forClass(ExecutionsBatchRequest.class);
+        inOrder.verify(benchmarkServiceClient, times(2)).finishExecutions(eq("finished"), eq("1"), batches.capture());
+        inOrder.verify(benchmarkServiceClient).finishBenchmark(eq("finished"), eq("1"), any(FinishRequest.class));
+        inOrder.verify(benchmarkServiceClient).finishExecutions(eq("interrupted"), eq("1"), batches.capture());
+        inOrder.verifyNoMoreInteractions();
+
+        assertThat(batches.getAllValues())
+                .extracting(batch -> batch.getExecutions().stream()
+                        .map(execution -> execution.getSequenceId() + "@" + execution.getStartTime().orElseThrow())
+                        .collect(joining(", ")))
+                .containsExactly(
+                        "0@" + START + ", 1@" + START.plusSeconds(1),
+                        "2@" + START.plusSeconds(2),
+                        "0@" + START);
+    }
+
+    @Test
+    public void importsResultsOnce()
+            throws IOException
+    {
+        Path file = temporaryFolder.newFolder().toPath().resolve("results.bin");
+        when(properties.getOfflineResults()).thenReturn(Optional.of(file));
+        OfflineResultsStore store = new OfflineResultsStore();
+        ReflectionTestUtils.setField(store, "properties", properties);
+        store.open();
+        store.benchmarkStarted("finished", "1", new BenchmarkStartRequestBuilder("finished").environmentName("env").build());
+        store.benchmarkStarted("interrupted", "1", new BenchmarkStartRequestBuilder("interrupted").environmentName("env").build());
+        store.executionFinished("finished", "1", new FinishedExecution("0", Optional.of(START), finishRequest()));
+        store.executionFinished("interrupted", "1", new FinishedExecution("0", Optional.of(START), finishRequest()));
+        store.benchmarkFinished("finished", "1", finishRequest());
+        store.close();
+
+        importer.importResults(file);
+        verify(benchmarkServiceClient, times(2)).startBenchmark(any(), any(), any(BenchmarkStartRequest.class));
+        verify(benchmarkServiceClient, times(2)).finishExecutions(any(), any(), any(ExecutionsBatchRequest.class));
+        verify(benchmarkServiceClient).finishBenchmark(eq("finished"), eq("1"), any(FinishRequest.class));
+        clearInvocations(benchmarkServiceClient);
+
+        importer.importResults(file);
+        verifyNoInteractions(benchmarkServiceClient);
+    }
+
+    private static FinishRequest finishRequest()
+    {
+        return new FinishRequestBuilder().withStatus(ENDED).build();
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.service;
+
+import io.trino.benchto.driver.BenchmarkProperties;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.BenchmarkStartRequest;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.BenchmarkStartRequest.BenchmarkStartRequestBuilder;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.ExecutionStartRequest;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.ExecutionStartRequest.ExecutionStartRequestBuilder;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishRequest;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishRequest.FinishRequestBuilder;
+import io.trino.benchto.driver.service.BenchmarkServiceClient.FinishedExecution;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static io.trino.benchto.driver.service.BenchmarkServiceClient.FinishRequest.Status.ENDED;
+import static io.trino.benchto.driver.service.BenchmarkServiceClient.FinishRequest.Status.FAILED;
+import static io.trino.benchto.driver.service.Measurement.additiveMeasurement;
+import static io.trino.benchto.driver.service.Measurement.measurement;
+import static java.lang.Math.toIntExact;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OfflineResultsStoreTest
+{
+    private static final Instant START = Instant.parse("2024-01-01T10:15:30.123456789Z");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    BenchmarkProperties properties;
+
+    private Path file;
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        file = temporaryFolder.newFolder().toPath().resolve("results.bin");
+        when(properties.getOfflineResults()).thenReturn(Optional.of(file));
+    }
+
+    @Test
+    public void readsStoredResults()
+            throws IOException
+    {
+        OfflineResultsStore store = store();
+        store.benchmarkStarted("benchmark_a=1", "1", new BenchmarkStartRequestBuilder("benchmark")
+                .environmentName("env")
+                .withStartTime(START)
+                .addVariable("a", "1")
+                .addAttribute("query", "SELECT 1")
+                .build());
+        store.executionStarted("benchmark_a=1", "1", "0", new ExecutionStartRequestBuilder()
+                .withStartTime(START.plusSeconds(1))
+                .build());
+        store.executionFinished("benchmark_a=1", "1", new FinishedExecution("0", Optional.empty(), new FinishRequestBuilder()
+                .withStatus(ENDED)
+                .withEndTime(START.plusSeconds(2))
+                .addMeasurement(measurement("duration", "MILLISECONDS", 1000))
+                .addQueryInfo("{\"query\": \"info\"}")
+                .build()));
+        store.executionFinished("benchmark_a=1", "1", new FinishedExecution("1", Optional.of(START.plusSeconds(2)), new FinishRequestBuilder()
+                .withStatus(FAILED)
+                .addMeasurement(measurement("duration", "MILLISECONDS", 1500))
+                .addAttribute("failureMessage", "failed")
+                .build()));
+        store.benchmarkFinished("benchmark_a=1", "1", new FinishRequestBuilder()
+                .withStatus(FAILED)
+                .withEndTime(START.plusSeconds(4))
+                .addMeasurement(additiveMeasurement("throughput", "QUERY_PER_SECOND", 2))
+                .build());
+        store.close();
+
+        List<String> records = read();
+        assertThat(records).containsExactly(
+                "benchmarkStarted benchmark_a=1 1 benchmark env " + START + " {a=1} {query=SELECT 1}",
+                "executionStarted benchmark_a=1 1 0 " + START.plusSeconds(1) + " {}",
+                "executionFinished benchmark_a=1 1 0 Optional.empty ENDED Optional[" + START.plusSeconds(2) + "] " +
+                        "[Measurement{name=duration, unit=MILLISECONDS, value=1000.0, additive=false}] {} Optional[{\"query\": \"info\"}]",
+                "executionFinished benchmark_a=1 1 1 Optional[" + START.plusSeconds(2) + "] FAILED Optional.empty " +
+                        "[Measurement{name=duration, unit=MILLISECONDS, value=1500.0, additive=false}] {failureMessage=failed} Optional.empty",
+                "benchmarkFinished benchmark_a=1 1 FAILED Optional[" + START.plusSeconds(4) + "] " +
+                        "[Measurement{name=throughput, unit=QUERY_PER_SECOND, value=2.0, additive=true}] {} Optional.empty");
+    }
+
+    @Test
+    public void appendsResultsOfEveryRun()
+            throws IOException
+    {
+        OfflineResultsStore first = store();
+        first.benchmarkStarted("benchmark", "1", new BenchmarkStartRequestBuilder("benchmark").environmentName("env").build());
+        first.close();
+        OfflineResultsStore second = store();
+        second.benchmarkStarted("other", "2", new BenchmarkStartRequestBuilder("other").environmentName("env").build());
+        second.benchmarkFinished("other", "2", new FinishRequestBuilder().withStatus(ENDED).build());
+        second.close();
+
+        assertThat(read()).containsExactly(
+                "benchmarkStarted benchmark 1 benchmark env null {} {}",
+                "benchmarkStarted other 2 other env null {} {}",
+                "benchmarkFinished other 2 ENDED Optional.empty [] {} Optional.empty");
+    }
+
+    @Test
+    public void skipsIncompleteRecord()
+            throws IOException
+    {
+        OfflineResultsStore store = store();
+        store.benchmarkStarted("benchmark", "1", new BenchmarkStartRequestBuilder("benchmark").environmentName("env").build());
+        store.benchmarkFinished("benchmark", "1", new FinishRequestBuilder().withStatus(ENDED).build());
+        long completeSize = Files.size(file);
+        store.benchmarkStarted("other", "1", new BenchmarkStartRequestBuilder("other").environmentName("env").build());
+        ReflectionTestUtils.invokeMethod(store, "flush");
+        // the driver was killed while the record was written, so the file is not closed
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, toIntExact(completeSize + 1)));
+
+        assertThat(read()).containsExactly(
+                "benchmarkStarted benchmark 1 benchmark env null {} {}",
+                "benchmarkFinished benchmark 1 ENDED Optional.empty [] {} Optional.empty");
+    }
+
+    @Test
+    public void appendsAfterAbandonedRun()
+            throws IOException
+    {
+        OfflineResultsStore abandoned = store();
+        abandoned.benchmarkStarted("benchmark", "1", new BenchmarkStartRequestBuilder("benchmark").environmentName("env").build());
+        abandoned.benchmarkFinished("benchmark", "1", new FinishRequestBuilder().withStatus(ENDED).build());
+        long completeSize = Files.size(file);
+        abandoned.benchmarkStarted("other", "1", new BenchmarkStartRequestBuilder("other").environmentName("env").build());
+        ReflectionTestUtils.invokeMethod(abandoned, "flush");
+        // the driver was killed while the frame was written, so the store is never closed
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 3));
+        assertThat(Files.size(file)).isGreaterThan(completeSize);
+
+        OfflineResultsStore next = store();
+        next.benchmarkStarted("other", "2", new BenchmarkStartRequestBuilder("other").environmentName("env").build());
+        next.benchmarkFinished("other", "2", new FinishRequestBuilder().withStatus(ENDED).build());
+        next.close();
+
+        assertThat(read()).containsExactly(
+                "benchmarkStarted benchmark 1 benchmark env null {} {}",
+                "benchmarkFinished benchmark 1 ENDED Optional.empty [] {} Optional.empty",
+                "benchmarkStarted other 2 other env null {} {}",
+                "benchmarkFinished other 2 ENDED Optional.empty [] {} Optional.empty");
+    }
+
+    @Test
+    public void stopsAtCorruptedFrame()
+            throws IOException
+    {
+        OfflineResultsStore store = store();
+        store.benchmarkStarted("benchmark", "1", new BenchmarkStartRequestBuilder("benchmark").environmentName("env").build());
+        store.benchmarkFinished("benchmark", "1", new FinishRequestBuilder().withStatus(ENDED).build());
+        int completeSize = toIntExact(Files.size(file));
+        store.benchmarkStarted("other", "1", new BenchmarkStartRequestBuilder("other").environmentName("env").build());
+        store.close();
+        byte[] content = Files.readAllBytes(file);
+        content[content.length - 1] ^= 1;
+        Files.write(file, content);
+
+        assertThat(read()).containsExactly(
+                "benchmarkStarted benchmark 1 benchmark env null {} {}",
+                "benchmarkFinished benchmark 1 ENDED Optional.empty [] {} Optional.empty");
+        assertThat(content.length).isGreaterThan(completeSize);
+    }
+
+    private OfflineResultsStore store()
+            throws IOException
+    {
+        OfflineResultsStore store = new OfflineResultsStore();
+        ReflectionTestUtils.setField(store, "properties", properties);
+        store.open();
+        return store;
+    }
+
+    private List<String> read()
+            throws IOException
+    {
+        List<String> records = new ArrayList<>();
+        OfflineResultsStore.read(file, new OfflineResultsStore.RecordHandler()
+        {
+            @Override
+            public void benchmarkStarted(String uniqueName, String sequenceId, BenchmarkStartRequest request)
+            {
+                records.add(String.join(" ", "benchmarkStarted", uniqueName, sequenceId, request.getName(), request.getEnvironmentName(),
+                        String.valueOf(request.getStartTime().orElse(null)), request.getVariables().toString(), request.getAttributes().toString()));
+            }
+
+            @Override
+            public void executionStarted(String uniqueName, String sequenceId, String executionSequenceId, ExecutionStartRequest request)
+            {
+                records.add(String.join(" ", "executionStarted", uniqueName, sequenceId, executionSequenceId,
+                        String.valueOf(request.getStartTime().orElse(null)), request.getAttributes().toString()));
+            }
+
+            @Override
+            public void executionFinished(String uniqueName, String sequenceId, FinishedExecution execution)
+            {
+                records.add(String.join(" ", "executionFinished", uniqueName, sequenceId, execution.getSequenceId(),
+                        execution.getStartTime().toString(), finish(execution.getFinish())));
+            }
+
+            @Override
+            public void benchmarkFinished(String uniqueName, String sequenceId, FinishRequest request)
+            {
+                records.add(String.join(" ", "benchmarkFinished", uniqueName, sequenceId, finish(request)));
+            }
+        });
+        return records;
+    }
+
+    private static String finish(FinishRequest request)
+    {
+        return String.join(" ", request.getStatus().name(), request.getEndTime().toString(), request.getMeasurements().toString(),
+                request.getAttributes().toString(), request.getQueryInfo().toString());
+    }
+}
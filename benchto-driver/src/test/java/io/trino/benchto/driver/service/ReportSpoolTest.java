@@ -0,0 +1,217 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.service;
+
+import io.trino.benchto.driver.BenchmarkProperties;
+import io.trino.benchto.driver.http.HttpRequestMetrics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReportSpoolTest
+{
+    private static final URI FIRST = URI.create("http://benchmark-service/v1/benchmark/first/1/start");
+    private static final URI SECOND = URI.create("http://benchmark-service/v1/benchmark/second/1/start");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    BenchmarkProperties properties;
+
+    private Path spoolDir;
+    private ReportSpool spool;
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        spoolDir = temporaryFolder.newFolder().toPath();
+        when(properties.getSpoolDir()).thenReturn(Optional.of(spoolDir));
+    }
+
+    @After
+    public void tearDown()
+            throws IOException
+    {
+        if (spool != null) {
+            spool.close();
+        }
+    }
+
+    @Test
+    public void deliversReportsInOrderOnceServiceIsAvailable()
+            throws IOException
+    {
+        RestTemplate restTemplate = mock(RestTemplate.class);
+        when(restTemplate.postForObject(eq(FIRST), any(), eq(String.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"))
+                .thenThrow(new HttpServerErrorException(SERVICE_UNAVAILABLE))
+                .thenReturn("first");
+        spool = spool(restTemplate);
+
+        spool.append(FIRST, Map.of("name", "first"));
+        spool.append(SECOND, Map.of("name", "second"));
+        spool.awaitDelivered();
+
+        assertThat(deliveredBodies(restTemplate, 4)).containsExactly(
+                "{\"name\":\"first\"}",
+                "{\"name\":\"first\"}",
+                "{\"name\":\"first\"}",
+                "{\"name\":\"second\"}");
+    }
+
+    @Test
+    public void deliversReportsLeftByPreviousRun()
+            throws IOException
+    {
+        // a report interrupted while it was written is discarded
+        Files.writeString(spoolDir.resolve("reports.spool"),
+                "1\t" + FIRST + "\t{\"name\":\"first\"}\n" +
+                        "2\t" + SECOND + "\t{\"name\":\"second\"}\n" +
+                        "3\thttp://benchmark-service",
+                UTF_8);
+
+        RestTemplate available = mock(RestTemplate.class);
+        spool = spool(available);
+        spool.awaitDelivered();
+
+        spool.append(FIRST, Map.of("name", "third"));
+        spool.awaitDelivered();
+        spool.close();
+
+        assertThat(deliveredBodies(available, 3)).containsExactly(
+                "{\"name\":\"first\"}",
+                "{\"name\":\"second\"}",
+                "{\"name\":\"third\"}");
+        assertThat(Files.readString(spoolDir.resolve("reports.offset"), UTF_8)).isEqualTo("3");
+
+        // everything was delivered, nothing is repeated by the next run
+        RestTemplate next = mock(RestTemplate.class);
+        spool = spool(next);
+        spool.awaitDelivered();
+        assertThat(Files.size(spoolDir.resolve("reports.spool"))).isZero();
+        verify(next, never()).postForObject(any(URI.class), any(), eq(String.class));
+    }
+
+    @Test
+    public void repeatedReportOfPreviousRunIsNotRejected()
+            throws IOException
+    {
+        // the previous run delivered the report, but stopped before it recorded that
+        Files.writeString(spoolDir.resolve("reports.spool"), "1\t" + FIRST + "\t{\"name\":\"first\"}\n", UTF_8);
+        RestTemplate available = mock(RestTemplate.class);
+        when(available.postForObject(eq(FIRST), any(), eq(String.class))).thenThrow(new HttpServerErrorException(INTERNAL_SERVER_ERROR));
+        spool = spool(available);
+        spool.awaitDelivered();
+
+        // the same failure of a report of this run is reported
+        spool.append(FIRST, Map.of("name", "second"));
+        assertThatThrownBy(spool::awaitDelivered)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("1 spooled reports were rejected by the benchmark service");
+    }
+
+    @Test
+    public void rejectedReportDoesNotBlockOtherReports()
+            throws IOException
+    {
+        RestTemplate restTemplate = mock(RestTemplate.class);
+        doThrow(new HttpClientErrorException(BAD_REQUEST)).when(restTemplate).postForObject(eq(FIRST), any(), eq(String.class));
+        spool = spool(restTemplate);
+
+        spool.append(FIRST, Map.of("name", "first"));
+        spool.append(SECOND, Map.of("name", "second"));
+
+        assertThatThrownBy(spool::awaitDelivered)
+                .hasMessage("1 spooled reports were rejected by the benchmark service");
+        verify(restTemplate).postForObject(eq(SECOND), any(), eq(String.class));
+    }
+
+    @Test
+    public void leavesUndeliveredReportsAfterTimeout()
+            throws IOException
+    {
+        RestTemplate restTemplate = mock(RestTemplate.class);
+        when(restTemplate.postForObject(any(URI.class), any(), eq(String.class))).thenThrow(new ResourceAccessException("Connection refused"));
+        spool = spool(restTemplate);
+        ReflectionTestUtils.setField(spool, "drainTimeout", Duration.ofMillis(100));
+
+        spool.append(FIRST, Map.of("name", "first"));
+        spool.awaitDelivered();
+
+        verify(restTemplate, timeout(10_000)).postForObject(eq(FIRST), any(), eq(String.class));
+        assertThat(Files.readAllLines(spoolDir.resolve("reports.spool"), UTF_8))
+                .containsExactly("1\t" + FIRST + "\t{\"name\":\"first\"}");
+    }
+
+    private ReportSpool spool(RestTemplate restTemplate)
+            throws IOException
+    {
+        ReportSpool spool = new ReportSpool();
+        ReflectionTestUtils.setField(spool, "properties", properties);
+        ReflectionTestUtils.setField(spool, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(spool, "httpRequestMetrics", new HttpRequestMetrics());
+        spool.open();
+        return spool;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> deliveredBodies(RestTemplate restTemplate, int requests)
+    {
+        ArgumentCaptor<HttpEntity<String>> entities = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate, timeout(10_000).times(requests)).postForObject(any(URI.class), entities.capture(), eq(String.class));
+        return entities.getAllValues().stream()
+                .map(HttpEntity::getBody)
+                .collect(toImmutableList());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.utils;
+
+import org.junit.Test;
+
+import static io.trino.benchto.driver.Benchmark.ArrivalDistribution.FIXED;
+import static io.trino.benchto.driver.Benchmark.ArrivalDistribution.POISSON;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class ArrivalScheduleUtilsTest
+{
+    @Test
+    public void fixedArrivalsAreEvenlySpaced()
+    {
+        long[] offsets = ArrivalScheduleUtils.intendedStartOffsets(4, 4.0, FIXED, 0);
+
+        assertThat(offsets).containsExactly(0, 250_000_000, 500_000_000, 750_000_000);
+    }
+
+    @Test
+    public void poissonArrivalsAreRepeatable()
+    {
+        long[] offsets1 = ArrivalScheduleUtils.intendedStartOffsets(100, 10.0, POISSON, 1);
+        long[] offsets2 = ArrivalScheduleUtils.intendedStartOffsets(100, 10.0, POISSON, 1);
+        long[] offsets3 = ArrivalScheduleUtils.intendedStartOffsets(100, 10.0, POISSON, 2);
+
+        assertThat(offsets1).isEqualTo(offsets2);
+        assertThat(offsets1).isNotEqualTo(offsets3);
+        assertThat(offsets1).isSorted();
+    }
+
+    @Test
+    public void arrivalSeedsDifferPerRunAndDriver()
+    {
+        long seed = ArrivalScheduleUtils.arrivalSeed("benchmark", "1", "driver-1");
+
+        assertThat(ArrivalScheduleUtils.arrivalSeed("benchmark", "1", "driver-1")).isEqualTo(seed);
+        assertThat(ArrivalScheduleUtils.arrivalSeed("benchmark", "1", "driver-2")).isNotEqualTo(seed);
+        assertThat(ArrivalScheduleUtils.arrivalSeed("benchmark", "2", "driver-1")).isNotEqualTo(seed);
+        assertThat(ArrivalScheduleUtils.arrivalSeed("other", "1", "driver-1")).isNotEqualTo(seed);
+        // components are delimited, so shifting characters between them changes the seed
+        assertThat(ArrivalScheduleUtils.arrivalSeed("benchmark1", "", "driver-1")).isNotEqualTo(ArrivalScheduleUtils.arrivalSeed("benchmark", "1", "driver-1"));
+    }
+
+    @Test
+    public void streamSeedsDifferPerStreamAndRun()
+    {
+        long runSeed = ArrivalScheduleUtils.arrivalSeed("benchmark", "1", "driver-1");
+        long seed = ArrivalScheduleUtils.streamSeed(runSeed, 0);
+
+        assertThat(ArrivalScheduleUtils.streamSeed(runSeed, 0)).isEqualTo(seed);
+        assertThat(ArrivalScheduleUtils.streamSeed(runSeed, 1)).isNotEqualTo(seed);
+        assertThat(ArrivalScheduleUtils.streamSeed(ArrivalScheduleUtils.arrivalSeed("benchmark", "1", "driver-2"), 0)).isNotEqualTo(seed);
+    }
+
+    @Test
+    public void poissonArrivalsMatchRate()
+    {
+        int arrivals = 100_000;
+        long[] offsets = ArrivalScheduleUtils.intendedStartOffsets(arrivals, 50.0, POISSON, 0);
+
+        double achievedRate = (arrivals - 1) / (offsets[arrivals - 1] / 1_000_000_000.0);
+        assertThat(achievedRate).isCloseTo(50.0, within(1.0));
+    }
+}
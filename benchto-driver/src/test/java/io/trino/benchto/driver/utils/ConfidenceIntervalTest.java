@@ -0,0 +1,60 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.utils;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.benchto.driver.utils.ConfidenceInterval.DEFAULT_CONFIDENCE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class ConfidenceIntervalTest
+{
+    @Test
+    public void meanConfidenceInterval()
+    {
+        ConfidenceInterval interval = ConfidenceInterval.ofMean(ImmutableList.of(9.0, 10.0, 11.0), DEFAULT_CONFIDENCE).orElseThrow();
+
+        // t(0.975, 2) = 4.303, standard error = 1 / sqrt(3)
+        assertThat(interval.getEstimate()).isCloseTo(10.0, within(1e-9));
+        assertThat(interval.getUpper() - interval.getEstimate()).isCloseTo(4.303 / Math.sqrt(3), within(1e-3));
+        assertThat(interval.getRelativeWidth()).isCloseTo(2 * 4.303 / Math.sqrt(3) / 10, within(1e-3));
+    }
+
+    @Test
+    public void medianConfidenceInterval()
+    {
+        List<Double> values = IntStream.rangeClosed(1, 100)
+                .mapToObj(value -> (double) value)
+                .collect(toImmutableList());
+
+        ConfidenceInterval interval = ConfidenceInterval.ofMedian(values, DEFAULT_CONFIDENCE).orElseThrow();
+
+        assertThat(interval.getEstimate()).isCloseTo(50.5, within(1e-9));
+        assertThat(interval.getLower()).isEqualTo(40.0);
+        assertThat(interval.getUpper()).isEqualTo(61.0);
+    }
+
+    @Test
+    public void tooFewValues()
+    {
+        assertThat(ConfidenceInterval.ofMean(ImmutableList.of(1.0), DEFAULT_CONFIDENCE)).isEmpty();
+        assertThat(ConfidenceInterval.ofMedian(ImmutableList.of(1.0, 2.0, 3.0, 4.0, 5.0), DEFAULT_CONFIDENCE)).isEmpty();
+    }
+}
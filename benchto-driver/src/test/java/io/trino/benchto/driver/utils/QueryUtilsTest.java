@@ -14,19 +14,26 @@
 package io.trino.benchto.driver.utils;
 
 import com.google.common.io.Resources;
+import io.trino.benchto.driver.Benchmark.FetchMode;
 import io.trino.benchto.driver.execution.ResultComparisonException;
 import org.junit.Test;
 import org.mockito.Mockito;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
 
+import static io.trino.benchto.driver.utils.QueryUtils.compareChecksum;
 import static io.trino.benchto.driver.utils.QueryUtils.compareCount;
 import static io.trino.benchto.driver.utils.QueryUtils.compareRows;
+import static io.trino.benchto.driver.utils.QueryUtils.fetchRows;
+import static io.trino.benchto.driver.utils.QueryUtils.isChecksumFile;
 import static io.trino.benchto.driver.utils.QueryUtils.isSelectQuery;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -200,6 +207,72 @@ public class QueryUtilsTest
         compareRows(path, resultSet);
     }
 
+    @Test
+    public void checksumIgnoresRowOrder()
+            throws Exception
+    {
+        ResultChecksum expected = new ResultChecksum(false);
+        expected.addLong(1).addString("a").endRow();
+        expected.addLong(2).addNull().endRow();
+        Path path = Files.createTempFile("query", ".checksum");
+        Files.write(path, List.of("rows: 2", "ordered: false", "checksum: " + expected.getChecksum()));
+
+        try {
+            assertThat(isChecksumFile(path)).isTrue();
+            assertThat(compareChecksum(path, mockTwoRowResultSet())).isEqualTo(2);
+
+            Files.write(path, List.of("rows: 2", "ordered: true", "checksum: " + expected.getChecksum()));
+            assertThatThrownBy(() -> compareChecksum(path, mockTwoRowResultSet()))
+                    .isInstanceOf(ResultComparisonException.class)
+                    .hasMessageContaining("Incorrect result checksum");
+
+            Files.write(path, List.of("rows: 3", "ordered: false", "checksum: " + expected.getChecksum()));
+            assertThatThrownBy(() -> compareChecksum(path, mockTwoRowResultSet()))
+                    .isInstanceOf(ResultComparisonException.class)
+                    .hasMessageContaining("Incorrect row count, expected 3, got 2");
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void decodeFetchCountsRowsAndBytes()
+            throws SQLException
+    {
+        FetchStatistics statistics = fetchRows("SELECT 1", mockTwoRowResultSet(), FetchMode.DECODE);
+
+        assertThat(statistics.getRows()).isEqualTo(2);
+        // two bigint values and one character of the non null varchar value
+        assertThat(statistics.getBytes()).isEqualTo(17);
+        assertThat(statistics.getTimeToFirstRow(0)).isPresent();
+        assertThat(statistics.getFetchDuration()).isPositive();
+    }
+
+    @Test
+    public void skipFetchReadsNoValues()
+            throws SQLException
+    {
+        ResultSet resultSet = mockTwoRowResultSet();
+        FetchStatistics statistics = fetchRows("SELECT 1", resultSet, FetchMode.SKIP);
+
+        assertThat(statistics.getRows()).isEqualTo(2);
+        assertThat(statistics.getBytes()).isZero();
+        Mockito.verify(resultSet, Mockito.never()).getLong(1);
+    }
+
+    @Test
+    public void emptyFetchHasNoFirstRow()
+            throws SQLException
+    {
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        FetchStatistics statistics = fetchRows("SELECT 1", resultSet, FetchMode.DECODE);
+
+        assertThat(statistics.getRows()).isZero();
+        assertThat(statistics.getTimeToFirstRow(0)).isEmpty();
+        Mockito.verify(resultSet, Mockito.never()).getMetaData();
+    }
+
     @Test
     public void isSelectQueryTest()
     {
@@ -242,4 +315,27 @@ public class QueryUtilsTest
                 .isInstanceOf(ResultComparisonException.class)
                 .hasMessageContaining("Error opening result file");
     }
+
+    private static ResultSet mockTwoRowResultSet()
+            throws SQLException
+    {
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        ResultSetMetaData metaData = Mockito.mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(2);
+        when(metaData.getColumnType(1)).thenReturn(Types.BIGINT);
+        when(metaData.getColumnType(2)).thenReturn(Types.VARCHAR);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        // rows in reverse order of the checksum
+        when(resultSet.next())
+                .thenReturn(true)
+                .thenReturn(true)
+                .thenReturn(false);
+        when(resultSet.getLong(1))
+                .thenReturn(2L)
+                .thenReturn(1L);
+        when(resultSet.getString(2))
+                .thenReturn(null)
+                .thenReturn("a");
+        return resultSet;
+    }
 }
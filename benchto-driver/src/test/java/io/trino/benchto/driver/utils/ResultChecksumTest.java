@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.utils;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResultChecksumTest
+{
+    @Test
+    public void orderedChecksumDependsOnRowOrder()
+    {
+        ResultChecksum first = new ResultChecksum(true);
+        first.addLong(1).addString("a").endRow();
+        first.addLong(2).addString("b").endRow();
+        ResultChecksum second = new ResultChecksum(true);
+        second.addLong(2).addString("b").endRow();
+        second.addLong(1).addString("a").endRow();
+
+        assertThat(first.getRows()).isEqualTo(2);
+        assertThat(first.getChecksum()).hasSize(32);
+        assertThat(first.getChecksum()).isNotEqualTo(second.getChecksum());
+    }
+
+    @Test
+    public void unorderedChecksumIgnoresRowOrder()
+    {
+        ResultChecksum first = new ResultChecksum(false);
+        first.addLong(1).addString("a").endRow();
+        first.addLong(2).addString("b").endRow();
+        ResultChecksum second = new ResultChecksum(false);
+        second.addLong(2).addString("b").endRow();
+        second.addLong(1).addString("a").endRow();
+
+        assertThat(first.getChecksum()).isEqualTo(second.getChecksum());
+    }
+
+    @Test
+    public void distinguishesValues()
+    {
+        assertThat(checksum(new ResultChecksum(false).addLong(1).addLong(2)))
+                .isNotEqualTo(checksum(new ResultChecksum(false).addLong(2).addLong(1)));
+        assertThat(checksum(new ResultChecksum(false).addNull()))
+                .isNotEqualTo(checksum(new ResultChecksum(false).addString("")));
+        assertThat(checksum(new ResultChecksum(false).addString("ab").addString("c")))
+                .isNotEqualTo(checksum(new ResultChecksum(false).addString("a").addString("bc")));
+        assertThat(checksum(new ResultChecksum(false).addLong(1)))
+                .isNotEqualTo(checksum(new ResultChecksum(false).addDouble(1)));
+        assertThat(checksum(new ResultChecksum(false).addDouble(0.0)))
+                .isEqualTo(checksum(new ResultChecksum(false).addDouble(-0.0)));
+    }
+
+    private static String checksum(ResultChecksum checksum)
+    {
+        return checksum.endRow().getChecksum();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.utils;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SteadyStateDetectorTest
+{
+    @Test
+    public void notSteadyUntilWindowIsFull()
+    {
+        SteadyStateDetector detector = new SteadyStateDetector();
+        detector.add(100);
+        detector.add(100);
+        assertThat(detector.isSteady()).isFalse();
+        detector.add(100);
+        assertThat(detector.isSteady()).isTrue();
+    }
+
+    @Test
+    public void steadyAfterWarmingUp()
+    {
+        SteadyStateDetector detector = new SteadyStateDetector();
+        detector.add(500);
+        detector.add(200);
+        detector.add(105);
+        assertThat(detector.isSteady()).isFalse();
+        detector.add(100);
+        assertThat(detector.isSteady()).isFalse();
+        detector.add(98);
+        assertThat(detector.isSteady()).isTrue();
+    }
+
+    @Test
+    public void notSteadyAfterChangepoint()
+    {
+        SteadyStateDetector detector = new SteadyStateDetector(3, 0.1);
+        detector.add(100);
+        detector.add(101);
+        detector.add(99);
+        assertThat(detector.isSteady()).isTrue();
+        detector.add(150);
+        assertThat(detector.isSteady()).isFalse();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.utils;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class UniversalScalabilityLawTest
+{
+    @Test
+    public void fitsModelCoefficients()
+    {
+        UniversalScalabilityLaw expected = new UniversalScalabilityLaw(10.0, 0.05, 0.002);
+        List<Integer> concurrency = ImmutableList.of(1, 2, 4, 8, 16, 32, 64);
+        List<Double> throughput = concurrency.stream()
+                .map(expected::throughput)
+                .collect(toImmutableList());
+
+        UniversalScalabilityLaw fitted = UniversalScalabilityLaw.fit(concurrency, throughput).orElseThrow();
+
+        assertThat(fitted.getLambda()).isCloseTo(10.0, within(1e-9));
+        assertThat(fitted.getContention()).isCloseTo(0.05, within(1e-9));
+        assertThat(fitted.getCoherency()).isCloseTo(0.002, within(1e-9));
+        assertThat(fitted.getPeakConcurrency().orElseThrow()).isCloseTo(Math.sqrt(0.95 / 0.002), within(1e-6));
+    }
+
+    @Test
+    public void linearScalabilityHasNoPeak()
+    {
+        UniversalScalabilityLaw fitted = UniversalScalabilityLaw.fit(ImmutableList.of(1, 2, 4), ImmutableList.of(5.0, 10.0, 20.0)).orElseThrow();
+
+        assertThat(fitted.getContention()).isCloseTo(0.0, within(1e-9));
+        assertThat(fitted.getCoherency()).isCloseTo(0.0, within(1e-9));
+        assertThat(fitted.getPeakConcurrency()).isEmpty();
+    }
+
+    @Test
+    public void requiresEnoughMeasurements()
+    {
+        assertThat(UniversalScalabilityLaw.fit(ImmutableList.of(1, 2), ImmutableList.of(5.0, 9.0))).isEqualTo(Optional.empty());
+        assertThat(UniversalScalabilityLaw.fit(ImmutableList.of(1, 2, 4), ImmutableList.of(5.0, 9.0, 0.0))).isEqualTo(Optional.empty());
+    }
+}
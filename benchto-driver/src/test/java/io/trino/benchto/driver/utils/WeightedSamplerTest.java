@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.driver.utils;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.data.Offset.offset;
+
+public class WeightedSamplerTest
+{
+    @Test
+    public void shouldSampleProportionallyToWeights()
+    {
+        WeightedSampler sampler = new WeightedSampler(List.of(8.0, 0.0, 2.0), 1);
+        int[] counts = new int[3];
+        for (int i = 0; i < 10_000; i++) {
+            counts[sampler.next()]++;
+        }
+        assertThat(counts[0] / 10_000.0).isCloseTo(0.8, offset(0.02));
+        assertThat(counts[1]).isZero();
+        assertThat(counts[2] / 10_000.0).isCloseTo(0.2, offset(0.02));
+    }
+
+    @Test
+    public void shouldBeDeterministicForSeed()
+    {
+        WeightedSampler first = new WeightedSampler(List.of(1.0, 1.0, 1.0), 7);
+        WeightedSampler second = new WeightedSampler(List.of(1.0, 1.0, 1.0), 7);
+        int[] firstSample = IntStream.range(0, 100).map(i -> first.next()).toArray();
+        int[] secondSample = IntStream.range(0, 100).map(i -> second.next()).toArray();
+        assertThat(firstSample).isEqualTo(secondSample);
+    }
+
+    @Test
+    public void shouldRejectZeroWeights()
+    {
+        assertThatThrownBy(() -> new WeightedSampler(List.of(0.0, 0.0), 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Sum of weights must be positive");
+    }
+}
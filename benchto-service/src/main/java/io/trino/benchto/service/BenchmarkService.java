@@ -16,11 +16,15 @@ package io.trino.benchto.service;
 import io.trino.benchto.service.model.AggregatedMeasurement;
 import io.trino.benchto.service.model.BenchmarkRun;
 import io.trino.benchto.service.model.BenchmarkRunExecution;
+import io.trino.benchto.service.model.DriverBarrier;
 import io.trino.benchto.service.model.Environment;
 import io.trino.benchto.service.model.Measurement;
 import io.trino.benchto.service.model.QueryInfo;
 import io.trino.benchto.service.model.Status;
+import io.trino.benchto.service.repo.BenchmarkRunExecutionRepo;
 import io.trino.benchto.service.repo.BenchmarkRunRepo;
+import io.trino.benchto.service.utils.LatencyHistogramUtils;
+import io.trino.benchto.service.utils.TimeUtils;
 import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,12 +40,20 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static io.trino.benchto.service.model.Status.ENDED;
+import static io.trino.benchto.service.model.Status.FAILED;
 import static io.trino.benchto.service.model.Status.STARTED;
 import static io.trino.benchto.service.utils.BenchmarkUniqueNameUtils.generateBenchmarkUniqueName;
 import static io.trino.benchto.service.utils.TimeUtils.currentDateTime;
@@ -51,16 +63,27 @@ public class BenchmarkService
 {
     private static final Logger LOG = LoggerFactory.getLogger(BenchmarkService.class);
 
+    public static final String DRIVER_ID_ATTRIBUTE = "driver_id";
+    private static final String COORDINATED_DRIVERS_ATTRIBUTE = "coordinated_drivers";
+    private static final String COORDINATED_START_ATTRIBUTE = "coordinated_start";
+    private static final String COORDINATED_DEADLINE_ATTRIBUTE = "coordinated_deadline";
+    private static final String DRIVER_STATUS_ATTRIBUTE_PREFIX = "driver_status.";
+    // gives all waiting drivers time to notice the barrier was lifted before the common start
+    private static final Duration COORDINATED_START_DELAY = Duration.ofSeconds(2);
+
     @Autowired
     private BenchmarkRunRepo benchmarkRunRepo;
 
+    @Autowired
+    private BenchmarkRunExecutionRepo benchmarkRunExecutionRepo;
+
     @Autowired
     private EnvironmentService environmentService;
 
     @Retryable(value = {TransientDataAccessException.class, DataIntegrityViolationException.class})
     @Transactional
     public String startBenchmarkRun(String uniqueName, String name, String sequenceId, Optional<String> environmentName, Map<String, String> variables,
-            Map<String, String> attributes)
+            Map<String, String> attributes, Optional<Instant> startTime)
     {
         String generatedUniqueName = generateBenchmarkUniqueName(name, variables);
         checkArgument(uniqueName.equals(generatedUniqueName), "Passed unique benchmark name (%s) does not match generated one: (%s) - name: %s, variables: %s",
@@ -73,7 +96,7 @@ public class BenchmarkService
             benchmarkRun.setStatus(STARTED);
             benchmarkRun.setEnvironment(environment);
             benchmarkRun.getAttributes().putAll(attributes);
-            benchmarkRun.setStarted(currentDateTime());
+            benchmarkRun.setStarted(fromInstantOrCurrentDateTime(startTime));
             benchmarkRunRepo.save(benchmarkRun);
         }
         LOG.debug("Starting benchmark - {}", benchmarkRun);
@@ -81,11 +104,22 @@ public class BenchmarkService
         return benchmarkRun.getUniqueName();
     }
 
+    /**
+     * Finishes the benchmark run. Repeated finishes, e.g. reports delivered again by a driver, are ignored.
+     */
     @Retryable(value = {TransientDataAccessException.class, DataIntegrityViolationException.class})
     @Transactional
     public void finishBenchmarkRun(String uniqueName, String sequenceId, Status status, Optional<Instant> endTime, List<Measurement> measurements, Map<String, String> attributes)
     {
         BenchmarkRun benchmarkRun = findBenchmarkRun(uniqueName, sequenceId);
+        if (attributes.containsKey(DRIVER_ID_ATTRIBUTE) && benchmarkRun.getAttributes().containsKey(COORDINATED_DRIVERS_ATTRIBUTE)) {
+            finishCoordinatedBenchmarkRun(benchmarkRun, status, endTime, measurements, attributes);
+            return;
+        }
+        if (benchmarkRun.getStatus() != STARTED) {
+            LOG.info("Benchmark {} - {} was already finished, ignoring repeated finish", uniqueName, sequenceId);
+            return;
+        }
         benchmarkRun.getMeasurements().addAll(measurements);
         benchmarkRun.getAttributes().putAll(attributes);
         benchmarkRun.setEnded(fromInstantOrCurrentDateTime(endTime));
@@ -94,6 +128,109 @@ public class BenchmarkService
         LOG.debug("Finishing benchmark - {}", benchmarkRun);
     }
 
+    /**
+     * Registers a driver executing the benchmark run together with other drivers. Once all expected drivers joined,
+     * a common start time and, for duration bounded benchmarks, a common deadline are set.
+     */
+    @Retryable(value = {TransientDataAccessException.class, DataIntegrityViolationException.class})
+    @Transactional
+    public DriverBarrier joinBenchmarkRun(String uniqueName, String sequenceId, String driverId, int expectedDrivers, Optional<Duration> duration)
+    {
+        BenchmarkRun benchmarkRun = findBenchmarkRun(uniqueName, sequenceId);
+        Map<String, String> runAttributes = benchmarkRun.getAttributes();
+        String registeredDrivers = runAttributes.putIfAbsent(COORDINATED_DRIVERS_ATTRIBUTE, Integer.toString(expectedDrivers));
+        checkArgument(registeredDrivers == null || Integer.parseInt(registeredDrivers) == expectedDrivers,
+                "Benchmark %s is executed by %s drivers, but driver %s expects %s", uniqueName, registeredDrivers, driverId, expectedDrivers);
+        if (!runAttributes.containsKey(DRIVER_STATUS_ATTRIBUTE_PREFIX + driverId)) {
+            checkState(joinedDrivers(benchmarkRun) < expectedDrivers, "All %s drivers already joined benchmark %s, rejecting driver %s", expectedDrivers, uniqueName, driverId);
+            runAttributes.put(DRIVER_STATUS_ATTRIBUTE_PREFIX + driverId, STARTED.name());
+            LOG.debug("Driver {} joined benchmark - {}", driverId, benchmarkRun);
+        }
+
+        int joinedDrivers = joinedDrivers(benchmarkRun);
+        if (joinedDrivers == expectedDrivers && !runAttributes.containsKey(COORDINATED_START_ATTRIBUTE)) {
+            Instant start = currentDateTime().plus(COORDINATED_START_DELAY).toInstant();
+            runAttributes.put(COORDINATED_START_ATTRIBUTE, start.toString());
+            duration.ifPresent(value -> runAttributes.put(COORDINATED_DEADLINE_ATTRIBUTE, start.plus(value).toString()));
+        }
+        return new DriverBarrier(
+                joinedDrivers,
+                expectedDrivers,
+                Optional.ofNullable(runAttributes.get(COORDINATED_START_ATTRIBUTE)).map(Instant::parse),
+                Optional.ofNullable(runAttributes.get(COORDINATED_DEADLINE_ATTRIBUTE)).map(Instant::parse));
+    }
+
+    private static int joinedDrivers(BenchmarkRun benchmarkRun)
+    {
+        return (int) benchmarkRun.getAttributes().keySet().stream()
+                .filter(name -> name.startsWith(DRIVER_STATUS_ATTRIBUTE_PREFIX))
+                .count();
+    }
+
+    /**
+     * Merges results of one of the drivers into the benchmark run. The run finishes when all joined drivers finished.
+     */
+    private void finishCoordinatedBenchmarkRun(BenchmarkRun benchmarkRun, Status status, Optional<Instant> endTime, List<Measurement> measurements, Map<String, String> attributes)
+    {
+        String driverId = attributes.get(DRIVER_ID_ATTRIBUTE);
+        Map<String, String> runAttributes = benchmarkRun.getAttributes();
+        String driverStatus = runAttributes.get(DRIVER_STATUS_ATTRIBUTE_PREFIX + driverId);
+        checkState(driverStatus != null, "Driver %s did not join benchmark %s", driverId, benchmarkRun.getUniqueName());
+        if (!driverStatus.equals(STARTED.name())) {
+            LOG.info("Driver {} already finished benchmark {}, ignoring repeated finish", driverId, benchmarkRun.getUniqueName());
+            return;
+        }
+
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            String name = attribute.getKey();
+            if (name.equals(DRIVER_ID_ATTRIBUTE)) {
+                continue;
+            }
+            if (LatencyHistogramUtils.isHistogramAttribute(name) && runAttributes.containsKey(name)) {
+                runAttributes.put(name, LatencyHistogramUtils.merge(runAttributes.get(name), attribute.getValue()));
+            }
+            else {
+                runAttributes.put(name, attribute.getValue());
+            }
+        }
+        for (Measurement measurement : measurements) {
+            Optional<Measurement> existing = benchmarkRun.getMeasurements().stream()
+                    .filter(runMeasurement -> runMeasurement.getName().equals(measurement.getName()))
+                    .findAny();
+            if (existing.isEmpty()) {
+                benchmarkRun.getMeasurements().add(measurement);
+            }
+            // measurements declared additive by the drivers are added up, the rest is merged by taking the maximum
+            else if (measurement.isAdditive()) {
+                existing.get().setValue(existing.get().getValue() + measurement.getValue());
+            }
+            else {
+                existing.get().setValue(Math.max(existing.get().getValue(), measurement.getValue()));
+            }
+        }
+        // latency percentiles of all drivers can be computed only from their merged histograms
+        Optional.ofNullable(runAttributes.get(LatencyHistogramUtils.HISTOGRAM_ATTRIBUTE))
+                .map(LatencyHistogramUtils::percentilesMillis)
+                .ifPresent(percentiles -> benchmarkRun.getMeasurements().stream()
+                        .filter(measurement -> percentiles.containsKey(measurement.getName()))
+                        .forEach(measurement -> measurement.setValue(percentiles.get(measurement.getName()))));
+
+        runAttributes.put(DRIVER_STATUS_ATTRIBUTE_PREFIX + driverId, status.name());
+        ZonedDateTime ended = fromInstantOrCurrentDateTime(endTime);
+        if (benchmarkRun.getEnded() == null || ended.isAfter(benchmarkRun.getEnded())) {
+            benchmarkRun.setEnded(ended);
+        }
+        List<String> driverStatuses = runAttributes.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(DRIVER_STATUS_ATTRIBUTE_PREFIX))
+                .map(Map.Entry::getValue)
+                .collect(toImmutableList());
+        if (driverStatuses.stream().noneMatch(STARTED.name()::equals)) {
+            benchmarkRun.setStatus(driverStatuses.contains(FAILED.name()) ? FAILED : ENDED);
+            aggregateBenchmarkExecutions(benchmarkRun);
+        }
+        LOG.debug("Driver {} finished benchmark - {}", driverId, benchmarkRun);
+    }
+
     private void aggregateBenchmarkExecutions(BenchmarkRun benchmarkRun)
     {
         benchmarkRun.clearAggregatedMeasurements();
@@ -106,7 +243,7 @@ public class BenchmarkService
 
     @Retryable(value = {TransientDataAccessException.class, DataIntegrityViolationException.class})
     @Transactional
-    public void startExecution(String uniqueName, String benchmarkSequenceId, String executionSequenceId, Map<String, String> attributes)
+    public void startExecution(String uniqueName, String benchmarkSequenceId, String executionSequenceId, Map<String, String> attributes, Optional<Instant> startTime)
     {
         BenchmarkRun benchmarkRun = findBenchmarkRun(uniqueName, benchmarkSequenceId);
 
@@ -121,7 +258,7 @@ public class BenchmarkService
         BenchmarkRunExecution execution = new BenchmarkRunExecution();
         execution.setSequenceId(executionSequenceId);
         execution.setStatus(STARTED);
-        execution.setStarted(currentDateTime());
+        execution.setStarted(fromInstantOrCurrentDateTime(startTime));
         execution.setBenchmarkRun(benchmarkRun);
         execution.getAttributes().putAll(attributes);
         benchmarkRun.getExecutions().add(execution);
@@ -138,7 +275,10 @@ public class BenchmarkService
                 .filter(e -> executionSequenceId.equals(e.getSequenceId()))
                 .findAny().orElseThrow(() -> new IllegalStateException("Execution cannot be found"));
 
-        checkState(execution.getStatus() == STARTED, "Wrong execution status: %s", execution.getStatus());
+        if (execution.getStatus() != STARTED) {
+            LOG.info("Execution {} of benchmark {} - {} was already finished, ignoring repeated finish", executionSequenceId, uniqueName, benchmarkSequenceId);
+            return;
+        }
 
         execution.getMeasurements().addAll(measurements);
         execution.getAttributes().putAll(attributes);
@@ -159,15 +299,77 @@ public class BenchmarkService
         LOG.debug("Finishing execution - {}", execution);
     }
 
+    /**
+     * Stores finished executions of the benchmark run in a single transaction. Executions which were not started before are created,
+     * executions without start or end time get the current time. Only executions of the batch are loaded, and executions which were
+     * already finished, e.g. because the batch was sent again, are skipped.
+     */
+    @Retryable(value = {TransientDataAccessException.class, DataIntegrityViolationException.class})
+    @Transactional
+    public void finishExecutions(String uniqueName, String benchmarkSequenceId, List<BenchmarkRunExecution> finishedExecutions)
+    {
+        BenchmarkRun benchmarkRun = lockBenchmarkRun(uniqueName, benchmarkSequenceId);
+
+        Map<String, BenchmarkRunExecution> executions = new HashMap<>();
+        Set<String> sequenceIds = finishedExecutions.stream()
+                .map(BenchmarkRunExecution::getSequenceId)
+                .collect(toImmutableSet());
+        benchmarkRunExecutionRepo.findByBenchmarkRunAndSequenceIds(benchmarkRun, sequenceIds)
+                .forEach(execution -> executions.putIfAbsent(execution.getSequenceId(), execution));
+        List<String> skippedExecutions = new ArrayList<>();
+        for (BenchmarkRunExecution finishedExecution : finishedExecutions) {
+            ZonedDateTime ended = Optional.ofNullable(finishedExecution.getEnded()).orElseGet(TimeUtils::currentDateTime);
+            BenchmarkRunExecution execution = executions.get(finishedExecution.getSequenceId());
+            if (execution == null) {
+                execution = new BenchmarkRunExecution();
+                execution.setSequenceId(finishedExecution.getSequenceId());
+                execution.setStarted(Optional.ofNullable(finishedExecution.getStarted()).orElse(ended));
+                execution.setBenchmarkRun(benchmarkRun);
+                execution.setMeasurements(new HashSet<>());
+                executions.put(execution.getSequenceId(), execution);
+            }
+            else if (execution.getStatus() != STARTED) {
+                skippedExecutions.add(execution.getSequenceId());
+                continue;
+            }
+
+            execution.getMeasurements().addAll(finishedExecution.getMeasurements());
+            execution.getAttributes().putAll(finishedExecution.getAttributes());
+            execution.setEnded(ended);
+            execution.setStatus(finishedExecution.getStatus());
+            if (finishedExecution.getQueryInfo() != null) {
+                execution.setQueryInfo(finishedExecution.getQueryInfo());
+            }
+            benchmarkRunExecutionRepo.save(execution);
+        }
+        if (!skippedExecutions.isEmpty()) {
+            LOG.warn("Skipped executions {} of benchmark {} - {}, which were already finished", skippedExecutions, uniqueName, benchmarkSequenceId);
+        }
+
+        if (benchmarkRun.getStatus() != STARTED) {
+            // Already finished and aggregated so needs re-aggregating, including executions which were just created.
+            benchmarkRunExecutionRepo.flush();
+            aggregateBenchmarkExecutions(benchmarkRun);
+        }
+
+        LOG.debug("Finishing {} executions of benchmark - {}", finishedExecutions.size(), benchmarkRun);
+    }
+
     @Transactional
     public BenchmarkRun findBenchmarkRun(String uniqueName, String sequenceId)
+    {
+        BenchmarkRun benchmarkRun = lockBenchmarkRun(uniqueName, sequenceId);
+        Hibernate.initialize(benchmarkRun.getExecutions());
+        Hibernate.initialize(benchmarkRun.getMeasurements());
+        return benchmarkRun;
+    }
+
+    private BenchmarkRun lockBenchmarkRun(String uniqueName, String sequenceId)
     {
         BenchmarkRun benchmarkRun = benchmarkRunRepo.findForUpdateByUniqueNameAndSequenceId(uniqueName, sequenceId);
         if (benchmarkRun == null) {
             throw new IllegalArgumentException("Could not find benchmark " + uniqueName + " - " + sequenceId);
         }
-        Hibernate.initialize(benchmarkRun.getExecutions());
-        Hibernate.initialize(benchmarkRun.getMeasurements());
         return benchmarkRun;
     }
 
@@ -208,6 +410,21 @@ public class BenchmarkService
         return Duration.between(endedAsZDT, currentDateTime());
     }
 
+    /**
+     * Duration of the latest successful run of the benchmark, zero if it has never been run successfully.
+     * Runs of the {@code excludedSequenceId} are ignored, so the duration does not change while it is executed.
+     */
+    public Duration getSuccessfulExecutionDuration(String uniqueName, Optional<String> excludedSequenceId)
+    {
+        BenchmarkRun benchmarkRun = excludedSequenceId
+                .map(sequenceId -> benchmarkRunRepo.findFirstByUniqueNameAndStatusAndSequenceIdNotOrderByEndedDesc(uniqueName, Status.ENDED, sequenceId))
+                .orElseGet(() -> benchmarkRunRepo.findFirstByUniqueNameAndStatusOrderByEndedDesc(uniqueName, Status.ENDED));
+        if (benchmarkRun == null || benchmarkRun.getStarted() == null || benchmarkRun.getEnded() == null) {
+            return Duration.ZERO;
+        }
+        return Duration.between(benchmarkRun.getStarted(), benchmarkRun.getEnded());
+    }
+
     private ZonedDateTime fromInstantOrCurrentDateTime(Optional<Instant> instant)
     {
         ZonedDateTime currentDateTime = currentDateTime();
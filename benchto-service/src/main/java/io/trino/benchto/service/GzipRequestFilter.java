@@ -0,0 +1,213 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.service;
+
+import com.google.common.io.ByteStreams;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
+import static javax.servlet.http.HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE;
+
+/**
+ * Decompresses bodies of requests sent with {@code Content-Encoding: gzip}, which drivers use for large reports.
+ * Bodies are decompressed upfront, up to {@code benchto.max-decompressed-request-size}, and requests which decompress
+ * to larger bodies are rejected with 413, so a small compressed request cannot exhaust the memory of the service.
+ */
+@Component
+public class GzipRequestFilter
+        extends OncePerRequestFilter
+{
+    private static final String GZIP = "gzip";
+
+    @Value("${benchto.max-decompressed-request-size:64MB}")
+    private DataSize maxDecompressedSize = DataSize.ofMegabytes(64);
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException
+    {
+        if (GZIP.equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+            byte[] body;
+            try (InputStream input = ByteStreams.limit(new GZIPInputStream(request.getInputStream()), maxDecompressedSize.toBytes() + 1)) {
+                body = ByteStreams.toByteArray(input);
+            }
+            catch (ZipException | EOFException e) {
+                response.sendError(SC_BAD_REQUEST, "Invalid gzip request body: " + e.getMessage());
+                return;
+            }
+            if (body.length > maxDecompressedSize.toBytes()) {
+                response.sendError(SC_REQUEST_ENTITY_TOO_LARGE, "Decompressed request body is larger than " + maxDecompressedSize);
+                return;
+            }
+            request = new GzipRequest(request, body);
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static class GzipRequest
+            extends HttpServletRequestWrapper
+    {
+        private final byte[] body;
+
+        private GzipRequest(HttpServletRequest request, byte[] body)
+        {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream()
+        {
+            return new DecompressedInputStream(new ByteArrayInputStream(body));
+        }
+
+        @Override
+        public BufferedReader getReader()
+        {
+            Charset charset = Optional.ofNullable(getCharacterEncoding())
+                    .map(Charset::forName)
+                    .orElse(UTF_8);
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength()
+        {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong()
+        {
+            return body.length;
+        }
+
+        @Override
+        public String getHeader(String name)
+        {
+            if (isHiddenHeader(name)) {
+                return null;
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name)
+        {
+            if (isHiddenHeader(name)) {
+                return Collections.emptyEnumeration();
+            }
+            return super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames()
+        {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                    .filter(name -> !isHiddenHeader(name))
+                    .collect(toImmutableList()));
+        }
+
+        private static boolean isHiddenHeader(String name)
+        {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    private static class DecompressedInputStream
+            extends ServletInputStream
+    {
+        private final InputStream delegate;
+        private boolean finished;
+
+        private DecompressedInputStream(InputStream delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read()
+                throws IOException
+        {
+            return checkFinished(delegate.read());
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            return checkFinished(delegate.read(buffer, offset, length));
+        }
+
+        private int checkFinished(int result)
+        {
+            if (result == -1) {
+                finished = true;
+            }
+            return result;
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady()
+        {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener)
+        {
+            throw new UnsupportedOperationException("Non-blocking reads of decompressed requests are not supported");
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            delegate.close();
+        }
+    }
+}
@@ -59,9 +59,10 @@ public class BenchmarkRunExecution
         implements Serializable
 {
     @Id
+    // ids are allocated in blocks, which lets executions stored in batches be inserted with JDBC batches
     @SequenceGenerator(name = "executions_id_seq",
             sequenceName = "executions_id_seq",
-            allocationSize = 1)
+            allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE,
             generator = "executions_id_seq")
     @Column(name = "id")
@@ -0,0 +1,71 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.service.model;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * State of the start barrier of a benchmark run executed by several drivers. Start time and deadline
+ * are set once all expected drivers joined, and are shared by all of them.
+ */
+public class DriverBarrier
+{
+    private final int joinedDrivers;
+    private final int expectedDrivers;
+    private final Optional<Instant> startTime;
+    private final Optional<Instant> deadline;
+
+    public DriverBarrier(int joinedDrivers, int expectedDrivers, Optional<Instant> startTime, Optional<Instant> deadline)
+    {
+        this.joinedDrivers = joinedDrivers;
+        this.expectedDrivers = expectedDrivers;
+        this.startTime = requireNonNull(startTime, "startTime is null");
+        this.deadline = requireNonNull(deadline, "deadline is null");
+    }
+
+    public int getJoinedDrivers()
+    {
+        return joinedDrivers;
+    }
+
+    public int getExpectedDrivers()
+    {
+        return expectedDrivers;
+    }
+
+    public Long getStartTimeMillis()
+    {
+        return startTime.map(Instant::toEpochMilli).orElse(null);
+    }
+
+    public Long getDeadlineMillis()
+    {
+        return deadline.map(Instant::toEpochMilli).orElse(null);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("joinedDrivers", joinedDrivers)
+                .add("expectedDrivers", expectedDrivers)
+                .add("startTime", startTime)
+                .add("deadline", deadline)
+                .toString();
+    }
+}
@@ -14,6 +14,7 @@
 package io.trino.benchto.service.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -24,6 +25,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 
@@ -38,9 +40,10 @@ public class Measurement
         implements Serializable
 {
     @Id
+    // ids are allocated in blocks, which lets executions stored in batches be inserted with JDBC batches
     @SequenceGenerator(name = "measurements_id_seq",
             sequenceName = "measurements_id_seq",
-            allocationSize = 1)
+            allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE,
             generator = "measurements_id_seq")
     @Column(name = "id")
@@ -59,6 +62,11 @@ public class Measurement
     @Column(name = "unit")
     private MeasurementUnit unit;
 
+    // declared by the driver, only used when merging results of drivers executing the same benchmark run
+    @Transient
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private boolean additive;
+
     public long getId()
     {
         return id;
@@ -99,6 +107,16 @@ public class Measurement
         this.value = value;
     }
 
+    public boolean isAdditive()
+    {
+        return additive;
+    }
+
+    public void setAdditive(boolean additive)
+    {
+        this.additive = additive;
+    }
+
     @Override
     public boolean equals(Object o)
     {
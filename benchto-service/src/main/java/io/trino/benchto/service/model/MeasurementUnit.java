@@ -17,6 +17,7 @@ public enum MeasurementUnit
 {
     MILLISECONDS,
     BYTES,
+    BYTES_PER_SECOND,
     PERCENT,
     QUERY_PER_SECOND,
     NONE
@@ -0,0 +1,34 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.service.repo;
+
+import io.trino.benchto.service.model.BenchmarkRun;
+import io.trino.benchto.service.model.BenchmarkRunExecution;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BenchmarkRunExecutionRepo
+        extends JpaRepository<BenchmarkRunExecution, Long>
+{
+    @Query("SELECT e FROM BenchmarkRunExecution e WHERE " +
+            "e.benchmarkRun = :benchmarkRun AND " +
+            "e.sequenceId IN :sequenceIds")
+    List<BenchmarkRunExecution> findByBenchmarkRunAndSequenceIds(@Param("benchmarkRun") BenchmarkRun benchmarkRun, @Param("sequenceIds") Collection<String> sequenceIds);
+}
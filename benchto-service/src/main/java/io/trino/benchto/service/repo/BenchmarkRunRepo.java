@@ -15,6 +15,7 @@ package io.trino.benchto.service.repo;
 
 import io.trino.benchto.service.model.BenchmarkRun;
 import io.trino.benchto.service.model.Environment;
+import io.trino.benchto.service.model.Status;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
@@ -38,6 +39,10 @@ public interface BenchmarkRunRepo
 
     List<BenchmarkRun> findByUniqueNameAndEnvironmentOrderBySequenceIdDesc(String uniqueName, Environment environment);
 
+    BenchmarkRun findFirstByUniqueNameAndStatusOrderByEndedDesc(String uniqueName, Status status);
+
+    BenchmarkRun findFirstByUniqueNameAndStatusAndSequenceIdNotOrderByEndedDesc(String uniqueName, Status status, String sequenceId);
+
     @Query(value = "" +
             "WITH summary AS ( " +
             "  SELECT " +
@@ -15,9 +15,15 @@ package io.trino.benchto.service.rest;
 
 import io.trino.benchto.service.BenchmarkService;
 import io.trino.benchto.service.model.BenchmarkRun;
+import io.trino.benchto.service.model.BenchmarkRunExecution;
+import io.trino.benchto.service.model.DriverBarrier;
+import io.trino.benchto.service.model.QueryInfo;
 import io.trino.benchto.service.rest.requests.BenchmarkStartRequest;
+import io.trino.benchto.service.rest.requests.DriverJoinRequest;
 import io.trino.benchto.service.rest.requests.ExecutionStartRequest;
+import io.trino.benchto.service.rest.requests.ExecutionsBatchRequest;
 import io.trino.benchto.service.rest.requests.FinishRequest;
+import io.trino.benchto.service.rest.requests.FinishedExecutionRequest;
 import io.trino.benchto.service.rest.requests.GenerateBenchmarkNamesRequestItem;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -29,10 +35,14 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.validation.Valid;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 
 import static io.trino.benchto.service.utils.CollectionUtils.failSafeEmpty;
+import static io.trino.benchto.service.utils.TimeUtils.UTC_ZONE;
 import static java.util.stream.Collectors.toList;
 import static org.springframework.web.bind.annotation.RequestMethod.GET;
 import static org.springframework.web.bind.annotation.RequestMethod.POST;
@@ -59,6 +69,16 @@ public class BenchmarkController
                 .collect(toList());
     }
 
+    @RequestMapping(value = "/v1/benchmark/get-successful-execution-durations", method = POST)
+    public List<Duration> getExecutionDurations(
+            @RequestBody List<String> uniqueBenchmarkNames,
+            @RequestParam(value = "excludedSequenceId", required = false) String excludedSequenceId)
+    {
+        return uniqueBenchmarkNames.stream()
+                .map(uniqueName -> benchmarkService.getSuccessfulExecutionDuration(uniqueName, Optional.ofNullable(excludedSequenceId)))
+                .collect(toList());
+    }
+
     @RequestMapping(value = "/v1/benchmark/{uniqueName}/{benchmarkSequenceId}/start", method = POST)
     public String startBenchmark(
             @PathVariable("uniqueName") String uniqueName,
@@ -70,7 +90,22 @@ public class BenchmarkController
                 benchmarkSequenceId,
                 Optional.ofNullable(startRequest.getEnvironmentName()),
                 failSafeEmpty(startRequest.getVariables()),
-                failSafeEmpty(startRequest.getAttributes()));
+                failSafeEmpty(startRequest.getAttributes()),
+                Optional.ofNullable(startRequest.getStartTime()));
+    }
+
+    @RequestMapping(value = "/v1/benchmark/{uniqueName}/{benchmarkSequenceId}/driver/{driverId}/join", method = POST)
+    public DriverBarrier joinBenchmark(
+            @PathVariable("uniqueName") String uniqueName,
+            @PathVariable("benchmarkSequenceId") String benchmarkSequenceId,
+            @PathVariable("driverId") String driverId,
+            @RequestBody @Valid DriverJoinRequest joinRequest)
+    {
+        return benchmarkService.joinBenchmarkRun(uniqueName,
+                benchmarkSequenceId,
+                driverId,
+                joinRequest.getExpectedDrivers(),
+                Optional.ofNullable(joinRequest.getDuration()));
     }
 
     @RequestMapping(value = "/v1/benchmark/{uniqueName}/{benchmarkSequenceId}/finish", method = POST)
@@ -97,7 +132,8 @@ public class BenchmarkController
         benchmarkService.startExecution(uniqueName,
                 benchmarkSequenceId,
                 executionSequenceId,
-                failSafeEmpty(startRequest.getAttributes()));
+                failSafeEmpty(startRequest.getAttributes()),
+                Optional.ofNullable(startRequest.getStartTime()));
     }
 
     @RequestMapping(value = "/v1/benchmark/{uniqueName}/{benchmarkSequenceId}/execution/{executionSequenceId}/finish", method = POST)
@@ -117,6 +153,19 @@ public class BenchmarkController
                 finishRequest.getQueryInfo());
     }
 
+    @RequestMapping(value = "/v1/benchmark/{uniqueName}/{benchmarkSequenceId}/executions:batch", method = POST)
+    public void finishExecutions(
+            @PathVariable("uniqueName") String uniqueName,
+            @PathVariable("benchmarkSequenceId") String benchmarkSequenceId,
+            @RequestBody @Valid ExecutionsBatchRequest batchRequest)
+    {
+        benchmarkService.finishExecutions(uniqueName,
+                benchmarkSequenceId,
+                batchRequest.getExecutions().stream()
+                        .map(BenchmarkController::finishedExecution)
+                        .collect(toList()));
+    }
+
     @RequestMapping(value = "/v1/benchmark/{uniqueName}/{benchmarkSequenceId}", method = GET)
     public BenchmarkRun findBenchmark(
             @PathVariable("uniqueName") String uniqueName,
@@ -139,4 +188,27 @@ public class BenchmarkController
     {
         return benchmarkService.findLatest(environmentName);
     }
+
+    private static BenchmarkRunExecution finishedExecution(FinishedExecutionRequest request)
+    {
+        FinishRequest finishRequest = request.getFinish();
+        BenchmarkRunExecution execution = new BenchmarkRunExecution();
+        execution.setSequenceId(request.getSequenceId());
+        execution.setStatus(finishRequest.getStatus());
+        execution.setStarted(toDateTime(request.getStartTime()));
+        execution.setEnded(toDateTime(finishRequest.getEndTime()));
+        execution.setMeasurements(new HashSet<>(failSafeEmpty(finishRequest.getMeasurements())));
+        execution.getAttributes().putAll(failSafeEmpty(finishRequest.getAttributes()));
+        if (finishRequest.getQueryInfo() != null) {
+            QueryInfo queryInfo = new QueryInfo();
+            queryInfo.setInfo(finishRequest.getQueryInfo());
+            execution.setQueryInfo(queryInfo);
+        }
+        return execution;
+    }
+
+    private static ZonedDateTime toDateTime(Instant instant)
+    {
+        return instant == null ? null : instant.atZone(UTC_ZONE);
+    }
 }
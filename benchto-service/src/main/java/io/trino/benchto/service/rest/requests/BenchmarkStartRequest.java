@@ -19,6 +19,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 
+import java.time.Instant;
 import java.util.Map;
 
 public class BenchmarkStartRequest
@@ -31,15 +32,18 @@ public class BenchmarkStartRequest
     private final String environmentName;
     private final Map<String, String> variables;
     private final Map<String, String> attributes;
+    private final Instant startTime;
 
     @JsonCreator
     public BenchmarkStartRequest(@JsonProperty("name") String name, @JsonProperty("environmentName") String environmentName,
-            @JsonProperty("variables") Map<String, String> variables, @JsonProperty("attributes") Map<String, String> attributes)
+            @JsonProperty("variables") Map<String, String> variables, @JsonProperty("attributes") Map<String, String> attributes,
+            @JsonProperty("startTime") Instant startTime)
     {
         this.name = name;
         this.environmentName = environmentName;
         this.variables = variables;
         this.attributes = attributes;
+        this.startTime = startTime;
     }
 
     public String getName()
@@ -61,4 +65,9 @@ public class BenchmarkStartRequest
     {
         return attributes;
     }
+
+    public Instant getStartTime()
+    {
+        return startTime;
+    }
 }
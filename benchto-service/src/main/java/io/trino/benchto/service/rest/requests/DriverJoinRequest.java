@@ -0,0 +1,46 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.service.rest.requests;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.constraints.Min;
+
+import java.time.Duration;
+
+public class DriverJoinRequest
+{
+    @Min(1)
+    private final int expectedDrivers;
+    private final Duration duration;
+
+    @JsonCreator
+    public DriverJoinRequest(@JsonProperty("expectedDrivers") int expectedDrivers,
+            @JsonProperty("duration") Duration duration)
+    {
+        this.expectedDrivers = expectedDrivers;
+        this.duration = duration;
+    }
+
+    public int getExpectedDrivers()
+    {
+        return expectedDrivers;
+    }
+
+    public Duration getDuration()
+    {
+        return duration;
+    }
+}
@@ -16,20 +16,28 @@ package io.trino.benchto.service.rest.requests;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.time.Instant;
 import java.util.Map;
 
 public class ExecutionStartRequest
 {
     private final Map<String, String> attributes;
+    private final Instant startTime;
 
     @JsonCreator
-    public ExecutionStartRequest(@JsonProperty("attributes") Map<String, String> attributes)
+    public ExecutionStartRequest(@JsonProperty("attributes") Map<String, String> attributes, @JsonProperty("startTime") Instant startTime)
     {
         this.attributes = attributes;
+        this.startTime = startTime;
     }
 
     public Map<String, String> getAttributes()
     {
         return attributes;
     }
+
+    public Instant getStartTime()
+    {
+        return startTime;
+    }
 }
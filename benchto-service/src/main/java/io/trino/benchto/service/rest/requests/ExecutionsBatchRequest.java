@@ -0,0 +1,40 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.service.rest.requests;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+
+import java.util.List;
+
+public class ExecutionsBatchRequest
+{
+    @NotNull
+    @Valid
+    private final List<FinishedExecutionRequest> executions;
+
+    @JsonCreator
+    public ExecutionsBatchRequest(@JsonProperty("executions") List<FinishedExecutionRequest> executions)
+    {
+        this.executions = executions;
+    }
+
+    public List<FinishedExecutionRequest> getExecutions()
+    {
+        return executions;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.service.rest.requests;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import java.time.Instant;
+
+public class FinishedExecutionRequest
+{
+    @NotNull
+    @Size(min = 1, max = 64)
+    private final String sequenceId;
+    private final Instant startTime;
+    @NotNull
+    @Valid
+    private final FinishRequest finish;
+
+    @JsonCreator
+    public FinishedExecutionRequest(@JsonProperty("sequenceId") String sequenceId,
+            @JsonProperty("startTime") Instant startTime,
+            @JsonProperty("finish") FinishRequest finish)
+    {
+        this.sequenceId = sequenceId;
+        this.startTime = startTime;
+        this.finish = finish;
+    }
+
+    public String getSequenceId()
+    {
+        return sequenceId;
+    }
+
+    public Instant getStartTime()
+    {
+        return startTime;
+    }
+
+    public FinishRequest getFinish()
+    {
+        return finish;
+    }
+}
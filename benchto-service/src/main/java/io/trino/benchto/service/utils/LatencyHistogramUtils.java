@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchto.service.utils;
+
+import com.google.common.collect.ImmutableMap;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+
+/**
+ * Latency histograms reported by drivers as compressed, base64 encoded attributes, recorded in microseconds.
+ */
+public final class LatencyHistogramUtils
+{
+    public static final String HISTOGRAM_ATTRIBUTE = "latency_histogram";
+    public static final Map<String, Double> PERCENTILES = ImmutableMap.<String, Double>builder()
+            .put("latency_p50", 50.0)
+            .put("latency_p90", 90.0)
+            .put("latency_p95", 95.0)
+            .put("latency_p99", 99.0)
+            .put("latency_p99_9", 99.9)
+            .build();
+    public static final String MAX_LATENCY = "latency_max";
+
+    private static final double MICROSECONDS_PER_MILLISECOND = 1000.0;
+
+    private LatencyHistogramUtils()
+    {
+    }
+
+    public static boolean isHistogramAttribute(String name)
+    {
+        return name.equals(HISTOGRAM_ATTRIBUTE) || name.startsWith(HISTOGRAM_ATTRIBUTE + ".");
+    }
+
+    public static String merge(String first, String second)
+    {
+        Histogram merged = decode(first);
+        merged.add(decode(second));
+        return encode(merged);
+    }
+
+    public static Map<String, Double> percentilesMillis(String encoded)
+    {
+        Histogram histogram = decode(encoded);
+        ImmutableMap.Builder<String, Double> percentiles = ImmutableMap.builder();
+        PERCENTILES.forEach((name, percentile) -> percentiles.put(name, histogram.getValueAtPercentile(percentile) / MICROSECONDS_PER_MILLISECOND));
+        percentiles.put(MAX_LATENCY, histogram.getMaxValue() / MICROSECONDS_PER_MILLISECOND);
+        return percentiles.build();
+    }
+
+    private static Histogram decode(String encoded)
+    {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(encoded)), 0);
+        }
+        catch (DataFormatException e) {
+            throw new IllegalArgumentException("Invalid latency histogram: " + encoded, e);
+        }
+    }
+
+    private static String encode(Histogram histogram)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer, Deflater.BEST_COMPRESSION);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+}
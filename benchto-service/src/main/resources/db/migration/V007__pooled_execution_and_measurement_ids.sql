@@ -0,0 +1,2 @@
+ALTER SEQUENCE executions_id_seq INCREMENT BY 50;
+ALTER SEQUENCE measurements_id_seq INCREMENT BY 50;
@@ -43,26 +43,27 @@
                 if (unit === 'MILLISECONDS') {
                     outputValueText = durationFilter(value)
                 }
-                else if (unit === 'BYTES') {
+                else if (unit === 'BYTES' || unit === 'BYTES_PER_SECOND') {
+                    var rateSuffix = unit === 'BYTES_PER_SECOND' ? '/s' : '';
                     if ((value / 1000) < 1) {
-                        return numberFilter(value, 3) + ' B';
+                        return numberFilter(value, 3) + ' B' + rateSuffix;
                     }
                     value /= 1000;
                     if ((value / 1000) < 1) {
-                        return numberFilter(value, 3) + ' kB';
+                        return numberFilter(value, 3) + ' kB' + rateSuffix;
                     }
                     value /= 1000;
                     if ((value / 1000) < 1) {
-                        return numberFilter(value, 3) + ' MB';
+                        return numberFilter(value, 3) + ' MB' + rateSuffix;
                     }
                     value /= 1000;
 
                     if ((value / 1000) < 1) {
-                        return numberFilter(value, 3) + ' GB';
+                        return numberFilter(value, 3) + ' GB' + rateSuffix;
                     }
                     value /= 1000;
 
-                    return numberFilter(value, 3) + ' TB';
+                    return numberFilter(value, 3) + ' TB' + rateSuffix;
                 }
                 else if (unit === 'PERCENT') {
                     outputValueText += numberFilter(value, 2);
@@ -25,16 +25,24 @@ import io.trino.benchto.service.utils.TimeUtils;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
 
+import java.io.ByteArrayOutputStream;
 import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.zip.GZIPOutputStream;
 
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -52,6 +60,9 @@ public class BenchmarkControllerTest
     @Autowired
     private EnvironmentRepo environmentRepo;
 
+    @Autowired
+    private GzipRequestFilter gzipRequestFilter;
+
     @Test
     public void testBenchmarkStartEndHappyPath()
             throws Exception
@@ -184,6 +195,10 @@ public class BenchmarkControllerTest
             reportExecutionFinish.call();
         }
 
+        // reports delivered again, e.g. from the report spool of a restarted driver, are ignored
+        reportExecutionFinish.call();
+        reportBenchmarkFinish.call();
+
         mvc.perform(get("/v1/benchmark/{uniqueName}?environment={environment}", uniqueName, environmentName))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.[0].name", is(benchmarkName)))
@@ -253,6 +268,224 @@ public class BenchmarkControllerTest
         });
     }
 
+    @Test
+    public void testCoordinatedDrivers()
+            throws Exception
+    {
+        String environmentName = "environmentName";
+        String benchmarkName = "coordinatedBenchmark";
+        String benchmarkSequenceId = "benchmarkSequenceId";
+
+        mvc.perform(post("/v1/environment/{environmentName}", environmentName)
+                .contentType(APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isOk());
+
+        // both drivers start the same benchmark run
+        for (int driver = 0; driver < 2; driver++) {
+            mvc.perform(post("/v1/benchmark/{benchmarkName}/{benchmarkSequenceId}/start", benchmarkName, benchmarkSequenceId)
+                    .contentType(APPLICATION_JSON)
+                    .content("{\"name\": \"" + benchmarkName + "\",\"environmentName\": \"" + environmentName + "\"}"))
+                    .andExpect(status().isOk());
+        }
+
+        // first driver waits for the second one
+        mvc.perform(post("/v1/benchmark/{uniqueName}/{benchmarkSequenceId}/driver/{driverId}/join", benchmarkName, benchmarkSequenceId, "driver1")
+                .contentType(APPLICATION_JSON)
+                .content("{\"expectedDrivers\": 2, \"duration\": \"PT1M\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.joinedDrivers", is(1)))
+                .andExpect(jsonPath("$.startTimeMillis").doesNotExist());
+
+        mvc.perform(post("/v1/benchmark/{uniqueName}/{benchmarkSequenceId}/driver/{driverId}/join", benchmarkName, benchmarkSequenceId, "driver2")
+                .contentType(APPLICATION_JSON)
+                .content("{\"expectedDrivers\": 2, \"duration\": \"PT1M\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.joinedDrivers", is(2)))
+                .andExpect(jsonPath("$.startTimeMillis").exists())
+                .andExpect(jsonPath("$.deadlineMillis").exists());
+
+        // the finish of the first driver is delivered twice, and merged once
+        for (int driver : List.of(1, 1, 2)) {
+            mvc.perform(post("/v1/benchmark/{uniqueName}/{benchmarkSequenceId}/finish", benchmarkName, benchmarkSequenceId)
+                    .contentType(APPLICATION_JSON)
+                    .content("{\"measurements\":[" +
+                            "{\"name\": \"throughput\", \"value\": 10.0, \"unit\": \"QUERY_PER_SECOND\", \"additive\": true}," +
+                            "{\"name\": \"timed_out_queries\", \"value\": " + driver + ", \"unit\": \"NONE\", \"additive\": true}," +
+                            "{\"name\": \"throughput_excluding_timeouts\", \"value\": " + (10 - driver) + ", \"unit\": \"QUERY_PER_SECOND\", \"additive\": true}," +
+                            "{\"name\": \"latency_max\", \"value\": " + (100 * driver) + ", \"unit\": \"MILLISECONDS\"}]," +
+                            "\"attributes\":{\"driver_id\": \"driver" + driver + "\"}, \"status\": \"ENDED\"}"))
+                    .andExpect(status().isOk());
+        }
+
+        withinTransaction(() -> {
+            BenchmarkRun benchmarkRun = benchmarkRunRepo.findByUniqueNameAndSequenceId(benchmarkName, benchmarkSequenceId);
+            assertThat(benchmarkRun.getStatus()).isEqualTo(Status.ENDED);
+            // measurements declared additive are added up, the others are merged by taking the maximum
+            assertThat(benchmarkRun.getMeasurements())
+                    .extracting("name", "value")
+                    .containsExactlyInAnyOrder(
+                            tuple("throughput", 20.0),
+                            tuple("timed_out_queries", 3.0),
+                            tuple("throughput_excluding_timeouts", 17.0),
+                            tuple("latency_max", 200.0));
+        });
+    }
+
+    @Test
+    public void testExecutionsBatch()
+            throws Exception
+    {
+        String environmentName = "environmentName";
+        String benchmarkName = "batchedBenchmark";
+        String benchmarkSequenceId = "benchmarkSequenceId";
+
+        mvc.perform(post("/v1/environment/{environmentName}", environmentName)
+                .contentType(APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(post("/v1/benchmark/{benchmarkName}/{benchmarkSequenceId}/start", benchmarkName, benchmarkSequenceId)
+                .contentType(APPLICATION_JSON)
+                .content("{\"name\": \"" + benchmarkName + "\",\"environmentName\": \"" + environmentName + "\"}"))
+                .andExpect(status().isOk());
+
+        // execution 0 was started separately, execution 1 is created by the batch
+        mvc.perform(post("/v1/benchmark/{benchmarkName}/{benchmarkSequenceId}/execution/{executionSequenceId}/start", benchmarkName, benchmarkSequenceId, "0")
+                .contentType(APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isOk());
+
+        Instant startTime = Instant.now();
+        mvc.perform(post("/v1/benchmark/{benchmarkName}/{benchmarkSequenceId}/executions:batch", benchmarkName, benchmarkSequenceId)
+                .contentType(APPLICATION_JSON)
+                .content("{\"executions\": [" +
+                        "{\"sequenceId\": \"0\", \"finish\": {\"measurements\":[{\"name\": \"duration\", \"value\": 10.0, \"unit\": \"MILLISECONDS\"}], \"status\": \"ENDED\"}}," +
+                        "{\"sequenceId\": \"1\", \"startTime\": " + toJsonRepresentation(startTime) + ", " +
+                        "\"finish\": {\"measurements\":[{\"name\": \"duration\", \"value\": 20.0, \"unit\": \"MILLISECONDS\"}], \"status\": \"FAILED\"," +
+                        "\"attributes\": {\"failureMessage\": \"failure\"}}}" +
+                        "]}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(post("/v1/benchmark/{benchmarkName}/{benchmarkSequenceId}/finish", benchmarkName, benchmarkSequenceId)
+                .contentType(APPLICATION_JSON)
+                .content("{\"measurements\":[], \"status\": \"ENDED\"}"))
+                .andExpect(status().isOk());
+
+        // already finished execution 0 is skipped, execution 2 reported after the benchmark finished is aggregated
+        mvc.perform(post("/v1/benchmark/{benchmarkName}/{benchmarkSequenceId}/executions:batch", benchmarkName, benchmarkSequenceId)
+                .contentType(APPLICATION_JSON)
+                .content("{\"executions\": [" +
+                        "{\"sequenceId\": \"0\", \"finish\": {\"measurements\":[{\"name\": \"duration\", \"value\": 90.0, \"unit\": \"MILLISECONDS\"}], \"status\": \"ENDED\"}}," +
+                        "{\"sequenceId\": \"2\", \"finish\": {\"measurements\":[{\"name\": \"duration\", \"value\": 30.0, \"unit\": \"MILLISECONDS\"}], \"status\": \"ENDED\"}}" +
+                        "]}"))
+                .andExpect(status().isOk());
+
+        withinTransaction(() -> {
+            BenchmarkRun benchmarkRun = benchmarkRunRepo.findByUniqueNameAndSequenceId(benchmarkName, benchmarkSequenceId);
+            assertThat(benchmarkRun.getExecutions())
+                    .extracting("sequenceId", "status")
+                    .containsExactlyInAnyOrder(tuple("0", Status.ENDED), tuple("1", Status.FAILED), tuple("2", Status.ENDED));
+            BenchmarkRunExecution createdExecution = benchmarkRun.getExecutions().stream()
+                    .filter(execution -> execution.getSequenceId().equals("1"))
+                    .findAny()
+                    .orElseThrow();
+            assertThat(createdExecution.getStarted().toInstant().toEpochMilli()).isEqualTo(startTime.toEpochMilli());
+            assertThat(createdExecution.getAttributes()).containsEntry("failureMessage", "failure");
+            assertThat(benchmarkRun.getAggregatedMeasurements().get("duration").getMean()).isEqualTo(20.0);
+        });
+    }
+
+    @Test
+    public void testStartTimes()
+            throws Exception
+    {
+        String environmentName = "env";
+        String benchmarkName = "startTimesBenchmark";
+        String benchmarkSequenceId = "1";
+
+        mvc.perform(post("/v1/environment/{environmentName}", environmentName)
+                .contentType(APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isOk());
+
+        // start requests reported late carry the time when the benchmark and the execution were started
+        Instant benchmarkStartTime = Instant.now().minusSeconds(60);
+        Instant executionStartTime = benchmarkStartTime.plusSeconds(1);
+        mvc.perform(post("/v1/benchmark/{benchmarkName}/{benchmarkSequenceId}/start", benchmarkName, benchmarkSequenceId)
+                .contentType(APPLICATION_JSON)
+                .content("{\"name\": \"" + benchmarkName + "\",\"environmentName\": \"" + environmentName + "\", " +
+                        "\"startTime\": " + toJsonRepresentation(benchmarkStartTime) + "}"))
+                .andExpect(status().isOk());
+        mvc.perform(post("/v1/benchmark/{benchmarkName}/{benchmarkSequenceId}/execution/{executionSequenceId}/start", benchmarkName, benchmarkSequenceId, "0")
+                .contentType(APPLICATION_JSON)
+                .content("{\"startTime\": " + toJsonRepresentation(executionStartTime) + "}"))
+                .andExpect(status().isOk());
+
+        withinTransaction(() -> {
+            BenchmarkRun benchmarkRun = benchmarkRunRepo.findByUniqueNameAndSequenceId(benchmarkName, benchmarkSequenceId);
+            assertThat(benchmarkRun.getStarted().toInstant().toEpochMilli()).isEqualTo(benchmarkStartTime.toEpochMilli());
+            assertThat(benchmarkRun.getExecutions())
+                    .extracting(execution -> execution.getStarted().toInstant().toEpochMilli())
+                    .containsExactly(executionStartTime.toEpochMilli());
+        });
+    }
+
+    @Test
+    public void testGzipRequest()
+            throws Exception
+    {
+        String environmentName = "gzipEnv";
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (GZIPOutputStream output = new GZIPOutputStream(body)) {
+            output.write("{\"attribute\": \"value\"}".getBytes(UTF_8));
+        }
+
+        mvc.perform(post("/v1/environment/{environmentName}", environmentName)
+                .contentType(APPLICATION_JSON)
+                .header(CONTENT_ENCODING, "gzip")
+                .content(body.toByteArray()))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/v1/environment/{environmentName}", environmentName))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.attributes.attribute", is("value")));
+    }
+
+    @Test
+    public void testGzipRequestTooLarge()
+            throws Exception
+    {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (GZIPOutputStream output = new GZIPOutputStream(body)) {
+            output.write(("{\"attribute\": \"" + "a".repeat(2048) + "\"}").getBytes(UTF_8));
+        }
+
+        DataSize maxDecompressedSize = (DataSize) ReflectionTestUtils.getField(gzipRequestFilter, "maxDecompressedSize");
+        ReflectionTestUtils.setField(gzipRequestFilter, "maxDecompressedSize", DataSize.ofKilobytes(1));
+        try {
+            mvc.perform(post("/v1/environment/{environmentName}", "gzipTooLargeEnv")
+                    .contentType(APPLICATION_JSON)
+                    .header(CONTENT_ENCODING, "gzip")
+                    .content(body.toByteArray()))
+                    .andExpect(status().isPayloadTooLarge());
+        }
+        finally {
+            ReflectionTestUtils.setField(gzipRequestFilter, "maxDecompressedSize", maxDecompressedSize);
+        }
+    }
+
+    @Test
+    public void testInvalidGzipRequest()
+            throws Exception
+    {
+        mvc.perform(post("/v1/environment/{environmentName}", "invalidGzipEnv")
+                .contentType(APPLICATION_JSON)
+                .header(CONTENT_ENCODING, "gzip")
+                .content("{\"attribute\": \"value\"}".getBytes(UTF_8)))
+                .andExpect(status().isBadRequest());
+    }
+
     private static String toJsonRepresentation(Instant instant)
     {
         return format("%d.%03d", instant.getEpochSecond(), instant.toEpochMilli() % 1000);
@@ -40,12 +40,17 @@ public class IntegrationTestBase
     @Autowired
     private PlatformTransactionManager transactionManager;
 
+    @Autowired
+    private GzipRequestFilter gzipRequestFilter;
+
     protected MockMvc mvc;
 
     @Before
     public void setUp()
     {
-        mvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        mvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+                .addFilters(gzipRequestFilter)
+                .build();
     }
 
     @Test